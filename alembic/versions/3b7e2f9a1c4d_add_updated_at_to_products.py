@@ -0,0 +1,35 @@
+"""add updated_at to products
+
+Revision ID: 3b7e2f9a1c4d
+Revises: c59fdf3d54e3
+Create Date: 2025-10-18 00:00:00.000000
+
+"""
+from typing import Sequence, Union
+
+from alembic import op
+import sqlalchemy as sa
+
+
+# revision identifiers, used by Alembic.
+revision: str = '3b7e2f9a1c4d'
+down_revision: Union[str, None] = 'c59fdf3d54e3'
+branch_labels: Union[str, Sequence[str], None] = None
+depends_on: Union[str, Sequence[str], None] = None
+
+
+def upgrade() -> None:
+    """Upgrade schema."""
+    # db_schema.sql ya crea la columna; solo se añade si falta
+    inspector = sa.inspect(op.get_bind())
+    columns = [column['name'] for column in inspector.get_columns('products')]
+    if 'updated_at' not in columns:
+        op.add_column('products', sa.Column('updated_at', sa.DateTime(), nullable=True))
+        op.execute("UPDATE products SET updated_at = COALESCE(created_at, NOW())")
+    op.create_index('idx_products_updated_at', 'products', ['updated_at'], unique=False, if_not_exists=True)
+
+
+def downgrade() -> None:
+    """Downgrade schema."""
+    op.drop_index('idx_products_updated_at', table_name='products', if_exists=True)
+    op.drop_column('products', 'updated_at')
@@ -0,0 +1,35 @@
+"""add idempotency_key to products
+
+Revision ID: 5e8a1f3c7b92
+Revises: 7c2d9e4b5a61
+Create Date: 2025-10-18 00:00:00.000000
+
+"""
+from typing import Sequence, Union
+
+from alembic import op
+import sqlalchemy as sa
+
+
+# revision identifiers, used by Alembic.
+revision: str = '5e8a1f3c7b92'
+down_revision: Union[str, None] = '7c2d9e4b5a61'
+branch_labels: Union[str, Sequence[str], None] = None
+depends_on: Union[str, Sequence[str], None] = None
+
+
+def upgrade() -> None:
+    """Upgrade schema."""
+    # db_schema.sql ya crea la columna; solo se añade si falta
+    inspector = sa.inspect(op.get_bind())
+    columns = [column['name'] for column in inspector.get_columns('products')]
+    if 'idempotency_key' not in columns:
+        op.add_column('products', sa.Column('idempotency_key', sa.Text(), nullable=True))
+    op.create_index('idx_products_idempotency_key', 'products', ['idempotency_key'],
+                    unique=True, if_not_exists=True)
+
+
+def downgrade() -> None:
+    """Downgrade schema."""
+    op.drop_index('idx_products_idempotency_key', table_name='products', if_exists=True)
+    op.drop_column('products', 'idempotency_key')
@@ -0,0 +1,32 @@
+"""add visibility_key to products
+
+Revision ID: a4c9e2d7f1b3
+Revises: 5e8a1f3c7b92
+Create Date: 2025-10-18 00:00:00.000000
+
+"""
+from typing import Sequence, Union
+
+from alembic import op
+import sqlalchemy as sa
+
+
+# revision identifiers, used by Alembic.
+revision: str = 'a4c9e2d7f1b3'
+down_revision: Union[str, None] = '5e8a1f3c7b92'
+branch_labels: Union[str, Sequence[str], None] = None
+depends_on: Union[str, Sequence[str], None] = None
+
+
+def upgrade() -> None:
+    """Upgrade schema."""
+    # db_schema.sql ya crea la columna; solo se añade si falta
+    inspector = sa.inspect(op.get_bind())
+    columns = [column['name'] for column in inspector.get_columns('products')]
+    if 'visibility_key' not in columns:
+        op.add_column('products', sa.Column('visibility_key', sa.Text(), nullable=True))
+
+
+def downgrade() -> None:
+    """Downgrade schema."""
+    op.drop_column('products', 'visibility_key')
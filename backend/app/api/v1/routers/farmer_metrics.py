@@ -1,8 +1,12 @@
 from datetime import datetime, timedelta
-from fastapi import APIRouter, Depends, HTTPException, Query
+from fastapi import APIRouter, Depends, Header, HTTPException, Query, Request
+from fastapi.concurrency import run_in_threadpool
+from fastapi.responses import StreamingResponse
 from sqlalchemy.orm import Session
 from sqlalchemy import func, and_, or_
 from typing import List, Optional, Dict, Any
+import asyncio
+import json
 import logging
 
 from backend.app import schemas, database, models
@@ -14,6 +18,12 @@ logger = logging.getLogger(__name__)
 
 router = APIRouter(prefix="/farmer-metrics", tags=["Farmer Metrics"])
 
+# Stream de novedades (SSE)
+STREAM_POLL_SECONDS = 2
+STREAM_HEARTBEAT_SECONDS = 15
+STREAM_RETRY_MS = 3000
+STREAM_BATCH_LIMIT = 500
+
 @router.get("/dashboard/{farmer_id}")
 def get_farmer_dashboard(
     farmer_id: int,
@@ -99,49 +109,12 @@ def get_farmer_dashboard(
     # Obtener datos por zona
     zones_data = []
     for zone in zones:
-        zone_sensors = [s for s in sensors if s.zone_id == zone.id]
-        zone_sensor_ids = [s.id for s in zone_sensors]
+        zone_sensor_ids = [s.id for s in sensors if s.zone_id == zone.id]
         
         # Lecturas de la zona
         zone_readings = [r for r in recent_readings if r.sensor_id in zone_sensor_ids]
         
-        # Sensores online en la zona
-        zone_online = db.query(models.Sensor.id).join(models.SensorReading).filter(
-            models.Sensor.id.in_(zone_sensor_ids),
-            models.SensorReading.created_at >= two_hours_ago
-        ).distinct().count()
-        
-        # Alertas de la zona
-        zone_alerts = db.query(models.SensorAlert).filter(
-            models.SensorAlert.sensor_id.in_(zone_sensor_ids),
-            models.SensorAlert.status == models.AlertStatusEnum.active
-        ).count()
-        
-        # Calcular promedios ambientales por zona
-        zone_temperatures = [r.temperature for r in zone_readings if r.temperature is not None]
-        zone_humidities = [r.humidity for r in zone_readings if r.humidity is not None]
-        zone_soil_moistures = [r.soil_moisture for r in zone_readings if r.soil_moisture is not None]
-        
-        zone_avg_temperature = sum(zone_temperatures) / len(zone_temperatures) if zone_temperatures else 0
-        zone_avg_humidity = sum(zone_humidities) / len(zone_humidities) if zone_humidities else 0
-        zone_avg_soil_moisture = sum(zone_soil_moistures) / len(zone_soil_moistures) if zone_soil_moistures else 0
-        
-        zones_data.append({
-            "zone_id": zone.id,
-            "zone_name": zone.name,
-            "description": zone.description,
-            "total_sensors": len(zone_sensors),
-            "online_sensors": zone_online,
-            "offline_sensors": len(zone_sensors) - zone_online,
-            "active_alerts": zone_alerts,
-            "avg_temperature": round(zone_avg_temperature, 2),
-            "avg_humidity": round(zone_avg_humidity, 2),
-            "avg_soil_moisture": round(zone_avg_soil_moisture, 2),
-            "location": {
-                "lat": zone.location_lat,
-                "lon": zone.location_lon
-            }
-        })
+        zones_data.append(_zone_summary(db, zone, zone_sensor_ids, zone_readings, two_hours_ago))
     
     return {
         "farmer_id": farmer_id,
@@ -159,6 +132,203 @@ def get_farmer_dashboard(
         }
     }
 
+def _zone_summary(db, zone, zone_sensor_ids, zone_readings, two_hours_ago):
+    """Resumen de una zona tal como aparece en el dashboard."""
+    # Sensores online en la zona
+    zone_online = db.query(models.Sensor.id).join(models.SensorReading).filter(
+        models.Sensor.id.in_(zone_sensor_ids),
+        models.SensorReading.created_at >= two_hours_ago
+    ).distinct().count()
+    
+    # Alertas de la zona
+    zone_alerts = db.query(models.SensorAlert).filter(
+        models.SensorAlert.sensor_id.in_(zone_sensor_ids),
+        models.SensorAlert.status == models.AlertStatusEnum.active
+    ).count()
+    
+    # Calcular promedios ambientales por zona
+    zone_temperatures = [r.temperature for r in zone_readings if r.temperature is not None]
+    zone_humidities = [r.humidity for r in zone_readings if r.humidity is not None]
+    zone_soil_moistures = [r.soil_moisture for r in zone_readings if r.soil_moisture is not None]
+    
+    zone_avg_temperature = sum(zone_temperatures) / len(zone_temperatures) if zone_temperatures else 0
+    zone_avg_humidity = sum(zone_humidities) / len(zone_humidities) if zone_humidities else 0
+    zone_avg_soil_moisture = sum(zone_soil_moistures) / len(zone_soil_moistures) if zone_soil_moistures else 0
+    
+    return {
+        "zone_id": zone.id,
+        "zone_name": zone.name,
+        "description": zone.description,
+        "total_sensors": len(zone_sensor_ids),
+        "online_sensors": zone_online,
+        "offline_sensors": len(zone_sensor_ids) - zone_online,
+        "active_alerts": zone_alerts,
+        "avg_temperature": round(zone_avg_temperature, 2),
+        "avg_humidity": round(zone_avg_humidity, 2),
+        "avg_soil_moisture": round(zone_avg_soil_moisture, 2),
+        "location": {
+            "lat": zone.location_lat,
+            "lon": zone.location_lon
+        }
+    }
+
+
+def _parse_stream_cursor(event_id):
+    """Cursor '<última lectura>:<última alerta>' de Last-Event-ID, o None si no es válido."""
+    try:
+        reading_id, alert_id = event_id.split(":")
+        return int(reading_id), int(alert_id)
+    except (AttributeError, ValueError):
+        return None
+
+
+def _sse_event(event, event_id, payload):
+    return f"event: {event}\nid: {event_id}\ndata: {json.dumps(payload)}\n\n"
+
+
+def _reading_payload(reading):
+    return {
+        "id": reading.id,
+        "sensor_id": reading.sensor_id,
+        "temperature": reading.temperature,
+        "humidity": reading.humidity,
+        "gas_level": reading.gas_level,
+        "light_level": reading.light_level,
+        "shock_detected": reading.shock_detected,
+        "soil_moisture": reading.soil_moisture,
+        "ph_level": reading.ph_level,
+        "reading_quality": reading.reading_quality,
+        "created_at": reading.created_at.isoformat() if reading.created_at else None
+    }
+
+
+def _alert_payload(alert):
+    return {
+        "id": alert.id,
+        "sensor_id": alert.sensor_id,
+        "alert_type": alert.alert_type.value,
+        "status": alert.status.value,
+        "severity": alert.severity,
+        "title": alert.title,
+        "message": alert.message,
+        "threshold_value": alert.threshold_value,
+        "actual_value": alert.actual_value,
+        "unit": alert.unit,
+        "created_at": alert.created_at.isoformat() if alert.created_at else None
+    }
+
+
+def _stream_batch(farmer_id, reading_id, alert_id):
+    """Lecturas y alertas nuevas del farmer y resumen de las zonas que han cambiado."""
+    db = database.SessionLocal()
+    try:
+        sensors = db.query(models.Sensor).join(models.SensorZone).filter(
+            models.SensorZone.farmer_id == farmer_id,
+            models.SensorZone.is_active == True
+        ).all()
+        if not sensors:
+            return [], [], []
+        sensor_ids = [sensor.id for sensor in sensors]
+        zone_of = {sensor.id: sensor.zone_id for sensor in sensors}
+        
+        readings = db.query(models.SensorReading).filter(
+            models.SensorReading.sensor_id.in_(sensor_ids),
+            models.SensorReading.id > reading_id
+        ).order_by(models.SensorReading.id).limit(STREAM_BATCH_LIMIT).all()
+        alerts = db.query(models.SensorAlert).filter(
+            models.SensorAlert.sensor_id.in_(sensor_ids),
+            models.SensorAlert.id > alert_id
+        ).order_by(models.SensorAlert.id).limit(STREAM_BATCH_LIMIT).all()
+        
+        changed_zone_ids = {zone_of[r.sensor_id] for r in readings} | {zone_of[a.sensor_id] for a in alerts}
+        zones_data = []
+        if changed_zone_ids:
+            two_hours_ago = datetime.utcnow() - timedelta(hours=2)
+            one_day_ago = datetime.utcnow() - timedelta(days=1)
+            zones = db.query(models.SensorZone).filter(models.SensorZone.id.in_(changed_zone_ids)).all()
+            for zone in zones:
+                zone_sensor_ids = [s.id for s in sensors if s.zone_id == zone.id]
+                zone_readings = db.query(models.SensorReading).filter(
+                    models.SensorReading.sensor_id.in_(zone_sensor_ids),
+                    models.SensorReading.created_at >= one_day_ago
+                ).all()
+                zones_data.append(_zone_summary(db, zone, zone_sensor_ids, zone_readings, two_hours_ago))
+        
+        return ([_reading_payload(r) for r in readings],
+                [_alert_payload(a) for a in alerts],
+                zones_data)
+    finally:
+        db.close()
+
+
+@router.get("/stream/{farmer_id}")
+def stream_farmer_deltas(
+    farmer_id: int,
+    request: Request,
+    last_event_id: Optional[str] = Header(None, alias="Last-Event-ID"),
+    db: Session = Depends(get_db)
+):
+    """
+    Server-Sent Events con las novedades del farmer: lecturas ('reading'), alertas
+    ('alert') y el resumen de cada zona afectada ('zone', mismo formato que en el
+    dashboard). El id de cada evento es '<última lectura>:<última alerta>'; al
+    reconectar con Last-Event-ID se reanuda desde ese punto.
+
+    El generador es asíncrono: entre consultas espera en el event loop y solo ocupa
+    un hilo del pool mientras consulta la base de datos, así que las conexiones
+    abiertas no agotan los hilos de las rutas síncronas. Termina cuando el cliente
+    se desconecta.
+    """
+    farmer = db.query(models.User).filter(
+        models.User.id == farmer_id,
+        models.User.role == UserRoleEnum.farmer
+    ).first()
+    
+    if not farmer:
+        raise HTTPException(status_code=404, detail="Farmer no encontrado")
+    
+    cursor = _parse_stream_cursor(last_event_id)
+    if cursor is None:
+        # Sin cursor solo interesa lo que llegue a partir de ahora
+        cursor = (
+            db.query(func.max(models.SensorReading.id)).scalar() or 0,
+            db.query(func.max(models.SensorAlert.id)).scalar() or 0
+        )
+    
+    async def events():
+        reading_id, alert_id = cursor
+        idle_seconds = 0
+        yield f"retry: {STREAM_RETRY_MS}\n\n"
+        while not await request.is_disconnected():
+            readings, alerts, zones_data = await run_in_threadpool(
+                _stream_batch, farmer_id, reading_id, alert_id
+            )
+            for reading in readings:
+                reading_id = reading["id"]
+                yield _sse_event("reading", f"{reading_id}:{alert_id}", reading)
+            for alert in alerts:
+                alert_id = alert["id"]
+                yield _sse_event("alert", f"{reading_id}:{alert_id}", alert)
+            for zone_data in zones_data:
+                yield _sse_event("zone", f"{reading_id}:{alert_id}", zone_data)
+            
+            if readings or alerts:
+                idle_seconds = 0
+            else:
+                idle_seconds += STREAM_POLL_SECONDS
+                if idle_seconds >= STREAM_HEARTBEAT_SECONDS:
+                    # Comentario SSE: mantiene viva la conexión a través de proxies
+                    idle_seconds = 0
+                    yield ": ping\n\n"
+            await asyncio.sleep(STREAM_POLL_SECONDS)
+    
+    return StreamingResponse(
+        events(),
+        media_type="text/event-stream",
+        headers={"Cache-Control": "no-cache", "X-Accel-Buffering": "no"}
+    )
+
+
 @router.get("/zones/{zone_id}/statistics")
 def get_zone_statistics(
     zone_id: int,
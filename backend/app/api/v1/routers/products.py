@@ -1,4 +1,4 @@
-from fastapi import APIRouter, Depends, HTTPException, Body, UploadFile, File, Form, status, Request
+from fastapi import APIRouter, Depends, HTTPException, Body, UploadFile, File, Form, Header, Query, status, Request
 from sqlalchemy.exc import IntegrityError
 from sqlalchemy.orm import Session
 from sqlalchemy import text
@@ -6,6 +6,9 @@ from geopy.distance import geodesic
 import os
 import logging
 import json
+import uuid
+from datetime import datetime
+from typing import Optional
 
 from backend.app import schemas, database, models
 from backend.app.algorithms.traceability_service import TraceabilityService
@@ -16,6 +19,22 @@ from backend.app.algorithms.optimize_products import sort_products_by_priority,
 
 router = APIRouter(prefix="/products", tags=["Products"])
 
+
+def _existing_product(db: Session, provider_id: int, idempotency_key: Optional[str]):
+    """Producto ya creado con esta clave"""
+    if not idempotency_key:
+        return None
+    db_product = db.query(models.Product).filter(
+        models.Product.idempotency_key == idempotency_key
+    ).first()
+    if db_product and db_product.provider_id != provider_id:
+        raise HTTPException(
+            status_code=status.HTTP_409_CONFLICT,
+            detail="Clave de idempotencia usada por otro productor"
+        )
+    return db_product
+
+
 @router.post("/", response_model=schemas.ProductRead)
 def create_product(product: schemas.ProductCreate, db: Session = Depends(database.get_db)):
     db_product = models.Product(**product.dict())
@@ -47,9 +66,18 @@ async def create_product_with_image(
     expiration_date: str = Form(None),
     is_eco: str = Form("false"),
     image: UploadFile = File(None),
+    idempotency_key: Optional[str] = Header(None, alias="Idempotency-Key", max_length=64),
     db: Session = Depends(database.get_db)
 ):
-    """Crear producto con imagen opcional"""
+    """Crear producto con imagen opcional
+
+    Con la cabecera Idempotency-Key, repetir la petición (p. ej. un reintento tras
+    perder la respuesta) devuelve el producto ya creado en lugar de crear otro.
+    """
+    # Reintento de un producto ya creado: ni se guarda la imagen otra vez
+    existing = _existing_product(db, provider_id, idempotency_key)
+    if existing:
+        return existing
     try:
         print(f"=== DEBUG: Datos recibidos ===")
         print(f"name: '{name}' (tipo: {type(name)})")
@@ -73,7 +101,7 @@ async def create_product_with_image(
             
             # Generar nombre único para la imagen
             file_extension = os.path.splitext(image.filename)[1] if image.filename else ".jpg"
-            filename = f"product_{provider_id}_{name.replace(' ', '_')}{file_extension}"
+            filename = f"product_{provider_id}_{name.replace(' ', '_')}_{uuid.uuid4().hex[:12]}{file_extension}"
             file_path = os.path.join("media", filename)
             
             # Guardar imagen
@@ -158,6 +186,7 @@ async def create_product_with_image(
         
         # Filtrar valores None (excepto los campos requeridos)
         product_data = {k: v for k, v in processed_data.items() if v is not None or k in ["name", "provider_id"]}
+        product_data["idempotency_key"] = idempotency_key
         print(f"=== DEBUG: Datos finales para crear producto ===")
         print(f"product_data: {product_data}")
         print(f"===============================")
@@ -189,6 +218,12 @@ async def create_product_with_image(
             print(f"Error en commit: {commit_error}")
             db.rollback()
             
+            # Una petición concurrente con la misma clave ya creó el producto
+            if isinstance(commit_error, IntegrityError):
+                existing = _existing_product(db, provider_id, idempotency_key)
+                if existing:
+                    return existing
+            
             # Si es un error de secuencia, corregir y reintentar
             if "duplicate key value violates unique constraint" in str(commit_error):
                 print("=== Corrigiendo secuencia de products ===")
@@ -228,6 +263,8 @@ async def create_product_with_image(
             
             raise commit_error
         
+    except HTTPException:
+        raise
     except Exception as e:
         print(f"=== DEBUG: ERROR CAPTURADO ===")
         print(f"Tipo de error: {type(e)}")
@@ -253,12 +290,19 @@ def get_all_products(
     db: Session = Depends(database.get_db),
     search: str = None,
     provider_role: str = None,
-    available_only: bool = True
+    available_only: bool = True,
+    updated_since: datetime = None,
+    offset: int = Query(0, ge=0),
+    limit: Optional[int] = Query(None, ge=1, le=1000)
 ):
     query = db.query(models.Product)
     
+    # Sincronización incremental: devolver solo lo modificado desde la marca del cliente,
+    # incluidos los productos sin stock para que el cliente pueda retirarlos
+    if updated_since:
+        query = query.filter(models.Product.updated_at > updated_since)
     # Filtrar solo productos disponibles (con stock > 0)
-    if available_only:
+    elif available_only:
         query = query.filter(models.Product.stock_available > 0)
     
     if search:
@@ -268,7 +312,11 @@ def get_all_products(
         )
     if provider_role:
         query = query.join(models.User).filter(models.User.role == provider_role)
-    
+
+    # Paginación opcional: orden por fecha de alta e id (desempate) para que las páginas no se solapen
+    if limit is not None:
+        query = query.order_by(models.Product.created_at, models.Product.id).offset(offset).limit(limit)
+
     return query.all()
 
 @router.get("/{product_id}", response_model=schemas.ProductRead)
@@ -350,6 +398,30 @@ def toggle_product_hidden(product_id: int, db: Session = Depends(database.get_db
     db.refresh(product)
     return {"message": f"Product {'hidden' if product.is_hidden else 'visible'}", "is_hidden": product.is_hidden}
 
+@router.patch("/{product_id}/visibility")
+def set_product_hidden(
+    product_id: int,
+    visibility: schemas.ProductVisibilityUpdate,
+    idempotency_key: Optional[str] = Header(None, alias="Idempotency-Key", max_length=64),
+    db: Session = Depends(database.get_db)
+):
+    """Fijar la visibilidad del producto
+
+    A diferencia de toggle-hidden, indica el estado final, así que repetir la petición
+    no la deshace. Con la cabecera Idempotency-Key, un reintento del último cambio ya
+    aplicado no vuelve a escribir (ni mueve updated_at).
+    """
+    product = db.query(models.Product).get(product_id)
+    if not product:
+        raise HTTPException(status_code=404, detail="Product not found")
+
+    if not (idempotency_key and product.visibility_key == idempotency_key):
+        product.is_hidden = visibility.is_hidden
+        product.visibility_key = idempotency_key
+        db.commit()
+        db.refresh(product)
+    return {"message": f"Product {'hidden' if product.is_hidden else 'visible'}", "is_hidden": product.is_hidden}
+
 @router.patch("/{product_id}/image", response_model=schemas.ProductRead)
 async def update_product_image(
     product_id: int,
@@ -369,7 +441,8 @@ async def update_product_image(
             
             # Generar nombre único para la imagen
             file_extension = os.path.splitext(image.filename)[1] if image.filename else ".jpg"
-            filename = f"product_{product.provider_id}_{product.name.replace(' ', '_')}_{product_id}{file_extension}"
+            # Cada subida tiene su propio nombre: los clientes cachean la imagen por URL
+            filename = f"product_{product.provider_id}_{product.name.replace(' ', '_')}_{product_id}_{uuid.uuid4().hex[:12]}{file_extension}"
             file_path = os.path.join("media", filename)
             
             # Guardar nueva imagen
@@ -378,9 +451,18 @@ async def update_product_image(
                 buffer.write(content)
             
             # Actualizar URL de imagen en la base de datos
+            old_image_url = product.image_url
             product.image_url = f"/media/{filename}"
+            product.updated_at = datetime.utcnow()
             db.commit()
             db.refresh(product)
+
+            # Borrar la imagen anterior, que ya no referencia nadie
+            if old_image_url and old_image_url.startswith("/media/"):
+                try:
+                    os.remove(os.path.join("media", os.path.basename(old_image_url)))
+                except OSError:
+                    pass
             
             return product
         
@@ -392,10 +474,12 @@ async def update_product_image(
 
 
 @router.get("/farmer/{farmer_id}", response_model=list[schemas.ProductRead])
-def get_farmer_products(farmer_id: int, db: Session = Depends(database.get_db)):
+def get_farmer_products(farmer_id: int, updated_since: datetime = None, db: Session = Depends(database.get_db)):
     """Obtener todos los productos de un agricultor (incluyendo ocultos)"""
-    products = db.query(models.Product).filter(models.Product.provider_id == farmer_id).all()
-    return products
+    query = db.query(models.Product).filter(models.Product.provider_id == farmer_id)
+    if updated_since:
+        query = query.filter(models.Product.updated_at > updated_since)
+    return query.all()
 
 
 @router.post("/optimized/", response_model=list[ProductOptimizedResponse])
@@ -1,8 +1,9 @@
-from fastapi import APIRouter, Depends, HTTPException, status
+from fastapi import APIRouter, Depends, Header, HTTPException, Query, status
 from sqlalchemy.orm import Session
 from sqlalchemy import and_
+from sqlalchemy.exc import IntegrityError
 from datetime import datetime
-from typing import List
+from typing import List, Optional
 
 from backend.app import schemas, database, models
 from backend.app.database import get_db
@@ -11,18 +12,47 @@ from backend.app.models.transaction import TransactionStatusEnum
 router = APIRouter(prefix="/transactions", tags=["Transactions"])
 
 
+def _existing_order(db: Session, buyer_id: int, idempotency_key: Optional[str]):
+    """Pedido ya creado con esta clave, con los nombres de comprador y vendedor"""
+    if not idempotency_key:
+        return None
+    db_tx = db.query(models.Transaction).filter(
+        models.Transaction.idempotency_key == idempotency_key
+    ).first()
+    if not db_tx:
+        return None
+    if db_tx.buyer_id != buyer_id:
+        raise HTTPException(
+            status_code=status.HTTP_409_CONFLICT,
+            detail="Clave de idempotencia usada por otro comprador"
+        )
+    response_data = db_tx.__dict__.copy()
+    response_data['seller_name'] = db_tx.seller.name if db_tx.seller else None
+    response_data['buyer_name'] = db_tx.buyer.name if db_tx.buyer else None
+    return response_data
+
+
 @router.post("/create-order", response_model=schemas.TransactionOut)
 def create_order_from_cart(
     order_data: schemas.TransactionCreate,
     buyer_id: int,
     buyer_type: str,
+    idempotency_key: Optional[str] = Header(None, alias="Idempotency-Key", max_length=64),
     db: Session = Depends(get_db)
 ):
     """
     Crea una transacción desde el carrito (supermercado o consumidor).
     Valida stock del vendedor y crea el pedido.
+
+    Con la cabecera Idempotency-Key, repetir la petición (reintento o doble pulsación)
+    devuelve el pedido ya creado en lugar de crear otro y volver a descontar stock.
     """
     try:
+        # 0. Reintento de un pedido ya creado
+        existing = _existing_order(db, buyer_id, idempotency_key)
+        if existing:
+            return existing
+
         # 1. Validar que el comprador existe
         buyer = db.query(models.User).filter(
             and_(models.User.id == buyer_id, models.User.role == buyer_type)
@@ -77,19 +107,29 @@ def create_order_from_cart(
             currency=order_data.currency,
             status=TransactionStatusEnum.in_progress,
             order_details=[item.dict() for item in order_data.order_details],
-            created_at=datetime.utcnow()
+            created_at=datetime.utcnow(),
+            idempotency_key=idempotency_key
         )
-        db.add(db_tx)
-        db.flush()  # Para obtener el ID de la transacción
-
-        # 5. Actualizar stock del vendedor (reservar productos)
-        for product, quantity in products_to_update:
-            product.stock_available -= quantity
-            if product.stock_available < 0:
-                product.stock_available = 0
-
-        # 6. Confirmar todos los cambios
-        db.commit()
+        # Una petición concurrente con la misma clave choca con el índice único al
+        # insertar (flush) o al confirmar: en ambos casos se devuelve su pedido
+        try:
+            db.add(db_tx)
+            db.flush()  # Para obtener el ID de la transacción
+
+            # 5. Actualizar stock del vendedor (reservar productos)
+            for product, quantity in products_to_update:
+                product.stock_available -= quantity
+                if product.stock_available < 0:
+                    product.stock_available = 0
+
+            # 6. Confirmar todos los cambios
+            db.commit()
+        except IntegrityError:
+            db.rollback()
+            existing = _existing_order(db, buyer_id, idempotency_key)
+            if existing:
+                return existing
+            raise
         db.refresh(db_tx)
 
         # 7. Agregar información adicional para la respuesta
@@ -110,21 +150,26 @@ def create_order_from_cart(
         )
 
 
-@router.get("/buyer/{buyer_id}/{buyer_type}", response_model=List[schemas.TransactionOut])
-def get_buyer_orders(buyer_id: int, buyer_type: str, db: Session = Depends(get_db)):
-    """Obtener todas las transacciones de un comprador (supermercado o consumidor)"""
-    transactions = db.query(models.Transaction).filter(
-        and_(
-            models.Transaction.buyer_id == buyer_id,
-            models.Transaction.buyer_type == buyer_type
-        )
-    ).order_by(models.Transaction.created_at.desc()).all()
-    
-    # Agregar información adicional
+def _paginate(query, offset: int, limit: Optional[int]):
+    """Aplica offset/limit con un orden estable (más recientes primero, id como desempate)"""
+    query = query.order_by(models.Transaction.created_at.desc(), models.Transaction.id.desc())
+    if limit is not None:
+        query = query.offset(offset).limit(limit)
+    return query
+
+
+def _serialize_transactions(transactions, db: Session):
+    """Convierte transacciones en diccionarios con los nombres de comprador y vendedor"""
+    # Cargar todos los usuarios implicados en una sola consulta
+    user_ids = {tx.seller_id for tx in transactions} | {tx.buyer_id for tx in transactions}
+    users = {}
+    if user_ids:
+        users = {u.id: u for u in db.query(models.User).filter(models.User.id.in_(user_ids)).all()}
+
     result = []
     for tx in transactions:
-        seller = db.query(models.User).filter(models.User.id == tx.seller_id).first()
-        buyer = db.query(models.User).filter(models.User.id == tx.buyer_id).first()
+        seller = users.get(tx.seller_id)
+        buyer = users.get(tx.buyer_id)
         
         # Crear diccionario con solo los campos necesarios
         # Asegurar que order_details sea siempre una lista
@@ -155,68 +200,74 @@ def get_buyer_orders(buyer_id: int, buyer_type: str, db: Session = Depends(get_d
     return result
 
 
+@router.get("/buyer/{buyer_id}/{buyer_type}", response_model=List[schemas.TransactionOut])
+def get_buyer_orders(
+    buyer_id: int,
+    buyer_type: str,
+    db: Session = Depends(get_db),
+    offset: int = Query(0, ge=0),
+    limit: Optional[int] = Query(None, ge=1, le=500),
+    status_filter: Optional[TransactionStatusEnum] = Query(None, alias="status")
+):
+    """Obtener las transacciones de un comprador (supermercado o consumidor).
+    Sin limit se devuelven todas; con limit, la página indicada por offset."""
+    query = db.query(models.Transaction).filter(
+        and_(
+            models.Transaction.buyer_id == buyer_id,
+            models.Transaction.buyer_type == buyer_type
+        )
+    )
+    if status_filter is not None:
+        query = query.filter(models.Transaction.status == status_filter)
+    transactions = _paginate(query, offset, limit).all()
+    
+    return _serialize_transactions(transactions, db)
+
+
 @router.get("/seller/{seller_id}/{seller_type}", response_model=List[schemas.TransactionOut])
-def get_seller_orders(seller_id: int, seller_type: str, db: Session = Depends(get_db)):
-    """Obtener todas las transacciones de un vendedor (agricultor o supermercado)"""
-    transactions = db.query(models.Transaction).filter(
+def get_seller_orders(
+    seller_id: int,
+    seller_type: str,
+    db: Session = Depends(get_db),
+    offset: int = Query(0, ge=0),
+    limit: Optional[int] = Query(None, ge=1, le=500),
+    status_filter: Optional[TransactionStatusEnum] = Query(None, alias="status"),
+    buyer_type: Optional[str] = None
+):
+    """Obtener las transacciones de un vendedor (agricultor o supermercado).
+    Sin limit se devuelven todas; con limit, la página indicada por offset."""
+    query = db.query(models.Transaction).filter(
         and_(
             models.Transaction.seller_id == seller_id,
             models.Transaction.seller_type == seller_type
         )
-    ).order_by(models.Transaction.created_at.desc()).all()
-    
-    # Agregar información adicional
-    result = []
-    for tx in transactions:
-        seller = db.query(models.User).filter(models.User.id == tx.seller_id).first()
-        buyer = db.query(models.User).filter(models.User.id == tx.buyer_id).first()
-        
-        # Crear diccionario con solo los campos necesarios
-        # Asegurar que order_details sea siempre una lista
-        order_details = tx.order_details
-        if isinstance(order_details, dict):
-            order_details = [] if not order_details else [order_details]
-        elif not isinstance(order_details, list):
-            order_details = []
-        
-        tx_data = {
-            'id': tx.id,
-            'buyer_id': tx.buyer_id,
-            'seller_id': tx.seller_id,
-            'buyer_type': tx.buyer_type,
-            'seller_type': tx.seller_type,
-            'total_price': float(tx.total_price) if tx.total_price else 0.0,
-            'currency': tx.currency,
-            'status': tx.status,
-            'created_at': tx.created_at,
-            'confirmed_at': tx.confirmed_at,
-            'delivered_at': tx.delivered_at,
-            'order_details': order_details,
-            'seller_name': seller.name if seller else None,
-            'buyer_name': buyer.name if buyer else None
-        }
-        result.append(tx_data)
+    )
+    if status_filter is not None:
+        query = query.filter(models.Transaction.status == status_filter)
+    if buyer_type:
+        query = query.filter(models.Transaction.buyer_type == buyer_type)
+    transactions = _paginate(query, offset, limit).all()
     
-    return result
+    return _serialize_transactions(transactions, db)
 
 
 # Endpoints específicos para mantener compatibilidad
 @router.get("/supermarket/{supermarket_id}", response_model=List[schemas.TransactionOut])
 def get_supermarket_orders(supermarket_id: int, db: Session = Depends(get_db)):
     """Obtener todas las transacciones de un supermercado (como comprador)"""
-    return get_buyer_orders(supermarket_id, "supermarket", db)
+    return get_buyer_orders(supermarket_id, "supermarket", db, 0, None, None)
 
 
 @router.get("/farmer/{farmer_id}", response_model=List[schemas.TransactionOut])
 def get_farmer_orders(farmer_id: int, db: Session = Depends(get_db)):
     """Obtener todas las transacciones de un agricultor (como vendedor)"""
-    return get_seller_orders(farmer_id, "farmer", db)
+    return get_seller_orders(farmer_id, "farmer", db, 0, None, None, None)
 
 
 @router.get("/consumer/{consumer_id}", response_model=List[schemas.TransactionOut])
 def get_consumer_orders(consumer_id: int, db: Session = Depends(get_db)):
     """Obtener todas las transacciones de un consumidor (como comprador)"""
-    return get_buyer_orders(consumer_id, "consumer", db)
+    return get_buyer_orders(consumer_id, "consumer", db, 0, None, None)
 
 
 def _validate_transaction_permissions(transaction, new_status, user_id: int, user_type: str):
@@ -671,43 +722,18 @@ def deliver_transaction(
 
 
 @router.get("/", response_model=List[schemas.TransactionOut])
-def read_transactions(db: Session = Depends(get_db)):
-    """Obtener todas las transacciones"""
-    transactions = db.query(models.Transaction).all()
-    
-    # Agregar información adicional
-    result = []
-    for tx in transactions:
-        seller = db.query(models.User).filter(models.User.id == tx.seller_id).first()
-        buyer = db.query(models.User).filter(models.User.id == tx.buyer_id).first()
-        
-        # Crear diccionario con solo los campos necesarios
-        # Asegurar que order_details sea siempre una lista
-        order_details = tx.order_details
-        if isinstance(order_details, dict):
-            order_details = [] if not order_details else [order_details]
-        elif not isinstance(order_details, list):
-            order_details = []
-        
-        tx_data = {
-            'id': tx.id,
-            'buyer_id': tx.buyer_id,
-            'seller_id': tx.seller_id,
-            'buyer_type': tx.buyer_type,
-            'seller_type': tx.seller_type,
-            'total_price': float(tx.total_price) if tx.total_price else 0.0,
-            'currency': tx.currency,
-            'status': tx.status,
-            'created_at': tx.created_at,
-            'confirmed_at': tx.confirmed_at,
-            'delivered_at': tx.delivered_at,
-            'order_details': order_details,
-            'seller_name': seller.name if seller else None,
-            'buyer_name': buyer.name if buyer else None
-        }
-        result.append(tx_data)
+def read_transactions(
+    db: Session = Depends(get_db),
+    offset: int = Query(0, ge=0),
+    limit: Optional[int] = Query(None, ge=1, le=500)
+):
+    """Obtener todas las transacciones, o una página si se indica limit"""
+    if limit is None:
+        transactions = db.query(models.Transaction).all()
+    else:
+        transactions = _paginate(db.query(models.Transaction), offset, limit).all()
     
-    return result
+    return _serialize_transactions(transactions, db)
 
 
 @router.get("/{transaction_id}", response_model=schemas.TransactionOut)
@@ -1,5 +1,7 @@
-from fastapi import FastAPI
+from fastapi import FastAPI, Request
+from fastapi.responses import Response
 from fastapi.staticfiles import StaticFiles
+import hashlib
 import os
 import logging
 from fastapi.middleware.cors import CORSMiddleware
@@ -30,6 +32,27 @@ app.add_middleware(
     allow_headers=["*"],
 )
 
+# ETag para respuestas JSON de lectura: permite al cliente Android revalidar su
+# caché HTTP con If-None-Match y recibir un 304 cuando el contenido no cambia
+@app.middleware("http")
+async def etag_middleware(request: Request, call_next):
+    response = await call_next(request)
+    if request.method != "GET" or response.status_code != 200:
+        return response
+    if not response.headers.get("content-type", "").startswith("application/json"):
+        return response
+
+    body = b"".join([chunk async for chunk in response.body_iterator])
+    etag = 'W/"' + hashlib.sha1(body).hexdigest() + '"'
+    headers = {k: v for k, v in response.headers.items() if k.lower() != "content-length"}
+    headers["ETag"] = etag
+
+    if etag in request.headers.get("if-none-match", ""):
+        headers.pop("content-type", None)
+        return Response(status_code=304, headers=headers)
+    return Response(content=body, status_code=response.status_code, headers=headers,
+                    media_type=response.media_type)
+
 # Registrar rutas
 app.include_router(auth.router)
 app.include_router(users.router)
@@ -37,6 +37,9 @@ class Product(Base):
     provider_id = Column(Integer, ForeignKey("users.id"))
     is_hidden = Column(Boolean, default=False)  # Nuevo campo para ocultar productos
     created_at = Column(DateTime, default=datetime.utcnow)
+    updated_at = Column(DateTime, default=datetime.utcnow, onupdate=datetime.utcnow)
+    idempotency_key = Column(Text, unique=True)  # Cabecera Idempotency-Key de /products/upload
+    visibility_key = Column(Text)  # Idempotency-Key del último cambio de visibilidad aplicado
 
     # Relaciones
     provider = relationship("User", back_populates="products")
@@ -24,6 +24,8 @@ class Transaction(Base):
     created_at = Column(DateTime, default=datetime.utcnow)
     confirmed_at = Column(DateTime)
     delivered_at = Column(DateTime)
+    # Clave generada por el cliente: reintentar el mismo pedido no lo duplica
+    idempotency_key = Column(Text, unique=True)
     
     # Detalles del pedido (productos y cantidades)
     order_details = Column(JSON, nullable=False)  # Lista de productos con cantidades
@@ -57,10 +57,14 @@ class ProductUpdate(BaseModel):
 class ProductRead(ProductBase):
     id: int
     created_at: datetime
+    updated_at: Optional[datetime] = None
 
     class Config:
         from_attributes = True
 
+class ProductVisibilityUpdate(BaseModel):
+    is_hidden: bool
+
 class ProductFilterRequest(BaseModel):
     search: Optional[str]
     filters: Dict[str, bool] = {} # Ej: {"eco": true, "gluten_free": false, ...}
@@ -0,0 +1,84 @@
+import os
+import sys
+
+import pytest
+
+# Settings exige estas variables al importarse; los tests usan SQLite en memoria
+for name, value in {
+    "ENVIRONMENT": "test",
+    "DATABASE_URL": "sqlite://",
+    "SECRET_KEY": "test-secret",
+    "DEBUG": "false",
+    "ALGORITHM": "HS256",
+    "ACCESS_TOKEN_EXPIRE_MINUTES": "30",
+}.items():
+    os.environ.setdefault(name, value)
+
+# Los routers importan el paquete como backend.app
+ROOT = os.path.abspath(os.path.join(os.path.dirname(__file__), "..", ".."))
+if ROOT not in sys.path:
+    sys.path.insert(0, ROOT)
+
+from fastapi import FastAPI
+from fastapi.testclient import TestClient
+from sqlalchemy import create_engine
+from sqlalchemy.orm import sessionmaker
+from sqlalchemy.pool import StaticPool
+
+from backend.app import database, models
+from backend.app.models.user import UserRoleEnum
+
+
+@pytest.fixture
+def db_engine():
+    """Base de datos nueva por test; StaticPool comparte la conexión entre sesiones"""
+    engine = create_engine(
+        "sqlite://",
+        connect_args={"check_same_thread": False},
+        poolclass=StaticPool,
+    )
+    database.Base.metadata.create_all(engine)
+    yield engine
+    engine.dispose()
+
+
+@pytest.fixture
+def db_session(db_engine):
+    session = sessionmaker(bind=db_engine, autocommit=False, autoflush=False)()
+    yield session
+    session.close()
+
+
+@pytest.fixture
+def make_client(db_engine):
+    """Cliente HTTP sobre una app con solo los routers indicados y get_db apuntando a SQLite"""
+    Session = sessionmaker(bind=db_engine, autocommit=False, autoflush=False)
+
+    def override_get_db():
+        db = Session()
+        try:
+            yield db
+        finally:
+            db.close()
+
+    def factory(*routers, overrides=None):
+        app = FastAPI()
+        for router in routers:
+            app.include_router(router)
+        app.dependency_overrides[database.get_db] = override_get_db
+        app.dependency_overrides.update(overrides or {})
+        return TestClient(app)
+
+    return factory
+
+
+def add_user(db, name, role):
+    user = models.User(
+        name=name,
+        email=f"{name.lower()}@example.com",
+        password_hash="x",
+        role=UserRoleEnum(role),
+    )
+    db.add(user)
+    db.commit()
+    return user
@@ -0,0 +1,100 @@
+import asyncio
+from datetime import datetime
+
+import pytest
+from sqlalchemy.orm import sessionmaker
+
+from backend.app import database, models
+from backend.app.api.v1.routers import farmer_metrics
+from backend.app.models.sensor import SensorTypeEnum
+from conftest import add_user
+
+
+class ReplayRequest:
+    """Cliente que sigue conectado durante un número de sondeos y luego se va"""
+
+    def __init__(self, polls):
+        self.polls = polls
+
+    async def is_disconnected(self):
+        self.polls -= 1
+        return self.polls < 0
+
+
+@pytest.fixture
+def farm(db_engine, db_session, monkeypatch):
+    # _stream_batch abre sus propias sesiones
+    monkeypatch.setattr(database, "SessionLocal", sessionmaker(bind=db_engine, autocommit=False, autoflush=False))
+    farmer = add_user(db_session, "Farmer", "farmer")
+    zone = models.SensorZone(name="Invernadero", farmer_id=farmer.id)
+    db_session.add(zone)
+    db_session.commit()
+    sensor = models.Sensor(device_id="dev-1", name="Temp", sensor_type=SensorTypeEnum.temperature, zone_id=zone.id)
+    db_session.add(sensor)
+    db_session.commit()
+    return farmer, sensor
+
+
+def _replay(db_session, sensor, temperatures, monkeypatch):
+    """Cada espera entre sondeos inserta la siguiente lectura grabada"""
+    pending = list(temperatures)
+    sleeps = []
+
+    async def fake_sleep(seconds):
+        sleeps.append(seconds)
+        if pending:
+            db_session.add(models.SensorReading(
+                sensor_id=sensor.id, temperature=pending.pop(0), created_at=datetime.utcnow()
+            ))
+            db_session.commit()
+
+    monkeypatch.setattr(farmer_metrics.asyncio, "sleep", fake_sleep)
+    return sleeps
+
+
+def _collect(response):
+    async def read():
+        return [chunk async for chunk in response.body_iterator]
+    return asyncio.run(read())
+
+
+def test_stream_replays_new_readings_and_stops_on_disconnect(farm, db_session, monkeypatch):
+    farmer, sensor = farm
+    sleeps = _replay(db_session, sensor, [20.5, 21.0, 21.5], monkeypatch)
+
+    response = farmer_metrics.stream_farmer_deltas(
+        farmer.id, ReplayRequest(polls=4), last_event_id=None, db=db_session
+    )
+    chunks = _collect(response)
+
+    readings = [c for c in chunks if c.startswith("event: reading")]
+    zones = [c for c in chunks if c.startswith("event: zone")]
+    assert chunks[0].startswith("retry:")
+    assert len(readings) == 3
+    assert '"temperature": 21.5' in readings[-1]
+    assert len(zones) == 3
+    # Cuatro sondeos y fin: el generador no sigue tras la desconexión
+    assert len(sleeps) == 4
+
+
+def test_stream_resumes_from_last_event_id(farm, db_session, monkeypatch):
+    farmer, sensor = farm
+    for temperature in (18.0, 19.0):
+        db_session.add(models.SensorReading(sensor_id=sensor.id, temperature=temperature))
+    db_session.commit()
+    first_id = db_session.query(models.SensorReading.id).order_by(models.SensorReading.id).first()[0]
+    _replay(db_session, sensor, [], monkeypatch)
+
+    response = farmer_metrics.stream_farmer_deltas(
+        farmer.id, ReplayRequest(polls=1), last_event_id=f"{first_id}:0", db=db_session
+    )
+    readings = [c for c in _collect(response) if c.startswith("event: reading")]
+
+    assert len(readings) == 1
+    assert '"temperature": 19.0' in readings[0]
+
+
+def test_unknown_farmer_is_404(db_session):
+    with pytest.raises(farmer_metrics.HTTPException) as error:
+        farmer_metrics.stream_farmer_deltas(999, ReplayRequest(polls=0), last_event_id=None, db=db_session)
+    assert error.value.status_code == 404
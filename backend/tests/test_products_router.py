@@ -0,0 +1,196 @@
+from datetime import datetime, timedelta
+
+import pytest
+
+from backend.app import models
+from backend.app.api.v1.routers import products
+from conftest import add_user
+
+
+@pytest.fixture
+def farmer(db_session):
+    return add_user(db_session, "Farmer", "farmer")
+
+
+CATALOG_ROWS = 50_000
+
+
+@pytest.fixture
+def catalog(db_session, farmer):
+    """50k productos en bloque; created_at se repite y no sigue el orden de id"""
+    base = datetime(2025, 1, 1)
+    rows = [
+        {
+            "name": f"Producto {i}",
+            "price": 1 + i % 20,
+            "stock_available": 10,
+            "provider_id": farmer.id,
+            "is_hidden": False,
+            "created_at": base + timedelta(minutes=(i * 7919) % 500),
+        }
+        for i in range(CATALOG_ROWS)
+    ]
+    db_session.execute(models.Product.__table__.insert(), rows)
+    db_session.commit()
+    ordered = db_session.query(models.Product.id).order_by(models.Product.created_at, models.Product.id)
+    return [row.id for row in ordered]
+
+
+def _upload(client, provider, key=None, name="Tomate"):
+    headers = {"Idempotency-Key": key} if key else {}
+    return client.post(
+        "/products/upload",
+        data={"name": name, "provider_id": str(provider.id), "price": "2.5", "category": "verduras"},
+        headers=headers,
+    )
+
+
+def test_upload_retry_with_same_key_returns_same_product(make_client, db_session, farmer):
+    client = make_client(products.router)
+
+    first = _upload(client, farmer, key="create-1")
+    second = _upload(client, farmer, key="create-1")
+
+    assert first.status_code == 200
+    assert second.status_code == 200
+    assert second.json()["id"] == first.json()["id"]
+    assert db_session.query(models.Product).count() == 1
+
+
+def test_upload_without_key_creates_each_time(make_client, db_session, farmer):
+    client = make_client(products.router)
+
+    assert _upload(client, farmer).status_code == 200
+    assert _upload(client, farmer).status_code == 200
+    assert db_session.query(models.Product).count() == 2
+
+
+def test_upload_key_of_another_provider_is_rejected(make_client, db_session, farmer):
+    other = add_user(db_session, "Other", "farmer")
+    client = make_client(products.router)
+
+    assert _upload(client, farmer, key="create-1").status_code == 200
+    assert _upload(client, other, key="create-1").status_code == 409
+
+
+def test_concurrent_duplicate_upload_returns_existing_product(make_client, db_session, farmer, monkeypatch):
+    """La otra petición se confirma entre la comprobación inicial y el INSERT"""
+    winner = models.Product(name="Tomate", provider_id=farmer.id, idempotency_key="create-1")
+    db_session.add(winner)
+    db_session.commit()
+
+    real_lookup = products._existing_product
+    calls = []
+
+    def lookup_misses_first_time(db, provider_id, key):
+        calls.append(key)
+        return None if len(calls) == 1 else real_lookup(db, provider_id, key)
+
+    monkeypatch.setattr(products, "_existing_product", lookup_misses_first_time)
+    client = make_client(products.router)
+
+    response = _upload(client, farmer, key="create-1")
+
+    assert response.status_code == 200
+    assert response.json()["id"] == winner.id
+    assert db_session.query(models.Product).count() == 1
+
+
+def test_paging_walks_the_catalog_without_gaps_or_overlaps(make_client, catalog):
+    client = make_client(products.router)
+    seen = []
+    offset = 0
+    while True:
+        response = client.get("/products/", params={"offset": offset, "limit": 1000})
+        assert response.status_code == 200
+        page = [product["id"] for product in response.json()]
+        if not page:
+            break
+        seen.extend(page)
+        offset += len(page)
+
+    assert len(seen) == CATALOG_ROWS
+    # Orden por created_at y, en empate, por id
+    assert seen == catalog
+
+
+def test_page_matches_slice_of_ordered_catalog(make_client, catalog):
+    client = make_client(products.router)
+
+    response = client.get("/products/", params={"offset": 12_345, "limit": 50})
+
+    assert [product["id"] for product in response.json()] == catalog[12_345:12_395]
+
+
+def test_page_past_the_end_is_empty(make_client, catalog):
+    client = make_client(products.router)
+
+    response = client.get("/products/", params={"offset": CATALOG_ROWS, "limit": 50})
+
+    assert response.status_code == 200
+    assert response.json() == []
+
+
+def test_paging_rejects_out_of_range_parameters(make_client, db_session):
+    client = make_client(products.router)
+
+    assert client.get("/products/", params={"limit": 1001}).status_code == 422
+    assert client.get("/products/", params={"limit": 0}).status_code == 422
+    assert client.get("/products/", params={"offset": -1, "limit": 10}).status_code == 422
+
+
+def test_without_limit_returns_everything(make_client, db_session, farmer):
+    for name in ("Tomate", "Lechuga", "Pepino"):
+        db_session.add(models.Product(name=name, stock_available=1, provider_id=farmer.id))
+    db_session.commit()
+    client = make_client(products.router)
+
+    assert len(client.get("/products/").json()) == 3
+
+
+def _set_hidden(client, product, hidden, key=None):
+    headers = {"Idempotency-Key": key} if key else {}
+    return client.patch(f"/products/{product.id}/visibility", json={"is_hidden": hidden}, headers=headers)
+
+
+def _hidden(db_session, product):
+    db_session.expire_all()
+    return db_session.get(models.Product, product.id).is_hidden
+
+
+def test_set_hidden_retry_does_not_undo_the_change(make_client, db_session, farmer):
+    product = models.Product(name="Tomate", provider_id=farmer.id, is_hidden=False)
+    db_session.add(product)
+    db_session.commit()
+    client = make_client(products.router)
+
+    assert _set_hidden(client, product, True, key="hide-1").json()["is_hidden"] is True
+    # Reintento tras perder la respuesta: sigue oculto (toggle-hidden lo habría mostrado)
+    assert _set_hidden(client, product, True, key="hide-1").json()["is_hidden"] is True
+    assert _hidden(db_session, product) is True
+
+    assert _set_hidden(client, product, False, key="show-1").json()["is_hidden"] is False
+    assert _hidden(db_session, product) is False
+
+
+def test_repeated_visibility_key_is_not_applied_again(make_client, db_session, farmer):
+    product = models.Product(name="Tomate", provider_id=farmer.id, is_hidden=False)
+    db_session.add(product)
+    db_session.commit()
+    client = make_client(products.router)
+
+    _set_hidden(client, product, True, key="hide-1")
+    db_session.expire_all()
+    updated_at = db_session.get(models.Product, product.id).updated_at
+
+    _set_hidden(client, product, True, key="hide-1")
+    db_session.expire_all()
+    assert db_session.get(models.Product, product.id).updated_at == updated_at
+
+
+def test_set_hidden_unknown_product_is_404(make_client, db_session):
+    client = make_client(products.router)
+
+    response = client.patch("/products/999/visibility", json={"is_hidden": True})
+
+    assert response.status_code == 404
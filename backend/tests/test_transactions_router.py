@@ -0,0 +1,104 @@
+from datetime import datetime
+
+import pytest
+
+from backend.app import models
+from backend.app.api.v1.routers import transactions
+from backend.app.models.transaction import TransactionStatusEnum
+from conftest import add_user
+
+
+@pytest.fixture
+def order(db_session):
+    buyer = add_user(db_session, "Consumer", "consumer")
+    seller = add_user(db_session, "Farmer", "farmer")
+    product = models.Product(name="Tomate", price=2, stock_available=10, provider_id=seller.id)
+    db_session.add(product)
+    db_session.commit()
+    body = {
+        "seller_id": seller.id,
+        "seller_type": "farmer",
+        "total_price": 4.0,
+        "order_details": [{
+            "product_id": product.id,
+            "product_name": "Tomate",
+            "quantity": 2,
+            "unit_price": 2.0,
+            "total_price": 4.0,
+        }],
+    }
+    return buyer, product, body
+
+
+def _post(client, buyer, body, key):
+    return client.post(
+        "/transactions/create-order",
+        params={"buyer_id": buyer.id, "buyer_type": "consumer"},
+        json=body,
+        headers={"Idempotency-Key": key},
+    )
+
+
+def _stock(db_session, product):
+    db_session.expire_all()
+    return db_session.get(models.Product, product.id).stock_available
+
+
+def test_retry_with_same_key_returns_same_order(make_client, db_session, order):
+    buyer, product, body = order
+    client = make_client(transactions.router)
+
+    first = _post(client, buyer, body, "key-1")
+    second = _post(client, buyer, body, "key-1")
+
+    assert first.status_code == 200
+    assert second.status_code == 200
+    assert second.json()["id"] == first.json()["id"]
+    assert db_session.query(models.Transaction).count() == 1
+    assert _stock(db_session, product) == 8
+
+
+def test_key_of_another_buyer_is_rejected(make_client, db_session, order):
+    buyer, _, body = order
+    other = add_user(db_session, "Other", "consumer")
+    client = make_client(transactions.router)
+
+    assert _post(client, buyer, body, "key-1").status_code == 200
+    assert _post(client, other, body, "key-1").status_code == 409
+
+
+def test_concurrent_duplicate_returns_existing_order(make_client, db_session, order, monkeypatch):
+    """La otra petición se confirma entre la comprobación inicial y el INSERT"""
+    buyer, product, body = order
+    winner = models.Transaction(
+        buyer_id=buyer.id,
+        seller_id=body["seller_id"],
+        buyer_type="consumer",
+        seller_type="farmer",
+        total_price=4.0,
+        status=TransactionStatusEnum.in_progress,
+        order_details=body["order_details"],
+        created_at=datetime.utcnow(),
+        idempotency_key="key-1",
+    )
+    db_session.add(winner)
+    db_session.commit()
+
+    real_lookup = transactions._existing_order
+    calls = []
+
+    def lookup_misses_first_time(db, buyer_id, key):
+        calls.append(key)
+        return None if len(calls) == 1 else real_lookup(db, buyer_id, key)
+
+    monkeypatch.setattr(transactions, "_existing_order", lookup_misses_first_time)
+    client = make_client(transactions.router)
+
+    response = _post(client, buyer, body, "key-1")
+
+    assert response.status_code == 200
+    assert response.json()["id"] == winner.id
+    assert len(calls) == 2
+    assert db_session.query(models.Transaction).count() == 1
+    # La petición perdedora no descuenta stock
+    assert _stock(db_session, product) == 10
@@ -84,7 +84,9 @@ CREATE TABLE IF NOT EXISTS products (
     is_hidden BOOLEAN DEFAULT FALSE,
     certifications JSON,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    idempotency_key VARCHAR(64) UNIQUE,
+    visibility_key VARCHAR(64)
 );
 
 -- =====================================================
@@ -158,7 +160,8 @@ CREATE TABLE IF NOT EXISTS transactions (
     phone VARCHAR(20),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     confirmed_at TIMESTAMP,
-    delivered_at TIMESTAMP
+    delivered_at TIMESTAMP,
+    idempotency_key VARCHAR(64) UNIQUE
 );
 
 -- =====================================================
@@ -174,6 +177,7 @@ CREATE INDEX IF NOT EXISTS idx_sensor_alerts_sensor_id ON sensor_alerts(sensor_i
 CREATE INDEX IF NOT EXISTS idx_sensor_alerts_status ON sensor_alerts(status);
 CREATE INDEX IF NOT EXISTS idx_products_provider_id ON products(provider_id);
 CREATE INDEX IF NOT EXISTS idx_products_category ON products(category);
+CREATE INDEX IF NOT EXISTS idx_products_updated_at ON products(updated_at);
 CREATE INDEX IF NOT EXISTS idx_transactions_buyer_id ON transactions(buyer_id);
 CREATE INDEX IF NOT EXISTS idx_transactions_seller_id ON transactions(seller_id);
 CREATE INDEX IF NOT EXISTS idx_transactions_status ON transactions(status);
@@ -51,7 +51,7 @@ dependencies {
     // Retrofit
     implementation("com.squareup.retrofit2:retrofit:2.9.0")
     implementation("com.squareup.retrofit2:converter-gson:2.9.0")
-    implementation("com.squareup.okhttp3:logging-interceptor:4.12.0")
+    implementation("com.squareup.okhttp3:okhttp:4.12.0")
     
     // Gson para serialización JSON
     implementation("com.google.code.gson:gson:2.10.1")
@@ -60,6 +60,7 @@ dependencies {
     
     // Testing
     testImplementation("junit:junit:4.13.2")
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
     implementation("androidx.palette:palette:1.0.0")
@@ -67,6 +68,12 @@ dependencies {
     // Glide para cargar imágenes
     implementation("com.github.bumptech.glide:glide:4.16.0")
     annotationProcessor("com.github.bumptech.glide:compiler:4.16.0")
+    implementation("com.github.bumptech.glide:recyclerview-integration:4.16.0") {
+        isTransitive = false
+    }
+
+    // Orientación EXIF al redimensionar imágenes antes de subirlas
+    implementation("androidx.exifinterface:exifinterface:1.3.7")
     
     // Dotenv para variables de entorno
     implementation("io.github.cdimascio:dotenv-java:3.0.0")
@@ -5,7 +5,10 @@ import android.os.Build;
 import android.os.StrictMode;
 import android.util.Log;
 import com.example.frontend.utils.Constants;
+import com.example.frontend.utils.CacheRegistry;
+import com.example.frontend.utils.RefreshScheduler;
 import com.example.frontend.api.ApiClient;
+import com.example.frontend.data.MutationQueue;
 
 public class EcoMarketApplication extends Application {
     private static final String TAG = "EcoMarketApplication";
@@ -30,7 +33,17 @@ public class EcoMarketApplication extends Application {
             // Inicializar constantes del .env PRIMERO
             Constants.init(this);
             
-            // ApiClient se inicializa automáticamente cuando se necesita
+            // Registrar el contexto para el cliente HTTP compartido (se construye bajo demanda)
+            ApiClient.init(this);
+
+            // Con poca RAM las cachés se liberan antes ante los avisos de memoria
+            CacheRegistry.getInstance().setLowRamDevice(EcoMarketGlideModule.isLowRam(this));
+
+            // Actualización automática: se pausa con la app en segundo plano o la pantalla apagada
+            RefreshScheduler.init(this);
+
+            // Reanudar los cambios de productos que quedaron sin enviar
+            MutationQueue.getInstance(this).start();
             
             // Configurar el modo estricto DESPUÉS de la inicialización
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
@@ -62,11 +75,15 @@ public class EcoMarketApplication extends Application {
     public void onLowMemory() {
         super.onLowMemory();
         Log.w(TAG, "onLowMemory: Memoria baja detectada");
+        CacheRegistry.getInstance().onLowMemory();
+        Log.d(TAG, "onLowMemory: " + CacheRegistry.getInstance().getStats());
     }
 
     @Override
     public void onTrimMemory(int level) {
         super.onTrimMemory(level);
         Log.w(TAG, "onTrimMemory: Nivel de memoria: " + level);
+        CacheRegistry.getInstance().onTrimMemory(level);
+        Log.d(TAG, "onTrimMemory: " + CacheRegistry.getInstance().getStats());
     }
 } 
\ No newline at end of file
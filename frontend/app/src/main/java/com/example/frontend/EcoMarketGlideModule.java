@@ -0,0 +1,103 @@
+package com.example.frontend;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.example.frontend.utils.CacheRegistry;
+
+/**
+ * Configuración de Glide para toda la app.
+ *
+ * Las cachés se dimensionan según la memoria del dispositivo: en los de poca RAM
+ * (isLowRamDevice o menos de 128 MB de heap por app) la caché en memoria y el pool de
+ * bitmaps se quedan en una pantalla de imágenes y la de disco en 50 MB; en el resto,
+ * los valores por defecto de Glide y 150 MB de disco. La caché en memoria y el pool se
+ * registran en {@link CacheRegistry}. Las peticiones de imágenes de productos se
+ * construyen en {@link com.example.frontend.utils.ProductImages}.
+ */
+@GlideModule
+public final class EcoMarketGlideModule extends AppGlideModule {
+    private static final String TAG = "EcoMarketGlideModule";
+
+    private static final String DISK_CACHE_DIR = "product_images";
+    private static final long DISK_CACHE_BYTES = 150L * 1024 * 1024;
+    private static final long LOW_RAM_DISK_CACHE_BYTES = 50L * 1024 * 1024;
+    private static final int LOW_RAM_MEMORY_CLASS_MB = 128;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        boolean lowRam = isLowRam(context);
+        MemorySizeCalculator.Builder memory = new MemorySizeCalculator.Builder(context);
+        if (lowRam) {
+            memory.setMemoryCacheScreens(1).setBitmapPoolScreens(1);
+        }
+        MemorySizeCalculator calculator = memory.build();
+        builder.setMemorySizeCalculator(calculator);
+        // Instancias propias para poder recortarlas desde CacheRegistry
+        LruResourceCache memoryCache = new LruResourceCache(calculator.getMemoryCacheSize());
+        builder.setMemoryCache(memoryCache);
+        register("glide_memory", memoryCache::getCurrentSize, memoryCache::getMaxSize, memoryCache::setSizeMultiplier);
+        if (calculator.getBitmapPoolSize() > 0) {
+            LruBitmapPool bitmapPool = new LruBitmapPool(calculator.getBitmapPoolSize());
+            builder.setBitmapPool(bitmapPool);
+            register("glide_bitmap_pool", bitmapPool::getCurrentSize, bitmapPool::getMaxSize, bitmapPool::setSizeMultiplier);
+        }
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR,
+                lowRam ? LOW_RAM_DISK_CACHE_BYTES : DISK_CACHE_BYTES));
+        Log.d(TAG, "Caché de imágenes: memoria " + calculator.getMemoryCacheSize() / 1024
+                + " KB, pool " + calculator.getBitmapPoolSize() / 1024 + " KB, poca RAM: " + lowRam);
+    }
+
+    private interface SizeGetter {
+        long get();
+    }
+
+    private interface SizeMultiplier {
+        void set(float multiplier);
+    }
+
+    /**
+     * Registra una caché LRU de Glide. Para recortarla a una fracción de lo que ocupa se
+     * reduce un momento su tamaño máximo (la caché desaloja hasta caber) y se restaura.
+     */
+    private static void register(String name, SizeGetter currentSize, SizeGetter maxSize, SizeMultiplier multiplier) {
+        long initialMax = maxSize.get();
+        CacheRegistry.getInstance().register(EcoMarketGlideModule.class, name, CacheRegistry.EvictionPriority.HIGH,
+                new CacheRegistry.TrimmableCache() {
+                    @Override
+                    public long estimatedBytes() {
+                        return currentSize.get();
+                    }
+
+                    @Override
+                    public void trim(float fraction) {
+                        long keep = (long) (currentSize.get() * (1f - fraction));
+                        multiplier.set(initialMax > 0 ? (float) keep / initialMax : 0f);
+                        multiplier.set(1f);
+                    }
+                });
+    }
+
+    /** Sin módulos declarados en el manifest: se evita leerlo al arrancar. */
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+
+    public static boolean isLowRam(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        return activityManager == null
+                || activityManager.isLowRamDevice()
+                || activityManager.getMemoryClass() < LOW_RAM_MEMORY_CLASS_MB;
+    }
+}
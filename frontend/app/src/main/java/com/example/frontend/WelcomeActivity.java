@@ -15,6 +15,7 @@ import android.widget.FrameLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.example.frontend.data.SensorAlertEngine;
 import com.example.frontend.ui.auth.LoginFragment;
 import com.example.frontend.ui.auth.RegisterFragment;
 import com.example.frontend.ui.consumer.ConsumerSearchProductsFragment;
@@ -383,6 +384,7 @@ public class WelcomeActivity extends AppCompatActivity {
         sessionManager.logout();
         
         // Limpiar estado
+        SensorAlertEngine.getInstance().clear();
         currentUserType = null;
         currentFragment = null;
         
@@ -1,13 +1,21 @@
 package com.example.frontend.api;
 
 import android.content.Context;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
+import okhttp3.Protocol;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import com.example.frontend.services.FarmerMetricsApiService;
+import com.example.frontend.services.SensorApiService;
+import com.example.frontend.services.TraceabilityApiService;
 import com.example.frontend.utils.Constants;
 import com.example.frontend.utils.DateDeserializer;
+import com.example.frontend.utils.ModelTypeAdapterFactory;
 import com.example.frontend.utils.SessionManager;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -17,10 +25,39 @@ import okhttp3.Request;
 import okhttp3.Response;
 import java.io.IOException;
 
+/**
+ * Motor HTTP compartido de la aplicación.
+ *
+ * Mantiene un único {@link OkHttpClient} de larga duración (pool de conexiones y
+ * dispatcher compartidos) del que se derivan, con {@code newBuilder()}, un cliente
+ * sin autenticación y otro con JWT. Los proxies de Retrofit se crean una sola vez
+ * y se reutilizan en todas las pantallas.
+ *
+ * Los getters sin argumentos ({@link #getApiService()}...) devuelven siempre el cliente
+ * sin autenticación; el cliente con JWT se pide de forma explícita con las variantes
+ * que reciben un Context o con {@link #getAuthenticatedService(Class)}.
+ */
 public class ApiClient {
     private static final String BASE_URL = getBaseUrlSafely(); // URL desde archivo .env
+
+    // Configuración del pool de conexiones y del dispatcher
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final int MAX_REQUESTS = 32;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+
+    private static Context appContext = null;
+    private static OkHttpClient baseClient = null;
+    private static HttpCacheManager cacheManager = null;
+    private static NetworkLogInterceptor networkLogInterceptor = null;
+    private static Gson gson = null;
     private static Retrofit retrofit = null;
-    
+    private static Retrofit authenticatedRetrofit = null;
+
+    // Proxies de servicios ya creados, por cliente
+    private static final ConcurrentHashMap<Class<?>, Object> publicServices = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Class<?>, Object> authenticatedServices = new ConcurrentHashMap<>();
+
     private static String getBaseUrlSafely() {
         try {
             String baseUrl = Constants.getBaseUrl();
@@ -35,83 +72,157 @@ public class ApiClient {
         }
     }
 
-    public static Retrofit getClient() {
-        if (retrofit == null) {
-            // Configurar interceptor para logging detallado
-            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            // Configurar cliente OkHttp
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(loggingInterceptor)
-                    // Remover AuthInterceptor temporalmente para evitar IllegalStateException
-                    // .addInterceptor(new AuthInterceptor()) 
+    /**
+     * Registra el contexto de aplicación usado por el cliente autenticado.
+     * Se llama desde {@code EcoMarketApplication} al arrancar.
+     */
+    public static synchronized void init(Context context) {
+        if (appContext == null && context != null) {
+            appContext = context.getApplicationContext();
+        }
+    }
+
+    /**
+     * Obtiene el cliente OkHttp compartido (pool de conexiones, dispatcher y timeouts).
+     */
+    public static synchronized OkHttpClient getHttpClient() {
+        if (baseClient == null) {
+            // Registro de red según el nivel configurado en Constants (OFF por defecto)
+            networkLogInterceptor = new NetworkLogInterceptor(
+                    NetworkLog.getInstance(),
+                    NetworkLogInterceptor.Level.parse(Constants.getNetworkLogLevel()),
+                    Constants.getNetworkLogSampleRate(),
+                    Constants.getNetworkLogMaxBodyBytes());
+
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(MAX_REQUESTS);
+            dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+            // Configurar cliente OkHttp base, compartido por todos los clientes derivados
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .dispatcher(dispatcher)
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .retryOnConnectionFailure(true)
+                    .eventListenerFactory(NetworkMetricsEventListener.FACTORY)
+                    .addInterceptor(networkLogInterceptor)
                     .connectTimeout(Constants.getConnectTimeout(), TimeUnit.SECONDS)
                     .readTimeout(Constants.getReadTimeout(), TimeUnit.SECONDS)
-                    .writeTimeout(Constants.getWriteTimeout(), TimeUnit.SECONDS)
-                    .build();
+                    .writeTimeout(Constants.getWriteTimeout(), TimeUnit.SECONDS);
+
+            // Caché en disco con políticas por endpoint (requiere el contexto de aplicación)
+            if (appContext != null) {
+                cacheManager = new HttpCacheManager(appContext, Constants.getHttpCacheSizeMb() * 1024L * 1024L);
+                builder.cache(cacheManager.getCache())
+                        .addInterceptor(cacheManager.applicationInterceptor())
+                        .addNetworkInterceptor(cacheManager.networkInterceptor());
+            }
+
+            baseClient = builder.build();
+        }
+        return baseClient;
+    }
+
+    /**
+     * Obtiene el gestor de la caché HTTP (null si el cliente se creó sin contexto).
+     */
+    public static synchronized HttpCacheManager getCacheManager() {
+        getHttpClient();
+        return cacheManager;
+    }
 
+    /**
+     * Obtiene los contadores de aciertos/fallos de la caché HTTP.
+     */
+    public static HttpCacheManager.Stats getCacheStats() {
+        HttpCacheManager manager = getCacheManager();
+        return manager != null ? manager.getStats() : null;
+    }
+
+    /**
+     * Métricas de tiempos por endpoint (DNS, conexión, TLS, TTFB, cuerpo, parseo).
+     */
+    public static NetworkMetrics getNetworkMetrics() {
+        return NetworkMetrics.getInstance();
+    }
+
+    /**
+     * Cambia en caliente el nivel del registro de red.
+     */
+    public static synchronized void setNetworkLogLevel(NetworkLogInterceptor.Level level) {
+        getHttpClient();
+        networkLogInterceptor.setLevel(level);
+    }
+
+    /**
+     * Obtiene la instancia de Gson compartida por los convertidores de Retrofit.
+     */
+    public static synchronized Gson getGson() {
+        if (gson == null) {
             // Configurar Gson con deserializador personalizado para fechas
-            Gson gson = new GsonBuilder()
+            gson = new GsonBuilder()
                     .registerTypeAdapter(Date.class, new DateDeserializer())
+                    // Deserialización en streaming para Product, Transaction y SensorReading
+                    .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
                     .create();
+        }
+        return gson;
+    }
 
-            // Configurar Retrofit
-            retrofit = new Retrofit.Builder()
-                    .baseUrl(BASE_URL)
-                    .client(client)
-                    .addConverterFactory(GsonConverterFactory.create(gson))
-                    .build();
+    private static Retrofit buildRetrofit(OkHttpClient client) {
+        return new Retrofit.Builder()
+                .baseUrl(BASE_URL)
+                .client(client)
+                .addConverterFactory(new TimingConverterFactory(NetworkMetrics.getInstance()))
+                .addConverterFactory(GsonConverterFactory.create(getGson()))
+                .build();
+    }
+
+    /**
+     * Cliente sin autenticación (login, registro y endpoints públicos).
+     */
+    public static synchronized Retrofit getClient() {
+        if (retrofit == null) {
+            retrofit = buildRetrofit(getHttpClient());
         }
         return retrofit;
     }
 
-    public static void resetClient() {
+    /**
+     * Descarta las instancias de Retrofit y los servicios cacheados.
+     * El pool de conexiones se conserva para no repetir handshakes.
+     */
+    public static synchronized void resetClient() {
         retrofit = null;
+        authenticatedRetrofit = null;
+        publicServices.clear();
+        authenticatedServices.clear();
     }
-    
-    public static void resetClientAndRecreate() {
-        retrofit = null;
+
+    public static synchronized void resetClientAndRecreate() {
+        resetClient();
         getClient(); // Forzar recreación
     }
 
     public static String getBaseUrl() {
         return BASE_URL;
     }
-    
+
     /**
      * Crea un cliente con autenticación JWT para servicios que lo requieran
      */
-    public static Retrofit getAuthenticatedClient(Context context) {
-        if (retrofit == null) {
-            // Configurar interceptor para logging detallado
-            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            // Configurar cliente OkHttp con autenticación
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(loggingInterceptor)
-                    .addInterceptor(createAuthInterceptor(context))
-                    .connectTimeout(Constants.getConnectTimeout(), TimeUnit.SECONDS)
-                    .readTimeout(Constants.getReadTimeout(), TimeUnit.SECONDS)
-                    .writeTimeout(Constants.getWriteTimeout(), TimeUnit.SECONDS)
-                    .build();
-
-            // Configurar Gson con deserializador personalizado para fechas
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(Date.class, new DateDeserializer())
-                    .create();
-
-            // Configurar Retrofit
-            retrofit = new Retrofit.Builder()
-                    .baseUrl(BASE_URL)
-                    .client(client)
-                    .addConverterFactory(GsonConverterFactory.create(gson))
+    public static synchronized Retrofit getAuthenticatedClient(Context context) {
+        init(context);
+        if (authenticatedRetrofit == null) {
+            // Derivar del cliente base: comparte pool de conexiones y dispatcher
+            OkHttpClient client = getHttpClient().newBuilder()
+                    .addInterceptor(createAuthInterceptor(appContext))
                     .build();
+            authenticatedRetrofit = buildRetrofit(client);
         }
-        return retrofit;
+        return authenticatedRetrofit;
     }
-    
+
     /**
      * Crea un interceptor de autenticación JWT
      */
@@ -120,12 +231,12 @@ public class ApiClient {
             @Override
             public Response intercept(Chain chain) throws IOException {
                 Request original = chain.request();
-                
+
                 // No añadir token para login y registro
                 if (original.url().encodedPath().contains("/auth/")) {
                     return chain.proceed(original);
                 }
-                
+
                 // Añadir token para otras peticiones
                 SessionManager sessionManager = new SessionManager(context);
                 String token = sessionManager.getFullToken();
@@ -136,37 +247,102 @@ public class ApiClient {
                             .build();
                     return chain.proceed(request);
                 }
-                
+
                 return chain.proceed(original);
             }
         };
     }
-    
+
+    @SuppressWarnings("unchecked")
+    private static <T> T getOrCreateService(ConcurrentHashMap<Class<?>, Object> cache, Retrofit client, Class<T> serviceClass) {
+        Object service = cache.get(serviceClass);
+        if (service == null) {
+            service = client.create(serviceClass);
+            Object previous = cache.putIfAbsent(serviceClass, service);
+            if (previous != null) {
+                service = previous;
+            }
+        }
+        return (T) service;
+    }
+
     /**
-     * Obtiene el servicio principal de API
+     * Obtiene (y cachea) un servicio del cliente autenticado con el contexto registrado
+     * en {@link #init}. Para las clases de datos que no tienen un Context a mano.
+     *
+     * @throws IllegalStateException si no se ha llamado a init
      */
+    public static <T> T getAuthenticatedService(Class<T> serviceClass) {
+        Context context;
+        synchronized (ApiClient.class) {
+            context = appContext;
+        }
+        if (context == null) {
+            throw new IllegalStateException("ApiClient.init no se ha llamado");
+        }
+        return getOrCreateService(authenticatedServices, getAuthenticatedClient(context), serviceClass);
+    }
+
+    /**
+     * Obtiene (y cachea) un servicio del cliente autenticado.
+     */
+    public static <T> T getAuthenticatedService(Context context, Class<T> serviceClass) {
+        init(context);
+        return getAuthenticatedService(serviceClass);
+    }
+
+    /**
+     * Obtiene (y cachea) un servicio del cliente sin autenticación.
+     */
+    public static <T> T getPublicService(Class<T> serviceClass) {
+        return getOrCreateService(publicServices, getClient(), serviceClass);
+    }
+
+    /**
+     * Obtiene el servicio principal de API (sin autenticación)
+     */
+    public static ApiService getApiService() {
+        return getPublicService(ApiService.class);
+    }
+
+    /** Igual, con el cliente autenticado. */
     public static ApiService getApiService(Context context) {
-        return getAuthenticatedClient(context).create(ApiService.class);
+        return getAuthenticatedService(context, ApiService.class);
     }
-    
+
     /**
-     * Obtiene el servicio de sensores
+     * Obtiene el servicio de sensores (sin autenticación)
      */
-    public static com.example.frontend.services.SensorApiService getSensorApiService(Context context) {
-        return getAuthenticatedClient(context).create(com.example.frontend.services.SensorApiService.class);
+    public static SensorApiService getSensorApiService() {
+        return getPublicService(SensorApiService.class);
     }
-    
+
+    /** Igual, con el cliente autenticado. */
+    public static SensorApiService getSensorApiService(Context context) {
+        return getAuthenticatedService(context, SensorApiService.class);
+    }
+
     /**
-     * Obtiene el servicio de métricas de farmer
+     * Obtiene el servicio de métricas de farmer (sin autenticación)
      */
-    public static com.example.frontend.services.FarmerMetricsApiService getFarmerMetricsApiService(Context context) {
-        return getAuthenticatedClient(context).create(com.example.frontend.services.FarmerMetricsApiService.class);
+    public static FarmerMetricsApiService getFarmerMetricsApiService() {
+        return getPublicService(FarmerMetricsApiService.class);
     }
-    
+
+    /** Igual, con el cliente autenticado. */
+    public static FarmerMetricsApiService getFarmerMetricsApiService(Context context) {
+        return getAuthenticatedService(context, FarmerMetricsApiService.class);
+    }
+
     /**
-     * Obtiene el servicio de trazabilidad
+     * Obtiene el servicio de trazabilidad (sin autenticación)
      */
-    public static com.example.frontend.services.TraceabilityApiService getTraceabilityApiService(Context context) {
-        return getAuthenticatedClient(context).create(com.example.frontend.services.TraceabilityApiService.class);
+    public static TraceabilityApiService getTraceabilityApiService() {
+        return getPublicService(TraceabilityApiService.class);
+    }
+
+    /** Igual, con el cliente autenticado. */
+    public static TraceabilityApiService getTraceabilityApiService(Context context) {
+        return getAuthenticatedService(context, TraceabilityApiService.class);
     }
-}
\ No newline at end of file
+}
@@ -80,6 +80,21 @@ public interface ApiService {
     @GET("products")
     Call<List<com.example.frontend.model.Product>> getProductsFiltered(@Query("search") String search, @Query("provider_role") String providerRole);
 
+    // Sincronización incremental del catálogo: solo productos modificados después de updated_since.
+    // no-cache obliga a revalidar para no recibir un delta antiguo de la caché HTTP.
+    @Headers("Cache-Control: no-cache")
+    @GET("products")
+    Call<List<com.example.frontend.model.Product>> getProductsUpdatedSince(@Query("provider_role") String providerRole,
+                                                                          @Query("available_only") boolean availableOnly,
+                                                                          @Query("updated_since") String updatedSince);
+
+    // Catálogo por páginas (orden por id); el backend limita limit a 1000
+    @GET("products")
+    Call<List<com.example.frontend.model.Product>> getProductsPage(@Query("provider_role") String providerRole,
+                                                                  @Query("available_only") boolean availableOnly,
+                                                                  @Query("offset") int offset,
+                                                                  @Query("limit") int limit);
+
     @POST("/products/optimized/")
     Call<List<Map<String, Object>>> getOptimizedProducts(@Body Map<String, Object> request);
     
@@ -108,6 +123,7 @@ public interface ApiService {
     Call<Map<String, Object>> optimizeShoppingList(@Body Map<String, Object> request);
 
     // Crear producto con imagen (multipart)
+    // Idempotency-Key: el mismo valor en un reintento devuelve el producto ya creado
     @Multipart
     @POST("products/upload")
     Call<com.example.frontend.model.Product> createProductWithImage(
@@ -121,13 +137,19 @@ public interface ApiService {
             @Part("stock_available") RequestBody stockAvailable,
             @Part("expiration_date") RequestBody expirationDate,
             @Part("is_eco") RequestBody isEco,
-            @Part MultipartBody.Part image
+            @Part MultipartBody.Part image,
+            @Header("Idempotency-Key") String idempotencyKey
     );
 
     // Obtener productos de un farmer específico
     @GET("products/farmer/{farmerId}")
     Call<List<com.example.frontend.model.Product>> getFarmerProducts(@Path("farmerId") int farmerId);
 
+    @Headers("Cache-Control: no-cache")
+    @GET("products/farmer/{farmerId}")
+    Call<List<com.example.frontend.model.Product>> getFarmerProductsUpdatedSince(@Path("farmerId") int farmerId,
+                                                                                @Query("updated_since") String updatedSince);
+
     // Eliminar producto
     @DELETE("products/{productId}")
     Call<Void> deleteProduct(@Path("productId") int productId);
@@ -136,6 +158,12 @@ public interface ApiService {
     @PATCH("products/{productId}/toggle-hidden")
     Call<Map<String, Object>> toggleProductHidden(@Path("productId") int productId);
 
+    // Fijar la visibilidad (estado final, se puede repetir sin deshacer el cambio)
+    // Idempotency-Key: un reintento del último cambio aplicado no vuelve a escribir
+    @PATCH("products/{productId}/visibility")
+    Call<Map<String, Object>> setProductHidden(@Path("productId") int productId, @Body Map<String, Boolean> body,
+                                               @Header("Idempotency-Key") String idempotencyKey);
+
     // Actualizar producto
     @PUT("products/{productId}")
     Call<com.example.frontend.model.Product> updateProduct(@Path("productId") int productId, @Body com.example.frontend.model.ProductUpdate productUpdate);
@@ -156,6 +184,9 @@ public interface ApiService {
     // ===== TRANSACCIONES =====
     @GET("transactions/")
     Call<List<Transaction>> getTransactions();
+
+    @GET("transactions/")
+    Call<List<Transaction>> getTransactionsPage(@Query("offset") int offset, @Query("limit") int limit);
     
     @GET("transactions/{transactionId}")
     Call<Transaction> getTransactionById(@Path("transactionId") int transactionId);
@@ -164,14 +195,27 @@ public interface ApiService {
     Call<Transaction> createTransaction(@Body Transaction transaction);
     
     // Nuevos endpoints para el flujo de pedidos
+    // Idempotency-Key: el mismo valor en un reintento devuelve el pedido ya creado
     @POST("transactions/create-order")
-    Call<Transaction> createOrderFromCart(@Query("buyer_id") int buyerId, @Query("buyer_type") String buyerType, @Body OrderRequest orderRequest);
+    Call<Transaction> createOrderFromCart(@Query("buyer_id") int buyerId, @Query("buyer_type") String buyerType, @Body OrderRequest orderRequest,
+                                          @Header("Idempotency-Key") String idempotencyKey);
     
     @GET("transactions/buyer/{buyerId}/{buyerType}")
     Call<List<Transaction>> getBuyerOrders(@Path("buyerId") int buyerId, @Path("buyerType") String buyerType);
     
     @GET("transactions/seller/{sellerId}/{sellerType}")
     Call<List<Transaction>> getSellerOrders(@Path("sellerId") int sellerId, @Path("sellerType") String sellerType);
+
+    // Pedidos por páginas, más recientes primero. status y buyerType null = sin filtrar
+    @GET("transactions/buyer/{buyerId}/{buyerType}")
+    Call<List<Transaction>> getBuyerOrdersPage(@Path("buyerId") int buyerId, @Path("buyerType") String buyerType,
+                                               @Query("status") String status,
+                                               @Query("offset") int offset, @Query("limit") int limit);
+
+    @GET("transactions/seller/{sellerId}/{sellerType}")
+    Call<List<Transaction>> getSellerOrdersPage(@Path("sellerId") int sellerId, @Path("sellerType") String sellerType,
+                                                @Query("status") String status, @Query("buyer_type") String buyerType,
+                                                @Query("offset") int offset, @Query("limit") int limit);
     
     // Endpoints específicos para mantener compatibilidad
     @GET("transactions/supermarket/{supermarketId}")
@@ -0,0 +1,230 @@
+package com.example.frontend.api;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Caché HTTP en disco para el cliente compartido de {@link ApiClient}.
+ *
+ * Aplica {@link HttpCachePolicy} a cada endpoint y lleva contadores de aciertos,
+ * revalidaciones (304) y descargas completas para medir el ahorro de ancho de banda.
+ */
+public class HttpCacheManager {
+    private static final String TAG = "HttpCacheManager";
+    private static final String CACHE_DIR = "http_cache";
+
+    private final Cache cache;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong conditionalHits = new AtomicLong();
+    private final AtomicLong networkMisses = new AtomicLong();
+    private final AtomicLong offlineFallbacks = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public HttpCacheManager(Context context, long maxSizeBytes) {
+        this.cache = new Cache(new File(context.getCacheDir(), CACHE_DIR), maxSizeBytes);
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * Interceptor de aplicación: fija la política en la petición, registra
+     * aciertos/fallos y, si la red falla, sirve la copia en caché aunque esté caducada.
+     */
+    public Interceptor applicationInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            HttpCachePolicy policy = HttpCachePolicy.forRequest(request);
+            if (policy == HttpCachePolicy.NONE) {
+                request = request.newBuilder().cacheControl(CacheControl.FORCE_NETWORK).build();
+            }
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (!policy.isCacheable()) {
+                    throw e;
+                }
+                Response stale = proceedFromCache(chain, request, policy);
+                if (stale == null) {
+                    throw e;
+                }
+                offlineFallbacks.incrementAndGet();
+                Log.w(TAG, "Sin red, sirviendo copia en caché: " + request.url().encodedPath());
+                return stale;
+            }
+
+            if (policy.isCacheable()) {
+                recordStats(response);
+            }
+            return response;
+        };
+    }
+
+    /**
+     * Interceptor de red: reescribe las cabeceras de caché de la respuesta según la política.
+     * El servidor sigue enviando ETag/Last-Modified, que OkHttp usa para las peticiones condicionales.
+     */
+    public Interceptor networkInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+            HttpCachePolicy policy = HttpCachePolicy.forRequest(request);
+
+            switch (policy) {
+                case CATALOG:
+                case TRACEABILITY:
+                    if (!response.isSuccessful() && response.code() != 304) {
+                        return response;
+                    }
+                    return response.newBuilder()
+                            .removeHeader("Pragma")
+                            .header("Cache-Control", "public, max-age=" + policy.maxAgeSeconds)
+                            .build();
+                case NONE:
+                    return response.newBuilder()
+                            .removeHeader("Pragma")
+                            .header("Cache-Control", "no-store")
+                            .build();
+                default:
+                    return response;
+            }
+        };
+    }
+
+    private Response proceedFromCache(Interceptor.Chain chain, Request request, HttpCachePolicy policy) {
+        Request cachedRequest = request.newBuilder()
+                .cacheControl(new CacheControl.Builder()
+                        .onlyIfCached()
+                        .maxStale(policy.maxStaleSeconds, TimeUnit.SECONDS)
+                        .build())
+                .build();
+        try {
+            Response response = chain.proceed(cachedRequest);
+            if (response.code() == 504) {
+                // OkHttp responde 504 cuando no hay copia utilizable
+                response.close();
+                return null;
+            }
+            return response;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void recordStats(Response response) {
+        requests.incrementAndGet();
+        Response cacheResponse = response.cacheResponse();
+        Response networkResponse = response.networkResponse();
+
+        if (cacheResponse != null && networkResponse == null) {
+            cacheHits.incrementAndGet();
+            addBytesSaved(cacheResponse);
+        } else if (cacheResponse != null && networkResponse.code() == 304) {
+            conditionalHits.incrementAndGet();
+            addBytesSaved(cacheResponse);
+        } else {
+            networkMisses.incrementAndGet();
+        }
+    }
+
+    private void addBytesSaved(Response cacheResponse) {
+        String length = cacheResponse.header("Content-Length");
+        if (length == null) {
+            return;
+        }
+        try {
+            bytesSaved.addAndGet(Long.parseLong(length));
+        } catch (NumberFormatException ignored) {
+            // Sin longitud conocida no se contabiliza
+        }
+    }
+
+    /**
+     * Devuelve una instantánea de los contadores de la caché.
+     */
+    public Stats getStats() {
+        long size;
+        try {
+            size = cache.size();
+        } catch (IOException e) {
+            size = -1;
+        }
+        return new Stats(requests.get(), cacheHits.get(), conditionalHits.get(),
+                networkMisses.get(), offlineFallbacks.get(), bytesSaved.get(), size, cache.maxSize());
+    }
+
+    public void resetStats() {
+        requests.set(0);
+        cacheHits.set(0);
+        conditionalHits.set(0);
+        networkMisses.set(0);
+        offlineFallbacks.set(0);
+        bytesSaved.set(0);
+    }
+
+    /**
+     * Vacía la caché de disco.
+     */
+    public void evictAll() {
+        try {
+            cache.evictAll();
+        } catch (IOException e) {
+            Log.e(TAG, "Error al vaciar la caché HTTP", e);
+        }
+    }
+
+    public static class Stats {
+        public final long requests;
+        public final long cacheHits;
+        public final long conditionalHits;
+        public final long networkMisses;
+        public final long offlineFallbacks;
+        public final long bytesSaved;
+        public final long sizeBytes;
+        public final long maxSizeBytes;
+
+        Stats(long requests, long cacheHits, long conditionalHits, long networkMisses,
+              long offlineFallbacks, long bytesSaved, long sizeBytes, long maxSizeBytes) {
+            this.requests = requests;
+            this.cacheHits = cacheHits;
+            this.conditionalHits = conditionalHits;
+            this.networkMisses = networkMisses;
+            this.offlineFallbacks = offlineFallbacks;
+            this.bytesSaved = bytesSaved;
+            this.sizeBytes = sizeBytes;
+            this.maxSizeBytes = maxSizeBytes;
+        }
+
+        /** Porcentaje de peticiones cacheables resueltas sin descargar el cuerpo. */
+        public double getHitRatio() {
+            return requests == 0 ? 0 : (double) (cacheHits + conditionalHits) / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "HttpCache{requests=" + requests
+                    + ", hits=" + cacheHits
+                    + ", 304=" + conditionalHits
+                    + ", misses=" + networkMisses
+                    + ", offline=" + offlineFallbacks
+                    + ", bytesSaved=" + bytesSaved
+                    + ", size=" + sizeBytes + "/" + maxSizeBytes + "}";
+        }
+    }
+}
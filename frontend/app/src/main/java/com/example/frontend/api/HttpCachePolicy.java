@@ -0,0 +1,61 @@
+package com.example.frontend.api;
+
+import java.util.regex.Pattern;
+
+import okhttp3.Request;
+
+/**
+ * Políticas de caché HTTP por endpoint.
+ *
+ * - CATALOG: catálogo de productos y usuarios. Fresco unos segundos, después se
+ *   revalida con ETag/Last-Modified (304) y, si no hay red, se sirve la copia antigua.
+ * - TRACEABILITY: cadenas de trazabilidad, que no cambian una vez creadas.
+ * - NONE: transacciones y pedidos, nunca se guardan en disco.
+ * - DEFAULT: se respetan las cabeceras que envíe el servidor.
+ */
+public enum HttpCachePolicy {
+    CATALOG(30, 24 * 60 * 60),
+    TRACEABILITY(24 * 60 * 60, 7 * 24 * 60 * 60),
+    NONE(0, 0),
+    DEFAULT(0, 0);
+
+    private static final Pattern CATALOG_PATH = Pattern.compile(
+            "^/(products/?|products/farmer/\\d+|users/by-role/[^/]+)$");
+    private static final Pattern TRACEABILITY_PATH = Pattern.compile(
+            "^/(consumer/products/\\d+/trace/(json|summary)|traceability/products/\\d+/events)$");
+    private static final Pattern TRANSACTIONS_PATH = Pattern.compile("^/transactions(/.*)?$");
+
+    /** Segundos durante los que la respuesta se sirve sin ir a la red. */
+    public final int maxAgeSeconds;
+    /** Segundos durante los que se acepta una copia caducada si no hay conexión. */
+    public final int maxStaleSeconds;
+
+    HttpCachePolicy(int maxAgeSeconds, int maxStaleSeconds) {
+        this.maxAgeSeconds = maxAgeSeconds;
+        this.maxStaleSeconds = maxStaleSeconds;
+    }
+
+    public boolean isCacheable() {
+        return this == CATALOG || this == TRACEABILITY;
+    }
+
+    /**
+     * Determina la política aplicable a una petición.
+     */
+    public static HttpCachePolicy forRequest(Request request) {
+        String path = request.url().encodedPath();
+        if (TRANSACTIONS_PATH.matcher(path).matches()) {
+            return NONE;
+        }
+        if (!"GET".equals(request.method())) {
+            return DEFAULT;
+        }
+        if (CATALOG_PATH.matcher(path).matches()) {
+            return CATALOG;
+        }
+        if (TRACEABILITY_PATH.matcher(path).matches()) {
+            return TRACEABILITY;
+        }
+        return DEFAULT;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.frontend.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Headers;
+
+/**
+ * Buffer circular en memoria con las últimas peticiones registradas por
+ * {@link NetworkLogInterceptor}. Sustituye al volcado en logcat: los registros
+ * solo se formatean como texto cuando alguien los consulta.
+ */
+public class NetworkLog {
+    public static final int DEFAULT_CAPACITY = 100;
+
+    private static final NetworkLog INSTANCE = new NetworkLog(DEFAULT_CAPACITY);
+
+    private final Entry[] entries;
+    private int next = 0;
+    private int size = 0;
+
+    public NetworkLog(int capacity) {
+        this.entries = new Entry[Math.max(1, capacity)];
+    }
+
+    public static NetworkLog getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized void add(Entry entry) {
+        entries[next] = entry;
+        next = (next + 1) % entries.length;
+        if (size < entries.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Devuelve los registros del más antiguo al más reciente.
+     */
+    public synchronized List<Entry> snapshot() {
+        List<Entry> result = new ArrayList<>(size);
+        int start = (next - size + entries.length) % entries.length;
+        for (int i = 0; i < size; i++) {
+            result.add(entries[(start + i) % entries.length]);
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = null;
+        }
+        next = 0;
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Una petición registrada. Las cabeceras y cuerpos solo se guardan según el nivel.
+     */
+    public static class Entry {
+        public final long timestampMs;
+        public final String method;
+        public final String url;
+        public final int code;
+        public final long durationMs;
+        public final long requestBytes;
+        public final long responseBytes;
+        public final Headers requestHeaders;
+        public final Headers responseHeaders;
+        public final String requestBody;
+        public final String responseBody;
+        public final String error;
+
+        public Entry(long timestampMs, String method, String url, int code, long durationMs,
+                     long requestBytes, long responseBytes,
+                     Headers requestHeaders, Headers responseHeaders,
+                     String requestBody, String responseBody, String error) {
+            this.timestampMs = timestampMs;
+            this.method = method;
+            this.url = url;
+            this.code = code;
+            this.durationMs = durationMs;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+            this.requestHeaders = requestHeaders;
+            this.responseHeaders = responseHeaders;
+            this.requestBody = requestBody;
+            this.responseBody = responseBody;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(method).append(' ').append(url)
+                    .append(" -> ").append(error != null ? error : String.valueOf(code))
+                    .append(" (").append(durationMs).append(" ms, ")
+                    .append(requestBytes).append("B/").append(responseBytes).append("B)");
+            if (requestHeaders != null) {
+                sb.append("\n> ").append(requestHeaders.toString().replace("\n", "\n> "));
+            }
+            if (requestBody != null) {
+                sb.append("\n> ").append(requestBody);
+            }
+            if (responseHeaders != null) {
+                sb.append("\n< ").append(responseHeaders.toString().replace("\n", "\n< "));
+            }
+            if (responseBody != null) {
+                sb.append("\n< ").append(responseBody);
+            }
+            return sb.toString();
+        }
+    }
+}
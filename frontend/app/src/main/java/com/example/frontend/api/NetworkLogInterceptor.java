@@ -0,0 +1,136 @@
+package com.example.frontend.api;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+/**
+ * Interceptor de observabilidad de red con tres niveles:
+ * - OFF: no registra nada.
+ * - HEADERS: método, URL, código, duración, tamaños y cabeceras.
+ * - BODY: además, captura el cuerpo de una de cada N peticiones, truncado a un
+ *   máximo de bytes y solo para contenido de texto (nunca imágenes ni multipart).
+ *
+ * Los registros van a {@link NetworkLog} en lugar de a logcat.
+ */
+public class NetworkLogInterceptor implements Interceptor {
+
+    public enum Level {
+        OFF,
+        HEADERS,
+        BODY;
+
+        public static Level parse(String value) {
+            if (value == null) {
+                return OFF;
+            }
+            try {
+                return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return OFF;
+            }
+        }
+    }
+
+    private final NetworkLog log;
+    private final int sampleRate;
+    private final long maxBodyBytes;
+    private final AtomicLong counter = new AtomicLong();
+    private volatile Level level;
+
+    public NetworkLogInterceptor(NetworkLog log, Level level, int sampleRate, long maxBodyBytes) {
+        this.log = log;
+        this.level = level;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.maxBodyBytes = Math.max(0, maxBodyBytes);
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Level currentLevel = level;
+        Request request = chain.request();
+        if (currentLevel == Level.OFF) {
+            return chain.proceed(request);
+        }
+
+        boolean captureBody = currentLevel == Level.BODY
+                && counter.getAndIncrement() % sampleRate == 0;
+        String requestBody = captureBody ? readRequestBody(request.body()) : null;
+        long requestBytes = request.body() != null ? request.body().contentLength() : 0;
+
+        long startNs = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            long durationMs = (System.nanoTime() - startNs) / 1_000_000;
+            log.add(new NetworkLog.Entry(System.currentTimeMillis(), request.method(),
+                    request.url().toString(), -1, durationMs, requestBytes, 0,
+                    redact(request.headers()), null, requestBody, null,
+                    e.getClass().getSimpleName() + ": " + e.getMessage()));
+            throw e;
+        }
+        long durationMs = (System.nanoTime() - startNs) / 1_000_000;
+
+        ResponseBody body = response.body();
+        long responseBytes = body != null ? body.contentLength() : 0;
+        String responseBody = null;
+        if (captureBody && body != null && isText(body.contentType())) {
+            // peekBody solo lee hasta el límite, el resto del cuerpo queda sin tocar
+            responseBody = response.peekBody(maxBodyBytes).string();
+        }
+
+        log.add(new NetworkLog.Entry(System.currentTimeMillis(), request.method(),
+                request.url().toString(), response.code(), durationMs, requestBytes, responseBytes,
+                redact(request.headers()), response.headers(), requestBody, responseBody, null));
+        return response;
+    }
+
+    private String readRequestBody(RequestBody body) throws IOException {
+        if (body == null) {
+            return null;
+        }
+        long length = body.contentLength();
+        if (!isText(body.contentType()) || length < 0 || length > maxBodyBytes) {
+            return "(" + length + " bytes omitidos)";
+        }
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return buffer.readUtf8();
+    }
+
+    private static boolean isText(MediaType type) {
+        if (type == null) {
+            return false;
+        }
+        String subtype = type.subtype();
+        return "text".equals(type.type())
+                || subtype.contains("json")
+                || subtype.contains("xml")
+                || "x-www-form-urlencoded".equals(subtype);
+    }
+
+    private static Headers redact(Headers headers) {
+        if (headers.get("Authorization") == null) {
+            return headers;
+        }
+        return headers.newBuilder().set("Authorization", "██").build();
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.frontend.api;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import okhttp3.Request;
+import retrofit2.Invocation;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.PATCH;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+
+/**
+ * Métricas de red por endpoint.
+ *
+ * Agrupa los tiempos por plantilla de endpoint ("GET products/{id}", no la URL real)
+ * y por fase: DNS, conexión, TLS, tiempo hasta el primer byte, lectura del cuerpo,
+ * deserialización Gson y total. Permite distinguir lentitud del backend del coste
+ * de parseo en el cliente. La deserialización se mide con el cuerpo ya leído, así que
+ * no se solapa con BODY_READ.
+ */
+public class NetworkMetrics {
+
+    public enum Phase {
+        DNS,
+        CONNECT,
+        TLS,
+        TTFB,
+        BODY_READ,
+        DESERIALIZE,
+        TOTAL
+    }
+
+    private static final NetworkMetrics INSTANCE = new NetworkMetrics();
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Method, String> templates = new ConcurrentHashMap<>();
+
+    public static NetworkMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public void record(String endpoint, Phase phase, long nanos) {
+        getEndpoint(endpoint).histograms[phase.ordinal()].recordNanos(nanos);
+    }
+
+    public void recordFailure(String endpoint) {
+        getEndpoint(endpoint).failures.incrementAndGet();
+    }
+
+    private EndpointMetrics getEndpoint(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics == null) {
+            metrics = new EndpointMetrics();
+            EndpointMetrics previous = endpoints.putIfAbsent(endpoint, metrics);
+            if (previous != null) {
+                metrics = previous;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Plantilla de endpoint de una petición. Usa la anotación de Retrofit cuando existe
+     * y, si no, sustituye los segmentos numéricos de la ruta por {id}.
+     */
+    public String endpointFor(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            String template = templateFor(invocation.method());
+            if (template != null) {
+                return template;
+            }
+        }
+        return request.method() + " " + NUMERIC_SEGMENT.matcher(request.url().encodedPath()).replaceAll("/{id}");
+    }
+
+    /**
+     * Plantilla de endpoint a partir de las anotaciones del método de Retrofit.
+     */
+    public String templateFor(Method method) {
+        String template = templates.get(method);
+        if (template == null) {
+            template = templateFor(method.getAnnotations());
+            if (template != null) {
+                templates.putIfAbsent(method, template);
+            }
+        }
+        return template;
+    }
+
+    public static String templateFor(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof GET) {
+                return "GET " + trimSlash(((GET) annotation).value());
+            } else if (annotation instanceof POST) {
+                return "POST " + trimSlash(((POST) annotation).value());
+            } else if (annotation instanceof PUT) {
+                return "PUT " + trimSlash(((PUT) annotation).value());
+            } else if (annotation instanceof PATCH) {
+                return "PATCH " + trimSlash(((PATCH) annotation).value());
+            } else if (annotation instanceof DELETE) {
+                return "DELETE " + trimSlash(((DELETE) annotation).value());
+            }
+        }
+        return null;
+    }
+
+    private static String trimSlash(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    /**
+     * Instantánea de todas las métricas, ordenada por endpoint.
+     */
+    public Map<String, EndpointSnapshot> snapshot() {
+        Map<String, EndpointSnapshot> result = new TreeMap<>();
+        for (Map.Entry<String, EndpointMetrics> entry : endpoints.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return result;
+    }
+
+    public EndpointSnapshot snapshot(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics != null ? metrics.snapshot() : null;
+    }
+
+    /**
+     * Volcado JSON de las métricas, para exportarlas o adjuntarlas a un informe.
+     */
+    public String toJson() {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        return gson.toJson(snapshot());
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private static class EndpointMetrics {
+        final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+        final AtomicLong failures = new AtomicLong();
+
+        EndpointMetrics() {
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LatencyHistogram();
+            }
+        }
+
+        EndpointSnapshot snapshot() {
+            Map<String, PhaseSnapshot> phases = new LinkedHashMap<>();
+            for (Phase phase : Phase.values()) {
+                LatencyHistogram histogram = histograms[phase.ordinal()];
+                if (histogram.getCount() > 0) {
+                    phases.put(phase.name().toLowerCase(Locale.ROOT), new PhaseSnapshot(histogram));
+                }
+            }
+            return new EndpointSnapshot(histograms[Phase.TOTAL.ordinal()].getCount(), failures.get(), phases);
+        }
+    }
+
+    public static class EndpointSnapshot {
+        public final long calls;
+        public final long failures;
+        public final Map<String, PhaseSnapshot> phases;
+
+        EndpointSnapshot(long calls, long failures, Map<String, PhaseSnapshot> phases) {
+            this.calls = calls;
+            this.failures = failures;
+            this.phases = phases;
+        }
+    }
+
+    public static class PhaseSnapshot {
+        public final long count;
+        public final double meanMs;
+        public final double p50Ms;
+        public final double p95Ms;
+        public final double p99Ms;
+
+        PhaseSnapshot(LatencyHistogram histogram) {
+            this.count = histogram.getCount();
+            this.meanMs = histogram.getMeanMillis();
+            this.p50Ms = histogram.getPercentileMillis(50);
+            this.p95Ms = histogram.getPercentileMillis(95);
+            this.p99Ms = histogram.getPercentileMillis(99);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.frontend.api;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * EventListener de OkHttp que mide las fases de cada llamada y las registra en
+ * {@link NetworkMetrics}. Se crea una instancia por llamada, así que no necesita
+ * sincronización.
+ */
+public class NetworkMetricsEventListener extends EventListener {
+
+    public static final EventListener.Factory FACTORY = call -> new NetworkMetricsEventListener(NetworkMetrics.getInstance());
+
+    private final NetworkMetrics metrics;
+    private String endpoint;
+    private long callStartNs;
+    private long dnsStartNs;
+    private long connectStartNs;
+    private long secureConnectStartNs;
+    private long requestSentNs;
+    private long responseBodyStartNs;
+
+    NetworkMetricsEventListener(NetworkMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStartNs = System.nanoTime();
+        endpoint = metrics.endpointFor(call.request());
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        metrics.record(endpoint, NetworkMetrics.Phase.DNS, System.nanoTime() - dnsStartNs);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        metrics.record(endpoint, NetworkMetrics.Phase.TLS, System.nanoTime() - secureConnectStartNs);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        metrics.record(endpoint, NetworkMetrics.Phase.CONNECT, System.nanoTime() - connectStartNs);
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, okhttp3.Request request) {
+        requestSentNs = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestSentNs = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        if (requestSentNs != 0) {
+            metrics.record(endpoint, NetworkMetrics.Phase.TTFB, System.nanoTime() - requestSentNs);
+        }
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        responseBodyStartNs = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        if (responseBodyStartNs != 0) {
+            metrics.record(endpoint, NetworkMetrics.Phase.BODY_READ, System.nanoTime() - responseBodyStartNs);
+        }
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        metrics.record(endpoint, NetworkMetrics.Phase.TOTAL, System.nanoTime() - callStartNs);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        metrics.recordFailure(endpoint);
+    }
+}
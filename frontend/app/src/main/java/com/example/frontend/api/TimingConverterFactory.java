@@ -0,0 +1,45 @@
+package com.example.frontend.api;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Converter.Factory que envuelve al convertidor Gson para medir el tiempo de
+ * deserialización por endpoint.
+ *
+ * El cuerpo se lee entero a memoria antes de convertirlo, de modo que la cifra es solo
+ * el parseo: la lectura la mide {@link NetworkMetricsEventListener} (BODY_READ) y las
+ * dos fases no se solapan. A cambio la respuesta completa y el árbol de objetos
+ * coinciden en memoria mientras dura el parseo.
+ */
+public class TimingConverterFactory extends Converter.Factory {
+
+    private final NetworkMetrics metrics;
+
+    public TimingConverterFactory(NetworkMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        String endpoint = NetworkMetrics.templateFor(annotations);
+        Converter<ResponseBody, ?> delegate = retrofit.nextResponseBodyConverter(this, type, annotations);
+        if (endpoint == null) {
+            return delegate;
+        }
+        return body -> {
+            // Termina la lectura (y BODY_READ) antes de empezar a medir
+            body.source().request(Long.MAX_VALUE);
+            long start = System.nanoTime();
+            try {
+                return delegate.convert(body);
+            } finally {
+                metrics.record(endpoint, NetworkMetrics.Phase.DESERIALIZE, System.nanoTime() - start);
+            }
+        };
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.frontend.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.frontend.api.ApiClient;
+import com.example.frontend.model.CartItem;
+import com.example.frontend.model.OrderRequest;
+import com.example.frontend.model.Transaction;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Envío del carrito como un pedido por vendedor.
+ *
+ * Los pedidos se envían a la vez, como mucho parallelism en vuelo, y el resultado llega
+ * una sola vez cuando han terminado todos: todos bien, algunos o ninguno. Cada pedido
+ * lleva una clave de idempotencia (cabecera Idempotency-Key) que se conserva en los
+ * reintentos, así que reenviar un pedido cuya respuesta se perdió no lo duplica. Los
+ * errores de red y 5xx se reintentan solos unas pocas veces; {@link #retryFailed} vuelve
+ * a enviar solo los que fallaron. Mientras hay un envío en curso se ignoran otros
+ * (doble pulsación en "Confirmar").
+ *
+ * Se usa desde el hilo principal: las respuestas de Retrofit llegan ya en él.
+ */
+public class CheckoutEngine {
+    private static final String TAG = "CheckoutEngine";
+
+    public static final int DEFAULT_PARALLELISM = 3;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 1_000L;
+
+    public enum Outcome {
+        ALL,
+        PARTIAL,
+        NONE
+    }
+
+    /** Pedido a un vendedor, con los productos del carrito que incluye. */
+    public static final class SellerOrder {
+        private final int sellerId;
+        private final String sellerType;
+        private final OrderRequest request;
+        private final List<CartItem> items;
+        private final String idempotencyKey = UUID.randomUUID().toString();
+        private int attempts;
+        private Transaction transaction;
+        private String error;
+
+        public SellerOrder(int sellerId, String sellerType, OrderRequest request, List<CartItem> items) {
+            this.sellerId = sellerId;
+            this.sellerType = sellerType;
+            this.request = request;
+            this.items = items;
+        }
+
+        public int getSellerId() {
+            return sellerId;
+        }
+
+        public String getSellerType() {
+            return sellerType;
+        }
+
+        public List<CartItem> getItems() {
+            return items;
+        }
+
+        /** Pedido creado; null si ha fallado. */
+        public Transaction getTransaction() {
+            return transaction;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    public static final class Result {
+        private final List<SellerOrder> succeeded;
+        private final List<SellerOrder> failed;
+
+        Result(List<SellerOrder> succeeded, List<SellerOrder> failed) {
+            this.succeeded = Collections.unmodifiableList(succeeded);
+            this.failed = Collections.unmodifiableList(failed);
+        }
+
+        public Outcome getOutcome() {
+            if (failed.isEmpty()) {
+                return Outcome.ALL;
+            }
+            return succeeded.isEmpty() ? Outcome.NONE : Outcome.PARTIAL;
+        }
+
+        public List<SellerOrder> getSucceeded() {
+            return succeeded;
+        }
+
+        public List<SellerOrder> getFailed() {
+            return failed;
+        }
+    }
+
+    public interface Listener {
+        void onComplete(Result result);
+    }
+
+    private final int buyerId;
+    private final String buyerType;
+    private final int parallelism;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final ArrayDeque<SellerOrder> waiting = new ArrayDeque<>();
+    private List<SellerOrder> orders = new ArrayList<>();
+    private List<SellerOrder> lastFailed = new ArrayList<>();
+    private Listener listener;
+    private int inFlight;
+    private int remaining;
+    // Las respuestas de un envío abandonado con detach() se ignoran
+    private int generation;
+
+    public CheckoutEngine(int buyerId, String buyerType) {
+        this(buyerId, buyerType, DEFAULT_PARALLELISM);
+    }
+
+    public CheckoutEngine(int buyerId, String buyerType, int parallelism) {
+        this.buyerId = buyerId;
+        this.buyerType = buyerType;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public boolean isRunning() {
+        return remaining > 0;
+    }
+
+    /** Envía los pedidos; devuelve false (y no hace nada) si ya hay un envío en curso. */
+    public boolean submit(List<SellerOrder> sellerOrders, Listener listener) {
+        if (isRunning() || sellerOrders.isEmpty()) {
+            return false;
+        }
+        start(new ArrayList<>(sellerOrders), listener);
+        return true;
+    }
+
+    /** Reenvía los pedidos que fallaron en el último envío, con sus mismas claves. */
+    public boolean retryFailed(Listener listener) {
+        if (isRunning() || lastFailed.isEmpty()) {
+            return false;
+        }
+        for (SellerOrder order : lastFailed) {
+            order.attempts = 0;
+            order.error = null;
+        }
+        start(new ArrayList<>(lastFailed), listener);
+        return true;
+    }
+
+    /** Deja de avisar al listener (pantalla destruida); los pedidos ya enviados siguen. */
+    public void detach() {
+        generation++;
+        listener = null;
+        handler.removeCallbacksAndMessages(null);
+        waiting.clear();
+        inFlight = 0;
+        remaining = 0;
+    }
+
+    private void start(List<SellerOrder> sellerOrders, Listener listener) {
+        this.orders = sellerOrders;
+        this.listener = listener;
+        this.remaining = sellerOrders.size();
+        waiting.addAll(sellerOrders);
+        pump();
+    }
+
+    private void pump() {
+        while (inFlight < parallelism && !waiting.isEmpty()) {
+            send(waiting.poll());
+        }
+    }
+
+    private void send(SellerOrder order) {
+        final int sent = generation;
+        inFlight++;
+        order.attempts++;
+        Call<Transaction> call = ApiClient.getApiService()
+                .createOrderFromCart(buyerId, buyerType, order.request, order.idempotencyKey);
+        call.enqueue(new Callback<Transaction>() {
+            @Override
+            public void onResponse(Call<Transaction> call, Response<Transaction> response) {
+                if (sent != generation) return;
+                if (response.isSuccessful()) {
+                    order.transaction = response.body();
+                    finish(order, null, false);
+                } else {
+                    int code = response.code();
+                    finish(order, "HTTP " + code, code >= 500 || code == 408 || code == 429);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Transaction> call, Throwable t) {
+                if (sent != generation) return;
+                finish(order, t.getMessage() != null ? t.getMessage() : "Error de conexión", true);
+            }
+        });
+    }
+
+    private void finish(SellerOrder order, String error, boolean retryable) {
+        inFlight--;
+        if (error != null && retryable && order.attempts < MAX_ATTEMPTS) {
+            // Misma clave: si el primer intento llegó a crearse, el servidor lo devuelve
+            Log.d(TAG, "Reintentando pedido a " + order.sellerType + " " + order.sellerId + ": " + error);
+            handler.postDelayed(() -> {
+                waiting.addFirst(order);
+                pump();
+            }, RETRY_DELAY_MS * order.attempts);
+            pump();
+            return;
+        }
+        order.error = error;
+        if (error != null) {
+            Log.w(TAG, "Pedido a " + order.sellerType + " " + order.sellerId + " fallido: " + error);
+        }
+        remaining--;
+        pump();
+        if (remaining == 0) {
+            complete();
+        }
+    }
+
+    private void complete() {
+        List<SellerOrder> succeeded = new ArrayList<>();
+        List<SellerOrder> failed = new ArrayList<>();
+        for (SellerOrder order : orders) {
+            (order.error == null ? succeeded : failed).add(order);
+        }
+        lastFailed = failed;
+        Listener target = listener;
+        listener = null;
+        if (target != null) {
+            target.onComplete(new Result(succeeded, failed));
+        }
+    }
+}
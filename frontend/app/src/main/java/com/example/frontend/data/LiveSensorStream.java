@@ -0,0 +1,304 @@
+package com.example.frontend.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.example.frontend.api.ApiClient;
+import com.example.frontend.model.FarmerDashboard;
+import com.example.frontend.model.SensorAlert;
+import com.example.frontend.model.SensorReading;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSource;
+
+/**
+ * Novedades del farmer en tiempo real mediante Server-Sent Events
+ * (/farmer-metrics/stream/{farmer_id}).
+ *
+ * El servidor envía lecturas ('reading'), alertas ('alert') y el resumen de cada zona
+ * que ha cambiado ('zone'), así que el dashboard se actualiza sin volver a descargarlo
+ * entero. Las lecturas se guardan en {@link SensorSeriesStore} y pasan por
+ * {@link SensorAlertEngine}; las alertas se combinan con las locales.
+ *
+ * Si la conexión se corta se reconecta con espera exponencial, enviando Last-Event-ID
+ * para reanudar donde se quedó. Mientras no hay conexión (o el servidor no tiene el
+ * endpoint) {@link Listener#onLiveChanged} avisa para que la pantalla siga con el
+ * polling habitual. La conexión sigue el ciclo de vida de la pantalla (STARTED = abierta).
+ */
+public class LiveSensorStream {
+    private static final String TAG = "LiveSensorStream";
+
+    /** El servidor manda un comentario cada 15 s; sin nada en este tiempo se reconecta. */
+    private static final long READ_TIMEOUT_SECONDS = 45;
+    private static final long DEFAULT_RETRY_MS = 3_000L;
+    private static final long MAX_RETRY_MS = 60_000L;
+    /** Fallos seguidos antes de volver al polling. */
+    private static final int FAILURES_BEFORE_FALLBACK = 2;
+
+    /** Todos los métodos se llaman en el hilo principal. */
+    public interface Listener {
+        void onReading(SensorReading reading);
+
+        void onAlert(SensorAlert alert);
+
+        void onZone(FarmerDashboard.ZoneSummary zone);
+
+        /** true con el stream conectado; false si hay que recurrir al polling. */
+        void onLiveChanged(boolean live);
+    }
+
+    private final Context context;
+    private final String url;
+    private final Listener listener;
+    private final OkHttpClient client;
+    private final Gson gson;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable connectRunnable = this::connect;
+
+    // Estado de la conexión; solo se modifica en el hilo principal salvo lastEventId y retryMs
+    private Call call;
+    private volatile int generation;
+    private boolean running;
+    private boolean live;
+    private int failures;
+    private volatile String lastEventId;
+    private volatile long retryMs = DEFAULT_RETRY_MS;
+
+    public LiveSensorStream(Context context, int farmerId, Listener listener) {
+        this.context = context.getApplicationContext();
+        this.url = ApiClient.getBaseUrl() + "farmer-metrics/stream/" + farmerId;
+        this.listener = listener;
+        this.gson = ApiClient.getGson();
+        // Mismo pool y dispatcher que el resto de la app. Sin interceptores: la caché y
+        // el registro de red leen el cuerpo, y el de un stream no termina nunca.
+        OkHttpClient.Builder builder = ApiClient.getHttpClient().newBuilder()
+                .readTimeout(READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .cache(null);
+        builder.interceptors().clear();
+        builder.networkInterceptors().clear();
+        this.client = builder.build();
+    }
+
+    /** Abre la conexión con la pantalla visible y la cierra al ocultarse o destruirse. */
+    public void bind(LifecycleOwner owner) {
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(LifecycleOwner source, Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_START) {
+                    start();
+                } else if (event == Lifecycle.Event.ON_STOP) {
+                    stop();
+                } else if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                }
+            }
+        });
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        failures = 0;
+        connect();
+    }
+
+    public void stop() {
+        running = false;
+        generation++;
+        handler.removeCallbacks(connectRunnable);
+        if (call != null) {
+            call.cancel();
+            call = null;
+        }
+        setLive(false);
+    }
+
+    public boolean isLive() {
+        return live;
+    }
+
+    private void connect() {
+        if (!running) {
+            return;
+        }
+        Request.Builder request = new Request.Builder()
+                .url(url)
+                .header("Accept", "text/event-stream")
+                .cacheControl(CacheControl.FORCE_NETWORK);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        final int connection = ++generation;
+        call = client.newCall(request.build());
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    if (!response.isSuccessful() || response.body() == null) {
+                        Log.w(TAG, "Stream no disponible: " + response.code());
+                        // Un 404 es un servidor sin stream: no tiene sentido insistir pronto
+                        postFailure(connection, response.code() == 404);
+                        return;
+                    }
+                    handler.post(() -> onConnected(connection));
+                    read(response.body().source(), connection);
+                    postFailure(connection, false);
+                } catch (IOException e) {
+                    if (!call.isCanceled()) {
+                        Log.d(TAG, "Stream interrumpido: " + e.getMessage());
+                        postFailure(connection, false);
+                    }
+                } finally {
+                    response.close();
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (!call.isCanceled()) {
+                    Log.d(TAG, "Error de conexión: " + e.getMessage());
+                    postFailure(connection, false);
+                }
+            }
+        });
+    }
+
+    /** Lee eventos hasta que el servidor cierra o la conexión se cancela. */
+    private void read(BufferedSource source, int connection) throws IOException {
+        String event = null;
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = source.readUtf8Line()) != null && connection == generation) {
+            if (line.isEmpty()) {
+                // Fin del evento
+                if (data.length() > 0) {
+                    dispatch(event != null ? event : "message", data.toString(), connection);
+                }
+                event = null;
+                data.setLength(0);
+                continue;
+            }
+            if (line.charAt(0) == ':') {
+                continue; // comentario (heartbeat)
+            }
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            switch (field) {
+                case "event":
+                    event = value;
+                    break;
+                case "data":
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                    break;
+                case "id":
+                    lastEventId = value;
+                    break;
+                case "retry":
+                    try {
+                        retryMs = Long.parseLong(value);
+                    } catch (NumberFormatException ignored) {
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /** Aplica el evento a los datos locales (en el hilo de red) y avisa en el principal. */
+    private void dispatch(String event, String data, int connection) {
+        try {
+            switch (event) {
+                case "reading": {
+                    SensorReading reading = gson.fromJson(data, SensorReading.class);
+                    SensorSeriesStore.getInstance(context).append(Collections.singletonList(reading));
+                    SensorAlertEngine.getInstance().evaluate(Collections.singletonList(reading));
+                    post(connection, () -> listener.onReading(reading));
+                    break;
+                }
+                case "alert": {
+                    SensorAlert alert = gson.fromJson(data, SensorAlert.class);
+                    SensorAlertEngine.getInstance().mergeServerAlerts(Collections.singletonList(alert));
+                    post(connection, () -> listener.onAlert(alert));
+                    break;
+                }
+                case "zone": {
+                    FarmerDashboard.ZoneSummary zone = gson.fromJson(data, FarmerDashboard.ZoneSummary.class);
+                    post(connection, () -> listener.onZone(zone));
+                    break;
+                }
+                default:
+                    break;
+            }
+        } catch (JsonParseException e) {
+            Log.w(TAG, "Evento '" + event + "' no válido: " + e.getMessage());
+        }
+    }
+
+    private void post(int connection, Runnable action) {
+        handler.post(() -> {
+            if (running && connection == generation) {
+                action.run();
+            }
+        });
+    }
+
+    private void onConnected(int connection) {
+        if (!running || connection != generation) {
+            return;
+        }
+        failures = 0;
+        setLive(true);
+    }
+
+    private void postFailure(int connection, boolean unavailable) {
+        handler.post(() -> {
+            if (!running || connection != generation) {
+                return;
+            }
+            call = null;
+            failures++;
+            if (unavailable || failures >= FAILURES_BEFORE_FALLBACK) {
+                setLive(false);
+            }
+            long delay = unavailable ? MAX_RETRY_MS
+                    : Math.min(retryMs << Math.min(failures - 1, 5), MAX_RETRY_MS);
+            handler.postDelayed(connectRunnable, delay);
+        });
+    }
+
+    private void setLive(boolean live) {
+        if (this.live == live) {
+            return;
+        }
+        this.live = live;
+        Log.d(TAG, live ? "Stream conectado" : "Stream sin conexión, se usa el polling");
+        listener.onLiveChanged(live);
+    }
+}
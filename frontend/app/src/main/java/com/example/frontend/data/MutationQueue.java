@@ -0,0 +1,771 @@
+package com.example.frontend.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.frontend.api.ApiClient;
+import com.example.frontend.api.ApiService;
+import com.example.frontend.model.Product;
+import com.example.frontend.model.ProductUpdate;
+import com.example.frontend.services.TraceabilityApiService;
+import com.example.frontend.utils.Constants;
+import com.example.frontend.utils.ImageUploadPipeline;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import retrofit2.Response;
+
+/**
+ * Cola persistente de cambios sobre productos (crear, editar, cambiar imagen,
+ * ocultar/mostrar, eliminar y crear la cadena de trazabilidad).
+ *
+ * Cada operación se guarda en SQLite (y su imagen en filesDir) antes de enviarse, así
+ * que sobrevive a que se cierre la pantalla o la app y a los cortes de red. Las de un
+ * mismo producto se envían en orden, de una en una; las de productos distintos, como
+ * mucho {@link #MAX_CONCURRENT} a la vez. Los errores de red y 5xx se reintentan con
+ * espera exponencial, y al recuperar la conexión se reintenta todo de inmediato; un 4xx
+ * descarta la operación y se notifica.
+ *
+ * Tras un error de red o un 5xx no se sabe si el servidor llegó a aplicar la petición.
+ * Repetir ediciones o borrados da igual, pero crear no: la creación lleva una
+ * Idempotency-Key fija (el reintento devuelve el producto ya creado) y antes de repetir
+ * la trazabilidad se comprueba si la cadena ya existe. La visibilidad se envía como
+ * estado final (oculto o visible) con su propia Idempotency-Key, no como un cambio
+ * que un reintento desharía.
+ *
+ * Al encolar se combinan las operaciones consecutivas del mismo producto que aún no se
+ * han enviado: dos ediciones seguidas se quedan en la última (el PUT reemplaza todos los
+ * campos), dos cambios de visibilidad en el último y eliminar descarta lo pendiente (y no
+ * envía nada si el producto aún no se había creado). {@link #applyPending} aplica lo
+ * pendiente sobre una lista de productos para mostrar los cambios de inmediato.
+ *
+ * Los productos creados sin conexión tienen un id local ("local-N") hasta que el
+ * servidor asigna el suyo.
+ */
+public class MutationQueue {
+    private static final String TAG = "MutationQueue";
+
+    public static final int MAX_CONCURRENT = 2;
+    public static final String LOCAL_ID_PREFIX = "local-";
+    private static final long BASE_RETRY_MS = 5_000L;
+    private static final long MAX_RETRY_MS = 10 * 60_000L;
+    private static final String FILES_DIR = "mutations";
+    private static final MediaType TEXT = MediaType.parse("text/plain");
+
+    public enum Type {
+        CREATE,
+        UPDATE,
+        UPDATE_IMAGE,
+        // Fija la visibilidad (HiddenPayload); el nombre se mantiene por las filas guardadas
+        TOGGLE_HIDDEN,
+        DELETE,
+        TRACEABILITY
+    }
+
+    /** Todos los métodos se llaman en el hilo principal. */
+    public interface Listener {
+        void onOperationDone(Operation operation);
+
+        /** El servidor rechazó la operación; hay que recargar para deshacer el cambio mostrado. */
+        void onOperationFailed(Operation operation, String message);
+    }
+
+    public static final class Operation {
+        final long id;
+        String productKey;
+        Type type;
+        String payload;
+        String file;
+        int attempts;
+        long nextAttempt;
+
+        Operation(long id, String productKey, Type type, String payload, String file) {
+            this.id = id;
+            this.productKey = productKey;
+            this.type = type;
+            this.payload = payload;
+            this.file = file;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public String getProductKey() {
+            return productKey;
+        }
+    }
+
+    /** Campos del formulario de creación (multipart) y si hay que crear la trazabilidad. */
+    private static final class CreatePayload {
+        Map<String, String> fields;
+        boolean traceability;
+        // Se mantiene entre reintentos; null en operaciones guardadas por versiones anteriores
+        String idempotencyKey;
+    }
+
+    /** Visibilidad final y su Idempotency-Key (fija entre reintentos). */
+    private static final class HiddenPayload {
+        boolean hidden;
+        String idempotencyKey;
+    }
+
+    private static MutationQueue instance;
+
+    private final Context context;
+    private final Store store;
+    private final File filesDir;
+    private final Gson gson = new Gson();
+    // Escrituras en SQLite, en el orden en que se producen
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService networkExecutor = Executors.newFixedThreadPool(MAX_CONCURRENT);
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable pumpRunnable = this::pump;
+    private final List<Listener> listeners = new ArrayList<>();
+
+    // Estado en memoria, protegido por this; SQLite es solo la copia persistente
+    private final List<Operation> pending = new ArrayList<>();
+    private final Set<String> inFlight = new HashSet<>();
+    private long nextId;
+    private int nextLocalId;
+    private boolean started;
+
+    public static synchronized MutationQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new MutationQueue(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private MutationQueue(Context context) {
+        this.context = context;
+        this.store = new Store(context);
+        this.filesDir = new File(context.getFilesDir(), FILES_DIR);
+        // Pocas filas: se leen al arrancar para que el orden de la cola sea el guardado
+        pending.addAll(store.loadAll());
+        for (Operation op : pending) {
+            nextId = Math.max(nextId, op.id);
+            if (op.productKey.startsWith(LOCAL_ID_PREFIX)) {
+                nextLocalId = Math.max(nextLocalId, parseLocalId(op.productKey));
+            }
+        }
+    }
+
+    /** Reanuda lo pendiente de sesiones anteriores y reintenta al recuperar la conexión. */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        ConnectivityManager connectivity = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivity != null) {
+            NetworkRequest request = new NetworkRequest.Builder()
+                    .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                    .build();
+            connectivity.registerNetworkCallback(request, new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    retryNow();
+                }
+            });
+        }
+        handler.post(pumpRunnable);
+    }
+
+    public synchronized void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    // ===== Encolar =====
+
+    /**
+     * Crea un producto con los campos del formulario multipart y una imagen opcional
+     * (que pasa a ser propiedad de la cola). Devuelve el id local del producto.
+     */
+    public synchronized String enqueueCreate(Map<String, String> fields, File image, boolean traceability) {
+        String key = LOCAL_ID_PREFIX + (++nextLocalId);
+        CreatePayload payload = new CreatePayload();
+        payload.fields = new LinkedHashMap<>(fields);
+        payload.traceability = traceability;
+        payload.idempotencyKey = UUID.randomUUID().toString();
+        add(new Operation(++nextId, key, Type.CREATE, gson.toJson(payload), adopt(image)));
+        return key;
+    }
+
+    public synchronized void enqueueUpdate(String productId, ProductUpdate update) {
+        Operation last = lastWaiting(productId);
+        if (last != null && last.type == Type.UPDATE) {
+            // El PUT reemplaza todos los campos: basta con enviar la última edición
+            last.payload = gson.toJson(update);
+            persist(last);
+            return;
+        }
+        if (last != null && last.type == Type.CREATE) {
+            CreatePayload payload = gson.fromJson(last.payload, CreatePayload.class);
+            applyToForm(update, payload.fields);
+            last.payload = gson.toJson(payload);
+            persist(last);
+            return;
+        }
+        add(new Operation(++nextId, productId, Type.UPDATE, gson.toJson(update), null));
+    }
+
+    public synchronized void enqueueImage(String productId, File image) {
+        Operation last = lastWaiting(productId);
+        if (last != null && (last.type == Type.UPDATE_IMAGE || last.type == Type.CREATE)) {
+            deleteFile(last.file);
+            last.file = adopt(image);
+            persist(last);
+            return;
+        }
+        add(new Operation(++nextId, productId, Type.UPDATE_IMAGE, null, adopt(image)));
+    }
+
+    /** Oculta o muestra el producto (estado final, no un cambio relativo). */
+    public synchronized void enqueueSetHidden(String productId, boolean hidden) {
+        Operation last = lastWaiting(productId);
+        if (last != null && last.type == Type.TOGGLE_HIDDEN) {
+            // Solo cuenta el último estado pedido
+            last.payload = hiddenPayload(hidden);
+            persist(last);
+            return;
+        }
+        add(new Operation(++nextId, productId, Type.TOGGLE_HIDDEN, hiddenPayload(hidden), null));
+    }
+
+    private String hiddenPayload(boolean hidden) {
+        HiddenPayload payload = new HiddenPayload();
+        payload.hidden = hidden;
+        payload.idempotencyKey = UUID.randomUUID().toString();
+        return gson.toJson(payload);
+    }
+
+    public synchronized void enqueueDelete(String productId) {
+        boolean createdLocally = false;
+        for (Iterator<Operation> it = pending.iterator(); it.hasNext(); ) {
+            Operation op = it.next();
+            if (op.productKey.equals(productId) && !inFlight.contains(op.productKey + "#" + op.id)) {
+                createdLocally |= op.type == Type.CREATE;
+                it.remove();
+                deleteFile(op.file);
+                unpersist(op);
+            }
+        }
+        if (createdLocally) {
+            // Nunca llegó al servidor: no hay nada que borrar
+            return;
+        }
+        add(new Operation(++nextId, productId, Type.DELETE, null, null));
+    }
+
+    private void add(Operation op) {
+        pending.add(op);
+        persist(op);
+        handler.post(pumpRunnable);
+    }
+
+    /** Última operación pendiente del producto, si todavía no se está enviando. */
+    private Operation lastWaiting(String productKey) {
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            Operation op = pending.get(i);
+            if (op.productKey.equals(productKey)) {
+                return inFlight.contains(op.productKey + "#" + op.id) ? null : op;
+            }
+        }
+        return null;
+    }
+
+    private void remove(Operation op) {
+        pending.remove(op);
+        deleteFile(op.file);
+        unpersist(op);
+    }
+
+    // ===== Vista optimista =====
+
+    /**
+     * Copia de products con las operaciones pendientes aplicadas: productos creados
+     * por providerId, ediciones, visibilidad y borrados.
+     */
+    public synchronized List<Product> applyPending(List<Product> products, int providerId) {
+        List<Product> result = new ArrayList<>(products);
+        for (Operation op : pending) {
+            if (op.type == Type.CREATE) {
+                Product product = productFromForm(op.productKey, gson.fromJson(op.payload, CreatePayload.class).fields);
+                if (product.getProviderId() != null && product.getProviderId() == providerId) {
+                    result.add(0, product);
+                }
+                continue;
+            }
+            int index = indexOf(result, op.productKey);
+            if (index < 0) {
+                continue;
+            }
+            // Copia: los productos de la lista pueden ser los que guarda el repositorio
+            Product product = gson.fromJson(gson.toJson(result.get(index)), Product.class);
+            result.set(index, product);
+            switch (op.type) {
+                case UPDATE:
+                    applyUpdate(product, gson.fromJson(op.payload, ProductUpdate.class));
+                    break;
+                case TOGGLE_HIDDEN:
+                    if (op.payload != null) {
+                        product.setHidden(gson.fromJson(op.payload, HiddenPayload.class).hidden);
+                    } else {
+                        product.setHidden(!product.isHidden());
+                    }
+                    break;
+                case DELETE:
+                    result.remove(index);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return result;
+    }
+
+    private static int indexOf(List<Product> products, String productId) {
+        for (int i = 0; i < products.size(); i++) {
+            if (productId.equals(products.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ===== Envío =====
+
+    private synchronized void retryNow() {
+        for (Operation op : pending) {
+            if (op.nextAttempt > 0) {
+                op.nextAttempt = 0;
+                persist(op);
+            }
+        }
+        handler.post(pumpRunnable);
+    }
+
+    /** Lanza las operaciones listas: la primera de cada producto, hasta MAX_CONCURRENT. */
+    private synchronized void pump() {
+        handler.removeCallbacks(pumpRunnable);
+        long now = System.currentTimeMillis();
+        long nextWake = Long.MAX_VALUE;
+        Set<String> seen = new HashSet<>();
+        for (Operation op : pending) {
+            if (!seen.add(op.productKey)) {
+                continue; // el producto ya tiene una operación antes que esta
+            }
+            if (isRunning(op.productKey) || inFlight.size() >= MAX_CONCURRENT) {
+                continue;
+            }
+            if (op.productKey.startsWith(LOCAL_ID_PREFIX) && op.type != Type.CREATE) {
+                continue; // espera a que el servidor asigne el id
+            }
+            if (op.nextAttempt > now) {
+                nextWake = Math.min(nextWake, op.nextAttempt);
+                continue;
+            }
+            inFlight.add(op.productKey + "#" + op.id);
+            networkExecutor.execute(() -> execute(op));
+        }
+        if (nextWake != Long.MAX_VALUE) {
+            handler.postDelayed(pumpRunnable, nextWake - now);
+        }
+    }
+
+    private boolean isRunning(String productKey) {
+        for (String running : inFlight) {
+            if (running.startsWith(productKey + "#")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void execute(Operation op) {
+        Response<?> response;
+        try {
+            if (op.type == Type.TRACEABILITY && op.attempts > 0) {
+                // El intento anterior pudo crear la cadena: en ese caso ya está hecho
+                Response<?> status = ApiClient.getAuthenticatedService(TraceabilityApiService.class)
+                        .getProductChainStatus(serverId(op)).execute();
+                if (status.isSuccessful()) {
+                    finish(op, status);
+                    return;
+                }
+            }
+            if (op.type == Type.TOGGLE_HIDDEN && op.payload == null) {
+                // Fila de una versión anterior, guardada como cambio relativo: se pasa a
+                // estado final a partir del actual, en lugar de repetir el cambio a ciegas
+                Response<Product> current = ApiClient.getApiService().getProduct(op.productKey).execute();
+                if (!current.isSuccessful() || current.body() == null) {
+                    finish(op, current);
+                    return;
+                }
+                if (!resolveLegacyHidden(op, current.body().isHidden())) {
+                    return;
+                }
+            }
+            response = call(op).execute();
+        } catch (IOException | RuntimeException e) {
+            Log.d(TAG, "Operación " + op.type + " pendiente: " + e.getMessage());
+            finish(op, null);
+            return;
+        }
+        finish(op, response);
+    }
+
+    /**
+     * Fija el estado final de un cambio de visibilidad antiguo. Si ya se intentó enviar,
+     * no se sabe si el servidor lo aplicó: se deja como está y se avisa para recargar.
+     *
+     * @return false si la operación ya no se envía
+     */
+    private synchronized boolean resolveLegacyHidden(Operation op, boolean currentlyHidden) {
+        if (op.attempts > 0) {
+            inFlight.remove(op.productKey + "#" + op.id);
+            remove(op);
+            notifyFailed(op, "No se pudo confirmar el cambio de visibilidad");
+            handler.post(pumpRunnable);
+            return false;
+        }
+        op.payload = hiddenPayload(!currentlyHidden);
+        persist(op);
+        return true;
+    }
+
+    private retrofit2.Call<?> call(Operation op) {
+        ApiService api = ApiClient.getApiService();
+        switch (op.type) {
+            case CREATE: {
+                CreatePayload payload = gson.fromJson(op.payload, CreatePayload.class);
+                Map<String, String> fields = payload.fields;
+                return api.createProductWithImage(part(fields, "name"), part(fields, "provider_id"),
+                        part(fields, "description"), part(fields, "price"), part(fields, "currency"),
+                        part(fields, "unit"), part(fields, "category"), part(fields, "stock_available"),
+                        part(fields, "expiration_date"), part(fields, "is_eco"), imagePart(op),
+                        payload.idempotencyKey);
+            }
+            case UPDATE:
+                return api.updateProduct(serverId(op), gson.fromJson(op.payload, ProductUpdate.class));
+            case UPDATE_IMAGE:
+                return api.updateProductImage(serverId(op), imagePart(op));
+            case TOGGLE_HIDDEN: {
+                HiddenPayload payload = gson.fromJson(op.payload, HiddenPayload.class);
+                return api.setProductHidden(serverId(op),
+                        Collections.singletonMap("is_hidden", payload.hidden), payload.idempotencyKey);
+            }
+            case DELETE:
+                return api.deleteProduct(serverId(op));
+            case TRACEABILITY:
+            default:
+                return ApiClient.getAuthenticatedService(TraceabilityApiService.class)
+                        .createProductTraceabilityChain(serverId(op), Constants.getBlockchainPrivateKey());
+        }
+    }
+
+    private static RequestBody part(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        return RequestBody.create(TEXT, value != null ? value : "");
+    }
+
+    private static MultipartBody.Part imagePart(Operation op) {
+        if (op.file == null || !new File(op.file).isFile()) {
+            return null;
+        }
+        return ImageUploadPipeline.toPart("image", new File(op.file));
+    }
+
+    private static int serverId(Operation op) {
+        return Integer.parseInt(op.productKey);
+    }
+
+    /** Resultado de una operación; response null es un error de red. */
+    private synchronized void finish(Operation op, Response<?> response) {
+        inFlight.remove(op.productKey + "#" + op.id);
+        int code = response != null ? response.code() : -1;
+        boolean success = response != null && (response.isSuccessful()
+                || (op.type == Type.DELETE && code == 404));
+
+        if (success) {
+            remove(op);
+            onSuccess(op, response);
+            notifyDone(op);
+        } else if (op.type == Type.DELETE && code == 409) {
+            // Con pedidos o trazabilidad no se puede borrar: se oculta, como hasta ahora
+            op.type = Type.TOGGLE_HIDDEN;
+            op.payload = hiddenPayload(true);
+            op.attempts = 0;
+            op.nextAttempt = 0;
+            persist(op);
+            notifyFailed(op, "Producto ocultado (no se podía eliminar)");
+        } else if (response != null && code >= 400 && code < 500 && code != 408 && code != 429) {
+            remove(op);
+            if (op.type == Type.CREATE) {
+                // Lo que dependía de este producto ya no se puede enviar
+                for (Operation dependent : new ArrayList<>(pending)) {
+                    if (dependent.productKey.equals(op.productKey)) {
+                        remove(dependent);
+                    }
+                }
+            }
+            notifyFailed(op, "Error " + code + " en " + describe(op.type));
+        } else {
+            op.attempts++;
+            long delay = Math.min(BASE_RETRY_MS << Math.min(op.attempts - 1, 16), MAX_RETRY_MS);
+            op.nextAttempt = System.currentTimeMillis() + delay;
+            persist(op);
+        }
+        handler.post(pumpRunnable);
+    }
+
+    private void onSuccess(Operation op, Response<?> response) {
+        if (op.type == Type.DELETE) {
+            // La sincronización incremental no ve borrados: quitarlo también en local
+            ProductRepository.getInstance(context).removeProduct(op.productKey);
+        } else if (op.type == Type.CREATE && response.body() instanceof Product) {
+            String serverId = ((Product) response.body()).getId();
+            if (serverId == null) {
+                return;
+            }
+            // Las operaciones posteriores pasan a usar el id del servidor
+            for (Operation dependent : pending) {
+                if (dependent.productKey.equals(op.productKey)) {
+                    dependent.productKey = serverId;
+                    persist(dependent);
+                }
+            }
+            CreatePayload payload = gson.fromJson(op.payload, CreatePayload.class);
+            String privateKey = Constants.getBlockchainPrivateKey();
+            if (payload.traceability && privateKey != null && !privateKey.trim().isEmpty()) {
+                add(new Operation(++nextId, serverId, Type.TRACEABILITY, null, null));
+            }
+        }
+    }
+
+    private void notifyDone(Operation op) {
+        List<Listener> targets = new ArrayList<>(listeners);
+        handler.post(() -> {
+            for (Listener listener : targets) {
+                listener.onOperationDone(op);
+            }
+        });
+    }
+
+    private void notifyFailed(Operation op, String message) {
+        Log.w(TAG, message);
+        List<Listener> targets = new ArrayList<>(listeners);
+        handler.post(() -> {
+            for (Listener listener : targets) {
+                listener.onOperationFailed(op, message);
+            }
+        });
+    }
+
+    private static String describe(Type type) {
+        switch (type) {
+            case CREATE: return "crear producto";
+            case UPDATE: return "actualizar producto";
+            case UPDATE_IMAGE: return "actualizar imagen";
+            case TOGGLE_HIDDEN: return "cambiar visibilidad";
+            case DELETE: return "eliminar producto";
+            default: return "crear trazabilidad";
+        }
+    }
+
+    // ===== Formularios =====
+
+    /** Pasa una edición a los campos del formulario de creación. */
+    private static void applyToForm(ProductUpdate update, Map<String, String> fields) {
+        fields.put("name", text(update.getName()));
+        fields.put("description", text(update.getDescription()));
+        fields.put("price", text(update.getPrice()));
+        fields.put("unit", text(update.getUnit()));
+        fields.put("category", text(update.getCategory()));
+        fields.put("stock_available", text(update.getStockAvailable()));
+        fields.put("expiration_date", text(update.getExpirationDateString()));
+        fields.put("is_eco", String.valueOf(Boolean.TRUE.equals(update.getIsEco())));
+    }
+
+    private static String text(Object value) {
+        return value != null ? String.valueOf(value) : "";
+    }
+
+    private static Product productFromForm(String key, Map<String, String> fields) {
+        Product product = new Product();
+        product.setId(key);
+        product.setName(fields.get("name"));
+        product.setDescription(fields.get("description"));
+        product.setCategory(fields.get("category"));
+        product.setUnit(fields.get("unit"));
+        product.setIsEco(Boolean.parseBoolean(fields.get("is_eco")));
+        try {
+            product.setProviderId(Integer.parseInt(fields.get("provider_id")));
+            product.setPrice(Double.parseDouble(fields.get("price")));
+            product.setStockAvailable(Double.parseDouble(fields.get("stock_available")));
+        } catch (NumberFormatException | NullPointerException ignored) {
+            // Campo opcional vacío
+        }
+        return product;
+    }
+
+    /** Igual que el PUT del backend: los campos nulos quedan vacíos y is_hidden nulo es false. */
+    private static void applyUpdate(Product product, ProductUpdate update) {
+        product.setName(update.getName());
+        product.setDescription(update.getDescription());
+        if (update.getPrice() != null) {
+            product.setPrice(update.getPrice());
+        }
+        product.setStockAvailable(update.getStockAvailable());
+        product.setCategory(update.getCategory());
+        product.setUnit(update.getUnit());
+        product.setIsEco(update.getIsEco());
+        product.setHidden(Boolean.TRUE.equals(update.getIsHidden()));
+    }
+
+    // ===== Ficheros =====
+
+    /** Mueve la imagen a filesDir/mutations, donde el sistema no la borra. */
+    private String adopt(File image) {
+        if (image == null) {
+            return null;
+        }
+        if (!filesDir.isDirectory() && !filesDir.mkdirs()) {
+            Log.w(TAG, "No se pudo crear " + filesDir);
+            return image.getAbsolutePath();
+        }
+        File target = new File(filesDir, image.getName());
+        if (image.renameTo(target)) {
+            return target.getAbsolutePath();
+        }
+        try (InputStream in = new FileInputStream(image); OutputStream out = new FileOutputStream(target)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            image.delete();
+            return target.getAbsolutePath();
+        } catch (IOException e) {
+            Log.w(TAG, "No se pudo copiar la imagen: " + e.getMessage());
+            return image.getAbsolutePath();
+        }
+    }
+
+    private static void deleteFile(String path) {
+        if (path != null) {
+            new File(path).delete();
+        }
+    }
+
+    private static int parseLocalId(String key) {
+        try {
+            return Integer.parseInt(key.substring(LOCAL_ID_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // ===== Persistencia =====
+
+    private void persist(Operation op) {
+        ContentValues values = new ContentValues();
+        values.put("id", op.id);
+        values.put("product_key", op.productKey);
+        values.put("type", op.type.name());
+        values.put("payload", op.payload);
+        values.put("file", op.file);
+        values.put("attempts", op.attempts);
+        values.put("next_attempt", op.nextAttempt);
+        diskExecutor.execute(() -> store.getWritableDatabase()
+                .insertWithOnConflict(Store.TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE));
+    }
+
+    private void unpersist(Operation op) {
+        String[] args = {String.valueOf(op.id)};
+        diskExecutor.execute(() -> store.getWritableDatabase().delete(Store.TABLE, "id = ?", args));
+    }
+
+    private static final class Store extends SQLiteOpenHelper {
+        static final String TABLE = "operations";
+
+        Store(Context context) {
+            super(context, "mutations.db", null, 1);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + TABLE + " ("
+                    + "id INTEGER PRIMARY KEY, "
+                    + "product_key TEXT NOT NULL, "
+                    + "type TEXT NOT NULL, "
+                    + "payload TEXT, "
+                    + "file TEXT, "
+                    + "attempts INTEGER NOT NULL DEFAULT 0, "
+                    + "next_attempt INTEGER NOT NULL DEFAULT 0)");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+            onCreate(db);
+        }
+
+        List<Operation> loadAll() {
+            List<Operation> operations = new ArrayList<>();
+            try (Cursor cursor = getReadableDatabase().query(TABLE, null, null, null, null, null, "id")) {
+                while (cursor.moveToNext()) {
+                    Operation op = new Operation(
+                            cursor.getLong(cursor.getColumnIndexOrThrow("id")),
+                            cursor.getString(cursor.getColumnIndexOrThrow("product_key")),
+                            Type.valueOf(cursor.getString(cursor.getColumnIndexOrThrow("type"))),
+                            cursor.getString(cursor.getColumnIndexOrThrow("payload")),
+                            cursor.getString(cursor.getColumnIndexOrThrow("file")));
+                    op.attempts = cursor.getInt(cursor.getColumnIndexOrThrow("attempts"));
+                    op.nextAttempt = cursor.getLong(cursor.getColumnIndexOrThrow("next_attempt"));
+                    operations.add(op);
+                }
+            }
+            return operations;
+        }
+    }
+}
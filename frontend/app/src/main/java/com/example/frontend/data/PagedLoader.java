@@ -0,0 +1,287 @@
+package com.example.frontend.data;
+
+import com.example.frontend.utils.CacheRegistry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Carga paginada (offset/limit) para listas largas con scroll infinito.
+ *
+ * Mantiene en memoria una ventana de como mucho maxPages páginas consecutivas. Al
+ * acercarse el scroll al final de la ventana pide la página siguiente y, si la ventana
+ * se llena, descarta la primera; al volver hacia arriba recupera la anterior y descarta
+ * la última. {@link #trimMemory()} deja solo las páginas visibles cuando el sistema
+ * pide liberar memoria (ver {@link #asCache}).
+ *
+ * Se usa desde el hilo principal: las respuestas de Retrofit llegan ya en él.
+ */
+public class PagedLoader<T> {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_MAX_PAGES = 6;
+
+    /** Origen de las páginas; debe llamar al callback en el hilo principal. */
+    public interface PageSource<T> {
+        void loadPage(int offset, int limit, PageCallback<T> callback);
+    }
+
+    public interface PageCallback<T> {
+        void onPage(List<T> items);
+        void onError(String message);
+    }
+
+    public interface Listener<T> {
+        /**
+         * @param items        elementos de la ventana actual, en orden
+         * @param windowOffset posición en la lista completa del primer elemento
+         * @param hasMore      false cuando ya se ha llegado al final
+         */
+        void onWindowChanged(List<T> items, int windowOffset, boolean hasMore);
+
+        void onError(String message);
+    }
+
+    public interface ListProvider<T> {
+        List<T> get();
+    }
+
+    /** Petición de Retrofit para una página. */
+    public interface CallFactory<S> {
+        Call<List<S>> create(int offset, int limit);
+    }
+
+    /** Conversión de cada página recibida al tipo que muestra la pantalla. */
+    public interface Mapper<S, T> {
+        List<T> map(List<S> page);
+    }
+
+    /**
+     * Adapta un endpoint paginado de Retrofit. La conversión se hace una vez por página.
+     */
+    public static <S, T> PageSource<T> fromCalls(CallFactory<S> factory, Mapper<S, T> mapper) {
+        return (offset, limit, callback) -> factory.create(offset, limit).enqueue(new Callback<List<S>>() {
+            @Override
+            public void onResponse(Call<List<S>> call, Response<List<S>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    callback.onPage(mapper.map(response.body()));
+                } else {
+                    callback.onError("HTTP " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<List<S>> call, Throwable t) {
+                callback.onError(t.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Páginas sobre una lista que ya está en memoria (resultados de búsqueda): solo
+     * limita cuántas filas recibe el adapter. Se lee la lista en cada petición.
+     */
+    public static <T> PageSource<T> fromList(ListProvider<T> provider) {
+        return (offset, limit, callback) -> {
+            List<T> list = provider.get();
+            int from = Math.min(offset, list.size());
+            int to = Math.min(offset + limit, list.size());
+            callback.onPage(new ArrayList<>(list.subList(from, to)));
+        };
+    }
+
+    private final PageSource<T> source;
+    private final Listener<T> listener;
+    private final int pageSize;
+    private final int maxPages;
+    private final int prefetchItems;
+
+    private final ArrayDeque<List<T>> pages = new ArrayDeque<>();
+    private int firstPage;
+    private boolean endReached;
+    private boolean loading;
+    // Invalida las respuestas que llegan después de un reset()
+    private int generation;
+    private int firstVisible;
+    private int lastVisible = -1;
+
+    public PagedLoader(PageSource<T> source, Listener<T> listener) {
+        this(source, listener, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    public PagedLoader(PageSource<T> source, Listener<T> listener, int pageSize, int maxPages) {
+        this.source = source;
+        this.listener = listener;
+        this.pageSize = pageSize;
+        // Con menos de 3 páginas, cargar por un extremo dispararía la carga por el otro
+        this.maxPages = Math.max(3, maxPages);
+        this.prefetchItems = Math.max(1, pageSize / 2);
+    }
+
+    /**
+     * Vacía la ventana y carga la primera página (carga inicial, cambio de filtro,
+     * recarga tras modificar un pedido).
+     */
+    public void reset() {
+        generation++;
+        pages.clear();
+        firstPage = 0;
+        endReached = false;
+        loading = false;
+        firstVisible = 0;
+        lastVisible = -1;
+        loadPage(0, false);
+    }
+
+    /** Descarta las respuestas pendientes (p. ej. en onDestroyView). */
+    public void cancel() {
+        generation++;
+        loading = false;
+    }
+
+    /**
+     * Informa de las posiciones visibles dentro de la ventana (índices del adapter).
+     * Pide la página siguiente o la anterior si el scroll se acerca a un extremo.
+     */
+    public void onVisibleRange(int first, int last) {
+        firstVisible = first;
+        lastVisible = last;
+        maybeLoadMore();
+    }
+
+    /**
+     * Libera las páginas que no se ven. Se vuelven a pedir si el usuario vuelve a ellas.
+     */
+    public void trimMemory() {
+        if (pages.size() <= 1 || lastVisible < 0) {
+            return;
+        }
+        int keepFrom = Math.max(0, firstVisible / pageSize);
+        int keepTo = Math.min(pages.size() - 1, lastVisible / pageSize);
+        int removedAfter = pages.size() - 1 - keepTo;
+        for (int i = 0; i < removedAfter; i++) {
+            pages.removeLast();
+        }
+        if (removedAfter > 0) {
+            endReached = false;
+        }
+        for (int i = 0; i < keepFrom; i++) {
+            pages.removeFirst();
+        }
+        firstPage += keepFrom;
+        firstVisible -= keepFrom * pageSize;
+        lastVisible -= keepFrom * pageSize;
+        if (keepFrom > 0 || removedAfter > 0) {
+            publish();
+        }
+    }
+
+    /**
+     * La ventana como caché de {@link CacheRegistry}: al recortarla se queda solo con
+     * las páginas visibles.
+     *
+     * @param itemBytes lo que se estima que ocupa cada elemento
+     */
+    public CacheRegistry.TrimmableCache asCache(long itemBytes) {
+        return new CacheRegistry.TrimmableCache() {
+            @Override
+            public long estimatedBytes() {
+                return windowSize() * itemBytes;
+            }
+
+            @Override
+            public void trim(float fraction) {
+                trimMemory();
+            }
+        };
+    }
+
+    public int getWindowOffset() {
+        return firstPage * pageSize;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    private void maybeLoadMore() {
+        if (loading) {
+            return;
+        }
+        int size = windowSize();
+        if (!endReached && lastVisible >= size - prefetchItems) {
+            loadPage(firstPage + pages.size(), false);
+        } else if (firstPage > 0 && firstVisible < prefetchItems) {
+            loadPage(firstPage - 1, true);
+        }
+    }
+
+    private void loadPage(int page, boolean prepend) {
+        loading = true;
+        final int requested = generation;
+        source.loadPage(page * pageSize, pageSize, new PageCallback<T>() {
+            @Override
+            public void onPage(List<T> items) {
+                if (requested != generation) {
+                    return;
+                }
+                loading = false;
+                if (prepend) {
+                    pages.addFirst(items);
+                    firstPage--;
+                    // Las posiciones visibles se desplazan una página hacia abajo
+                    firstVisible += items.size();
+                    lastVisible += items.size();
+                    if (pages.size() > maxPages) {
+                        pages.removeLast();
+                        endReached = false;
+                    }
+                } else {
+                    pages.addLast(items);
+                    if (items.size() < pageSize) {
+                        endReached = true;
+                    }
+                    if (pages.size() > maxPages) {
+                        List<T> dropped = pages.removeFirst();
+                        firstPage++;
+                        firstVisible -= dropped.size();
+                        lastVisible -= dropped.size();
+                    }
+                }
+                publish();
+                // La pantalla puede seguir necesitando más (páginas cortas, pantalla grande)
+                maybeLoadMore();
+            }
+
+            @Override
+            public void onError(String message) {
+                if (requested != generation) {
+                    return;
+                }
+                loading = false;
+                listener.onError(message);
+            }
+        });
+    }
+
+    private void publish() {
+        List<T> items = new ArrayList<>(windowSize());
+        for (List<T> page : pages) {
+            items.addAll(page);
+        }
+        listener.onWindowChanged(Collections.unmodifiableList(items), getWindowOffset(), !endReached);
+    }
+
+    private int windowSize() {
+        int size = 0;
+        for (List<T> page : pages) {
+            size += page.size();
+        }
+        return size;
+    }
+}
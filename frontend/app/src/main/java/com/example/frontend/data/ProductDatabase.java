@@ -0,0 +1,265 @@
+package com.example.frontend.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.example.frontend.model.Product;
+import com.example.frontend.utils.IsoDateParser;
+import com.example.frontend.utils.ModelTypeAdapterFactory;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Almacén local del catálogo de productos.
+ *
+ * Cada producto se guarda como JSON junto a las columnas por las que se filtra
+ * (tipo de vendedor, proveedor, stock, visibilidad y fecha de modificación). La tabla sync_state
+ * guarda por ámbito la marca de agua de la última sincronización incremental.
+ */
+public class ProductDatabase extends SQLiteOpenHelper {
+    private static final String TAG = "ProductDatabase";
+    private static final String DATABASE_NAME = "products.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String TABLE_PRODUCTS = "products";
+    private static final String TABLE_SYNC_STATE = "sync_state";
+
+    // Gson propio: las fechas se escriben en ISO-8601 para que el adaptador en streaming las relea
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Date.class, new IsoDateAdapter().nullSafe())
+            .registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+            .create();
+
+    public ProductDatabase(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_PRODUCTS + " ("
+                + "id INTEGER PRIMARY KEY, "
+                + "seller_type TEXT, "
+                + "provider_id INTEGER, "
+                + "stock REAL, "
+                + "is_hidden INTEGER NOT NULL DEFAULT 0, "
+                + "updated_at INTEGER, "
+                + "json TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX idx_products_seller_type ON " + TABLE_PRODUCTS + "(seller_type)");
+        db.execSQL("CREATE INDEX idx_products_provider_id ON " + TABLE_PRODUCTS + "(provider_id)");
+        db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + " ("
+                + "scope TEXT PRIMARY KEY, "
+                + "watermark INTEGER NOT NULL, "
+                + "last_full_sync INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Es una caché: ante un cambio de esquema se descarta y se vuelve a sincronizar
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_PRODUCTS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYNC_STATE);
+        onCreate(db);
+    }
+
+    /**
+     * Productos de un tipo de vendedor; con availableOnly solo los visibles y con stock.
+     */
+    public List<Product> queryBySellerType(String sellerType, boolean availableOnly) {
+        String selection = availableOnly ? "seller_type = ? AND stock > 0 AND is_hidden = 0" : "seller_type = ?";
+        return query(selection, new String[]{sellerType});
+    }
+
+    /**
+     * Todos los productos de un proveedor, incluidos los ocultos y sin stock.
+     */
+    public List<Product> queryByProvider(int providerId) {
+        return query("provider_id = ?", new String[]{String.valueOf(providerId)});
+    }
+
+    private List<Product> query(String selection, String[] args) {
+        List<Product> products = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().query(TABLE_PRODUCTS, new String[]{"json"},
+                selection, args, null, null, "id");
+        try {
+            while (cursor.moveToNext()) {
+                Product product = fromJson(cursor.getString(0));
+                if (product != null) {
+                    products.add(product);
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return products;
+    }
+
+    /**
+     * Inserta o actualiza los productos recibidos en una sincronización incremental.
+     * Devuelve cuántos cambiaron realmente (los que ya tenían la misma fecha se omiten).
+     */
+    public int upsert(List<Product> products, String sellerType) {
+        SQLiteDatabase db = getWritableDatabase();
+        int changed = 0;
+        db.beginTransaction();
+        try {
+            SQLiteStatement insert = db.compileStatement(INSERT_SQL);
+            for (Product product : products) {
+                Long id = parseId(product);
+                if (id == null) {
+                    continue;
+                }
+                long updatedAt = product.getUpdatedAt() != null ? product.getUpdatedAt().getTime() : 0;
+                if (updatedAt != 0 && updatedAt == storedUpdatedAt(db, id)) {
+                    continue;
+                }
+                bind(insert, id, product, sellerType, updatedAt);
+                insert.executeInsert();
+                changed++;
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return changed;
+    }
+
+    /**
+     * Sustituye todas las filas que cumplen la condición por la lista completa del servidor,
+     * de modo que los productos borrados en el backend desaparecen también en local.
+     */
+    public void replace(String whereClause, String[] whereArgs, List<Product> products, String sellerType) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_PRODUCTS, whereClause, whereArgs);
+            SQLiteStatement insert = db.compileStatement(INSERT_SQL);
+            for (Product product : products) {
+                Long id = parseId(product);
+                if (id == null) {
+                    continue;
+                }
+                long updatedAt = product.getUpdatedAt() != null ? product.getUpdatedAt().getTime() : 0;
+                bind(insert, id, product, sellerType, updatedAt);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void delete(long productId) {
+        getWritableDatabase().delete(TABLE_PRODUCTS, "id = ?", new String[]{String.valueOf(productId)});
+    }
+
+    public SyncState getSyncState(String scope) {
+        Cursor cursor = getReadableDatabase().query(TABLE_SYNC_STATE, new String[]{"watermark", "last_full_sync"},
+                "scope = ?", new String[]{scope}, null, null, null);
+        try {
+            return cursor.moveToFirst() ? new SyncState(cursor.getLong(0), cursor.getLong(1)) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public void saveSyncState(String scope, SyncState state) {
+        ContentValues values = new ContentValues();
+        values.put("scope", scope);
+        values.put("watermark", state.watermark);
+        values.put("last_full_sync", state.lastFullSync);
+        getWritableDatabase().insertWithOnConflict(TABLE_SYNC_STATE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private static final String INSERT_SQL = "INSERT OR REPLACE INTO " + TABLE_PRODUCTS
+            + " (id, seller_type, provider_id, stock, is_hidden, updated_at, json) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static void bind(SQLiteStatement insert, long id, Product product, String sellerType, long updatedAt) {
+        // El tipo de vendedor no viene del backend; se fija aquí para que viaje en el JSON guardado
+        if (product.getSellerType() == null && sellerType != null) {
+            product.setSellerType(sellerType);
+        }
+        insert.clearBindings();
+        insert.bindLong(1, id);
+        if (product.getSellerType() != null) {
+            insert.bindString(2, product.getSellerType());
+        }
+        if (product.getProviderId() != null) {
+            insert.bindLong(3, product.getProviderId());
+        }
+        insert.bindDouble(4, product.getStockAvailable() != null ? product.getStockAvailable() : product.getStock());
+        insert.bindLong(5, product.isHidden() ? 1 : 0);
+        insert.bindLong(6, updatedAt);
+        insert.bindString(7, GSON.toJson(product, Product.class));
+    }
+
+    private static long storedUpdatedAt(SQLiteDatabase db, long id) {
+        Cursor cursor = db.rawQuery("SELECT updated_at FROM " + TABLE_PRODUCTS + " WHERE id = ?",
+                new String[]{String.valueOf(id)});
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static Long parseId(Product product) {
+        try {
+            return product.getId() != null ? Long.parseLong(product.getId()) : null;
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Producto con id no numérico: " + product.getId());
+            return null;
+        }
+    }
+
+    private static Product fromJson(String json) {
+        try {
+            return GSON.fromJson(json, Product.class);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Fila de producto corrupta, se ignora: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Estado de sincronización de un ámbito: fecha de modificación más reciente vista
+     * en el servidor y momento de la última sincronización completa (ambos en ms).
+     */
+    public static class SyncState {
+        public final long watermark;
+        public final long lastFullSync;
+
+        public SyncState(long watermark, long lastFullSync) {
+            this.watermark = watermark;
+            this.lastFullSync = lastFullSync;
+        }
+    }
+
+    private static class IsoDateAdapter extends TypeAdapter<Date> {
+        @Override
+        public void write(JsonWriter out, Date value) throws IOException {
+            out.value(IsoDateParser.format(value));
+        }
+
+        @Override
+        public Date read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            return IsoDateParser.parse(in.nextString());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.frontend.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.frontend.api.ApiClient;
+import com.example.frontend.api.ApiService;
+import com.example.frontend.model.Product;
+import com.example.frontend.utils.CacheRegistry;
+import com.example.frontend.utils.GeoGridIndex;
+import com.example.frontend.utils.IsoDateParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Repositorio offline-first del catálogo de productos.
+ *
+ * Cada carga entrega primero lo que hay en {@link ProductDatabase} y después pide al
+ * backend solo lo modificado desde la última marca de agua (updated_since). Si algo
+ * cambió, vuelve a entregar la lista actualizada. Cada cierto tiempo hace una
+ * sincronización completa para eliminar los productos borrados en el servidor, que
+ * una consulta incremental no puede ver.
+ *
+ * Todo el acceso a disco y red ocurre en un único hilo de fondo; los listeners se
+ * invocan en el hilo principal.
+ *
+ * Los catálogos entregados alimentan además un índice espacial por tipo de vendedor,
+ * para responder consultas de cercanía sin volver a llamar al backend.
+ */
+public class ProductRepository {
+    private static final String TAG = "ProductRepository";
+    private static final long FULL_SYNC_INTERVAL_MS = 6 * 60 * 60 * 1000L;
+    private static final String[] CATALOG_TYPES = {"farmer", "supermarket"};
+
+    private static volatile ProductRepository instance;
+
+    private final ProductDatabase database;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final GeoGridIndex<Product> farmerIndex = new GeoGridIndex<>(GeoGridIndex.PRODUCTS);
+    private final GeoGridIndex<Product> supermarketIndex = new GeoGridIndex<>(GeoGridIndex.PRODUCTS);
+
+    public interface Listener {
+        /**
+         * @param fromNetwork false si la lista sale solo del almacén local
+         */
+        void onProducts(List<Product> products, boolean fromNetwork);
+
+        /** Solo se invoca si no hay datos locales que mostrar. */
+        void onError(String message);
+    }
+
+    private interface Fetcher {
+        Call<List<Product>> fetch(String updatedSince);
+    }
+
+    private interface LocalQuery {
+        List<Product> run();
+    }
+
+    private ProductRepository(Context context) {
+        database = new ProductDatabase(context);
+        // Los índices se vuelven a llenar desde la base de datos con la siguiente carga
+        // del catálogo o con loadNearbyIndex()
+        CacheRegistry.getInstance().register(this, "nearby_index", CacheRegistry.EvictionPriority.LOW,
+                new CacheRegistry.TrimmableCache() {
+                    @Override
+                    public long estimatedBytes() {
+                        return (farmerIndex.size() + supermarketIndex.size()) * CacheRegistry.PRODUCT_BYTES;
+                    }
+
+                    @Override
+                    public void trim(float fraction) {
+                        if (fraction >= 0.5f) {
+                            farmerIndex.clear();
+                            supermarketIndex.clear();
+                        }
+                    }
+                });
+    }
+
+    public static ProductRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ProductRepository.class) {
+                if (instance == null) {
+                    instance = new ProductRepository(context.getApplicationContext());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Catálogo público de un tipo de vendedor ("farmer" o "supermarket"), solo con stock.
+     */
+    public void loadCatalog(String sellerType, Listener listener) {
+        load("catalog:" + sellerType, sellerType,
+                "seller_type = ?", new String[]{sellerType},
+                since -> ApiClient.getApiService().getProductsUpdatedSince(sellerType, false, since),
+                () -> indexCatalog(sellerType, database.queryBySellerType(sellerType, true)),
+                listener);
+    }
+
+    /**
+     * Productos de un proveedor, incluidos ocultos y sin stock (pantallas de inventario).
+     */
+    public void loadProviderProducts(int providerId, String sellerType, Listener listener) {
+        load("provider:" + providerId, sellerType,
+                "provider_id = ?", new String[]{String.valueOf(providerId)},
+                since -> ApiClient.getApiService().getFarmerProductsUpdatedSince(providerId, since),
+                () -> database.queryByProvider(providerId),
+                listener);
+    }
+
+    /**
+     * Quita un producto del almacén local tras borrarlo en el backend.
+     */
+    public void removeProduct(String productId) {
+        executor.execute(() -> {
+            try {
+                database.delete(Long.parseLong(productId));
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Id de producto no válido: " + productId);
+            }
+        });
+    }
+
+    /**
+     * Carga en el índice espacial los catálogos guardados en local, sin llamar al backend.
+     */
+    public void loadNearbyIndex(Runnable onReady) {
+        executor.execute(() -> {
+            for (String sellerType : CATALOG_TYPES) {
+                indexCatalog(sellerType, database.queryBySellerType(sellerType, true));
+            }
+            if (onReady != null) {
+                mainHandler.post(onReady);
+            }
+        });
+    }
+
+    /**
+     * Productos del catálogo a menos de radiusKm, del más cercano al más lejano.
+     * sellerType null busca en ambos catálogos. Puede llamarse desde el hilo principal.
+     */
+    public List<GeoGridIndex.Hit<Product>> findNearby(String sellerType, double lat, double lon, double radiusKm) {
+        if (sellerType != null) {
+            return geoIndex(sellerType).within(lat, lon, radiusKm);
+        }
+        List<GeoGridIndex.Hit<Product>> hits = new ArrayList<>(farmerIndex.within(lat, lon, radiusKm));
+        hits.addAll(supermarketIndex.within(lat, lon, radiusKm));
+        Collections.sort(hits, (a, b) -> Double.compare(a.distanceKm, b.distanceKm));
+        return hits;
+    }
+
+    /**
+     * Número de productos de ambos catálogos a menos de radiusKm.
+     */
+    public int countNearby(double lat, double lon, double radiusKm) {
+        return farmerIndex.countWithin(lat, lon, radiusKm) + supermarketIndex.countWithin(lat, lon, radiusKm);
+    }
+
+    private GeoGridIndex<Product> geoIndex(String sellerType) {
+        return "supermarket".equals(sellerType) ? supermarketIndex : farmerIndex;
+    }
+
+    private List<Product> indexCatalog(String sellerType, List<Product> products) {
+        geoIndex(sellerType).update(products);
+        return products;
+    }
+
+    private void load(String scope, String sellerType, String whereClause, String[] whereArgs,
+                      Fetcher fetcher, LocalQuery localQuery, Listener listener) {
+        executor.execute(() -> {
+            List<Product> local = localQuery.run();
+            boolean hasLocal = !local.isEmpty();
+            if (hasLocal) {
+                deliver(listener, local, false);
+            }
+            try {
+                boolean changed = sync(scope, sellerType, whereClause, whereArgs, fetcher);
+                if (changed || !hasLocal) {
+                    deliver(listener, localQuery.run(), true);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Sincronización de " + scope + " fallida: " + e.getMessage());
+                if (!hasLocal) {
+                    mainHandler.post(() -> listener.onError(e.getMessage()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Sincroniza un ámbito con el backend. Devuelve true si el almacén local cambió.
+     */
+    private boolean sync(String scope, String sellerType, String whereClause, String[] whereArgs,
+                         Fetcher fetcher) throws IOException {
+        ProductDatabase.SyncState state = database.getSyncState(scope);
+        long now = System.currentTimeMillis();
+        boolean full = state == null || state.watermark == 0
+                || now - state.lastFullSync > FULL_SYNC_INTERVAL_MS;
+        String since = full ? null : IsoDateParser.format(new Date(state.watermark));
+
+        List<Product> products = execute(fetcher.fetch(since));
+
+        long watermark = full ? 0 : state.watermark;
+        for (Product product : products) {
+            Date updatedAt = product.getUpdatedAt();
+            if (updatedAt != null && updatedAt.getTime() > watermark) {
+                watermark = updatedAt.getTime();
+            }
+        }
+
+        boolean changed;
+        if (full) {
+            database.replace(whereClause, whereArgs, products, sellerType);
+            changed = true;
+        } else {
+            changed = database.upsert(products, sellerType) > 0;
+        }
+        database.saveSyncState(scope, new ProductDatabase.SyncState(watermark, full ? now : state.lastFullSync));
+        Log.d(TAG, scope + (full ? " completa: " : " incremental: ") + products.size() + " productos");
+        return changed;
+    }
+
+    private static List<Product> execute(Call<List<Product>> call) throws IOException {
+        Response<List<Product>> response = call.execute();
+        if (!response.isSuccessful()) {
+            throw new IOException("HTTP " + response.code());
+        }
+        return response.body() != null ? response.body() : Collections.<Product>emptyList();
+    }
+
+    private void deliver(Listener listener, List<Product> products, boolean fromNetwork) {
+        mainHandler.post(() -> listener.onProducts(products, fromNetwork));
+    }
+}
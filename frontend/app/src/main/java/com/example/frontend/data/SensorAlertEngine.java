@@ -0,0 +1,471 @@
+package com.example.frontend.data;
+
+import com.example.frontend.api.ApiClient;
+import com.example.frontend.data.SensorSeriesStore.Metric;
+import com.example.frontend.model.SensorAlert;
+import com.example.frontend.model.SensorHistory;
+import com.example.frontend.model.SensorReading;
+import com.example.frontend.model.ZoneStatistics;
+import com.example.frontend.services.SensorApiService;
+import com.example.frontend.utils.CacheRegistry;
+import com.example.frontend.utils.IsoDateParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Evaluación local de umbrales sobre las lecturas que ya tiene la aplicación.
+ *
+ * Cada sensor y métrica tiene un mínimo y un máximo opcionales (los de
+ * ZoneStatistics o SensorHistory). Una superación solo genera alerta si dura al menos
+ * debounceMillis, y no termina hasta que el valor vuelve por dentro del umbral con un
+ * margen de histéresis; así una lectura que oscila junto al límite produce una única
+ * alerta por episodio en lugar de una por lectura.
+ *
+ * Las alertas locales usan ids negativos y el mismo formato que las del backend
+ * (alert_type, título, severidad, unidad). {@link #mergeServerAlerts} las combina con
+ * las del servidor por alert_id: una alerta activa del servidor del mismo sensor y
+ * tipo sustituye a la local. Como las alertas se detectan aquí, basta con pedir las
+ * del servidor de vez en cuando ({@link #syncServerAlerts}) y no en cada refresco; esa
+ * respuesta es el conjunto completo de activas, así que las que faltan se retiran.
+ *
+ * El estado es del usuario indicado en {@link #setUser}: al cambiar de sesión se vacía.
+ */
+public class SensorAlertEngine {
+    /** Una superación debe durar esto para generar alerta. */
+    public static final long DEFAULT_DEBOUNCE_MS = 30_000L;
+    /** Margen de vuelta, como fracción del umbral (con un mínimo absoluto). */
+    public static final double DEFAULT_HYSTERESIS = 0.05;
+    private static final double MIN_HYSTERESIS = 0.5;
+    // SensorAlert con sus textos, aproximado
+    private static final long ALERT_BYTES = 512;
+
+    public interface Listener {
+        void onAlertRaised(SensorAlert alert);
+
+        /** El episodio terminó; la alerta local queda como "resolved". */
+        void onAlertCleared(SensorAlert alert);
+    }
+
+    public interface MergeCallback {
+        /** @param active alertas activas tras combinar las del servidor */
+        void onMerged(List<SensorAlert> active);
+
+        void onError(String message);
+    }
+
+    private static SensorAlertEngine instance;
+
+    private final long debounceMillis;
+    private final double hysteresis;
+    private final Map<Long, Rule> rules = new HashMap<>();
+    private final Map<Integer, String> sensorNames = new HashMap<>();
+    // Alertas del servidor y locales, por alert_id
+    private final Map<Integer, SensorAlert> alerts = new LinkedHashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    private int nextLocalId = -1;
+    private int userId = -1;
+
+    public static synchronized SensorAlertEngine getInstance() {
+        if (instance == null) {
+            instance = new SensorAlertEngine(DEFAULT_DEBOUNCE_MS, DEFAULT_HYSTERESIS);
+            SensorAlertEngine engine = instance;
+            // Solo se muestran las activas: las resueltas se pueden descartar
+            CacheRegistry.getInstance().register(engine, "sensor_alerts", CacheRegistry.EvictionPriority.NORMAL,
+                    new CacheRegistry.TrimmableCache() {
+                        @Override
+                        public long estimatedBytes() {
+                            return engine.alertCount() * ALERT_BYTES;
+                        }
+
+                        @Override
+                        public void trim(float fraction) {
+                            engine.pruneInactive();
+                        }
+                    });
+        }
+        return instance;
+    }
+
+    public SensorAlertEngine(long debounceMillis, double hysteresis) {
+        this.debounceMillis = debounceMillis;
+        this.hysteresis = hysteresis;
+    }
+
+    /**
+     * Usuario de la sesión actual. Si cambia, se descartan reglas, nombres y alertas
+     * del anterior; los listeners se mantienen.
+     */
+    public synchronized void setUser(int userId) {
+        if (this.userId != userId) {
+            clear();
+            this.userId = userId;
+        }
+    }
+
+    /** Vacía reglas y alertas (p. ej. al cerrar sesión). */
+    public synchronized void clear() {
+        rules.clear();
+        sensorNames.clear();
+        alerts.clear();
+        nextLocalId = -1;
+        userId = -1;
+    }
+
+    public synchronized void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Umbrales de un sensor; null en ambos desactiva la regla. */
+    public synchronized void setThresholds(int sensorId, Metric metric, Double min, Double max) {
+        long key = key(sensorId, metric);
+        if (min == null && max == null) {
+            rules.remove(key);
+            return;
+        }
+        Rule rule = rules.get(key);
+        if (rule == null) {
+            rule = new Rule(sensorId, metric);
+            rules.put(key, rule);
+        }
+        rule.min = min;
+        rule.max = max;
+    }
+
+    /** Umbrales y nombres de todos los sensores de una zona. */
+    public synchronized void setThresholds(ZoneStatistics statistics) {
+        if (statistics.sensors == null) {
+            return;
+        }
+        for (ZoneStatistics.SensorStatistic sensor : statistics.sensors) {
+            Metric metric = Metric.fromKey(sensor.type);
+            if (sensor.name != null) {
+                sensorNames.put(sensor.sensor_id, sensor.name);
+            }
+            if (metric != null && sensor.thresholds != null) {
+                setThresholds(sensor.sensor_id, metric, sensor.thresholds.min, sensor.thresholds.max);
+            }
+        }
+    }
+
+    public synchronized void setThresholds(SensorHistory history) {
+        Metric metric = Metric.fromKey(history.type);
+        if (history.sensor_name != null) {
+            sensorNames.put(history.sensor_id, history.sensor_name);
+        }
+        if (metric != null && history.thresholds != null) {
+            setThresholds(history.sensor_id, metric, history.thresholds.min, history.thresholds.max);
+        }
+    }
+
+    /**
+     * Evalúa las lecturas (en cualquier orden). Las que no son posteriores a la última
+     * evaluada de su sensor y métrica se ignoran, así que se pueden pasar lotes solapados.
+     */
+    public void evaluate(List<SensorReading> readings) {
+        List<Object[]> events = new ArrayList<>();
+        synchronized (this) {
+            int n = readings.size();
+            long[] times = new long[n];
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                times[i] = IsoDateParser.parseMillis(readings.get(i).getCreatedAt());
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(times[a], times[b]));
+
+            for (int index : order) {
+                if (times[index] == IsoDateParser.INVALID) {
+                    continue;
+                }
+                SensorReading reading = readings.get(index);
+                for (Metric metric : Metric.values()) {
+                    Rule rule = rules.get(key(reading.getSensorId(), metric));
+                    Float value = rule != null ? metric.valueOf(reading) : null;
+                    if (value != null) {
+                        evaluate(rule, times[index], reading.getCreatedAt(), value, events);
+                    }
+                }
+            }
+        }
+        // Los listeners se llaman fuera del bloqueo
+        dispatch(events);
+    }
+
+    /** Evalúa un único valor (p. ej. recibido en tiempo real). */
+    public void evaluate(int sensorId, Metric metric, long timestamp, double value) {
+        List<Object[]> events = new ArrayList<>();
+        synchronized (this) {
+            Rule rule = rules.get(key(sensorId, metric));
+            if (rule != null) {
+                evaluate(rule, timestamp, IsoDateParser.format(new Date(timestamp)), value, events);
+            }
+        }
+        dispatch(events);
+    }
+
+    private void evaluate(Rule rule, long timestamp, String createdAt, double value, List<Object[]> events) {
+        if (timestamp <= rule.lastTimestamp) {
+            return;
+        }
+        rule.lastTimestamp = timestamp;
+
+        int direction = 0;
+        if (rule.max != null && value > rule.max) {
+            direction = 1;
+        } else if (rule.min != null && value < rule.min) {
+            direction = -1;
+        }
+
+        if (rule.alert != null) {
+            if (stillBreached(rule, value)) {
+                // Mismo episodio: se actualiza el peor valor sin crear otra alerta
+                double actual = rule.alert.getActualValue() != null ? rule.alert.getActualValue() : value;
+                rule.alert.setActualValue(rule.direction > 0 ? Math.max(actual, value) : Math.min(actual, value));
+                return;
+            }
+            SensorAlert cleared = rule.alert;
+            cleared.setStatus("resolved");
+            cleared.setResolvedAt(createdAt);
+            rule.alert = null;
+            rule.direction = 0;
+            rule.breachSince = Long.MIN_VALUE;
+            events.add(new Object[]{Boolean.FALSE, cleared});
+            return;
+        }
+
+        if (direction == 0 && rule.direction != 0 && stillBreached(rule, value)) {
+            // La histéresis también vale durante el debounce: no reinicia la espera
+            direction = rule.direction;
+        }
+        if (direction == 0) {
+            rule.breachSince = Long.MIN_VALUE;
+            rule.direction = 0;
+            return;
+        }
+        if (direction != rule.direction || rule.breachSince == Long.MIN_VALUE) {
+            rule.direction = direction;
+            rule.breachSince = timestamp;
+        }
+        if (timestamp - rule.breachSince >= debounceMillis) {
+            rule.alert = createAlert(rule, createdAt, value);
+            if (!hasServerAlert(rule.sensorId, rule.alert.getAlertType())) {
+                alerts.put(rule.alert.getId(), rule.alert);
+                events.add(new Object[]{Boolean.TRUE, rule.alert});
+            }
+        }
+    }
+
+    /** Dentro del umbral pero sin superar la histéresis se sigue en el mismo episodio. */
+    private boolean stillBreached(Rule rule, double value) {
+        if (rule.direction > 0) {
+            return value > rule.max - margin(rule.max);
+        }
+        return value < rule.min + margin(rule.min);
+    }
+
+    private double margin(double threshold) {
+        return Math.max(Math.abs(threshold) * hysteresis, MIN_HYSTERESIS);
+    }
+
+    private SensorAlert createAlert(Rule rule, String createdAt, double value) {
+        boolean high = rule.direction > 0;
+        double threshold = high ? rule.max : rule.min;
+        String sensorName = sensorNames.containsKey(rule.sensorId)
+                ? sensorNames.get(rule.sensorId) : "sensor " + rule.sensorId;
+        String label;
+        String unit;
+        String severity;
+        String type;
+        switch (rule.metric) {
+            case TEMPERATURE:
+                label = "Temperatura";
+                unit = "°C";
+                severity = "high";
+                type = high ? "temperature_high" : "temperature_low";
+                break;
+            case HUMIDITY:
+                label = "Humedad";
+                unit = "%";
+                severity = "medium";
+                type = high ? "humidity_high" : "humidity_low";
+                break;
+            default:
+                label = rule.metric.getKey();
+                unit = "";
+                severity = "medium";
+                type = "threshold_exceeded";
+                break;
+        }
+        SensorAlert alert = new SensorAlert(rule.sensorId, type,
+                label + (high ? " alta" : " baja") + " en " + sensorName,
+                label + ": " + value + unit + " (umbral: " + threshold + unit + ")",
+                severity);
+        alert.setId(nextLocalId--);
+        alert.setStatus("active");
+        alert.setThresholdValue(threshold);
+        alert.setActualValue(value);
+        alert.setUnit(unit);
+        alert.setCreatedAt(createdAt);
+        return alert;
+    }
+
+    /**
+     * Incorpora alertas sueltas del servidor (p. ej. las que llegan por el stream).
+     * Sustituyen a las que ya había con el mismo alert_id y a las locales activas del
+     * mismo sensor y tipo; las demás no se tocan.
+     */
+    public synchronized void mergeServerAlerts(List<SensorAlert> serverAlerts) {
+        for (SensorAlert alert : serverAlerts) {
+            alerts.put(alert.getId(), alert);
+            if (alert.isActive()) {
+                for (SensorAlert local : new ArrayList<>(alerts.values())) {
+                    if (local.getId() < 0 && local.getSensorId() == alert.getSensorId()
+                            && equalText(local.getAlertType(), alert.getAlertType())) {
+                        alerts.remove(local.getId());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sustituye las alertas del servidor por las de una respuesta de /sensor-alerts/active,
+     * que contiene todas las activas: las de id positivo que no aparecen ya se han resuelto
+     * o descartado en el servidor y se quitan. Las locales se combinan como en
+     * {@link #mergeServerAlerts}.
+     */
+    public synchronized void replaceServerAlerts(List<SensorAlert> activeServerAlerts) {
+        Set<Integer> ids = new HashSet<>();
+        for (SensorAlert alert : activeServerAlerts) {
+            ids.add(alert.getId());
+        }
+        Iterator<SensorAlert> it = alerts.values().iterator();
+        while (it.hasNext()) {
+            int id = it.next().getId();
+            if (id > 0 && !ids.contains(id)) {
+                it.remove();
+            }
+        }
+        mergeServerAlerts(activeServerAlerts);
+    }
+
+    /** Descarga las alertas activas del servidor y las combina con las locales. */
+    public void syncServerAlerts(MergeCallback callback) {
+        ApiClient.getAuthenticatedService(SensorApiService.class).getActiveAlerts().enqueue(new Callback<List<SensorAlert>>() {
+            @Override
+            public void onResponse(Call<List<SensorAlert>> call, Response<List<SensorAlert>> response) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    callback.onError("Error al cargar alertas: " + response.code());
+                    return;
+                }
+                replaceServerAlerts(response.body());
+                callback.onMerged(getActiveAlerts());
+            }
+
+            @Override
+            public void onFailure(Call<List<SensorAlert>> call, Throwable t) {
+                callback.onError("Error de conexión: " + t.getMessage());
+            }
+        });
+    }
+
+    /** Alertas activas (del servidor y locales sin equivalente), de la más antigua a la más reciente. */
+    public synchronized List<SensorAlert> getActiveAlerts() {
+        List<SensorAlert> active = new ArrayList<>();
+        for (SensorAlert alert : alerts.values()) {
+            if (alert.isActive()) {
+                active.add(alert);
+            }
+        }
+        return active;
+    }
+
+    public synchronized int alertCount() {
+        return alerts.size();
+    }
+
+    /** Quita las alertas resueltas o descartadas, locales y del servidor. */
+    public synchronized void pruneInactive() {
+        List<Integer> inactive = new ArrayList<>();
+        for (SensorAlert alert : alerts.values()) {
+            if (!alert.isActive() && !alert.isAcknowledged()) {
+                inactive.add(alert.getId());
+            }
+        }
+        for (Integer id : inactive) {
+            alerts.remove(id);
+        }
+    }
+
+    private boolean hasServerAlert(int sensorId, String alertType) {
+        for (SensorAlert alert : alerts.values()) {
+            if (alert.getId() > 0 && alert.isActive() && alert.getSensorId() == sensorId
+                    && equalText(alert.getAlertType(), alertType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void dispatch(List<Object[]> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Listener> targets;
+        synchronized (this) {
+            targets = new ArrayList<>(listeners);
+        }
+        for (Object[] event : events) {
+            SensorAlert alert = (SensorAlert) event[1];
+            for (Listener listener : targets) {
+                if ((Boolean) event[0]) {
+                    listener.onAlertRaised(alert);
+                } else {
+                    listener.onAlertCleared(alert);
+                }
+            }
+        }
+    }
+
+    private static boolean equalText(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static long key(int sensorId, Metric metric) {
+        return ((long) sensorId << 8) | metric.ordinal();
+    }
+
+    private static final class Rule {
+        final int sensorId;
+        final Metric metric;
+        Double min;
+        Double max;
+        long lastTimestamp = Long.MIN_VALUE;
+        // Dirección de la superación en curso: 1 por encima, -1 por debajo, 0 ninguna
+        int direction;
+        long breachSince = Long.MIN_VALUE;
+        SensorAlert alert;
+
+        Rule(int sensorId, Metric metric) {
+            this.sensorId = sensorId;
+            this.metric = metric;
+        }
+    }
+}
@@ -0,0 +1,776 @@
+package com.example.frontend.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.frontend.api.ApiClient;
+import com.example.frontend.model.SensorHistory;
+import com.example.frontend.model.SensorReading;
+import com.example.frontend.services.SensorApiService;
+import com.example.frontend.utils.CacheRegistry;
+import com.example.frontend.utils.Downsampler;
+import com.example.frontend.utils.IsoDateParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Series temporales de las lecturas de sensores guardadas en el dispositivo.
+ *
+ * Hay una serie por sensor y métrica, con los instantes y los valores en columnas
+ * primitivas (long y float) dentro de un buffer circular de tamaño fijo: al llenarse
+ * se sobrescribe la lectura más antigua. Una semana a una lectura por minuto son
+ * 120 KB por serie en lugar de miles de SensorReading con Double y mapas.
+ *
+ * Opcionalmente cada serie vive en un fichero mapeado en memoria, de modo que se
+ * conserva entre reinicios sin serializar nada. Lo habitual es añadir al final (lecturas
+ * nuevas); los lotes con lecturas anteriores a la última guardada, como el historial,
+ * se intercalan en orden reescribiendo la serie. {@link #sync} descarga únicamente las
+ * posteriores a la más reciente guardada. {@link #downsample} reduce una ventana a los puntos que caben
+ * en un gráfico y cachea el resultado hasta que la serie cambia. Lo sincronizado se
+ * pasa a {@link SensorAlertEngine} para evaluar los umbrales en el dispositivo.
+ */
+public class SensorSeriesStore {
+    private static final String TAG = "SensorSeriesStore";
+
+    /** Una semana a una lectura por minuto. */
+    public static final int DEFAULT_CAPACITY = 7 * 24 * 60;
+    /** Máximo que admite el backend por petición. */
+    private static final int SYNC_PAGE_SIZE = 1000;
+    private static final int MAX_CACHED_CHARTS = 32;
+
+    public enum Metric {
+        TEMPERATURE("temperature"),
+        HUMIDITY("humidity"),
+        SOIL_MOISTURE("soil_moisture"),
+        GAS_LEVEL("gas_level"),
+        PH_LEVEL("ph_level"),
+        LIGHT_LEVEL("light_level");
+
+        private final String key;
+
+        Metric(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /** Métrica a partir del tipo de sensor del backend, o null si no se reconoce. */
+        public static Metric fromKey(String key) {
+            for (Metric metric : values()) {
+                if (metric.key.equalsIgnoreCase(key)) {
+                    return metric;
+                }
+            }
+            return null;
+        }
+
+        Float valueOf(SensorReading reading) {
+            Double value;
+            switch (this) {
+                case TEMPERATURE: value = reading.getTemperature(); break;
+                case HUMIDITY: value = reading.getHumidity(); break;
+                case SOIL_MOISTURE: value = reading.getSoilMoisture(); break;
+                case GAS_LEVEL: value = reading.getGasLevel(); break;
+                case PH_LEVEL: value = reading.getPhLevel(); break;
+                case LIGHT_LEVEL:
+                default: value = reading.getLightLevel(); break;
+            }
+            return value != null ? value.floatValue() : null;
+        }
+    }
+
+    /** Resultado de una consulta por rango: arrays del tamaño justo, en orden temporal. */
+    public static final class Series {
+        public final long[] timestamps;
+        public final float[] values;
+
+        Series(long[] timestamps, float[] values) {
+            this.timestamps = timestamps;
+            this.values = values;
+        }
+
+        public int size() {
+            return timestamps.length;
+        }
+    }
+
+    public interface SyncCallback {
+        /** @param added lecturas nuevas añadidas (sumando todas las métricas) */
+        void onSynced(int added);
+
+        void onError(String message);
+    }
+
+    private static SensorSeriesStore instance;
+
+    private final File directory;
+    private final int capacity;
+    private final Map<Long, RingSeries> series = new HashMap<>();
+    // Gráficos ya reducidos, del menos al más usado recientemente
+    private final Map<ChartKey, CachedChart> charts = new LinkedHashMap<ChartKey, CachedChart>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ChartKey, CachedChart> eldest) {
+            return size() > MAX_CACHED_CHARTS;
+        }
+    };
+
+    /** Store persistente en el almacenamiento interno de la aplicación. */
+    public static synchronized SensorSeriesStore getInstance(Context context) {
+        if (instance == null) {
+            File dir = new File(context.getApplicationContext().getFilesDir(), "sensor_series");
+            instance = new SensorSeriesStore(dir, DEFAULT_CAPACITY);
+            instance.registerCaches();
+        }
+        return instance;
+    }
+
+    private void registerCaches() {
+        CacheRegistry registry = CacheRegistry.getInstance();
+        // Se recalculan al pedirlos: lo primero que se libera
+        registry.register(this, "sensor_charts", CacheRegistry.EvictionPriority.HIGH,
+                new CacheRegistry.TrimmableCache() {
+                    @Override
+                    public long estimatedBytes() {
+                        return chartBytes();
+                    }
+
+                    @Override
+                    public void trim(float fraction) {
+                        trimCharts(fraction);
+                    }
+                });
+        // Se vuelven a mapear desde el fichero, pero eso cuesta E/S
+        registry.register(this, "sensor_series", CacheRegistry.EvictionPriority.LOW,
+                new CacheRegistry.TrimmableCache() {
+                    @Override
+                    public long estimatedBytes() {
+                        return seriesBytes();
+                    }
+
+                    @Override
+                    public void trim(float fraction) {
+                        releaseMappedSeries(fraction);
+                    }
+                });
+    }
+
+    /** Store solo en memoria. */
+    public SensorSeriesStore(int capacity) {
+        this(null, capacity);
+    }
+
+    /**
+     * @param directory carpeta para los ficheros mapeados, o null para no persistir
+     */
+    public SensorSeriesStore(File directory, int capacity) {
+        this.directory = directory;
+        this.capacity = capacity;
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            Log.w(TAG, "No se pudo crear " + directory + "; las series no se guardarán");
+        }
+    }
+
+    /**
+     * Añade las lecturas (en cualquier orden) a las series de cada métrica que traigan.
+     * Las anteriores a la última guardada se intercalan en su sitio; las que repiten un
+     * instante ya guardado se ignoran.
+     *
+     * @return número de valores añadidos
+     */
+    public synchronized int append(List<SensorReading> readings) {
+        int n = readings.size();
+        long[] times = new long[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            times[i] = IsoDateParser.parseMillis(readings.get(i).getCreatedAt());
+            order[i] = i;
+        }
+        // El backend las devuelve de la más reciente a la más antigua
+        Arrays.sort(order, (a, b) -> Long.compare(times[a], times[b]));
+
+        // Columnas por serie, ya en orden temporal
+        Map<Long, Batch> batches = new LinkedHashMap<>();
+        for (int index : order) {
+            if (times[index] == IsoDateParser.INVALID) {
+                continue;
+            }
+            SensorReading reading = readings.get(index);
+            for (Metric metric : Metric.values()) {
+                Float value = metric.valueOf(reading);
+                if (value == null) {
+                    continue;
+                }
+                long seriesKey = key(reading.getSensorId(), metric);
+                Batch batch = batches.get(seriesKey);
+                if (batch == null) {
+                    batch = new Batch(reading.getSensorId(), metric, n);
+                    batches.put(seriesKey, batch);
+                }
+                batch.add(times[index], value);
+            }
+        }
+        int added = 0;
+        for (Batch batch : batches.values()) {
+            added += seriesFor(batch.sensorId, batch.metric).merge(batch.times, batch.values, batch.size);
+        }
+        return added;
+    }
+
+    /**
+     * Añade el historial de /farmer-metrics/sensors/{id}/history (una sola métrica).
+     * Suele ser anterior a lo que ya trajo el stream o {@link #sync}: se intercala.
+     */
+    public synchronized int append(SensorHistory history) {
+        Metric metric = Metric.fromKey(history.type);
+        if (metric == null || history.readings == null) {
+            return 0;
+        }
+        int n = history.readings.size();
+        long[] times = new long[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            times[i] = IsoDateParser.parseMillis(history.readings.get(i).created_at);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(times[a], times[b]));
+
+        Batch batch = new Batch(history.sensor_id, metric, n);
+        for (int index : order) {
+            SensorHistory.SensorReading reading = history.readings.get(index);
+            if (times[index] != IsoDateParser.INVALID && reading.value != null) {
+                batch.add(times[index], reading.value.floatValue());
+            }
+        }
+        return seriesFor(history.sensor_id, metric).merge(batch.times, batch.values, batch.size);
+    }
+
+    public synchronized boolean append(int sensorId, Metric metric, long timestamp, float value) {
+        return seriesFor(sensorId, metric).append(timestamp, value);
+    }
+
+    /**
+     * Valores de la serie con timestamp entre fromMillis y toMillis (ambos incluidos).
+     */
+    public synchronized Series query(int sensorId, Metric metric, long fromMillis, long toMillis) {
+        RingSeries ring = existingSeries(sensorId, metric);
+        if (ring == null) {
+            return new Series(new long[0], new float[0]);
+        }
+        return ring.query(fromMillis, toMillis);
+    }
+
+    /**
+     * Las últimas windowMillis de la serie (hasta su lectura más reciente) reducidas para
+     * un gráfico de width píxeles: width puntos con LTTB o hasta 2 * width con MIN_MAX.
+     * El resultado se reutiliza mientras no lleguen lecturas nuevas.
+     */
+    public synchronized Series downsample(int sensorId, Metric metric, long windowMillis, int width,
+                                          Downsampler.Mode mode) {
+        RingSeries ring = existingSeries(sensorId, metric);
+        if (ring == null || ring.size() == 0) {
+            return new Series(new long[0], new float[0]);
+        }
+        ChartKey key = new ChartKey(key(sensorId, metric), windowMillis, width, mode);
+        CachedChart cached = charts.get(key);
+        if (cached != null && cached.modCount == ring.modCount) {
+            return cached.series;
+        }
+
+        long newest = ring.timeAt(ring.size() - 1);
+        Series window = ring.query(newest - windowMillis, newest);
+        int[] indices = mode == Downsampler.Mode.MIN_MAX
+                ? Downsampler.minMax(window.timestamps, window.values, window.size(), width)
+                : Downsampler.lttb(window.timestamps, window.values, window.size(), width);
+        Series result = window;
+        if (indices.length < window.size()) {
+            long[] times = new long[indices.length];
+            float[] values = new float[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                times[i] = window.timestamps[indices[i]];
+                values[i] = window.values[indices[i]];
+            }
+            result = new Series(times, values);
+        }
+        charts.put(key, new CachedChart(result, ring.modCount));
+        return result;
+    }
+
+    /** Último valor guardado de la serie, o NaN si está vacía. */
+    public synchronized float latest(int sensorId, Metric metric) {
+        RingSeries ring = existingSeries(sensorId, metric);
+        return ring != null && ring.size() > 0 ? ring.valueAt(ring.size() - 1) : Float.NaN;
+    }
+
+    /**
+     * Instante de la lectura más reciente del sensor en cualquier métrica, o
+     * {@link IsoDateParser#INVALID} si no hay ninguna.
+     */
+    public synchronized long newestTimestamp(int sensorId) {
+        long newest = IsoDateParser.INVALID;
+        for (Metric metric : Metric.values()) {
+            RingSeries ring = existingSeries(sensorId, metric);
+            if (ring != null && ring.size() > 0) {
+                newest = Math.max(newest, ring.timeAt(ring.size() - 1));
+            }
+        }
+        return newest;
+    }
+
+    /** Retención por antigüedad, además del límite de capacidad de cada serie. */
+    public synchronized void trimOlderThan(long cutoffMillis) {
+        for (RingSeries ring : series.values()) {
+            ring.trimOlderThan(cutoffMillis);
+        }
+    }
+
+    /** Memoria aproximada de los gráficos reducidos en caché. */
+    public synchronized long chartBytes() {
+        long bytes = 0;
+        for (CachedChart chart : charts.values()) {
+            bytes += 64 + chart.series.size() * 12L;
+        }
+        return bytes;
+    }
+
+    /** Descarta esa fracción de los gráficos en caché, empezando por los menos usados. */
+    public synchronized void trimCharts(float fraction) {
+        int remove = (int) Math.ceil(charts.size() * fraction);
+        Iterator<ChartKey> keys = charts.keySet().iterator();
+        while (remove-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /** Memoria de las series abiertas (en el heap o mapeadas). */
+    public synchronized long seriesBytes() {
+        return series.size() * (RingSeries.HEADER_BYTES + capacity * 12L);
+    }
+
+    /**
+     * Cierra esa fracción de las series mapeadas; se vuelven a mapear desde su fichero
+     * al consultarlas. Las que solo están en memoria no tienen otra copia y se conservan.
+     */
+    public synchronized void releaseMappedSeries(float fraction) {
+        List<Long> mapped = new ArrayList<>();
+        for (Map.Entry<Long, RingSeries> entry : series.entrySet()) {
+            if (entry.getValue().isMapped()) {
+                mapped.add(entry.getKey());
+            }
+        }
+        int release = (int) Math.ceil(mapped.size() * fraction);
+        for (int i = 0; i < release; i++) {
+            long seriesKey = mapped.get(i);
+            series.remove(seriesKey).force();
+            // Al reabrirla modCount vuelve a empezar: sus gráficos ya no se pueden validar
+            Iterator<ChartKey> keys = charts.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keys.next().seriesKey == seriesKey) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    /** Fuerza la escritura a disco de las series mapeadas. */
+    public synchronized void flush() {
+        for (RingSeries ring : series.values()) {
+            ring.force();
+        }
+    }
+
+    /**
+     * Descarga las lecturas del sensor posteriores a la última guardada. Si hay más de
+     * una página nueva, sigue pidiendo hacia atrás (date_to) hasta enlazar con lo que
+     * ya había; con el store vacío se queda con la página más reciente.
+     */
+    public void sync(int sensorId, SyncCallback callback) {
+        long newest = newestTimestamp(sensorId);
+        String dateFrom = newest != IsoDateParser.INVALID ? IsoDateParser.format(new Date(newest)) : null;
+        fetchPage(sensorId, dateFrom, null, newest != IsoDateParser.INVALID, new ArrayList<>(), callback);
+    }
+
+    private void fetchPage(int sensorId, String dateFrom, String dateTo, boolean continuePaging,
+                           List<SensorReading> collected, SyncCallback callback) {
+        Call<List<SensorReading>> call = ApiClient.getAuthenticatedService(SensorApiService.class)
+                .getSensorReadings(sensorId, null, dateFrom, dateTo, SYNC_PAGE_SIZE);
+        call.enqueue(new Callback<List<SensorReading>>() {
+            @Override
+            public void onResponse(Call<List<SensorReading>> call, Response<List<SensorReading>> response) {
+                if (!response.isSuccessful() || response.body() == null) {
+                    callback.onError("Error al sincronizar lecturas: " + response.code());
+                    return;
+                }
+                List<SensorReading> page = response.body();
+                collected.addAll(page);
+                String oldest = oldestCreatedAt(page);
+                if (continuePaging && page.size() >= SYNC_PAGE_SIZE && oldest != null && !oldest.equals(dateTo)) {
+                    fetchPage(sensorId, dateFrom, oldest, true, collected, callback);
+                    return;
+                }
+                int added = append(collected);
+                // Las lecturas ya evaluadas se ignoran, así que se puede pasar el lote entero
+                SensorAlertEngine.getInstance().evaluate(collected);
+                callback.onSynced(added);
+            }
+
+            @Override
+            public void onFailure(Call<List<SensorReading>> call, Throwable t) {
+                callback.onError("Error de conexión: " + t.getMessage());
+            }
+        });
+    }
+
+    private static String oldestCreatedAt(List<SensorReading> page) {
+        String oldest = null;
+        long oldestMillis = Long.MAX_VALUE;
+        for (SensorReading reading : page) {
+            long millis = IsoDateParser.parseMillis(reading.getCreatedAt());
+            if (millis != IsoDateParser.INVALID && millis < oldestMillis) {
+                oldestMillis = millis;
+                oldest = reading.getCreatedAt();
+            }
+        }
+        return oldest;
+    }
+
+    private RingSeries existingSeries(int sensorId, Metric metric) {
+        RingSeries ring = series.get(key(sensorId, metric));
+        if (ring == null && directory != null && fileFor(sensorId, metric).exists()) {
+            ring = seriesFor(sensorId, metric);
+        }
+        return ring;
+    }
+
+    private RingSeries seriesFor(int sensorId, Metric metric) {
+        long key = key(sensorId, metric);
+        RingSeries ring = series.get(key);
+        if (ring == null) {
+            ring = directory != null ? RingSeries.mapped(fileFor(sensorId, metric), capacity) : null;
+            if (ring == null) {
+                ring = RingSeries.inMemory(capacity);
+            }
+            series.put(key, ring);
+        }
+        return ring;
+    }
+
+    /** Lecturas de una serie pendientes de añadir, en orden temporal. */
+    private static final class Batch {
+        final int sensorId;
+        final Metric metric;
+        final long[] times;
+        final float[] values;
+        int size;
+
+        Batch(int sensorId, Metric metric, int capacity) {
+            this.sensorId = sensorId;
+            this.metric = metric;
+            this.times = new long[capacity];
+            this.values = new float[capacity];
+        }
+
+        void add(long time, float value) {
+            times[size] = time;
+            values[size] = value;
+            size++;
+        }
+    }
+
+    private static final class ChartKey {
+        final long seriesKey;
+        final long windowMillis;
+        final int width;
+        final Downsampler.Mode mode;
+
+        ChartKey(long seriesKey, long windowMillis, int width, Downsampler.Mode mode) {
+            this.seriesKey = seriesKey;
+            this.windowMillis = windowMillis;
+            this.width = width;
+            this.mode = mode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ChartKey)) return false;
+            ChartKey other = (ChartKey) o;
+            return seriesKey == other.seriesKey && windowMillis == other.windowMillis
+                    && width == other.width && mode == other.mode;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (seriesKey ^ (seriesKey >>> 32));
+            result = 31 * result + (int) (windowMillis ^ (windowMillis >>> 32));
+            result = 31 * result + width;
+            return 31 * result + mode.hashCode();
+        }
+    }
+
+    private static final class CachedChart {
+        final Series series;
+        final int modCount;
+
+        CachedChart(Series series, int modCount) {
+            this.series = series;
+            this.modCount = modCount;
+        }
+    }
+
+    private File fileFor(int sensorId, Metric metric) {
+        return new File(directory, sensorId + "_" + metric.getKey() + ".ts");
+    }
+
+    private static long key(int sensorId, Metric metric) {
+        return ((long) sensorId << 8) | metric.ordinal();
+    }
+
+    /**
+     * Buffer circular de (timestamp, valor). La cabecera guarda capacidad, posición de
+     * la próxima escritura y número de elementos, para poder reabrir un fichero mapeado.
+     */
+    static final class RingSeries {
+        private static final int MAGIC = 0x45435453; // "ECTS"
+        private static final int HEADER_INTS = 4; // magic, capacity, head, size
+        private static final int HEADER_BYTES = HEADER_INTS * 4;
+
+        private final int capacity;
+        private final IntBuffer header;
+        private final LongBuffer times;
+        private final FloatBuffer values;
+        private final MappedByteBuffer mapped;
+        private int head;
+        private int size;
+        // Cambia con cada escritura; invalida los gráficos cacheados
+        int modCount;
+
+        private RingSeries(int capacity, IntBuffer header, LongBuffer times, FloatBuffer values,
+                           MappedByteBuffer mapped) {
+            this.capacity = capacity;
+            this.header = header;
+            this.times = times;
+            this.values = values;
+            this.mapped = mapped;
+            if (header.get(0) == MAGIC && header.get(1) == capacity) {
+                head = header.get(2);
+                size = header.get(3);
+            } else {
+                header.put(0, MAGIC);
+                header.put(1, capacity);
+                writeHeader();
+            }
+        }
+
+        static RingSeries inMemory(int capacity) {
+            return new RingSeries(capacity, IntBuffer.wrap(new int[HEADER_INTS]),
+                    LongBuffer.wrap(new long[capacity]), FloatBuffer.wrap(new float[capacity]), null);
+        }
+
+        /** Serie respaldada por un fichero mapeado, o null si no se puede abrir. */
+        static RingSeries mapped(File file, int capacity) {
+            long bytes = HEADER_BYTES + (long) capacity * (8 + 4);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                if (raf.length() != bytes) {
+                    // Fichero nuevo o de otra capacidad: se empieza de cero
+                    raf.setLength(0);
+                    raf.setLength(bytes);
+                }
+                // El mapeo sigue siendo válido después de cerrar el canal
+                MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                buffer.order(ByteOrder.nativeOrder());
+                IntBuffer header = slice(buffer, 0, HEADER_BYTES).asIntBuffer();
+                LongBuffer times = slice(buffer, HEADER_BYTES, capacity * 8).asLongBuffer();
+                FloatBuffer values = slice(buffer, HEADER_BYTES + capacity * 8, capacity * 4).asFloatBuffer();
+                return new RingSeries(capacity, header, times, values, buffer);
+            } catch (IOException e) {
+                Log.w(TAG, "No se pudo mapear " + file + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+            ByteBuffer copy = buffer.duplicate();
+            copy.position(offset);
+            copy.limit(offset + length);
+            return copy.slice().order(ByteOrder.nativeOrder());
+        }
+
+        int size() {
+            return size;
+        }
+
+        /** i-ésimo elemento en orden temporal (0 = el más antiguo). */
+        long timeAt(int i) {
+            return times.get(physical(i));
+        }
+
+        float valueAt(int i) {
+            return values.get(physical(i));
+        }
+
+        private int physical(int i) {
+            int index = head - size + i;
+            return index < 0 ? index + capacity : index;
+        }
+
+        /** Añade al final; false si no es posterior al último (lectura repetida o antigua). */
+        boolean append(long timestamp, float value) {
+            if (size > 0 && timestamp <= timeAt(size - 1)) {
+                return false;
+            }
+            times.put(head, timestamp);
+            values.put(head, value);
+            head = head + 1 == capacity ? 0 : head + 1;
+            if (size < capacity) {
+                size++;
+            }
+            modCount++;
+            writeHeader();
+            return true;
+        }
+
+        /**
+         * Añade n lecturas ordenadas por tiempo. Si todas son posteriores a la última es
+         * un append normal; si no, se intercalan con lo guardado (gana lo ya guardado en
+         * instantes repetidos) y se reescribe la serie conservando las capacity más
+         * recientes.
+         *
+         * @return lecturas nuevas que quedan en la serie
+         */
+        int merge(long[] newTimes, float[] newValues, int n) {
+            if (n == 0) {
+                return 0;
+            }
+            if (size == 0 || newTimes[0] > timeAt(size - 1)) {
+                int added = 0;
+                for (int i = 0; i < n; i++) {
+                    if (append(newTimes[i], newValues[i])) {
+                        added++;
+                    }
+                }
+                return added;
+            }
+
+            long[] mergedTimes = new long[size + n];
+            float[] mergedValues = new float[size + n];
+            boolean[] fresh = new boolean[size + n];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < n) {
+                long stored = i < size ? timeAt(i) : Long.MAX_VALUE;
+                if (j < n && newTimes[j] < stored) {
+                    if (count == 0 || newTimes[j] > mergedTimes[count - 1]) {
+                        mergedTimes[count] = newTimes[j];
+                        mergedValues[count] = newValues[j];
+                        fresh[count++] = true;
+                    }
+                    j++;
+                } else {
+                    if (j < n && newTimes[j] == stored) {
+                        j++;
+                    }
+                    if (count == 0 || stored > mergedTimes[count - 1]) {
+                        mergedTimes[count] = stored;
+                        mergedValues[count++] = valueAt(i);
+                    }
+                    i++;
+                }
+            }
+
+            // Si no cabe todo se pierden las más antiguas, como al sobrescribir el anillo
+            int from = Math.max(0, count - capacity);
+            int added = 0;
+            for (int k = from; k < count; k++) {
+                times.put(k - from, mergedTimes[k]);
+                values.put(k - from, mergedValues[k]);
+                if (fresh[k]) {
+                    added++;
+                }
+            }
+            size = count - from;
+            head = size == capacity ? 0 : size;
+            if (added > 0) {
+                modCount++;
+            }
+            writeHeader();
+            return added;
+        }
+
+        Series query(long from, long to) {
+            int start = lowerBound(from);
+            int end = lowerBound(to == Long.MAX_VALUE ? to : to + 1);
+            int count = Math.max(0, end - start);
+            long[] outTimes = new long[count];
+            float[] outValues = new float[count];
+            for (int i = 0; i < count; i++) {
+                int p = physical(start + i);
+                outTimes[i] = times.get(p);
+                outValues[i] = values.get(p);
+            }
+            return new Series(outTimes, outValues);
+        }
+
+        void trimOlderThan(long cutoff) {
+            int keepFrom = lowerBound(cutoff);
+            if (keepFrom > 0) {
+                size -= keepFrom;
+                modCount++;
+                writeHeader();
+            }
+        }
+
+        /** Primer índice lógico con timestamp >= value. */
+        private int lowerBound(long value) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (timeAt(mid) < value) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        private void writeHeader() {
+            header.put(2, head);
+            header.put(3, size);
+        }
+
+        boolean isMapped() {
+            return mapped != null;
+        }
+
+        void force() {
+            if (mapped != null) {
+                mapped.force();
+            }
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.example.frontend.model;
 
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * Respuesta de /farmer-metrics/dashboard. equals() compara todos los campos para
+ * detectar si el dashboard ha cambiado entre dos consultas.
+ */
 public class FarmerDashboard {
     public int farmer_id;
     public String farmer_name;
@@ -11,7 +16,48 @@ public class FarmerDashboard {
     public int offline_sensors;
     public List<ZoneSummary> zones;
     public DashboardSummary summary;
-    
+
+    /**
+     * Copia con otras zonas y otro total de alertas activas. La instancia original es
+     * la que guarda RefreshScheduler para comparar con la siguiente consulta, así que
+     * no se modifica.
+     */
+    public FarmerDashboard withZones(List<ZoneSummary> zones, int activeAlerts) {
+        FarmerDashboard copy = new FarmerDashboard();
+        copy.farmer_id = farmer_id;
+        copy.farmer_name = farmer_name;
+        copy.total_zones = total_zones;
+        copy.total_sensors = total_sensors;
+        copy.online_sensors = online_sensors;
+        copy.offline_sensors = offline_sensors;
+        copy.zones = zones;
+        if (summary != null) {
+            copy.summary = summary.withActiveAlerts(activeAlerts);
+        }
+        return copy;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FarmerDashboard)) return false;
+        FarmerDashboard other = (FarmerDashboard) o;
+        return farmer_id == other.farmer_id
+                && total_zones == other.total_zones
+                && total_sensors == other.total_sensors
+                && online_sensors == other.online_sensors
+                && offline_sensors == other.offline_sensors
+                && Objects.equals(farmer_name, other.farmer_name)
+                && Objects.equals(zones, other.zones)
+                && Objects.equals(summary, other.summary);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(farmer_id, farmer_name, total_zones, total_sensors, online_sensors,
+                offline_sensors, zones, summary);
+    }
+
     public static class ZoneSummary {
         public int zone_id;
         public String zone_name;
@@ -24,17 +70,79 @@ public class FarmerDashboard {
         public double avg_humidity;
         public double avg_soil_moisture;
         public Location location;
-        
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ZoneSummary)) return false;
+            ZoneSummary other = (ZoneSummary) o;
+            return zone_id == other.zone_id
+                    && total_sensors == other.total_sensors
+                    && online_sensors == other.online_sensors
+                    && offline_sensors == other.offline_sensors
+                    && active_alerts == other.active_alerts
+                    && Double.compare(avg_temperature, other.avg_temperature) == 0
+                    && Double.compare(avg_humidity, other.avg_humidity) == 0
+                    && Double.compare(avg_soil_moisture, other.avg_soil_moisture) == 0
+                    && Objects.equals(zone_name, other.zone_name)
+                    && Objects.equals(description, other.description)
+                    && Objects.equals(location, other.location);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(zone_id, zone_name, description, total_sensors, online_sensors,
+                    offline_sensors, active_alerts, avg_temperature, avg_humidity, avg_soil_moisture, location);
+        }
+
         public static class Location {
             public double lat;
             public double lon;
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) return true;
+                if (!(o instanceof Location)) return false;
+                Location other = (Location) o;
+                return Double.compare(lat, other.lat) == 0 && Double.compare(lon, other.lon) == 0;
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(lat, lon);
+            }
         }
     }
-    
+
     public static class DashboardSummary {
         public double avg_temperature;
         public double avg_humidity;
         public double avg_soil_moisture;
         public int active_alerts;
+
+        public DashboardSummary withActiveAlerts(int activeAlerts) {
+            DashboardSummary copy = new DashboardSummary();
+            copy.avg_temperature = avg_temperature;
+            copy.avg_humidity = avg_humidity;
+            copy.avg_soil_moisture = avg_soil_moisture;
+            copy.active_alerts = activeAlerts;
+            return copy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DashboardSummary)) return false;
+            DashboardSummary other = (DashboardSummary) o;
+            return active_alerts == other.active_alerts
+                    && Double.compare(avg_temperature, other.avg_temperature) == 0
+                    && Double.compare(avg_humidity, other.avg_humidity) == 0
+                    && Double.compare(avg_soil_moisture, other.avg_soil_moisture) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(avg_temperature, avg_humidity, avg_soil_moisture, active_alerts);
+        }
     }
 }
@@ -47,6 +47,10 @@ public class Product implements Serializable {
     @SerializedName("provider_lon")
     private Double providerLon;
 
+    // Última modificación en el servidor, usada para la sincronización incremental
+    @SerializedName("updated_at")
+    private Date updatedAt;
+
 
     public Product(String id, String name, String category, double price, int quantity, int stock,
                    SustainabilityMetrics sustainabilityMetrics, String blockchainId,
@@ -277,4 +281,12 @@ public class Product implements Serializable {
     public void setUnit(String unit) {
         this.unit = unit;
     }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
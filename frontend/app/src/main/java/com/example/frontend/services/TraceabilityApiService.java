@@ -28,4 +28,8 @@ public interface TraceabilityApiService {
         @Path("productId") Integer productId,
         @Query("blockchain_private_key") String blockchainPrivateKey
     );
+
+    // 2xx si el producto ya tiene cadena de trazabilidad
+    @GET("traceability/products/{productId}/chain-status")
+    Call<Object> getProductChainStatus(@Path("productId") Integer productId);
 }
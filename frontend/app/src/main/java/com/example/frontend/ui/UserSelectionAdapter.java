@@ -11,12 +11,12 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.frontend.R;
 import com.example.frontend.model.User;
+import com.example.frontend.ui.adapters.DiffingAdapter;
 
 import java.util.List;
 
-public class UserSelectionAdapter extends RecyclerView.Adapter<UserSelectionAdapter.UserViewHolder> {
+public class UserSelectionAdapter extends DiffingAdapter<User, UserSelectionAdapter.UserViewHolder> {
     
-    private List<User> users;
     private int selectedPosition = -1;
     private OnUserSelectedListener listener;
 
@@ -25,8 +25,8 @@ public class UserSelectionAdapter extends RecyclerView.Adapter<UserSelectionAdap
     }
 
     public UserSelectionAdapter(List<User> users, OnUserSelectedListener listener) {
-        this.users = users;
         this.listener = listener;
+        submitList(users);
     }
 
     @NonNull
@@ -39,26 +39,53 @@ public class UserSelectionAdapter extends RecyclerView.Adapter<UserSelectionAdap
 
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        User user = users.get(position);
+        User user = getItem(position);
         holder.bind(user, position);
     }
 
     @Override
-    public int getItemCount() {
-        return users.size();
+    protected long getStableId(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected Object[] getContent(User user) {
+        return new Object[]{user.getName(), user.getEmail(), user.getEntityName()};
     }
 
     public void updateUsers(List<User> newUsers) {
-        this.users = newUsers;
+        // La fila marcada puede no cambiar de contenido: desmarcarla explícitamente
+        int previousSelected = selectedPosition;
         this.selectedPosition = -1;
-        notifyDataSetChanged();
+        if (previousSelected >= 0) {
+            notifyItemChanged(previousSelected);
+        }
+        submitList(newUsers);
     }
 
     public User getSelectedUser() {
-        if (selectedPosition >= 0 && selectedPosition < users.size()) {
-            return users.get(selectedPosition);
+        return getItemOrNull(selectedPosition);
+    }
+
+    private void selectUser(User user) {
+        // Posición actual del usuario: la de bind() puede haber cambiado tras un diff
+        int position = getCurrentItems().indexOf(user);
+        if (position < 0) {
+            return;
+        }
+        int previousSelected = selectedPosition;
+        selectedPosition = position;
+
+        // Notificar cambios
+        if (previousSelected >= 0) {
+            notifyItemChanged(previousSelected);
+        }
+        notifyItemChanged(selectedPosition);
+
+        // Notificar al listener
+        if (listener != null) {
+            listener.onUserSelected(user);
         }
-        return null;
     }
 
     class UserViewHolder extends RecyclerView.ViewHolder {
@@ -92,32 +119,12 @@ public class UserSelectionAdapter extends RecyclerView.Adapter<UserSelectionAdap
             
             // Configurar click en todo el item
             itemView.setOnClickListener(v -> {
-                int previousSelected = selectedPosition;
-                selectedPosition = position;
-                
-                // Notificar cambios
-                notifyItemChanged(previousSelected);
-                notifyItemChanged(selectedPosition);
-                
-                // Notificar al listener
-                if (listener != null) {
-                    listener.onUserSelected(user);
-                }
+                selectUser(user);
             });
             
             // Configurar click en radio button
             radioButton.setOnClickListener(v -> {
-                int previousSelected = selectedPosition;
-                selectedPosition = position;
-                
-                // Notificar cambios
-                notifyItemChanged(previousSelected);
-                notifyItemChanged(selectedPosition);
-                
-                // Notificar al listener
-                if (listener != null) {
-                    listener.onUserSelected(user);
-                }
+                selectUser(user);
             });
         }
     }
@@ -7,9 +7,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.google.android.material.button.MaterialButton;
-import com.example.frontend.api.ApiClient;
+import com.example.frontend.utils.ProductImages;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
@@ -19,9 +18,8 @@ import com.example.frontend.model.CartItem;
 
 import java.util.List;
 
-public class CartAdapter extends RecyclerView.Adapter<CartAdapter.ViewHolder> {
+public class CartAdapter extends DiffingAdapter<CartItem, CartAdapter.ViewHolder> {
 
-    private List<CartItem> cartItems;
     private OnCartItemActionListener listener;
 
     public interface OnCartItemActionListener {
@@ -30,7 +28,7 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.ViewHolder> {
     }
 
     public CartAdapter(List<CartItem> cartItems) {
-        this.cartItems = cartItems;
+        submitList(cartItems);
     }
 
     public void setOnCartItemActionListener(OnCartItemActionListener listener) {
@@ -38,8 +36,19 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.ViewHolder> {
     }
 
     public void updateCartItems(List<CartItem> newCartItems) {
-        this.cartItems = newCartItems;
-        notifyDataSetChanged();
+        submitList(newCartItems);
+    }
+
+    @Override
+    protected long getStableId(CartItem item) {
+        return idFromString(item.getProduct() != null ? item.getProduct().getId() : null);
+    }
+
+    @Override
+    protected Object[] getContent(CartItem item) {
+        // Cantidad y total se copian: el carrito modifica el mismo CartItem
+        return new Object[]{item.getProductName(), item.getUnitPrice(), item.getQuantity(), item.getTotalPrice(),
+                item.getFarmerInfo(), item.getProduct() != null ? item.getProduct().getImageUrl() : null};
     }
 
     @NonNull
@@ -52,13 +61,7 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.ViewHolder> {
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        CartItem cartItem = cartItems.get(position);
-        holder.bind(cartItem);
-    }
-
-    @Override
-    public int getItemCount() {
-        return cartItems.size();
+        holder.bind(getItem(position));
     }
 
     public class ViewHolder extends RecyclerView.ViewHolder {
@@ -80,8 +83,8 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.ViewHolder> {
 
             // Configurar listeners
             btnDecrease.setOnClickListener(v -> {
-                if (listener != null) {
-                    CartItem item = cartItems.get(getAdapterPosition());
+                CartItem item = getItemOrNull(getAdapterPosition());
+                if (listener != null && item != null) {
                     if (item.getQuantity() > 1) {
                         listener.onQuantityChanged(item, item.getQuantity() - 1);
                     }
@@ -89,15 +92,16 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.ViewHolder> {
             });
 
             btnIncrease.setOnClickListener(v -> {
-                if (listener != null) {
-                    CartItem item = cartItems.get(getAdapterPosition());
+                CartItem item = getItemOrNull(getAdapterPosition());
+                if (listener != null && item != null) {
                     listener.onQuantityChanged(item, item.getQuantity() + 1);
                 }
             });
 
             btnRemove.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onRemoveItem(cartItems.get(getAdapterPosition()));
+                CartItem item = getItemOrNull(getAdapterPosition());
+                if (listener != null && item != null) {
+                    listener.onRemoveItem(item);
                 }
             });
         }
@@ -110,26 +114,12 @@ public class CartAdapter extends RecyclerView.Adapter<CartAdapter.ViewHolder> {
             productFarmer.setText(cartItem.getFarmerInfo());
 
             // Mostrar imagen del producto si existe
-            if (cartItem.getProduct().getImageUrl() != null && !cartItem.getProduct().getImageUrl().isEmpty()) {
-                String imageUrl = cartItem.getProduct().getImageUrl();
-                if (imageUrl.startsWith("/")) {
-                    String baseUrl = ApiClient.getBaseUrl();
-                    if (baseUrl.endsWith("/")) {
-                        baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
-                    }
-                    imageUrl = baseUrl + imageUrl;
-                }
-                
-                imageUrl += "?t=" + System.currentTimeMillis();
-                
-                Glide.with(itemView.getContext())
-                    .load(imageUrl)
-                    .diskCacheStrategy(DiskCacheStrategy.NONE)
-                    .skipMemoryCache(true)
-                    .placeholder(R.drawable.ic_product_placeholder)
-                    .error(R.drawable.ic_product_placeholder)
-                    .into(productImage);
+            if (ProductImages.url(cartItem.getProduct()) != null) {
+                ProductImages.thumbnail(Glide.with(itemView), cartItem.getProduct(),
+                                ProductImages.px(itemView.getContext(), ProductImages.CART_THUMBNAIL_DP))
+                        .into(productImage);
             } else {
+                Glide.with(itemView).clear(productImage);
                 productImage.setImageResource(R.drawable.ic_product_placeholder);
             }
 
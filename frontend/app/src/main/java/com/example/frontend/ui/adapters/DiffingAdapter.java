@@ -0,0 +1,148 @@
+package com.example.frontend.ui.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Base de los adapters de listas: en lugar de notifyDataSetChanged() calcula con
+ * DiffUtil, en un hilo de fondo, qué filas se han insertado, movido, borrado o
+ * cambiado, y solo esas se vuelven a enlazar.
+ *
+ * Cada subclase indica el id estable de un elemento y los campos que muestra. Esos
+ * campos se copian al enviar la lista, de modo que también se detectan los cambios
+ * hechos sobre el mismo objeto (p. ej. la cantidad de un CartItem).
+ */
+public abstract class DiffingAdapter<T, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+
+    // Un único hilo para los diffs de todos los adapters
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final AsyncListDiffer<Entry<T>> differ = new AsyncListDiffer<>(
+            new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(new EntryCallback<T>())
+                    .setBackgroundThreadExecutor(DIFF_EXECUTOR)
+                    .build());
+
+    // Ids para los ids de texto no numéricos ("local-3" de un alta pendiente...). Son
+    // negativos y distintos de NO_ID, así que no coinciden con ningún id del backend.
+    private final Map<String, Long> localIds = new HashMap<>();
+    private long nextLocalId = RecyclerView.NO_ID - 1;
+
+    protected DiffingAdapter() {
+        setHasStableIds(true);
+    }
+
+    /** Id estable del elemento (id del producto, de la transacción, del usuario...). */
+    protected abstract long getStableId(T item);
+
+    /** Valores que se muestran en la fila; si alguno cambia, la fila se vuelve a enlazar. */
+    protected abstract Object[] getContent(T item);
+
+    /**
+     * Envía una lista nueva. Se copia, así que el llamante puede seguir modificando la suya.
+     */
+    public void submitList(List<T> items) {
+        submitList(items, null);
+    }
+
+    public void submitList(List<T> items, Runnable commitCallback) {
+        List<Entry<T>> entries = new ArrayList<>(items != null ? items.size() : 0);
+        if (items != null) {
+            for (T item : items) {
+                entries.add(new Entry<>(item, getStableId(item), getContent(item)));
+            }
+        }
+        differ.submitList(entries, commitCallback);
+    }
+
+    public T getItem(int position) {
+        return differ.getCurrentList().get(position).item;
+    }
+
+    /** Elemento de la posición indicada o null si ya no existe (clics durante una animación). */
+    protected T getItemOrNull(int position) {
+        List<Entry<T>> current = differ.getCurrentList();
+        return position >= 0 && position < current.size() ? current.get(position).item : null;
+    }
+
+    public List<T> getCurrentItems() {
+        List<Entry<T>> current = differ.getCurrentList();
+        List<T> items = new ArrayList<>(current.size());
+        for (Entry<T> entry : current) {
+            items.add(entry.item);
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).id;
+    }
+
+    /**
+     * Id numérico a partir de un id de texto del backend. Los que no son numéricos reciben
+     * uno propio de este adapter, el mismo mientras dure; los null, uno nuevo cada vez
+     * (no hay forma de reconocerlos entre listas).
+     */
+    protected long idFromString(String id) {
+        if (id == null) {
+            return nextLocalId--;
+        }
+        try {
+            long numeric = Long.parseLong(id);
+            if (numeric >= 0) {
+                return numeric;
+            }
+        } catch (NumberFormatException e) {
+            // Id local
+        }
+        Long local = localIds.get(id);
+        if (local == null) {
+            local = nextLocalId--;
+            localIds.put(id, local);
+        }
+        return local;
+    }
+
+    private static final class Entry<T> {
+        final T item;
+        final long id;
+        final Object[] content;
+
+        Entry(T item, long id, Object[] content) {
+            this.item = item;
+            this.id = id;
+            this.content = content;
+        }
+    }
+
+    private static final class EntryCallback<T> extends DiffUtil.ItemCallback<Entry<T>> {
+        @Override
+        public boolean areItemsTheSame(@NonNull Entry<T> oldItem, @NonNull Entry<T> newItem) {
+            return oldItem.id == newItem.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Entry<T> oldItem, @NonNull Entry<T> newItem) {
+            return Arrays.equals(oldItem.content, newItem.content);
+        }
+    }
+}
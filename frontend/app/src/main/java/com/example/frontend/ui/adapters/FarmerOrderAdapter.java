@@ -13,9 +13,10 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.frontend.R;
 import com.example.frontend.model.FarmerOrder;
 
+import java.util.ArrayList;
 import java.util.List;
 
-public class FarmerOrderAdapter extends RecyclerView.Adapter<FarmerOrderAdapter.OrderViewHolder> {
+public class FarmerOrderAdapter extends DiffingAdapter<FarmerOrder, FarmerOrderAdapter.OrderViewHolder> {
 
     public interface OnOrderClickListener {
         void onClick(FarmerOrder order);
@@ -26,12 +27,11 @@ public class FarmerOrderAdapter extends RecyclerView.Adapter<FarmerOrderAdapter.
         void onDeliverOrder(FarmerOrder order);
     }
 
-    private final List<FarmerOrder> orderList;
     private final OnOrderClickListener listener;
     private final OnOrderActionListener actionListener;
 
     public FarmerOrderAdapter(List<FarmerOrder> orderList, OnOrderClickListener listener, OnOrderActionListener actionListener) {
-        this.orderList = orderList;
+        submitList(orderList);
         this.listener = listener;
         this.actionListener = actionListener;
     }
@@ -45,7 +45,7 @@ public class FarmerOrderAdapter extends RecyclerView.Adapter<FarmerOrderAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull OrderViewHolder holder, int position) {
-        FarmerOrder order = orderList.get(position);
+        FarmerOrder order = getItem(position);
         
         // Configurar la información del pedido
         holder.orderId.setText("Pedido #" + order.getTransactionId());
@@ -91,8 +91,18 @@ public class FarmerOrderAdapter extends RecyclerView.Adapter<FarmerOrderAdapter.
     }
 
     @Override
-    public int getItemCount() {
-        return orderList.size();
+    protected long getStableId(FarmerOrder order) {
+        return order.getTransactionId();
+    }
+
+    @Override
+    protected Object[] getContent(FarmerOrder order) {
+        List<String> products = order.getProducts() != null ? new ArrayList<>(order.getProducts()) : null;
+        return new Object[]{order.getStatus(), order.getTotal(), order.getDeliveryDate(), order.getClientOrMarket(), products};
+    }
+
+    public void updateOrders(List<FarmerOrder> newOrders) {
+        submitList(newOrders);
     }
 
     private String getStatusDisplayName(String status) {
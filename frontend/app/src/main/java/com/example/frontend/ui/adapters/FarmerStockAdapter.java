@@ -8,9 +8,8 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.google.android.material.button.MaterialButton;
-import com.example.frontend.api.ApiClient;
+import com.example.frontend.utils.ProductImages;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
@@ -22,9 +21,8 @@ import java.text.SimpleDateFormat;
 import java.util.List;
 import java.util.Locale;
 
-public class FarmerStockAdapter extends RecyclerView.Adapter<FarmerStockAdapter.ViewHolder> {
+public class FarmerStockAdapter extends DiffingAdapter<Product, FarmerStockAdapter.ViewHolder> {
 
-    private List<Product> products;
     private OnProductActionListener listener;
 
     public interface OnProductActionListener {
@@ -34,7 +32,7 @@ public class FarmerStockAdapter extends RecyclerView.Adapter<FarmerStockAdapter.
     }
 
     public FarmerStockAdapter(List<Product> products) {
-        this.products = products;
+        submitList(products);
     }
 
     public void setOnProductActionListener(OnProductActionListener listener) {
@@ -42,8 +40,19 @@ public class FarmerStockAdapter extends RecyclerView.Adapter<FarmerStockAdapter.
     }
 
     public void updateProducts(List<Product> newProducts) {
-        this.products = newProducts;
-        notifyDataSetChanged();
+        // Solo se vuelven a enlazar las filas que han cambiado
+        submitList(newProducts);
+    }
+
+    @Override
+    protected long getStableId(Product product) {
+        return idFromString(product.getId());
+    }
+
+    @Override
+    protected Object[] getContent(Product product) {
+        return new Object[]{product.getName(), product.getPrice(), product.getStockAvailable(), product.getStock(),
+                product.getExpirationDate(), product.getHarvestDate(), product.getImageUrl(), product.isHidden()};
     }
 
     @NonNull
@@ -56,13 +65,7 @@ public class FarmerStockAdapter extends RecyclerView.Adapter<FarmerStockAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Product product = products.get(position);
-        holder.bind(product);
-    }
-
-    @Override
-    public int getItemCount() {
-        return products.size();
+        holder.bind(getItem(position));
     }
 
     public class ViewHolder extends RecyclerView.ViewHolder {
@@ -83,20 +86,23 @@ public class FarmerStockAdapter extends RecyclerView.Adapter<FarmerStockAdapter.
 
             // Configurar listeners
             btnEdit.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onEdit(products.get(getAdapterPosition()));
+                Product product = getItemOrNull(getAdapterPosition());
+                if (listener != null && product != null) {
+                    listener.onEdit(product);
                 }
             });
 
             btnToggleHidden.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onToggleHidden(products.get(getAdapterPosition()));
+                Product product = getItemOrNull(getAdapterPosition());
+                if (listener != null && product != null) {
+                    listener.onToggleHidden(product);
                 }
             });
 
             btnDelete.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onDelete(products.get(getAdapterPosition()));
+                Product product = getItemOrNull(getAdapterPosition());
+                if (listener != null && product != null) {
+                    listener.onDelete(product);
                 }
             });
         }
@@ -126,32 +132,13 @@ public class FarmerStockAdapter extends RecyclerView.Adapter<FarmerStockAdapter.
                 productExpiration.setText("Caducidad: --");
             }
 
-            // Mostrar imagen del producto si existe, sino mostrar placeholder
-            if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-                // Construir URL completa si es relativa
-                String imageUrl = product.getImageUrl();
-                if (imageUrl.startsWith("/")) {
-                    // Si es una ruta relativa, construir URL completa usando la URL base del servidor
-                    String baseUrl = ApiClient.getBaseUrl();
-                    // Remover la barra final de la URL base si existe
-                    if (baseUrl.endsWith("/")) {
-                        baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
-                    }
-                    imageUrl = baseUrl + imageUrl;
-                }
-                
-                // Agregar timestamp para evitar cache
-                imageUrl += "?t=" + System.currentTimeMillis();
-                
-                // Cargar imagen usando Glide
-                Glide.with(itemView.getContext())
-                    .load(imageUrl)
-                    .diskCacheStrategy(DiskCacheStrategy.NONE) // No usar cache para evitar problemas de actualización
-                    .skipMemoryCache(true) // No usar cache en memoria
-                    .placeholder(R.drawable.ic_product_placeholder)
-                    .error(R.drawable.ic_product_placeholder)
-                    .into(productImage);
+            // Miniatura al tamaño de la fila, con caché; placeholder si no hay imagen
+            if (ProductImages.url(product) != null) {
+                ProductImages.thumbnail(Glide.with(itemView), product,
+                                ProductImages.px(itemView.getContext(), ProductImages.LIST_THUMBNAIL_DP))
+                        .into(productImage);
             } else {
+                Glide.with(itemView).clear(productImage);
                 productImage.setImageResource(R.drawable.ic_product_placeholder);
             }
 
@@ -0,0 +1,34 @@
+package com.example.frontend.ui.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.frontend.data.PagedLoader;
+
+/**
+ * Informa al {@link PagedLoader} de las filas visibles para que cargue páginas por
+ * delante del scroll. RecyclerView también lo invoca tras cada layout (dx = dy = 0),
+ * así que una lista que no llena la pantalla sigue pidiendo páginas.
+ */
+public class PagingScrollListener extends RecyclerView.OnScrollListener {
+    private final PagedLoader<?> loader;
+
+    public PagingScrollListener(PagedLoader<?> loader) {
+        this.loader = loader;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (!(layoutManager instanceof LinearLayoutManager)) {
+            return;
+        }
+        LinearLayoutManager linear = (LinearLayoutManager) layoutManager;
+        int first = linear.findFirstVisibleItemPosition();
+        int last = linear.findLastVisibleItemPosition();
+        if (first != RecyclerView.NO_POSITION) {
+            loader.onVisibleRange(first, last);
+        }
+    }
+}
@@ -14,12 +14,14 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.frontend.R;
 import com.example.frontend.model.Product;
+import com.example.frontend.utils.DistanceEngine;
 import com.example.frontend.utils.LocationUtils;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class ProductWithDistanceAdapter extends RecyclerView.Adapter<ProductWithDistanceAdapter.ProductViewHolder> {
+
+public class ProductWithDistanceAdapter extends DiffingAdapter<Product, ProductWithDistanceAdapter.ProductViewHolder> {
 
     public interface OnProductClickListener {
         void onProductClick(Product product);
@@ -27,9 +29,9 @@ public class ProductWithDistanceAdapter extends RecyclerView.Adapter<ProductWith
         void onAddToCart(Product product);
     }
 
-    private List<Product> productList = new ArrayList<>();
     private final OnProductClickListener listener;
-    private Location userLocation;
+    // Distancias calculadas en bloque: enlazar una fila no hace trigonometría
+    private final DistanceEngine distanceEngine = new DistanceEngine();
     private double maxDistanceKm = 50.0; // Distancia máxima por defecto
 
     public ProductWithDistanceAdapter(OnProductClickListener listener) {
@@ -37,18 +39,54 @@ public class ProductWithDistanceAdapter extends RecyclerView.Adapter<ProductWith
     }
 
     public void setUserLocation(Location userLocation) {
-        this.userLocation = userLocation;
-        notifyDataSetChanged();
+        if (userLocation == null) {
+            if (distanceEngine.hasOrigin()) {
+                distanceEngine.clearOrigin();
+                notifyItemRangeChanged(0, getItemCount());
+            }
+            return;
+        }
+        // Movimientos por debajo del umbral no cambian lo que se muestra
+        if (distanceEngine.setOrigin(userLocation.getLatitude(), userLocation.getLongitude())) {
+            notifyItemRangeChanged(0, getItemCount());
+        }
     }
 
     public void setMaxDistance(double maxDistanceKm) {
+        if (this.maxDistanceKm == maxDistanceKm) {
+            return;
+        }
         this.maxDistanceKm = maxDistanceKm;
-        notifyDataSetChanged();
+        notifyItemRangeChanged(0, getItemCount());
+    }
+
+    @Override
+    public void submitList(List<Product> items, Runnable commitCallback) {
+        if (items == null) {
+            super.submitList(null, commitCallback);
+            return;
+        }
+        // Hasta que el differ publica la lista nueva se siguen enlazando filas de la
+        // anterior, así que las distancias se sustituyen al publicarla. Solo se calculan
+        // las de los productos nuevos o movidos.
+        List<Product> snapshot = new ArrayList<>(items);
+        super.submitList(items, () -> {
+            distanceEngine.setProducts(snapshot);
+            if (commitCallback != null) {
+                commitCallback.run();
+            }
+        });
     }
 
-    public void submitList(List<Product> products) {
-        this.productList = products;
-        notifyDataSetChanged();
+    @Override
+    protected long getStableId(Product product) {
+        return idFromString(product.getId());
+    }
+
+    @Override
+    protected Object[] getContent(Product product) {
+        return new Object[]{product.getName(), product.getPrice(), product.getStock(), product.getProviderName(),
+                product.getProviderLat(), product.getProviderLon()};
     }
 
     @NonNull
@@ -61,13 +99,8 @@ public class ProductWithDistanceAdapter extends RecyclerView.Adapter<ProductWith
 
     @Override
     public void onBindViewHolder(@NonNull ProductViewHolder holder, int position) {
-        Product product = productList.get(position);
-        holder.bind(product, userLocation, maxDistanceKm, listener);
-    }
-
-    @Override
-    public int getItemCount() {
-        return productList.size();
+        Product product = getItem(position);
+        holder.bind(product, distanceEngine.distanceKm(product.getId()), maxDistanceKm, listener);
     }
 
     static class ProductViewHolder extends RecyclerView.ViewHolder {
@@ -96,7 +129,7 @@ public class ProductWithDistanceAdapter extends RecyclerView.Adapter<ProductWith
             productImageView = itemView.findViewById(R.id.imageViewProduct);
         }
 
-        public void bind(Product product, Location userLocation, double maxDistanceKm, OnProductClickListener listener) {
+        public void bind(Product product, double distance, double maxDistanceKm, OnProductClickListener listener) {
             // Información básica del producto
             nameTextView.setText(product.getName());
             priceTextView.setText(String.format("€%.2f", product.getPrice()));
@@ -115,13 +148,8 @@ public class ProductWithDistanceAdapter extends RecyclerView.Adapter<ProductWith
             // Imagen de ejemplo
             productImageView.setImageResource(R.drawable.ic_products);
             
-            // Calcular y mostrar distancia
-            if (userLocation != null && product.getProviderLat() != null && product.getProviderLon() != null) {
-                double distance = LocationUtils.calculateDistance(
-                        userLocation.getLatitude(), userLocation.getLongitude(),
-                        product.getProviderLat(), product.getProviderLon()
-                );
-                
+            // Mostrar distancia (ya calculada por DistanceEngine)
+            if (!Double.isNaN(distance)) {
                 // Mostrar distancia formateada
                 distanceTextView.setText(LocationUtils.formatDistance(distance));
                 distanceTextView.setVisibility(View.VISIBLE);
@@ -13,9 +13,10 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.frontend.R;
 import com.example.frontend.model.SupermarketOrder;
 
+import java.util.ArrayList;
 import java.util.List;
 
-public class SupermarketOrderAdapter extends RecyclerView.Adapter<SupermarketOrderAdapter.OrderViewHolder> {
+public class SupermarketOrderAdapter extends DiffingAdapter<SupermarketOrder, SupermarketOrderAdapter.OrderViewHolder> {
 
     public interface OnOrderClickListener {
         void onClick(SupermarketOrder order);
@@ -25,12 +26,11 @@ public class SupermarketOrderAdapter extends RecyclerView.Adapter<SupermarketOrd
         void onCancelOrder(SupermarketOrder order);
     }
 
-    private final List<SupermarketOrder> orderList;
     private final OnOrderClickListener listener;
     private final OnOrderActionListener actionListener;
 
     public SupermarketOrderAdapter(List<SupermarketOrder> orderList, OnOrderClickListener listener, OnOrderActionListener actionListener) {
-        this.orderList = orderList;
+        submitList(orderList);
         this.listener = listener;
         this.actionListener = actionListener;
     }
@@ -44,7 +44,7 @@ public class SupermarketOrderAdapter extends RecyclerView.Adapter<SupermarketOrd
 
     @Override
     public void onBindViewHolder(@NonNull OrderViewHolder holder, int position) {
-        SupermarketOrder order = orderList.get(position);
+        SupermarketOrder order = getItem(position);
         
         // Configurar la información del pedido
         holder.orderId.setText("Pedido #" + order.getTransactionId());
@@ -77,14 +77,18 @@ public class SupermarketOrderAdapter extends RecyclerView.Adapter<SupermarketOrd
     }
 
     @Override
-    public int getItemCount() {
-        return orderList.size();
+    protected long getStableId(SupermarketOrder order) {
+        return order.getTransactionId();
+    }
+
+    @Override
+    protected Object[] getContent(SupermarketOrder order) {
+        List<String> products = order.getProducts() != null ? new ArrayList<>(order.getProducts()) : null;
+        return new Object[]{order.getStatus(), order.getTotal(), order.getDeliveryDate(), order.getClientOrSupplier(), products};
     }
 
     public void updateOrders(List<SupermarketOrder> newOrders) {
-        this.orderList.clear();
-        this.orderList.addAll(newOrders);
-        notifyDataSetChanged();
+        submitList(newOrders);
     }
 
     private String getStatusDisplayName(String status) {
@@ -7,10 +7,9 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.chip.Chip;
-import com.example.frontend.api.ApiClient;
+import com.example.frontend.utils.ProductImages;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
@@ -22,9 +21,8 @@ import java.text.SimpleDateFormat;
 import java.util.List;
 import java.util.Locale;
 
-public class SupermarketProductAdapter extends RecyclerView.Adapter<SupermarketProductAdapter.ViewHolder> {
+public class SupermarketProductAdapter extends DiffingAdapter<Product, SupermarketProductAdapter.ViewHolder> {
 
-    private List<Product> products;
     private OnProductActionListener listener;
 
     public interface OnProductActionListener {
@@ -33,7 +31,7 @@ public class SupermarketProductAdapter extends RecyclerView.Adapter<SupermarketP
     }
 
     public SupermarketProductAdapter(List<Product> products) {
-        this.products = products;
+        submitList(products);
     }
 
     public void setOnProductActionListener(OnProductActionListener listener) {
@@ -41,16 +39,19 @@ public class SupermarketProductAdapter extends RecyclerView.Adapter<SupermarketP
     }
 
     public void updateProducts(List<Product> newProducts) {
-        this.products = newProducts;
-        
-        // Log para debuggear el problema de imágenes
-        android.util.Log.d("SupermarketProductAdapter", "Actualizando productos. Total: " + newProducts.size());
-        for (Product product : newProducts) {
-            android.util.Log.d("SupermarketProductAdapter", "Producto: " + product.getName() + 
-                ", ImageUrl: " + (product.getImageUrl() != null ? product.getImageUrl() : "null"));
-        }
-        
-        notifyDataSetChanged();
+        // Solo se vuelven a enlazar las filas que han cambiado
+        submitList(newProducts);
+    }
+
+    @Override
+    protected long getStableId(Product product) {
+        return idFromString(product.getId());
+    }
+
+    @Override
+    protected Object[] getContent(Product product) {
+        return new Object[]{product.getName(), product.getPrice(), product.getStockAvailable(), product.getStock(),
+                product.getImageUrl(), product.isSustainable(), product.getScore()};
     }
 
     @NonNull
@@ -63,13 +64,7 @@ public class SupermarketProductAdapter extends RecyclerView.Adapter<SupermarketP
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Product product = products.get(position);
-        holder.bind(product);
-    }
-
-    @Override
-    public int getItemCount() {
-        return products.size();
+        holder.bind(getItem(position));
     }
 
     public class ViewHolder extends RecyclerView.ViewHolder {
@@ -90,14 +85,16 @@ public class SupermarketProductAdapter extends RecyclerView.Adapter<SupermarketP
 
             // Configurar listeners
             btnAddToCart.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onAddToCart(products.get(getAdapterPosition()));
+                Product product = getItemOrNull(getAdapterPosition());
+                if (listener != null && product != null) {
+                    listener.onAddToCart(product);
                 }
             });
 
             btnViewDetails.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onViewDetails(products.get(getAdapterPosition()));
+                Product product = getItemOrNull(getAdapterPosition());
+                if (listener != null && product != null) {
+                    listener.onViewDetails(product);
                 }
             });
         }
@@ -117,39 +114,14 @@ public class SupermarketProductAdapter extends RecyclerView.Adapter<SupermarketP
             }
             productStock.setText("Stock: " + String.format("%.0f", stockValue));
 
-            // Mostrar imagen del producto si existe
-            if (product.getImageUrl() != null && !product.getImageUrl().isEmpty() && !product.getImageUrl().equals("null")) {
-                String imageUrl = product.getImageUrl();
-                if (imageUrl.startsWith("/")) {
-                    String baseUrl = ApiClient.getBaseUrl();
-                    if (baseUrl.endsWith("/")) {
-                        baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
-                    }
-                    imageUrl = baseUrl + imageUrl;
-                }
-                
-                imageUrl += "?t=" + System.currentTimeMillis();
-                
-                // Log para debuggear el problema de imágenes
-                android.util.Log.d("SupermarketProductAdapter", "Cargando imagen para producto: " + product.getName() + 
-                    ", URL: " + imageUrl);
-                
-                // Limpiar la imagen anterior antes de cargar la nueva
-                Glide.with(itemView.getContext()).clear(productImage);
-                
-                Glide.with(itemView.getContext())
-                    .load(imageUrl)
-                    .diskCacheStrategy(DiskCacheStrategy.NONE)
-                    .skipMemoryCache(true)
-                    .placeholder(R.drawable.ic_product_placeholder)
-                    .error(R.drawable.ic_product_placeholder)
-                    .into(productImage);
+            // Miniatura al tamaño de la fila, con caché; placeholder si no hay imagen
+            if (ProductImages.url(product) != null) {
+                ProductImages.thumbnail(Glide.with(itemView), product,
+                                ProductImages.px(itemView.getContext(), ProductImages.LIST_THUMBNAIL_DP))
+                        .into(productImage);
             } else {
-                // Log cuando no hay URL de imagen
-                android.util.Log.d("SupermarketProductAdapter", "No hay URL de imagen para producto: " + product.getName() + 
-                    ", ImageUrl: " + product.getImageUrl());
                 // Limpiar la imagen anterior y mostrar placeholder
-                Glide.with(itemView.getContext()).clear(productImage);
+                Glide.with(itemView).clear(productImage);
                 productImage.setImageResource(R.drawable.ic_product_placeholder);
             }
 
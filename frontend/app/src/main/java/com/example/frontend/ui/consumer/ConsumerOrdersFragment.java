@@ -15,12 +15,15 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.frontend.R;
+import com.example.frontend.data.PagedLoader;
 import com.example.frontend.model.SupermarketOrder;
 import com.example.frontend.model.Transaction;
+import com.example.frontend.ui.adapters.PagingScrollListener;
 import com.example.frontend.ui.adapters.SupermarketOrderAdapter;
 import com.example.frontend.ui.dialogs.OrderReceiptDialog;
 import com.example.frontend.api.ApiService;
 import com.example.frontend.api.ApiClient;
+import com.example.frontend.utils.CacheRegistry;
 import com.example.frontend.utils.SessionManager;
 
 import java.util.ArrayList;
@@ -38,6 +41,8 @@ public class ConsumerOrdersFragment extends Fragment {
     private List<SupermarketOrder> orderList;
     private List<SupermarketOrder> allOrders;
     private SessionManager sessionManager;
+    // Pedidos por páginas: solo una ventana de páginas alrededor del scroll en memoria
+    private PagedLoader<SupermarketOrder> orderLoader;
     
     // Botones de filtro de estado
     private Button filterAll, filterInProgress, filterDelivered, filterCancelled;
@@ -92,6 +97,44 @@ public class ConsumerOrdersFragment extends Fragment {
         });
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerView.setAdapter(adapter);
+
+        orderLoader = new PagedLoader<>(PagedLoader.fromCalls(
+                (offset, limit) -> ApiClient.getApiService().getBuyerOrdersPage(
+                        sessionManager.getUserId(), "consumer", statusParam(), offset, limit),
+                this::toOrders),
+                new PagedLoader.Listener<SupermarketOrder>() {
+                    @Override
+                    public void onWindowChanged(List<SupermarketOrder> items, int windowOffset, boolean hasMore) {
+                        // Verificar si el fragmento sigue adjunto antes de actualizar la UI
+                        if (!isAdded() || getContext() == null) {
+                            return;
+                        }
+                        allOrders.clear();
+                        allOrders.addAll(items);
+                        applyStatusFilter();
+                        Log.d(TAG, "Pedidos del consumidor en memoria: " + allOrders.size() + " desde " + windowOffset);
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        Log.e(TAG, "Error al cargar pedidos: " + message);
+                        if (isAdded() && getContext() != null) {
+                            Toast.makeText(getContext(), "Error al cargar pedidos: " + message, Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
+        recyclerView.addOnScrollListener(new PagingScrollListener(orderLoader));
+        CacheRegistry.getInstance().register(this, "consumer_orders", CacheRegistry.EvictionPriority.NORMAL,
+                orderLoader.asCache(CacheRegistry.ORDER_BYTES));
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        CacheRegistry.getInstance().unregister(this);
+        if (orderLoader != null) {
+            orderLoader.cancel();
+        }
     }
 
     private void setupFilters() {
@@ -100,25 +143,36 @@ public class ConsumerOrdersFragment extends Fragment {
         filterInProgress.setOnClickListener(v -> filterByStatus("in_progress"));
         filterDelivered.setOnClickListener(v -> filterByStatus("delivered"));
         filterCancelled.setOnClickListener(v -> filterByStatus("cancelled"));
+        updateFilterButtons(currentStatusFilter);
     }
 
     private void filterByStatus(String status) {
         Log.d(TAG, "filterByStatus: " + status);
-        
+
+        // El filtro se aplica en el backend: se vuelve a paginar desde el principio
+        currentStatusFilter = status;
+        updateFilterButtons(status);
+        loadOrders();
+    }
+
+    private String statusParam() {
+        return "all".equals(currentStatusFilter) ? null : currentStatusFilter;
+    }
+
+    private void applyStatusFilter() {
         orderList.clear();
-        
-        if ("all".equals(status)) {
+
+        if ("all".equals(currentStatusFilter)) {
             orderList.addAll(allOrders);
         } else {
             for (SupermarketOrder order : allOrders) {
-                if (order.getStatus().toLowerCase().contains(status.toLowerCase())) {
+                if (order.getStatus().toLowerCase().contains(currentStatusFilter.toLowerCase())) {
                     orderList.add(order);
                 }
             }
         }
-        
-        adapter.notifyDataSetChanged();
-        updateFilterButtons(status);
+
+        adapter.updateOrders(orderList);
     }
 
     private void updateFilterButtons(String selectedStatus) {
@@ -168,8 +222,6 @@ public class ConsumerOrdersFragment extends Fragment {
     private void loadOrders() {
         Log.d(TAG, "loadOrders: Cargando pedidos del consumidor");
         
-        allOrders.clear();
-        
         // Obtener ID del consumidor desde la sesión
         Integer consumerId = sessionManager.getUserId();
         if (consumerId == null) {
@@ -180,83 +232,40 @@ public class ConsumerOrdersFragment extends Fragment {
             return;
         }
 
-        // Cargar pedidos reales desde la API
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-        Call<List<Transaction>> call = api.getBuyerOrders(consumerId, "consumer");
-        
-        call.enqueue(new Callback<List<Transaction>>() {
-            @Override
-            public void onResponse(Call<List<Transaction>> call, Response<List<Transaction>> response) {
-                Log.d(TAG, "Respuesta recibida - Código: " + response.code() + ", Exitoso: " + response.isSuccessful());
-                
-                // Verificar si el fragmento sigue adjunto antes de actualizar la UI
-                if (!isAdded() || getContext() == null) {
-                    Log.d(TAG, "Fragmento no adjunto, ignorando respuesta");
-                    return;
-                }
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    allOrders.clear();
-                    Log.d(TAG, "Transacciones recibidas: " + response.body().size());
-                    
-                    for (Transaction transaction : response.body()) {
-                        Log.d(TAG, "Procesando transacción ID: " + transaction.getId() + 
-                              ", Buyer ID: " + transaction.getBuyerId() + 
-                              ", Seller ID: " + transaction.getSellerId() +
-                              ", Status: " + transaction.getStatus());
-                        
-                        // Convertir Transaction a SupermarketOrder
-                        List<String> products = new ArrayList<>();
-                        // orderDetails es un String JSON, por ahora usamos datos básicos
-                        products.add("Productos del pedido");
-                        
-                        // Determinar el icono según el tipo de vendedor
-                        String sellerIcon = getSellerIcon(transaction.getSellerType());
-                        String sellerName = sellerIcon + " " + (transaction.getSellerName() != null ? transaction.getSellerName() : "Vendedor " + transaction.getSellerId());
-                        
-                        // Formatear fecha con hora
-                        String formattedDate = "N/A";
-                        if (transaction.getCreatedAt() != null) {
-                            java.text.SimpleDateFormat dateTimeFormat = new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm", java.util.Locale.getDefault());
-                            formattedDate = dateTimeFormat.format(transaction.getCreatedAt());
-                        }
-                        
-                        SupermarketOrder order = new SupermarketOrder(
-                            transaction.getId(),
-                            sellerName,
-                            products,
-                            formattedDate,
-                            String.format("%.2f €", transaction.getTotalPrice()),
-                            transaction.getStatus(),
-                            "FROM_SELLER"
-                        );
-                        allOrders.add(order);
-                    }
-                    
-                    // Aplicar filtro actual
-                    filterByStatus(currentStatusFilter);
-                    Log.d(TAG, "Pedidos del consumidor cargados: " + allOrders.size());
-                } else {
-                    Log.e(TAG, "Error al cargar pedidos: " + response.code() + ", Mensaje: " + response.message());
-                    if (response.body() == null) {
-                        Log.e(TAG, "Response body es null");
-                    }
-                    if (isAdded() && getContext() != null) {
-                        Toast.makeText(getContext(), "Error al cargar pedidos: " + response.code(), Toast.LENGTH_SHORT).show();
-                    }
-                }
-            }
+        // Cargar pedidos reales desde la API, página a página
+        orderLoader.reset();
+    }
 
-            @Override
-            public void onFailure(Call<List<Transaction>> call, Throwable t) {
-                Log.e(TAG, "Error de conexión: " + t.getMessage());
-                
-                // Verificar si el fragmento sigue adjunto antes de mostrar Toast
-                if (isAdded() && getContext() != null) {
-                    Toast.makeText(getContext(), "Error de conexión: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-                }
+    private List<SupermarketOrder> toOrders(List<Transaction> transactions) {
+        List<SupermarketOrder> orders = new ArrayList<>(transactions.size());
+        java.text.SimpleDateFormat dateTimeFormat = new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm", java.util.Locale.getDefault());
+        for (Transaction transaction : transactions) {
+            // Convertir Transaction a SupermarketOrder
+            List<String> products = new ArrayList<>();
+            // orderDetails es un String JSON, por ahora usamos datos básicos
+            products.add("Productos del pedido");
+
+            // Determinar el icono según el tipo de vendedor
+            String sellerIcon = getSellerIcon(transaction.getSellerType());
+            String sellerName = sellerIcon + " " + (transaction.getSellerName() != null ? transaction.getSellerName() : "Vendedor " + transaction.getSellerId());
+
+            // Formatear fecha con hora
+            String formattedDate = "N/A";
+            if (transaction.getCreatedAt() != null) {
+                formattedDate = dateTimeFormat.format(transaction.getCreatedAt());
             }
-        });
+
+            orders.add(new SupermarketOrder(
+                transaction.getId(),
+                sellerName,
+                products,
+                formattedDate,
+                String.format("%.2f €", transaction.getTotalPrice()),
+                transaction.getStatus(),
+                "FROM_SELLER"
+            ));
+        }
+        return orders;
     }
 
     private void showOrderDetails(SupermarketOrder order) {
@@ -273,7 +282,7 @@ public class ConsumerOrdersFragment extends Fragment {
     }
     
     private void loadTransactionDetails(int transactionId) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
+        ApiService api = ApiClient.getApiService();
         
         api.getTransactionById(transactionId).enqueue(new Callback<Transaction>() {
             @Override
@@ -320,7 +329,7 @@ public class ConsumerOrdersFragment extends Fragment {
     }
 
     private void cancelOrderTransaction(int transactionId) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
+        ApiService api = ApiClient.getApiService();
 
         int userId = sessionManager.getUserId();
         String userType = sessionManager.getUserRole();
@@ -75,7 +75,7 @@ public class ProductTraceabilityDialog extends DialogFragment {
             Log.e(TAG, "getArguments es null");
         }
         
-        traceabilityApiService = ApiClient.getClient().create(TraceabilityApiService.class);
+        traceabilityApiService = ApiClient.getTraceabilityApiService();
         Log.d(TAG, "TraceabilityApiService inicializado");
         Log.d(TAG, "URL base de la API: " + com.example.frontend.utils.Constants.getBaseUrl());
     }
@@ -14,16 +14,27 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import com.example.frontend.R;
+import com.example.frontend.data.LiveSensorStream;
+import com.example.frontend.data.SensorAlertEngine;
+import com.example.frontend.data.SensorSeriesStore;
 import com.example.frontend.model.FarmerDashboard;
+import com.example.frontend.model.SensorAlert;
+import com.example.frontend.model.SensorReading;
+import com.example.frontend.model.ZoneStatistics;
 import com.example.frontend.api.ApiClient;
 import com.example.frontend.services.FarmerMetricsApiService;
 import com.example.frontend.utils.RefreshConfig;
+import com.example.frontend.utils.RefreshScheduler;
 import com.example.frontend.utils.SessionManager;
  
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -31,19 +42,36 @@ import retrofit2.Response;
 
 public class FarmerMetricsFragment extends Fragment {
     private static final String TAG = "FarmerMetricsFragment";
+    // Con el stream conectado el polling solo sirve para reconciliar, cada 5 minutos o más
+    private static final RefreshConfig LIVE_RECONCILE_CONFIG = new RefreshConfig(true, RefreshConfig.INTERVAL_5_MINUTES);
+    // Los umbrales se evalúan en el dispositivo: las alertas del servidor basta con pedirlas cada 5 minutos
+    private static final RefreshConfig ALERTS_SYNC_CONFIG = new RefreshConfig(true, RefreshConfig.INTERVAL_5_MINUTES);
+    // Ventana de ZoneStatistics; solo interesan los umbrales y los sensores de la zona
+    private static final int THRESHOLDS_HOURS = 1;
     
     // Eliminado SwipeRefreshLayout para simplificar el layout
     private TextView tvTotalZones, tvTotalSensors, tvOnlineSensors, tvOfflineSensors;
     private TextView tvAvgTemperature, tvAvgHumidity, tvAvgSoilMoisture, tvActiveAlerts;
     private TextView tvLastUpdate;
     private LinearLayout linearLayoutZones;
+    private ZoneCardsBinder zoneCards;
     
     private SessionManager sessionManager;
     
-    private Handler autoRefreshHandler;
-    private Runnable autoRefreshRunnable;
+    // Actualización automática compartida: se pausa sola con la vista o la app en segundo plano
+    private RefreshConfig refreshConfig = RefreshConfig.DEFAULT;
+    private RefreshScheduler.Subscription<FarmerDashboard> dashboardSubscription;
+    private LiveSensorStream liveStream;
+    private FarmerDashboard currentDashboard;
     private SimpleDateFormat timeFormat;
     
+    // Alertas evaluadas en el dispositivo con los umbrales de cada zona
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Set<Integer> thresholdZones = new HashSet<>();
+    private final Set<Integer> zoneSensorIds = new HashSet<>();
+    private SensorAlertEngine.Listener alertListener;
+    private boolean alertsSynced;
+    
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
@@ -52,21 +80,23 @@ public class FarmerMetricsFragment extends Fragment {
         
         sessionManager = new SessionManager(requireContext());
         timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        autoRefreshHandler = new Handler(Looper.getMainLooper());
         
         initViews(view);
         // Swipe-to-refresh eliminado
         
-        setupAutoRefresh();
-        
         // Logs de debug
         logSessionInfo();
         logApiClientInfo();
         
-        loadDashboard();
-        
         return view;
     }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        // La primera carga se hace al iniciarse la vista; después, cada intervalo
+        setupAutoRefresh();
+    }
     
     private void logSessionInfo() {
         Log.d(TAG, "=== SESSION INFO ===");
@@ -110,6 +140,7 @@ public class FarmerMetricsFragment extends Fragment {
         
         // Lista de zonas
         linearLayoutZones = view.findViewById(R.id.linear_layout_zones);
+        zoneCards = new ZoneCardsBinder(linearLayoutZones);
         
         
     }
@@ -117,58 +148,276 @@ public class FarmerMetricsFragment extends Fragment {
     // Swipe-to-refresh eliminado
     
     private void setupAutoRefresh() {
-        if (!RefreshConfig.isAutoRefreshEnabled()) {
+        if (!refreshConfig.isAutoRefreshEnabled()) {
             Log.d(TAG, "Auto-refresh: Deshabilitado por configuración");
-            return;
         }
         
-        autoRefreshRunnable = new Runnable() {
+        dashboardSubscription = RefreshScheduler.getInstance().subscribe(getViewLifecycleOwner(),
+                "dashboard:" + sessionManager.getUserId(), refreshConfig, this::loadDashboard,
+                new RefreshScheduler.Listener<FarmerDashboard>() {
+                    @Override
+                    public void onData(FarmerDashboard dashboard) {
+                        Log.d(TAG, "onData: Actualizando dashboard");
+                        currentDashboard = dashboard;
+                        updateDashboard(dashboard);
+                        updateLastUpdateTime();
+                        loadZoneThresholds(dashboard);
+                        if (liveStream == null || !liveStream.isLive()) {
+                            // Sin stream las lecturas nuevas solo llegan así
+                            syncSensorSeries(zoneSensorIds);
+                        }
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        if (getContext() != null) {
+                            Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
+                        }
+                    }
+                });
+        
+        // Novedades en tiempo real; si el stream no está disponible sigue el polling
+        liveStream = new LiveSensorStream(requireContext(), sessionManager.getUserId(),
+                new LiveSensorStream.Listener() {
+                    @Override
+                    public void onReading(SensorReading reading) {
+                        // El resumen de la zona llega a continuación en un evento 'zone'
+                    }
+
+                    @Override
+                    public void onAlert(SensorAlert alert) {
+                        Log.d(TAG, "onAlert: " + alert.getTitle());
+                    }
+
+                    @Override
+                    public void onZone(FarmerDashboard.ZoneSummary zone) {
+                        applyZoneDelta(zone);
+                    }
+
+                    @Override
+                    public void onLiveChanged(boolean live) {
+                        dashboardSubscription.setConfig(effectiveRefreshConfig());
+                    }
+                });
+        liveStream.bind(getViewLifecycleOwner());
+        
+        setupAlerts();
+    }
+    
+    /**
+     * Avisa de las alertas que detecta SensorAlertEngine y combina periódicamente las
+     * del servidor, con su propia suscripción (independiente del dashboard).
+     */
+    private void setupAlerts() {
+        SensorAlertEngine engine = SensorAlertEngine.getInstance();
+        // El engine es un singleton: no debe conservar alertas de otra sesión
+        engine.setUser(sessionManager.getUserId());
+        // El engine avisa desde el hilo que evalúa (el del stream, p. ej.)
+        alertListener = new SensorAlertEngine.Listener() {
             @Override
-            public void run() {
-                Log.d(TAG, "Auto-refresh: Actualizando datos automáticamente");
-                loadDashboard();
-                // Programar la siguiente actualización usando la configuración
-                if (RefreshConfig.isAutoRefreshEnabled()) {
-                    autoRefreshHandler.postDelayed(this, RefreshConfig.getRefreshInterval());
-                }
+            public void onAlertRaised(SensorAlert alert) {
+                mainHandler.post(() -> {
+                    if (getContext() != null) {
+                        Toast.makeText(getContext(), alert.getTitle(), Toast.LENGTH_LONG).show();
+                    }
+                    showActiveAlerts();
+                });
+            }
+
+            @Override
+            public void onAlertCleared(SensorAlert alert) {
+                mainHandler.post(FarmerMetricsFragment.this::showActiveAlerts);
             }
         };
+        engine.addListener(alertListener);
         
-        // Iniciar la actualización automática después del primer delay
-        autoRefreshHandler.postDelayed(autoRefreshRunnable, RefreshConfig.getRefreshInterval());
+        RefreshScheduler.getInstance().subscribe(getViewLifecycleOwner(),
+                "sensor-alerts:" + sessionManager.getUserId(), ALERTS_SYNC_CONFIG,
+                callback -> engine.syncServerAlerts(new SensorAlertEngine.MergeCallback() {
+                    @Override
+                    public void onMerged(List<SensorAlert> active) {
+                        callback.onSuccess(active);
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        callback.onFailure(message);
+                    }
+                }),
+                new RefreshScheduler.Listener<List<SensorAlert>>() {
+                    @Override
+                    public void onData(List<SensorAlert> active) {
+                        alertsSynced = true;
+                        showActiveAlerts();
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        Log.w(TAG, "Alertas: " + message);
+                    }
+                });
     }
     
-    private void updateLastUpdateTime() {
-        String currentTime = timeFormat.format(new Date());
-        tvLastUpdate.setText("Última actualización: " + currentTime);
+    /** Carga los umbrales de las zonas que aún no se han pedido en esta vista. */
+    private void loadZoneThresholds(FarmerDashboard dashboard) {
+        if (dashboard.zones == null) {
+            return;
+        }
+        FarmerMetricsApiService apiService = ApiClient.getFarmerMetricsApiService(requireContext());
+        for (FarmerDashboard.ZoneSummary zone : dashboard.zones) {
+            if (!thresholdZones.add(zone.zone_id)) {
+                continue;
+            }
+            int zoneId = zone.zone_id;
+            apiService.getZoneStatistics(zoneId, THRESHOLDS_HOURS).enqueue(new Callback<ZoneStatistics>() {
+                @Override
+                public void onResponse(Call<ZoneStatistics> call, Response<ZoneStatistics> response) {
+                    if (response.isSuccessful() && response.body() != null) {
+                        ZoneStatistics statistics = response.body();
+                        SensorAlertEngine.getInstance().setThresholds(statistics);
+                        // Con los umbrales ya puestos, lo ocurrido mientras la app no estaba abierta
+                        syncSensorSeries(sensorIdsOf(statistics));
+                    } else {
+                        Log.w(TAG, "Umbrales de la zona " + zoneId + ": " + response.code());
+                        thresholdZones.remove(zoneId);
+                    }
+                }
+
+                @Override
+                public void onFailure(Call<ZoneStatistics> call, Throwable t) {
+                    Log.w(TAG, "Umbrales de la zona " + zoneId + ": " + t.getMessage());
+                    // Se reintenta con el siguiente dashboard
+                    thresholdZones.remove(zoneId);
+                }
+            });
+        }
+    }
+    
+    private Set<Integer> sensorIdsOf(ZoneStatistics statistics) {
+        Set<Integer> ids = new HashSet<>();
+        if (statistics.sensors != null) {
+            for (ZoneStatistics.SensorStatistic sensor : statistics.sensors) {
+                ids.add(sensor.sensor_id);
+            }
+        }
+        zoneSensorIds.addAll(ids);
+        return ids;
+    }
+    
+    /**
+     * Descarga las lecturas posteriores a las guardadas en SensorSeriesStore; el store
+     * las pasa a SensorAlertEngine. Con el stream conectado no hace falta: cada lectura
+     * llega por él.
+     */
+    private void syncSensorSeries(Set<Integer> sensorIds) {
+        if (getContext() == null) {
+            return;
+        }
+        SensorSeriesStore store = SensorSeriesStore.getInstance(requireContext());
+        for (int sensorId : sensorIds) {
+            store.sync(sensorId, new SensorSeriesStore.SyncCallback() {
+                @Override
+                public void onSynced(int added) {
+                    Log.d(TAG, "Sensor " + sensorId + ": " + added + " lecturas nuevas");
+                }
+
+                @Override
+                public void onError(String message) {
+                    Log.w(TAG, "Sensor " + sensorId + ": " + message);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Alertas activas: las del engine (servidor y locales) una vez sincronizado; antes,
+     * las que cuenta el dashboard.
+     */
+    private void showActiveAlerts() {
+        if (tvActiveAlerts == null) {
+            return;
+        }
+        if (alertsSynced) {
+            tvActiveAlerts.setText(String.valueOf(SensorAlertEngine.getInstance().getActiveAlerts().size()));
+        } else if (currentDashboard != null && currentDashboard.summary != null) {
+            tvActiveAlerts.setText(String.valueOf(currentDashboard.summary.active_alerts));
+        }
     }
     
-    private void stopAutoRefresh() {
-        if (autoRefreshHandler != null && autoRefreshRunnable != null) {
-            autoRefreshHandler.removeCallbacks(autoRefreshRunnable);
+    @Override
+    public void onDestroyView() {
+        if (alertListener != null) {
+            SensorAlertEngine.getInstance().removeListener(alertListener);
+            alertListener = null;
+        }
+        mainHandler.removeCallbacksAndMessages(null);
+        thresholdZones.clear();
+        zoneSensorIds.clear();
+        tvActiveAlerts = null;
+        super.onDestroyView();
+    }
+    
+    /** Política de polling según haya o no stream en tiempo real. */
+    private RefreshConfig effectiveRefreshConfig() {
+        if (liveStream != null && liveStream.isLive() && refreshConfig.isAutoRefreshEnabled()) {
+            return LIVE_RECONCILE_CONFIG;
+        }
+        return refreshConfig;
+    }
+    
+    /**
+     * Sustituye el resumen de una zona recibido por el stream y actualiza solo lo que
+     * depende de él; los promedios globales se corrigen en el siguiente polling.
+     */
+    private void applyZoneDelta(FarmerDashboard.ZoneSummary zone) {
+        if (currentDashboard == null || currentDashboard.zones == null) {
+            return;
+        }
+        List<FarmerDashboard.ZoneSummary> zones = new ArrayList<>(currentDashboard.zones);
+        int activeAlerts = 0;
+        boolean found = false;
+        for (int i = 0; i < zones.size(); i++) {
+            if (zones.get(i).zone_id == zone.zone_id) {
+                zones.set(i, zone);
+                found = true;
+            }
+            activeAlerts += zones.get(i).active_alerts;
         }
+        if (!found) {
+            // Zona nueva: el polling trae el dashboard completo
+            dashboardSubscription.refreshNow();
+            return;
+        }
+        // Copia: el dashboard original es el que RefreshScheduler compara con el siguiente polling
+        currentDashboard = currentDashboard.withZones(zones, activeAlerts);
+        showActiveAlerts();
+        updateZonesCards(zones);
+        updateLastUpdateTime();
+    }
+    
+    private void updateLastUpdateTime() {
+        String currentTime = timeFormat.format(new Date());
+        tvLastUpdate.setText("Última actualización: " + currentTime);
     }
     
     /**
      * Actualiza la configuración de actualización automática.
      */
     public void updateRefreshConfig(boolean enabled, int intervalSeconds) {
-        RefreshConfig.setAutoRefreshEnabled(enabled);
-        RefreshConfig.setRefreshIntervalSeconds(intervalSeconds);
+        refreshConfig = refreshConfig.withIntervalSeconds(intervalSeconds).withEnabled(enabled);
         
-        // Reiniciar la actualización automática con la nueva configuración
-        stopAutoRefresh();
-        if (enabled) {
-            setupAutoRefresh();
+        // El planificador reprograma la siguiente consulta con la nueva política
+        if (dashboardSubscription != null) {
+            dashboardSubscription.setConfig(effectiveRefreshConfig());
         }
         
         Log.d(TAG, "Configuración actualizada - Habilitado: " + enabled + 
-              ", Intervalo: " + RefreshConfig.getIntervalDescription());
+              ", Intervalo: " + refreshConfig.getIntervalDescription());
     }
     
     
     
-    private void loadDashboard() {
+    private void loadDashboard(RefreshScheduler.FetchCallback<FarmerDashboard> callback) {
         Log.d(TAG, "loadDashboard: Iniciando carga de dashboard");
         // Indicador de refresco eliminado
         
@@ -192,9 +441,7 @@ public class FarmerMetricsFragment extends Fragment {
                 // Indicador de refresco eliminado
                 
                 if (response.isSuccessful() && response.body() != null) {
-                    Log.d(TAG, "onResponse: Actualizando dashboard");
-                    updateDashboard(response.body());
-                    updateLastUpdateTime();
+                    callback.onSuccess(response.body());
                 } else {
                     Log.e(TAG, "onResponse: Error en respuesta - Código: " + response.code());
                     if (response.errorBody() != null) {
@@ -205,9 +452,7 @@ public class FarmerMetricsFragment extends Fragment {
                             Log.e(TAG, "onResponse: Error leyendo error body: " + e.getMessage());
                         }
                     }
-                    if (getContext() != null) {
-                        Toast.makeText(getContext(), "Error al cargar métricas: " + response.code(), Toast.LENGTH_LONG).show();
-                    }
+                    callback.onFailure("Error al cargar métricas: " + response.code());
                 }
             }
             
@@ -215,9 +460,7 @@ public class FarmerMetricsFragment extends Fragment {
             public void onFailure(Call<FarmerDashboard> call, Throwable t) {
                 Log.e(TAG, "onFailure: Error en la llamada", t);
                 // Indicador de refresco eliminado
-                if (getContext() != null) {
-                    Toast.makeText(getContext(), "Error de conexión: " + t.getMessage(), Toast.LENGTH_LONG).show();
-                }
+                callback.onFailure("Error de conexión: " + t.getMessage());
             }
         });
     }
@@ -238,7 +481,7 @@ public class FarmerMetricsFragment extends Fragment {
         tvAvgTemperature.setText(String.format("%.1f°C", dashboard.summary.avg_temperature));
         tvAvgHumidity.setText(String.format("%.1f%%", dashboard.summary.avg_humidity));
         tvAvgSoilMoisture.setText(String.format("%.1f%%", dashboard.summary.avg_soil_moisture));
-        tvActiveAlerts.setText(String.valueOf(dashboard.summary.active_alerts));
+        showActiveAlerts();
         
         // Actualizar lista de zonas con cards individuales
         updateZonesCards(dashboard.zones);
@@ -253,64 +496,9 @@ public class FarmerMetricsFragment extends Fragment {
             return;
         }
         
-        // Limpiar layout anterior
-        linearLayoutZones.removeAllViews();
+        // Solo se inflan las zonas nuevas y se reescriben los textos que cambian
+        zoneCards.bind(zones);
         
-        for (FarmerDashboard.ZoneSummary zone : zones) {
-            Log.d(TAG, "updateZonesCards: Creando card para zona: " + zone.zone_name);
-            
-            View zoneCard = LayoutInflater.from(requireContext()).inflate(R.layout.item_zone_card, linearLayoutZones, false);
-            
-            // Configurar datos de la zona
-            TextView tvZoneName = zoneCard.findViewById(R.id.tv_zone_name);
-            TextView tvZoneSensors = zoneCard.findViewById(R.id.tv_zone_sensors);
-            TextView tvZoneOnline = zoneCard.findViewById(R.id.tv_zone_online);
-            TextView tvZoneAlerts = zoneCard.findViewById(R.id.tv_zone_alerts);
-            TextView tvZoneTemperature = zoneCard.findViewById(R.id.tv_zone_temperature);
-            TextView tvZoneHumidity = zoneCard.findViewById(R.id.tv_zone_humidity);
-            TextView tvZoneSoilMoisture = zoneCard.findViewById(R.id.tv_zone_soil_moisture);
-            
-            tvZoneName.setText(zone.zone_name);
-            tvZoneSensors.setText(String.valueOf(zone.total_sensors));
-            tvZoneOnline.setText(String.valueOf(zone.online_sensors));
-            tvZoneAlerts.setText(String.valueOf(zone.active_alerts));
-            
-            // Mostrar métricas ambientales reales
-            tvZoneTemperature.setText(String.format("%.1f°C", zone.avg_temperature));
-            tvZoneHumidity.setText(String.format("%.1f%%", zone.avg_humidity));
-            tvZoneSoilMoisture.setText(String.format("%.1f%%", zone.avg_soil_moisture));
-            
-            // Agregar card al layout
-            linearLayoutZones.addView(zoneCard);
-        }
-        
-        Log.d(TAG, "updateZonesCards: Cards creadas exitosamente");
-    }
-    
-    @Override
-    public void onResume() {
-        super.onResume();
-        Log.d(TAG, "onResume: Reanudando actualización automática");
-        // Reiniciar la actualización automática cuando el fragment se vuelve visible
-        if (autoRefreshHandler != null && autoRefreshRunnable != null && RefreshConfig.isAutoRefreshEnabled()) {
-            autoRefreshHandler.removeCallbacks(autoRefreshRunnable);
-            autoRefreshHandler.postDelayed(autoRefreshRunnable, RefreshConfig.getRefreshInterval());
-        }
-    }
-    
-    @Override
-    public void onPause() {
-        super.onPause();
-        Log.d(TAG, "onPause: Pausando actualización automática");
-        // Pausar la actualización automática cuando el fragment no es visible
-        stopAutoRefresh();
-    }
-    
-    @Override
-    public void onDestroyView() {
-        super.onDestroyView();
-        Log.d(TAG, "onDestroyView: Limpiando recursos");
-        // Limpiar recursos cuando se destruye la vista
-        stopAutoRefresh();
+        Log.d(TAG, "updateZonesCards: Cards actualizadas");
     }
-}
\ No newline at end of file
+}
@@ -15,11 +15,14 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.frontend.R;
+import com.example.frontend.data.PagedLoader;
 import com.example.frontend.model.FarmerOrder;
 import com.example.frontend.model.Transaction;
 import com.example.frontend.ui.adapters.FarmerOrderAdapter;
+import com.example.frontend.ui.adapters.PagingScrollListener;
 import com.example.frontend.api.ApiService;
 import com.example.frontend.api.ApiClient;
+import com.example.frontend.utils.CacheRegistry;
 import com.example.frontend.utils.SessionManager;
 
 import java.util.ArrayList;
@@ -37,6 +40,8 @@ public class FarmerOrdersFragment extends Fragment {
     private List<FarmerOrder> orderList;
     private List<FarmerOrder> allOrders;
     private SessionManager sessionManager;
+    // Pedidos por páginas: solo una ventana de páginas alrededor del scroll en memoria
+    private PagedLoader<FarmerOrder> orderLoader;
     
     // Botones de filtro de estado
     private Button filterAll, filterInProgress, filterDelivered, filterCancelled;
@@ -86,6 +91,44 @@ public class FarmerOrdersFragment extends Fragment {
         });
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerView.setAdapter(adapter);
+
+        orderLoader = new PagedLoader<>(PagedLoader.fromCalls(
+                (offset, limit) -> ApiClient.getApiService().getSellerOrdersPage(
+                        sessionManager.getUserId(), "farmer", statusParam(), null, offset, limit),
+                this::toFarmerOrders),
+                new PagedLoader.Listener<FarmerOrder>() {
+                    @Override
+                    public void onWindowChanged(List<FarmerOrder> items, int windowOffset, boolean hasMore) {
+                        if (!isAdded() || getContext() == null) {
+                            return;
+                        }
+                        allOrders.clear();
+                        allOrders.addAll(items);
+                        applyStatusFilter();
+                        Log.d(TAG, "Pedidos del agricultor en memoria: " + allOrders.size() + " desde " + windowOffset);
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        if (!isAdded() || getContext() == null) {
+                            return;
+                        }
+                        Log.e(TAG, "Error al cargar pedidos: " + message);
+                        Toast.makeText(getContext(), "Error al cargar pedidos", Toast.LENGTH_SHORT).show();
+                    }
+                });
+        recyclerView.addOnScrollListener(new PagingScrollListener(orderLoader));
+        CacheRegistry.getInstance().register(this, "farmer_orders", CacheRegistry.EvictionPriority.NORMAL,
+                orderLoader.asCache(CacheRegistry.ORDER_BYTES));
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        CacheRegistry.getInstance().unregister(this);
+        if (orderLoader != null) {
+            orderLoader.cancel();
+        }
     }
 
     private void setupFilters() {
@@ -94,25 +137,37 @@ public class FarmerOrdersFragment extends Fragment {
         filterInProgress.setOnClickListener(v -> filterByStatus("in_progress"));
         filterDelivered.setOnClickListener(v -> filterByStatus("delivered"));
         filterCancelled.setOnClickListener(v -> filterByStatus("cancelled"));
+        updateFilterButtons(currentStatusFilter);
     }
 
     private void filterByStatus(String status) {
         Log.d(TAG, "filterByStatus: " + status);
-        
+
+        // El filtro se aplica en el backend: se vuelve a paginar desde el principio
+        currentStatusFilter = status;
+        updateFilterButtons(status);
+        loadOrders();
+    }
+
+    private String statusParam() {
+        return "all".equals(currentStatusFilter) ? null : currentStatusFilter;
+    }
+
+    private void applyStatusFilter() {
         orderList.clear();
-        
-        if ("all".equals(status)) {
+
+        if ("all".equals(currentStatusFilter)) {
             orderList.addAll(allOrders);
         } else {
+            // Oculta también los pedidos cuyo estado se acaba de cambiar en local
             for (FarmerOrder order : allOrders) {
-                if (order.getStatus().toLowerCase().contains(status.toLowerCase())) {
+                if (order.getStatus().toLowerCase().contains(currentStatusFilter.toLowerCase())) {
                     orderList.add(order);
                 }
             }
         }
-        
-        adapter.notifyDataSetChanged();
-        updateFilterButtons(status);
+
+        adapter.updateOrders(orderList);
     }
 
     private void updateFilterButtons(String selectedStatus) {
@@ -158,8 +213,6 @@ public class FarmerOrdersFragment extends Fragment {
     private void loadOrders() {
         Log.d(TAG, "loadOrders: Cargando pedidos del agricultor");
         
-        allOrders.clear();
-        
         // Obtener ID del agricultor desde la sesión
         Integer farmerId = sessionManager.getUserId();
         if (farmerId == null) {
@@ -168,61 +221,34 @@ public class FarmerOrdersFragment extends Fragment {
             return;
         }
 
-        // Cargar pedidos reales desde la API
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-        Call<List<Transaction>> call = api.getSellerOrders(farmerId, "farmer");
-        
-        call.enqueue(new Callback<List<Transaction>>() {
-            @Override
-            public void onResponse(Call<List<Transaction>> call, Response<List<Transaction>> response) {
-                if (!isAdded() || getContext() == null) {
-                    return;
-                }
-                
-                if (response.isSuccessful() && response.body() != null) {
-                    allOrders.clear();
-                    
-                    for (Transaction transaction : response.body()) {
-                        // Convertir Transaction a FarmerOrder
-                        List<String> products = new ArrayList<>();
-                        // orderDetails es un String JSON, por ahora usamos datos básicos
-                        products.add("Productos del pedido");
-                        
-                        String formattedDate = "N/A";
-                        if (transaction.getCreatedAt() != null) {
-                            java.text.SimpleDateFormat dateTimeFormat = new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm", java.util.Locale.getDefault());
-                            formattedDate = dateTimeFormat.format(transaction.getCreatedAt());
-                        }
+        // Cargar pedidos reales desde la API, página a página
+        orderLoader.reset();
+    }
 
-                        FarmerOrder order = new FarmerOrder(
-                            transaction.getId(),
-                            transaction.getBuyerName() != null ? transaction.getBuyerName() : "Comprador " + transaction.getBuyerId(),
-                            products,
-                            formattedDate,
-                            String.format("%.2f €", transaction.getTotalPrice()),
-                            transaction.getStatus()
-                        );
-                        allOrders.add(order);
-                    }
-                    
-                    // Aplicar filtro actual
-                    filterByStatus(currentStatusFilter);
-                    Log.d(TAG, "Pedidos del agricultor cargados: " + allOrders.size());
-                } else {
-                    Log.e(TAG, "Error al cargar pedidos: " + response.code());
-                    Toast.makeText(getContext(), "Error al cargar pedidos", Toast.LENGTH_SHORT).show();
-                }
+    private List<FarmerOrder> toFarmerOrders(List<Transaction> transactions) {
+        List<FarmerOrder> orders = new ArrayList<>(transactions.size());
+        java.text.SimpleDateFormat dateTimeFormat = new java.text.SimpleDateFormat("dd/MM/yyyy HH:mm", java.util.Locale.getDefault());
+        for (Transaction transaction : transactions) {
+            // Convertir Transaction a FarmerOrder
+            List<String> products = new ArrayList<>();
+            // orderDetails es un String JSON, por ahora usamos datos básicos
+            products.add("Productos del pedido");
+
+            String formattedDate = "N/A";
+            if (transaction.getCreatedAt() != null) {
+                formattedDate = dateTimeFormat.format(transaction.getCreatedAt());
             }
 
-            @Override
-            public void onFailure(Call<List<Transaction>> call, Throwable t) {
-                if (!isAdded() || getContext() == null) {
-                    return;
-                }
-                Log.e(TAG, "Error de conexión: " + t.getMessage());
-                Toast.makeText(getContext(), "Error de conexión: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        });
+            orders.add(new FarmerOrder(
+                transaction.getId(),
+                transaction.getBuyerName() != null ? transaction.getBuyerName() : "Comprador " + transaction.getBuyerId(),
+                products,
+                formattedDate,
+                String.format("%.2f €", transaction.getTotalPrice()),
+                transaction.getStatus()
+            ));
+        }
+        return orders;
     }
 
     private void showOrderDetails(FarmerOrder order) {
@@ -233,7 +259,7 @@ public class FarmerOrdersFragment extends Fragment {
     }
 
     private void loadTransactionDetails(int transactionId) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
+        ApiService api = ApiClient.getApiService();
         api.getTransactionById(transactionId).enqueue(new Callback<Transaction>() {
             @Override
             public void onResponse(Call<Transaction> call, Response<Transaction> response) {
@@ -259,7 +285,6 @@ public class FarmerOrdersFragment extends Fragment {
         });
     }
 
-
     private void cancelOrder(FarmerOrder order) {
         new android.app.AlertDialog.Builder(requireContext())
                 .setTitle("Cancelar Pedido")
@@ -268,7 +293,7 @@ public class FarmerOrdersFragment extends Fragment {
                     // Actualización optimista en UI
                     String previousStatus = order.getStatus();
                     order.setStatus("cancelled");
-                    adapter.notifyDataSetChanged();
+                    adapter.updateOrders(orderList);
                     cancelOrderTransaction(order.getTransactionId(), previousStatus, order);
                 })
                 .setNegativeButton("No", null)
@@ -276,7 +301,7 @@ public class FarmerOrdersFragment extends Fragment {
     }
 
     private void cancelOrderTransaction(int transactionId, String previousStatus, FarmerOrder orderRef) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
+        ApiService api = ApiClient.getApiService();
 
         int userId = sessionManager.getUserId();
         String userType = sessionManager.getUserRole();
@@ -296,7 +321,7 @@ public class FarmerOrdersFragment extends Fragment {
                 } else {
                     // Revertir si falla
                     orderRef.setStatus(previousStatus);
-                    adapter.notifyDataSetChanged();
+                    adapter.updateOrders(orderList);
                     Toast.makeText(getContext(), "Error al cancelar el pedido", Toast.LENGTH_SHORT).show();
                 }
             }
@@ -308,7 +333,7 @@ public class FarmerOrdersFragment extends Fragment {
                 }
                 // Revertir si falla
                 orderRef.setStatus(previousStatus);
-                adapter.notifyDataSetChanged();
+                adapter.updateOrders(orderList);
                 Toast.makeText(getContext(), "Error de conexión: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
@@ -322,7 +347,7 @@ public class FarmerOrdersFragment extends Fragment {
                     // Actualización optimista en UI
                     String previousStatus = order.getStatus();
                     order.setStatus("delivered");
-                    adapter.notifyDataSetChanged();
+                    adapter.updateOrders(orderList);
                     deliverOrderTransaction(order.getTransactionId(), previousStatus, order);
                 })
                 .setNegativeButton("No", null)
@@ -330,7 +355,7 @@ public class FarmerOrdersFragment extends Fragment {
     }
 
     private void deliverOrderTransaction(int transactionId, String previousStatus, FarmerOrder orderRef) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
+        ApiService api = ApiClient.getApiService();
 
         int userId = sessionManager.getUserId();
         String userType = sessionManager.getUserRole();
@@ -350,7 +375,7 @@ public class FarmerOrdersFragment extends Fragment {
                 } else {
                     // Revertir si falla
                     orderRef.setStatus(previousStatus);
-                    adapter.notifyDataSetChanged();
+                    adapter.updateOrders(orderList);
                     Toast.makeText(getContext(), "Error al entregar el pedido", Toast.LENGTH_SHORT).show();
                 }
             }
@@ -362,7 +387,7 @@ public class FarmerOrdersFragment extends Fragment {
                 }
                 // Revertir si falla
                 orderRef.setStatus(previousStatus);
-                adapter.notifyDataSetChanged();
+                adapter.updateOrders(orderList);
                 Toast.makeText(getContext(), "Error de conexión: " + t.getMessage(), Toast.LENGTH_SHORT).show();
             }
         });
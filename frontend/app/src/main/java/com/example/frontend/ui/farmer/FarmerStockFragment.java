@@ -27,22 +27,21 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.frontend.R;
+import com.example.frontend.data.MutationQueue;
+import com.example.frontend.data.ProductRepository;
 import com.example.frontend.model.Product;
 import com.example.frontend.ui.adapters.FarmerStockAdapter;
-import com.example.frontend.api.ApiService;
-import com.example.frontend.api.ApiClient;
+import com.example.frontend.utils.CacheRegistry;
+import com.example.frontend.utils.ImageUploadPipeline;
+import com.example.frontend.utils.ProductImages;
+import com.example.frontend.utils.ProductSearchPipeline;
 import com.example.frontend.utils.SessionManager;
 
-import okhttp3.MediaType;
-import okhttp3.MultipartBody;
-import okhttp3.RequestBody;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Calendar;
@@ -57,6 +56,7 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
     private FarmerStockAdapter stockAdapter;
     private List<Product> stockList;
     private List<Product> allStockList;
+    private ProductSearchPipeline searchPipeline;
     private android.widget.EditText searchEditText;
     private String currentQuery = "";
     private ImageButton addProductButton;
@@ -69,6 +69,23 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
     private ActivityResultLauncher<Intent> imagePickerLauncher;
     private ImageView currentImagePreview = null;
     private com.google.android.material.button.MaterialButton currentBtnRemoveImage = null;
+    private MutationQueue mutationQueue;
+
+    // Al confirmarse o rechazarse un cambio encolado se recarga con los datos del servidor
+    private final MutationQueue.Listener mutationListener = new MutationQueue.Listener() {
+        @Override
+        public void onOperationDone(MutationQueue.Operation operation) {
+            if (!isAdded() || operation.getType() == MutationQueue.Type.TRACEABILITY) return;
+            loadFarmerProducts();
+        }
+
+        @Override
+        public void onOperationFailed(MutationQueue.Operation operation, String message) {
+            if (!isAdded()) return;
+            Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+            loadFarmerProducts();
+        }
+    };
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
@@ -88,6 +105,19 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
         stockAdapter.setOnProductActionListener(this);
         recyclerStock.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerStock.setAdapter(stockAdapter);
+        // Precarga las miniaturas de las filas siguientes al hacer scroll
+        recyclerStock.addOnScrollListener(ProductImages.preloader(Glide.with(this),
+                position -> position < stockAdapter.getItemCount() ? stockAdapter.getItem(position) : null,
+                ProductImages.px(requireContext(), ProductImages.LIST_THUMBNAIL_DP)));
+
+        // Búsqueda con debounce en segundo plano; solo se publica el resultado vigente
+        searchPipeline = new ProductSearchPipeline(null, (query, results) -> {
+            if (!isAdded()) return;
+            stockList = results;
+            stockAdapter.updateProducts(stockList);
+        });
+        CacheRegistry.getInstance().register(this, "farmer_stock_index", CacheRegistry.EvictionPriority.NORMAL,
+                searchPipeline.asCache());
 
         // Configurar botón de añadir
         addProductButton.setOnClickListener(v -> openAddProductDialog());
@@ -108,29 +138,31 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
         );
 
         // Cargar productos del farmer
+        mutationQueue = MutationQueue.getInstance(requireContext());
+        mutationQueue.addListener(mutationListener);
         loadFarmerProducts();
 
         return view;
     }
 
     private void loadFarmerProducts() {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
         int farmerId = sessionManager.getUserId();
-        
-        Call<List<Product>> call = api.getFarmerProducts(farmerId);
-        call.enqueue(new Callback<List<Product>>() {
+
+        // Inventario local inmediato; tras cada cambio solo se descargan los productos modificados
+        ProductRepository.getInstance(requireContext()).loadProviderProducts(farmerId, "farmer", new ProductRepository.Listener() {
             @Override
-            public void onResponse(Call<List<Product>> call, Response<List<Product>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    allStockList.clear();
-                    allStockList.addAll(response.body());
-                    applyFilter(currentQuery);
-                }
+            public void onProducts(List<Product> products, boolean fromNetwork) {
+                if (!isAdded()) return;
+                allStockList.clear();
+                // Los cambios aún sin enviar se muestran como si ya estuvieran hechos
+                allStockList.addAll(mutationQueue.applyPending(products, farmerId));
+                searchPipeline.setProducts(allStockList, currentQuery);
             }
 
             @Override
-            public void onFailure(Call<List<Product>> call, Throwable t) {
-                Toast.makeText(getContext(), "Error al cargar productos: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(String message) {
+                if (!isAdded()) return;
+                Toast.makeText(getContext(), "Error al cargar productos: " + message, Toast.LENGTH_SHORT).show();
             }
         });
     }
@@ -144,7 +176,7 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 currentQuery = s != null ? s.toString() : "";
-                applyFilter(currentQuery);
+                searchPipeline.submit(currentQuery);
             }
 
             @Override
@@ -152,23 +184,14 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
         });
     }
 
-    private void applyFilter(String query) {
-        if (allStockList == null) return;
-        String q = query == null ? "" : query.trim().toLowerCase(java.util.Locale.getDefault());
-        if (q.isEmpty()) {
-            stockList = new ArrayList<>(allStockList);
-            stockAdapter.updateProducts(stockList);
-            return;
-        }
-        List<Product> filtered = new ArrayList<>();
-        for (Product p : allStockList) {
-            String name = p.getName() != null ? p.getName() : "";
-            if (name.toLowerCase(java.util.Locale.getDefault()).contains(q)) {
-                filtered.add(p);
-            }
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        CacheRegistry.getInstance().unregister(this);
+        mutationQueue.removeListener(mutationListener);
+        if (searchPipeline != null) {
+            searchPipeline.cancel();
         }
-        stockList = filtered;
-        stockAdapter.updateProducts(stockList);
     }
 
     private void openAddProductDialog() {
@@ -307,28 +330,8 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
         checkEco.setChecked(ecoValue);
 
         // Mostrar imagen actual del producto si existe
-        if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-            // Construir URL completa si es relativa
-            String imageUrl = product.getImageUrl();
-            if (imageUrl.startsWith("/")) {
-                // Si es una ruta relativa, construir URL completa usando la URL base del servidor
-                String baseUrl = ApiClient.getBaseUrl();
-                // Remover la barra final de la URL base si existe
-                if (baseUrl.endsWith("/")) {
-                    baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
-                }
-                imageUrl = baseUrl + imageUrl;
-            }
-            
-            // Cargar imagen actual del producto usando Glide
-            Glide.with(getContext())
-                .load(imageUrl)
-                .diskCacheStrategy(DiskCacheStrategy.NONE)
-                .skipMemoryCache(true)
-                .placeholder(R.drawable.ic_product_placeholder)
-                .error(R.drawable.ic_product_placeholder)
-                .into(imagePreview);
-            
+        if (ProductImages.url(product) != null) {
+            ProductImages.load(Glide.with(this), product).into(imagePreview);
             imagePreview.setVisibility(View.VISIBLE);
             btnRemoveImage.setVisibility(View.VISIBLE);
         } else {
@@ -416,7 +419,6 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
 
     private void publishProduct(String name, String desc, String priceStr, String stockStr,
                                 String category, String unit, String expiration, boolean isEco) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
         int providerId = sessionManager.getUserId();
 
         // Validar que el nombre no esté vacío
@@ -435,85 +437,45 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
             validatedExpiration = expiration.trim();
         }
 
-        RequestBody rbName = RequestBody.create(MediaType.parse("text/plain"), name.trim());
-        RequestBody rbProvider = RequestBody.create(MediaType.parse("text/plain"), String.valueOf(providerId));
-        RequestBody rbDesc = RequestBody.create(MediaType.parse("text/plain"), desc == null ? "" : desc.trim());
-        RequestBody rbPrice = RequestBody.create(MediaType.parse("text/plain"), priceStr == null ? "" : priceStr.trim());
-        RequestBody rbCurrency = RequestBody.create(MediaType.parse("text/plain"), "EUR");
-        RequestBody rbUnit = RequestBody.create(MediaType.parse("text/plain"), unit == null ? "" : unit.trim());
-        RequestBody rbCategory = RequestBody.create(MediaType.parse("text/plain"), category == null ? "" : category.trim());
-        RequestBody rbStock = RequestBody.create(MediaType.parse("text/plain"), stockStr == null ? "" : stockStr.trim());
-        RequestBody rbExp = RequestBody.create(MediaType.parse("text/plain"), validatedExpiration != null ? validatedExpiration : "");
-        RequestBody rbEco = RequestBody.create(MediaType.parse("text/plain"), String.valueOf(isEco));
-
-        MultipartBody.Part imagePart = null;
-        if (selectedImageUri != null) {
-            try {
-                String fileName = "product_" + System.currentTimeMillis() + ".jpg";
-                java.io.InputStream is = requireContext().getContentResolver().openInputStream(selectedImageUri);
-                java.io.ByteArrayOutputStream buffer = new java.io.ByteArrayOutputStream();
-                byte[] data = new byte[4096];
-                int nRead;
-                while ((nRead = is.read(data, 0, data.length)) != -1) {
-                    buffer.write(data, 0, nRead);
-                }
-                buffer.flush();
-                byte[] bytes = buffer.toByteArray();
-                RequestBody req = RequestBody.create(MediaType.parse("image/*"), bytes);
-                imagePart = MultipartBody.Part.createFormData("image", fileName, req);
-            } catch (Exception e) {
-                imagePart = null;
-            }
-        }
-
-        Call<Product> call = api.createProductWithImage(
-                rbName, rbProvider, rbDesc, rbPrice, rbCurrency, rbUnit, rbCategory, rbStock, rbExp, rbEco, imagePart
-        );
-        call.enqueue(new Callback<Product>() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("name", name.trim());
+        fields.put("provider_id", String.valueOf(providerId));
+        fields.put("description", desc == null ? "" : desc.trim());
+        fields.put("price", priceStr == null ? "" : priceStr.trim());
+        fields.put("currency", "EUR");
+        fields.put("unit", unit == null ? "" : unit.trim());
+        fields.put("category", category == null ? "" : category.trim());
+        fields.put("stock_available", stockStr == null ? "" : stockStr.trim());
+        fields.put("expiration_date", validatedExpiration != null ? validatedExpiration : "");
+        fields.put("is_eco", String.valueOf(isEco));
+
+        // La imagen se redimensiona en segundo plano; la cola envía el producto (y después
+        // crea su cadena de trazabilidad) aunque se cierre la pantalla o no haya conexión
+        ImageUploadPipeline.Callback submit = new ImageUploadPipeline.Callback() {
             @Override
-            public void onResponse(Call<Product> call, Response<Product> response) {
-                if (response.isSuccessful()) {
-                    Toast.makeText(getContext(), "Producto creado exitosamente", Toast.LENGTH_SHORT).show();
-                    // Crear cadena de trazabilidad para el nuevo producto (mejora UX)
-                    try {
-                        Integer newProductId = null;
-                        if (response.body() != null && response.body().getId() != null) {
-                            newProductId = Integer.parseInt(response.body().getId());
-                        }
-                        if (newProductId != null) {
-                            com.example.frontend.services.TraceabilityApiService traceApi = com.example.frontend.api.ApiClient.getAuthenticatedClient(requireContext()).create(com.example.frontend.services.TraceabilityApiService.class);
-                            String pk = com.example.frontend.utils.Constants.getBlockchainPrivateKey();
-                            if (pk != null && !pk.trim().isEmpty()) {
-                                traceApi.createProductTraceabilityChain(newProductId, pk).enqueue(new retrofit2.Callback<Object>() {
-                                    @Override
-                                    public void onResponse(retrofit2.Call<Object> call2, retrofit2.Response<Object> resp2) {
-                                        // Opcional: feedback silencioso
-                                    }
-                                    @Override
-                                    public void onFailure(retrofit2.Call<Object> call2, Throwable t2) {
-                                        // Silencioso en UI, se puede loggear
-                                    }
-                                });
-                            }
-                        }
-                    } catch (Exception ignored) {}
-                    loadFarmerProducts(); // Recargar lista
-                } else {
-                    Toast.makeText(getContext(), "Error al crear producto", Toast.LENGTH_SHORT).show();
-                }
+            public void onReady(File image) {
+                mutationQueue.enqueueCreate(fields, image, true);
+                if (!isAdded()) return;
+                Toast.makeText(getContext(), "Producto creado exitosamente", Toast.LENGTH_SHORT).show();
+                loadFarmerProducts(); // Recargar lista
             }
 
             @Override
-            public void onFailure(Call<Product> call, Throwable t) {
-                Toast.makeText(getContext(), "Error de red: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(String message) {
+                // Como antes, si la imagen no se puede procesar el producto se crea sin ella
+                if (isAdded()) Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+                onReady(null);
             }
-        });
+        };
+        if (selectedImageUri != null) {
+            ImageUploadPipeline.prepare(requireContext(), selectedImageUri, submit);
+        } else {
+            submit.onReady(null);
+        }
     }
 
     private void updateProduct(Product originalProduct, String name, String desc, String priceStr, String stockStr,
                               String category, String unit, String expiration, boolean isEco) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-
         // Validar que el nombre no esté vacío
         if (name.trim().isEmpty()) {
             Toast.makeText(getContext(), "El nombre del producto es obligatorio", Toast.LENGTH_SHORT).show();
@@ -562,69 +524,33 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
         }
         
 
-        // Actualizar producto usando el endpoint normal
-        Call<Product> call = api.updateProduct(Integer.parseInt(originalProduct.getId()), productUpdate);
-        call.enqueue(new Callback<Product>() {
-            @Override
-            public void onResponse(Call<Product> call, Response<Product> response) {
-                if (response.isSuccessful()) {
-                    // Si se seleccionó una nueva imagen, actualizarla también
-                    if (selectedImageUri != null) {
-                        updateProductImage(Integer.parseInt(originalProduct.getId()));
-                    } else {
-                        Toast.makeText(getContext(), "Producto actualizado exitosamente", Toast.LENGTH_SHORT).show();
-                        loadFarmerProducts(); // Recargar lista para actualizar la UI
-                    }
-                } else {
-                    Toast.makeText(getContext(), "Error al actualizar producto", Toast.LENGTH_SHORT).show();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<Product> call, Throwable t) {
-                Toast.makeText(getContext(), "Error de red: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        });
+        // Se encola: las ediciones seguidas del mismo producto se envían como una sola
+        mutationQueue.enqueueUpdate(originalProduct.getId(), productUpdate);
+        // Si se seleccionó una nueva imagen, actualizarla también
+        if (selectedImageUri != null) {
+            updateProductImage(originalProduct.getId());
+        } else {
+            Toast.makeText(getContext(), "Producto actualizado exitosamente", Toast.LENGTH_SHORT).show();
+            loadFarmerProducts(); // Recargar lista para actualizar la UI
+        }
     }
 
-    private void updateProductImage(int productId) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-        
+    private void updateProductImage(String productId) {
         if (selectedImageUri != null) {
-            try {
-                String fileName = "product_" + System.currentTimeMillis() + ".jpg";
-                java.io.InputStream is = requireContext().getContentResolver().openInputStream(selectedImageUri);
-                java.io.ByteArrayOutputStream buffer = new java.io.ByteArrayOutputStream();
-                byte[] data = new byte[4096];
-                int nRead;
-                while ((nRead = is.read(data, 0, data.length)) != -1) {
-                    buffer.write(data, 0, nRead);
+            ImageUploadPipeline.prepare(requireContext(), selectedImageUri, new ImageUploadPipeline.Callback() {
+                @Override
+                public void onReady(File image) {
+                    mutationQueue.enqueueImage(productId, image);
+                    if (!isAdded()) return;
+                    Toast.makeText(getContext(), "Producto e imagen actualizados exitosamente", Toast.LENGTH_SHORT).show();
+                    loadFarmerProducts(); // Recargar lista para actualizar la UI
                 }
-                buffer.flush();
-                byte[] bytes = buffer.toByteArray();
-                RequestBody req = RequestBody.create(MediaType.parse("image/*"), bytes);
-                MultipartBody.Part imagePart = MultipartBody.Part.createFormData("image", fileName, req);
-
-                Call<Product> call = api.updateProductImage(productId, imagePart);
-                call.enqueue(new Callback<Product>() {
-                    @Override
-                    public void onResponse(Call<Product> call, Response<Product> response) {
-                        if (response.isSuccessful()) {
-                            Toast.makeText(getContext(), "Producto e imagen actualizados exitosamente", Toast.LENGTH_SHORT).show();
-                            loadFarmerProducts(); // Recargar lista para actualizar la UI
-                        } else {
-                            Toast.makeText(getContext(), "Error al actualizar imagen del producto", Toast.LENGTH_SHORT).show();
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<Product> call, Throwable t) {
-                        Toast.makeText(getContext(), "Error de red al actualizar imagen: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-                    }
-                });
-            } catch (Exception e) {
-                Toast.makeText(getContext(), "Error al procesar imagen: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            }
+
+                @Override
+                public void onError(String message) {
+                    Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+                }
+            });
         }
     }
 
@@ -644,27 +570,12 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
                         action, currentStatus, newStatus, 
                         product.isHidden() ? "SÍ" : "NO"))
                 .setPositiveButton("Sí, " + action, (dialog, which) -> {
-                    ApiService api = ApiClient.getClient().create(ApiService.class);
-                    Call<Map<String, Object>> call = api.toggleProductHidden(Integer.parseInt(product.getId()));
-                    call.enqueue(new Callback<Map<String, Object>>() {
-                        @Override
-                        public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
-                            if (response.isSuccessful()) {
-                                String message = product.isHidden() ? 
-                                    "Producto VISIBLE para usuarios" :
-                                    "Producto OCULTO para usuarios";
-                                Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
-                                loadFarmerProducts(); // Recargar lista
-                            } else {
-                                Toast.makeText(getContext(), "Error al cambiar visibilidad", Toast.LENGTH_SHORT).show();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Call<Map<String, Object>> call, Throwable t) {
-                            Toast.makeText(getContext(), "Error de conexión al cambiar visibilidad", Toast.LENGTH_SHORT).show();
-                        }
-                    });
+                    mutationQueue.enqueueSetHidden(product.getId(), !product.isHidden());
+                    String message = product.isHidden() ?
+                        "Producto VISIBLE para usuarios" :
+                        "Producto OCULTO para usuarios";
+                    Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
+                    loadFarmerProducts(); // Recargar lista
                 })
                 .setNegativeButton("Cancelar", null)
                 .show();
@@ -681,42 +592,10 @@ public class FarmerStockFragment extends Fragment implements FarmerStockAdapter.
                 .setTitle("Confirmar eliminación")
                 .setMessage("¿Estás seguro de que quieres eliminar este producto?\n\nEsta acción no se puede deshacer.")
                 .setPositiveButton("Sí, eliminar", (dialog, which) -> {
-                    ApiService api = ApiClient.getClient().create(ApiService.class);
-                    Call<Void> call = api.deleteProduct(Integer.parseInt(product.getId()));
-                    call.enqueue(new Callback<Void>() {
-                        @Override
-                        public void onResponse(Call<Void> call, Response<Void> response) {
-                            if (response.isSuccessful()) {
-                                Toast.makeText(getContext(), "Producto eliminado correctamente", Toast.LENGTH_SHORT).show();
-                                loadFarmerProducts(); // Recargar lista
-                            } else if (response.code() == 409) {
-                                // Si no se puede eliminar por referencias, ocultarlo automáticamente
-                                ApiService api2 = ApiClient.getClient().create(ApiService.class);
-                                api2.toggleProductHidden(Integer.parseInt(product.getId())).enqueue(new Callback<java.util.Map<String, Object>>() {
-                                    @Override
-                                    public void onResponse(Call<java.util.Map<String, Object>> call2, Response<java.util.Map<String, Object>> resp2) {
-                                        if (resp2.isSuccessful()) {
-                                            Toast.makeText(getContext(), "Producto ocultado (no se podía eliminar)", Toast.LENGTH_LONG).show();
-                                            loadFarmerProducts();
-                                        } else {
-                                            Toast.makeText(getContext(), "No se pudo ocultar el producto", Toast.LENGTH_SHORT).show();
-                                        }
-                                    }
-                                    @Override
-                                    public void onFailure(Call<java.util.Map<String, Object>> call2, Throwable t2) {
-                                        Toast.makeText(getContext(), "Error de conexión al ocultar producto", Toast.LENGTH_SHORT).show();
-                                    }
-                                });
-                            } else {
-                                Toast.makeText(getContext(), "Error al eliminar producto (" + response.code() + ")", Toast.LENGTH_SHORT).show();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Call<Void> call, Throwable t) {
-                            Toast.makeText(getContext(), "Error de conexión al eliminar producto", Toast.LENGTH_SHORT).show();
-                        }
-                    });
+                    // Si el backend no permite borrarlo (409) la cola lo oculta y avisa
+                    mutationQueue.enqueueDelete(product.getId());
+                    Toast.makeText(getContext(), "Producto eliminado correctamente", Toast.LENGTH_SHORT).show();
+                    loadFarmerProducts(); // Recargar lista
                 })
                 .setNegativeButton("Cancelar", null)
                 .show();
@@ -0,0 +1,131 @@
+package com.example.frontend.ui.farmer;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import com.example.frontend.R;
+import com.example.frontend.model.FarmerDashboard;
+
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tarjetas de zonas del dashboard del agricultor.
+ *
+ * Cada tarjeta se infla una sola vez por zone_id y se reutiliza en los refrescos
+ * siguientes: solo se reescriben los textos cuyo valor ha cambiado y solo se mueven,
+ * añaden o quitan las tarjetas de las zonas que cambian de posición, aparecen o
+ * desaparecen. Los números se formatean sobre un único StringBuilder.
+ */
+class ZoneCardsBinder {
+    private final LinearLayout container;
+    private final LayoutInflater inflater;
+    private final Map<Integer, ZoneCard> cards = new HashMap<>();
+    private final StringBuilder buffer = new StringBuilder(16);
+    private final Formatter formatter = new Formatter(buffer);
+
+    ZoneCardsBinder(LinearLayout container) {
+        this.container = container;
+        this.inflater = LayoutInflater.from(container.getContext());
+    }
+
+    /** Deja en el contenedor una tarjeta por zona, en el orden de la lista. */
+    void bind(List<FarmerDashboard.ZoneSummary> zones) {
+        Set<Integer> seen = new HashSet<>();
+        int position = 0;
+        for (FarmerDashboard.ZoneSummary zone : zones) {
+            if (!seen.add(zone.zone_id)) {
+                continue;
+            }
+            ZoneCard card = cards.get(zone.zone_id);
+            if (card == null) {
+                card = new ZoneCard(inflater.inflate(R.layout.item_zone_card, container, false));
+                cards.put(zone.zone_id, card);
+            }
+            if (container.getChildAt(position) != card.view) {
+                if (card.view.getParent() != null) {
+                    container.removeView(card.view);
+                }
+                container.addView(card.view, position);
+            }
+            bindCard(card, zone);
+            position++;
+        }
+
+        // Zonas que ya no existen
+        for (Integer zoneId : new ArrayList<>(cards.keySet())) {
+            if (!seen.contains(zoneId)) {
+                container.removeView(cards.remove(zoneId).view);
+            }
+        }
+    }
+
+    private void bindCard(ZoneCard card, FarmerDashboard.ZoneSummary zone) {
+        FarmerDashboard.ZoneSummary last = card.last;
+        if (last == null || !equalText(last.zone_name, zone.zone_name)) {
+            card.name.setText(zone.zone_name);
+        }
+        if (last == null || last.total_sensors != zone.total_sensors) {
+            card.sensors.setText(String.valueOf(zone.total_sensors));
+        }
+        if (last == null || last.online_sensors != zone.online_sensors) {
+            card.online.setText(String.valueOf(zone.online_sensors));
+        }
+        if (last == null || last.active_alerts != zone.active_alerts) {
+            card.alerts.setText(String.valueOf(zone.active_alerts));
+        }
+        // Métricas ambientales: mismo formato que antes ("%.1f°C", "%.1f%%")
+        if (last == null || Double.compare(last.avg_temperature, zone.avg_temperature) != 0) {
+            card.temperature.setText(format("%.1f°C", zone.avg_temperature));
+        }
+        if (last == null || Double.compare(last.avg_humidity, zone.avg_humidity) != 0) {
+            card.humidity.setText(format("%.1f%%", zone.avg_humidity));
+        }
+        if (last == null || Double.compare(last.avg_soil_moisture, zone.avg_soil_moisture) != 0) {
+            card.soilMoisture.setText(format("%.1f%%", zone.avg_soil_moisture));
+        }
+        card.last = zone;
+    }
+
+    /** TextView copia el texto, así que se puede devolver el buffer compartido. */
+    private CharSequence format(String pattern, double value) {
+        buffer.setLength(0);
+        formatter.format(pattern, value);
+        return buffer;
+    }
+
+    private static boolean equalText(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static final class ZoneCard {
+        final View view;
+        final TextView name;
+        final TextView sensors;
+        final TextView online;
+        final TextView alerts;
+        final TextView temperature;
+        final TextView humidity;
+        final TextView soilMoisture;
+        // Valores mostrados ahora mismo
+        FarmerDashboard.ZoneSummary last;
+
+        ZoneCard(View view) {
+            this.view = view;
+            name = view.findViewById(R.id.tv_zone_name);
+            sensors = view.findViewById(R.id.tv_zone_sensors);
+            online = view.findViewById(R.id.tv_zone_online);
+            alerts = view.findViewById(R.id.tv_zone_alerts);
+            temperature = view.findViewById(R.id.tv_zone_temperature);
+            humidity = view.findViewById(R.id.tv_zone_humidity);
+            soilMoisture = view.findViewById(R.id.tv_zone_soil_moisture);
+        }
+    }
+}
@@ -18,6 +18,7 @@ import com.bumptech.glide.Glide;
 import com.example.frontend.R;
 import com.example.frontend.model.Product;
 import com.example.frontend.ui.dialogs.ProductTraceabilityDialog;
+import com.example.frontend.utils.ProductImages;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -169,13 +170,13 @@ public class ProductDetailFragment extends Fragment {
     }
     
     private void loadProductImage() {
-        if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-            Glide.with(this)
-                .load(product.getImageUrl())
+        String imageUrl = ProductImages.url(product);
+        if (imageUrl != null) {
+            ProductImages.load(Glide.with(this), product)
                 .placeholder(R.drawable.ic_products)
                 .error(R.drawable.ic_products)
                 .into(productImage);
-            Log.d(TAG, "Imagen del producto cargada: " + product.getImageUrl());
+            Log.d(TAG, "Imagen del producto cargada: " + imageUrl);
         } else {
             productImage.setImageResource(R.drawable.ic_products);
             Log.d(TAG, "Usando imagen por defecto para el producto");
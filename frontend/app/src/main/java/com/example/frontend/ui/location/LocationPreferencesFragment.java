@@ -2,6 +2,7 @@ package com.example.frontend.ui.location;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.location.Location;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -16,6 +17,8 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.example.frontend.R;
+import com.example.frontend.data.ProductRepository;
+import com.example.frontend.services.LocationService;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 
 /**
@@ -38,6 +41,10 @@ public class LocationPreferencesFragment extends Fragment {
 
     private OnPreferencesSavedListener listener;
 
+    // Vista previa local de cuántos productos quedan dentro del radio elegido
+    private ProductRepository repository;
+    private Location userLocation;
+
     /**
      * Interfaz para recibir callbacks cuando se guardan las preferencias.
      */
@@ -85,6 +92,7 @@ public class LocationPreferencesFragment extends Fragment {
         initViews(view);
         loadCurrentPreferences();
         setupListeners();
+        loadNearbyPreview();
         
         return view;
     }
@@ -132,8 +140,36 @@ public class LocationPreferencesFragment extends Fragment {
         cancelButton.setOnClickListener(v -> cancelPreferences());
     }
 
+    /**
+     * Prepara el índice espacial local y la ubicación del usuario. A partir de ahí cada
+     * movimiento del slider se responde en memoria, sin peticiones al backend.
+     */
+    private void loadNearbyPreview() {
+        repository = ProductRepository.getInstance(requireContext());
+        repository.loadNearbyIndex(this::refreshDistanceText);
+        new LocationService(requireContext()).getLastKnownLocation().thenAccept(location -> {
+            if (getActivity() != null) {
+                getActivity().runOnUiThread(() -> {
+                    userLocation = location;
+                    refreshDistanceText();
+                });
+            }
+        }).exceptionally(ex -> null);
+    }
+
+    private void refreshDistanceText() {
+        if (distanceSeekBar != null && isAdded()) {
+            updateDistanceText(distanceSeekBar.getProgress() / 2.0);
+        }
+    }
+
     private void updateDistanceText(double distance) {
-        distanceText.setText(String.format("%.1f km", distance));
+        if (repository != null && userLocation != null) {
+            int count = repository.countNearby(userLocation.getLatitude(), userLocation.getLongitude(), distance);
+            distanceText.setText(String.format("%.1f km · %d productos", distance, count));
+        } else {
+            distanceText.setText(String.format("%.1f km", distance));
+        }
     }
 
     private void savePreferences() {
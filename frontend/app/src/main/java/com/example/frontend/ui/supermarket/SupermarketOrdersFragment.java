@@ -16,11 +16,14 @@ import androidx.recyclerview.widget.RecyclerView;
 import androidx.core.content.ContextCompat;
 
 import com.example.frontend.R;
+import com.example.frontend.data.PagedLoader;
 import com.example.frontend.model.SupermarketOrder;
 import com.example.frontend.model.Transaction;
+import com.example.frontend.ui.adapters.PagingScrollListener;
 import com.example.frontend.ui.adapters.SupermarketOrderAdapter;
 import com.example.frontend.api.ApiService;
 import com.example.frontend.api.ApiClient;
+import com.example.frontend.utils.CacheRegistry;
 import com.example.frontend.utils.SessionManager;
 
 import java.util.ArrayList;
@@ -39,6 +42,8 @@ public class SupermarketOrdersFragment extends Fragment {
     private List<SupermarketOrder> orderList;
     private List<SupermarketOrder> allOrders;
     private SessionManager sessionManager;
+    // Pedidos por páginas de la pestaña activa; se reinicia al cambiar de pestaña o filtro
+    private PagedLoader<SupermarketOrder> orderLoader;
     
     // Tabs
     private Button tabSuppliers, tabClients;
@@ -93,6 +98,47 @@ public class SupermarketOrdersFragment extends Fragment {
         });
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerView.setAdapter(adapter);
+
+        orderLoader = new PagedLoader<>(PagedLoader.fromCalls(
+                (offset, limit) -> isSuppliersTabSelected
+                        ? ApiClient.getApiService().getBuyerOrdersPage(
+                                sessionManager.getUserId(), "supermarket", statusParam(), offset, limit)
+                        // Solo pedidos de consumidores: el filtro por tipo de comprador lo hace el backend
+                        : ApiClient.getApiService().getSellerOrdersPage(
+                                sessionManager.getUserId(), "supermarket", statusParam(), "consumer", offset, limit),
+                this::toOrders),
+                new PagedLoader.Listener<SupermarketOrder>() {
+                    @Override
+                    public void onWindowChanged(List<SupermarketOrder> items, int windowOffset, boolean hasMore) {
+                        if (!isAdded()) {
+                            return;
+                        }
+                        allOrders.clear();
+                        allOrders.addAll(items);
+                        applyStatusFilter();
+                        Log.d(TAG, "Pedidos en memoria: " + allOrders.size() + " desde " + windowOffset);
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        Log.e(TAG, "Error al cargar pedidos: " + message);
+                        if (getContext() != null) {
+                            Toast.makeText(getContext(), "Error al cargar pedidos", Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
+        recyclerView.addOnScrollListener(new PagingScrollListener(orderLoader));
+        CacheRegistry.getInstance().register(this, "supermarket_orders", CacheRegistry.EvictionPriority.NORMAL,
+                orderLoader.asCache(CacheRegistry.ORDER_BYTES));
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        CacheRegistry.getInstance().unregister(this);
+        if (orderLoader != null) {
+            orderLoader.cancel();
+        }
     }
 
     private void setupTabs() {
@@ -110,29 +156,38 @@ public class SupermarketOrdersFragment extends Fragment {
         filterInProgress.setOnClickListener(v -> filterByStatus("in_progress"));
         filterDelivered.setOnClickListener(v -> filterByStatus("delivered"));
         filterCancelled.setOnClickListener(v -> filterByStatus("cancelled"));
+        updateFilterButtons(currentStatusFilter);
     }
 
     private void filterByStatus(String status) {
         Log.d(TAG, "filterByStatus: " + status);
-        
+
+        // El filtro se aplica en el backend: se vuelve a paginar desde el principio
+        currentStatusFilter = status;
+        if (isAdded()) {
+            updateFilterButtons(status);
+        }
+        loadOrders();
+    }
+
+    private String statusParam() {
+        return "all".equals(currentStatusFilter) ? null : currentStatusFilter;
+    }
+
+    private void applyStatusFilter() {
         orderList.clear();
-        
-        if ("all".equals(status)) {
+
+        if ("all".equals(currentStatusFilter)) {
             orderList.addAll(allOrders);
         } else {
             for (SupermarketOrder order : allOrders) {
-                if (order.getStatus().toLowerCase().contains(status.toLowerCase())) {
+                if (order.getStatus().toLowerCase().contains(currentStatusFilter.toLowerCase())) {
                     orderList.add(order);
                 }
             }
         }
-        
-        adapter.notifyDataSetChanged();
-        if (!isAdded()) {
-            Log.w(TAG, "Fragment not added; skipping updateFilterButtons");
-            return;
-        }
-        updateFilterButtons(status);
+
+        adapter.updateOrders(orderList);
     }
 
     private void updateFilterButtons(String selectedStatus) {
@@ -216,22 +271,7 @@ public class SupermarketOrdersFragment extends Fragment {
 
     private void loadOrders() {
         Log.d(TAG, "loadOrders: Cargando pedidos del supermercado - Tab: " + (isSuppliersTabSelected ? "Proveedores" : "Clientes"));
-        
-        allOrders.clear();
-        
-        if (isSuppliersTabSelected) {
-            loadSupplierOrders();
-        } else {
-            loadClientOrders();
-        }
-        
-        // Aplicar filtro actual
-        filterByStatus(currentStatusFilter);
-        
-        Log.d(TAG, "loadOrders: " + allOrders.size() + " pedidos cargados");
-    }
 
-    private void loadSupplierOrders() {
         // Obtener ID del supermercado desde la sesión
         Integer supermarketId = sessionManager.getUserId();
         if (supermarketId == null) {
@@ -240,168 +280,73 @@ public class SupermarketOrdersFragment extends Fragment {
             return;
         }
 
-        Log.d(TAG, "loadSupplierOrders: Cargando transacciones donde el supermercado es comprador");
-
-        // Cargar pedidos reales desde la API
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-        Call<List<Transaction>> call = api.getBuyerOrders(supermarketId, "supermarket");
-        
-        call.enqueue(new Callback<List<Transaction>>() {
-            @Override
-            public void onResponse(Call<List<Transaction>> call, Response<List<Transaction>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    allOrders.clear();
-                    
-                    Log.d(TAG, "Respuesta recibida con " + response.body().size() + " transacciones");
-                    
-                    for (Transaction transaction : response.body()) {
-                        // Convertir Transaction a SupermarketOrder
-                        List<String> products = new ArrayList<>();
-                        
-                        // Intentar extraer información de productos del order_details
-                        if (transaction.getOrderDetails() != null && !transaction.getOrderDetails().isEmpty()) {
-                            try {
-                                // orderDetails puede ser una lista de objetos o un string JSON
-                                if (transaction.getOrderDetails() instanceof List) {
-                                    List<?> details = (List<?>) transaction.getOrderDetails();
-                                    for (Object detail : details) {
-                                        if (detail instanceof Map) {
-                                            Map<?, ?> detailMap = (Map<?, ?>) detail;
-                                            String productName = (String) detailMap.get("product_name");
-                                            Integer quantity = (Integer) detailMap.get("quantity");
-                                            if (productName != null && quantity != null) {
-                                                products.add(productName + " (" + quantity + ")");
-                                            }
-                                        }
-                                    }
-                                }
-                            } catch (Exception e) {
-                                Log.w(TAG, "Error al procesar order_details: " + e.getMessage());
-                            }
-                        }
-                        
-                        // Si no se pudieron extraer productos, usar texto genérico
-                        if (products.isEmpty()) {
-                            products.add("Productos del pedido");
-                        }
-                        
-                        SupermarketOrder order = new SupermarketOrder(
-                            transaction.getId(),
-                            transaction.getSellerName() != null ? transaction.getSellerName() : "Vendedor " + transaction.getSellerId(),
-                            products,
-                            transaction.getCreatedAt() != null ? new java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault()).format(transaction.getCreatedAt()) : "N/A",
-                            String.format("%.2f €", transaction.getTotalPrice()),
-                            transaction.getStatus(),
-                            "TO_SUPPLIER"
-                        );
-                        allOrders.add(order);
-                        
-                        Log.d(TAG, "Agregada transacción de proveedor: " + transaction.getSellerName() + " - " + transaction.getTotalPrice() + "€");
-                    }
-                    
-                    // Aplicar filtro actual
-                    filterByStatus(currentStatusFilter);
-                    Log.d(TAG, "Pedidos de proveedores cargados: " + allOrders.size());
-                } else {
-                    Log.e(TAG, "Error al cargar pedidos: " + response.code());
-                    Toast.makeText(getContext(), "Error al cargar pedidos", Toast.LENGTH_SHORT).show();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<List<Transaction>> call, Throwable t) {
-                Log.e(TAG, "Error de conexión: " + t.getMessage());
-                Toast.makeText(getContext(), "Error de conexión: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        });
+        // Proveedores: el supermercado es comprador. Clientes: es vendedor.
+        orderLoader.reset();
     }
 
-    private void loadClientOrders() {
-        // Obtener ID del supermercado desde la sesión
-        Integer supermarketId = sessionManager.getUserId();
-        if (supermarketId == null) {
-            Log.e(TAG, "No se pudo obtener el ID del supermercado");
-            Toast.makeText(getContext(), "Error: No se pudo obtener el ID del supermercado", Toast.LENGTH_SHORT).show();
-            return;
+    private List<SupermarketOrder> toOrders(List<Transaction> transactions) {
+        List<SupermarketOrder> orders = new ArrayList<>(transactions.size());
+        java.text.SimpleDateFormat dateFormat = new java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault());
+        for (Transaction transaction : transactions) {
+            // Convertir Transaction a SupermarketOrder
+            List<String> products = productsOf(transaction);
+            String date = transaction.getCreatedAt() != null ? dateFormat.format(transaction.getCreatedAt()) : "N/A";
+
+            if (isSuppliersTabSelected) {
+                orders.add(new SupermarketOrder(
+                    transaction.getId(),
+                    transaction.getSellerName() != null ? transaction.getSellerName() : "Vendedor " + transaction.getSellerId(),
+                    products,
+                    date,
+                    String.format("%.2f €", transaction.getTotalPrice()),
+                    transaction.getStatus(),
+                    "TO_SUPPLIER"
+                ));
+            } else {
+                orders.add(new SupermarketOrder(
+                    transaction.getId(),
+                    transaction.getBuyerName() != null ? transaction.getBuyerName() : "Cliente " + transaction.getBuyerId(),
+                    products,
+                    date,
+                    String.format("%.2f €", transaction.getTotalPrice()),
+                    transaction.getStatus(),
+                    "FROM_CLIENT"
+                ));
+            }
         }
+        return orders;
+    }
 
-        Log.d(TAG, "loadClientOrders: Cargando transacciones donde el supermercado es vendedor");
-
-        // Cargar pedidos de clientes desde la API
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-        Call<List<Transaction>> call = api.getSellerOrders(supermarketId, "supermarket");
-        
-        call.enqueue(new Callback<List<Transaction>>() {
-            @Override
-            public void onResponse(Call<List<Transaction>> call, Response<List<Transaction>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    allOrders.clear();
-                    
-                    Log.d(TAG, "Respuesta recibida con " + response.body().size() + " transacciones");
-                    
-                    for (Transaction transaction : response.body()) {
-                        // Solo mostrar pedidos de consumidores
-                        if ("consumer".equalsIgnoreCase(transaction.getBuyerType())) {
-                            // Convertir Transaction a SupermarketOrder
-                            List<String> products = new ArrayList<>();
-                            
-                            // Intentar extraer información de productos del order_details
-                            if (transaction.getOrderDetails() != null && !transaction.getOrderDetails().isEmpty()) {
-                                try {
-                                    // orderDetails puede ser una lista de objetos o un string JSON
-                                    if (transaction.getOrderDetails() instanceof List) {
-                                        List<?> details = (List<?>) transaction.getOrderDetails();
-                                        for (Object detail : details) {
-                                            if (detail instanceof Map) {
-                                                Map<?, ?> detailMap = (Map<?, ?>) detail;
-                                                String productName = (String) detailMap.get("product_name");
-                                                Integer quantity = (Integer) detailMap.get("quantity");
-                                                if (productName != null && quantity != null) {
-                                                    products.add(productName + " (" + quantity + ")");
-                                                }
-                                            }
-                                        }
-                                    }
-                                } catch (Exception e) {
-                                    Log.w(TAG, "Error al procesar order_details: " + e.getMessage());
-                                }
-                            }
-                            
-                            // Si no se pudieron extraer productos, usar texto genérico
-                            if (products.isEmpty()) {
-                                products.add("Productos del pedido");
+    private List<String> productsOf(Transaction transaction) {
+        List<String> products = new ArrayList<>();
+
+        // Intentar extraer información de productos del order_details
+        if (transaction.getOrderDetails() != null && !transaction.getOrderDetails().isEmpty()) {
+            try {
+                // orderDetails puede ser una lista de objetos o un string JSON
+                if (transaction.getOrderDetails() instanceof List) {
+                    List<?> details = (List<?>) transaction.getOrderDetails();
+                    for (Object detail : details) {
+                        if (detail instanceof Map) {
+                            Map<?, ?> detailMap = (Map<?, ?>) detail;
+                            String productName = (String) detailMap.get("product_name");
+                            Integer quantity = (Integer) detailMap.get("quantity");
+                            if (productName != null && quantity != null) {
+                                products.add(productName + " (" + quantity + ")");
                             }
-                            
-                            SupermarketOrder order = new SupermarketOrder(
-                                transaction.getId(),
-                                transaction.getBuyerName() != null ? transaction.getBuyerName() : "Cliente " + transaction.getBuyerId(),
-                                products,
-                                transaction.getCreatedAt() != null ? new java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault()).format(transaction.getCreatedAt()) : "N/A",
-                                String.format("%.2f €", transaction.getTotalPrice()),
-                                transaction.getStatus(),
-                                "FROM_CLIENT"
-                            );
-                            allOrders.add(order);
-                            
-                            Log.d(TAG, "Agregada transacción de cliente: " + transaction.getBuyerName() + " - " + transaction.getTotalPrice() + "€");
                         }
                     }
-                    
-                    // Aplicar filtro actual
-                    filterByStatus(currentStatusFilter);
-                    Log.d(TAG, "Pedidos de clientes cargados: " + allOrders.size());
-                } else {
-                    Log.e(TAG, "Error al cargar pedidos de clientes: " + response.code());
-                    Toast.makeText(getContext(), "Error al cargar pedidos de clientes", Toast.LENGTH_SHORT).show();
                 }
+            } catch (Exception e) {
+                Log.w(TAG, "Error al procesar order_details: " + e.getMessage());
             }
+        }
 
-            @Override
-            public void onFailure(Call<List<Transaction>> call, Throwable t) {
-                Log.e(TAG, "Error de conexión: " + t.getMessage());
-                Toast.makeText(getContext(), "Error de conexión: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        });
+        // Si no se pudieron extraer productos, usar texto genérico
+        if (products.isEmpty()) {
+            products.add("Productos del pedido");
+        }
+        return products;
     }
 
     private void showOrderDetails(SupermarketOrder order) {
@@ -443,7 +388,7 @@ public class SupermarketOrdersFragment extends Fragment {
     }
 
     private void cancelOrderTransaction(int transactionId) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
+        ApiService api = ApiClient.getApiService();
 
         int userId = sessionManager.getUserId();
         String userType = sessionManager.getUserRole();
@@ -17,16 +17,24 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
 import com.example.frontend.R;
+import com.example.frontend.data.CheckoutEngine;
+import com.example.frontend.data.PagedLoader;
+import com.example.frontend.data.ProductRepository;
 import com.example.frontend.model.Product;
 import com.example.frontend.model.CartItem;
 import com.example.frontend.model.OrderItem;
 import com.example.frontend.model.OrderRequest;
-import com.example.frontend.model.Transaction;
 import com.example.frontend.ui.adapters.SupermarketProductAdapter;
 import com.example.frontend.ui.adapters.CartAdapter;
+import com.example.frontend.ui.adapters.PagingScrollListener;
 import com.example.frontend.api.ApiService;
 import com.example.frontend.api.ApiClient;
+import com.example.frontend.utils.CacheRegistry;
+import com.example.frontend.utils.ProductImages;
+import com.example.frontend.utils.ProductRankingEngine;
+import com.example.frontend.utils.ProductSearchPipeline;
 import com.example.frontend.utils.SessionManager;
 import com.example.frontend.services.LocationService;
 import com.google.android.material.chip.ChipGroup;
@@ -35,7 +43,6 @@ import android.widget.TextView;
 import android.widget.LinearLayout;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +54,7 @@ import retrofit2.Response;
 public class SupermarketSearchProductsFragment extends Fragment implements SupermarketProductAdapter.OnProductActionListener, CartAdapter.OnCartItemActionListener {
 
     private static final String TAG = "SupermarketSearchProducts";
+    private static final int SEARCH_PAGE_SIZE = 60;
 
     private RecyclerView recyclerProducts;
     private SupermarketProductAdapter productAdapter;
@@ -64,9 +72,15 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
     private TextView cartTotal;
     private MaterialButton btnClearCart;
     private MaterialButton btnCheckout;
+    private CheckoutEngine checkoutEngine;
 
     private final List<Product> allProducts = new ArrayList<>();
     private final List<Product> filteredProducts = new ArrayList<>();
+    private ProductSearchPipeline searchPipeline;
+    // El adapter solo recibe una ventana de filteredProducts que avanza con el scroll
+    private PagedLoader<Product> productLoader;
+    // Orden elegido con el botón del que solo se ha aplicado la primera página
+    private ProductRankingEngine pendingRanking;
     private final List<CartItem> cartItems = new ArrayList<>();
     private SessionManager sessionManager;
 
@@ -107,6 +121,34 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
             productAdapter = new SupermarketProductAdapter(filteredProducts);
             productAdapter.setOnProductActionListener(this);
             recyclerProducts.setAdapter(productAdapter);
+            // Precarga las miniaturas de las filas siguientes al hacer scroll
+            recyclerProducts.addOnScrollListener(ProductImages.preloader(Glide.with(this),
+                    position -> position < productAdapter.getItemCount() ? productAdapter.getItem(position) : null,
+                    ProductImages.px(requireContext(), ProductImages.LIST_THUMBNAIL_DP)));
+
+            productLoader = new PagedLoader<>(rankedSource(),
+                    new PagedLoader.Listener<Product>() {
+                        @Override
+                        public void onWindowChanged(List<Product> items, int windowOffset, boolean hasMore) {
+                            productAdapter.updateProducts(items);
+                        }
+
+                        @Override
+                        public void onError(String message) {
+                            Log.w(TAG, "Error al paginar productos: " + message);
+                        }
+                    }, SEARCH_PAGE_SIZE, PagedLoader.DEFAULT_MAX_PAGES);
+            recyclerProducts.addOnScrollListener(new PagingScrollListener(productLoader));
+            CacheRegistry.getInstance().register(this, "supermarket_search_window", CacheRegistry.EvictionPriority.NORMAL,
+                    productLoader.asCache(CacheRegistry.REFERENCE_BYTES));
+
+            // Búsqueda con debounce en segundo plano; solo se publica el resultado vigente
+            searchPipeline = new ProductSearchPipeline(this::rankResults, (query, results) -> {
+                if (!isAdded()) return;
+                showProducts(results);
+            });
+            CacheRegistry.getInstance().register(this, "supermarket_search_index", CacheRegistry.EvictionPriority.NORMAL,
+                    searchPipeline.asCache());
 
             cartAdapter = new CartAdapter(cartItems);
             cartAdapter.setOnCartItemActionListener(this);
@@ -127,6 +169,21 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
         }
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        CacheRegistry.getInstance().unregister(this);
+        if (searchPipeline != null) {
+            searchPipeline.cancel();
+        }
+        if (productLoader != null) {
+            productLoader.cancel();
+        }
+        if (checkoutEngine != null) {
+            checkoutEngine.detach();
+        }
+    }
+
     private void setupListeners() {
         // Búsqueda
         searchProducts.addTextChangedListener(new TextWatcher() {
@@ -135,7 +192,7 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
 
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
-                filterProducts();
+                searchPipeline.submit(s.toString());
             }
 
             @Override
@@ -165,63 +222,47 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
     }
 
     private void loadFarmerProducts() {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-        
-        // Obtener todos los productos de agricultores
-        Call<List<Product>> call = api.getProductsFiltered("", "farmer");
-        call.enqueue(new Callback<List<Product>>() {
+        // Catálogo local inmediato y sincronización incremental en segundo plano
+        ProductRepository.getInstance(requireContext()).loadCatalog("farmer", new ProductRepository.Listener() {
             @Override
-            public void onResponse(Call<List<Product>> call, Response<List<Product>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    allProducts.clear();
-                    allProducts.addAll(response.body());
-                    filterProducts();
-                    Log.d(TAG, "Productos cargados: " + allProducts.size());
-                } else {
-                    Log.e(TAG, "Error al cargar productos: " + response.code());
-                    Toast.makeText(getContext(), "Error al cargar productos", Toast.LENGTH_SHORT).show();
-                }
+            public void onProducts(List<Product> products, boolean fromNetwork) {
+                if (!isAdded()) return;
+                allProducts.clear();
+                allProducts.addAll(products);
+                searchPipeline.setProducts(allProducts, searchProducts.getText().toString());
+                Log.d(TAG, "Productos cargados: " + allProducts.size() + (fromNetwork ? " (red)" : " (local)"));
             }
 
             @Override
-            public void onFailure(Call<List<Product>> call, Throwable t) {
-                Log.e(TAG, "Error de conexión: " + t.getMessage());
-                Toast.makeText(getContext(), "Error de conexión: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(String message) {
+                if (!isAdded()) return;
+                Log.e(TAG, "Error de conexión: " + message);
+                Toast.makeText(getContext(), "Error de conexión: " + message, Toast.LENGTH_SHORT).show();
             }
         });
     }
 
     private void filterProducts() {
-        String query = searchProducts.getText().toString().toLowerCase();
-        filteredProducts.clear();
-
-        for (Product product : allProducts) {
-            // Solo filtro de texto
-            boolean matchesText = query.isEmpty() || 
-                product.getName().toLowerCase().contains(query) ||
-                product.getCategory().toLowerCase().contains(query);
+        searchPipeline.submitNow(searchProducts.getText().toString());
+    }
 
-            if (matchesText) {
-                filteredProducts.add(product);
-            }
+    /**
+     * Se ejecuta en el hilo de búsqueda: con texto se mantiene el orden por relevancia
+     * del índice; sin texto se aplica el algoritmo de optimización.
+     */
+    private void rankResults(String query, List<Product> results) {
+        if (query.trim().isEmpty()) {
+            // Aplicar algoritmo de optimización
+            applyOptimizationAlgorithm(results);
         }
-
-        // Aplicar algoritmo de optimización
-        applyOptimizationAlgorithm();
-        
-        productAdapter.updateProducts(filteredProducts);
     }
 
-    private void applyOptimizationAlgorithm() {
+    private void applyOptimizationAlgorithm(List<Product> products) {
         // Determinar criterios de priorización basados en filtros activos
         String sortCriteria = determineSortCriteria();
-        
-        // Aplicar algoritmo de optimización según criterios
-        Collections.sort(filteredProducts, (p1, p2) -> {
-            double score1 = calculateProductScore(p1, sortCriteria);
-            double score2 = calculateProductScore(p2, sortCriteria);
-            return Double.compare(score2, score1); // Orden descendente (mejor primero)
-        });
+
+        // Puntuación calculada una vez por producto y orden estable de mayor a menor
+        new ProductRankingEngine(ProductRankingEngine.Criterion.fromKey(sortCriteria)).sort(products);
     }
 
     private String determineSortCriteria() {
@@ -230,120 +271,6 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
         return "optimal";
     }
 
-    private double calculateProductScore(Product product, String sortCriteria) {
-        double score = 0.0;
-        
-        switch (sortCriteria) {
-            case "price":
-                // Priorizar precio bajo (menor precio = mayor score)
-                score = 100.0 - (product.getPrice() * 20); // Normalizar precio
-                break;
-                
-            case "price_desc":
-                // Priorizar precio alto (mayor precio = mayor score)
-                score = product.getPrice() * 20; // Normalizar precio
-                break;
-                
-            case "distance":
-                // Priorizar proximidad
-                if (product.getDistance_km() != null) {
-                    score = Math.max(0, 100 - (product.getDistance_km() * 2));
-                } else {
-                    score = 50; // Score neutral si no hay distancia
-                }
-                break;
-                
-            case "sustainability":
-                // Priorizar sostenibilidad/huella de carbono
-                score = calculateSustainabilityScore(product);
-                break;
-                
-            case "eco":
-                // Priorizar productos ecológicos
-                if (product.getIsEco() != null && product.getIsEco()) {
-                    score = 100;
-                } else {
-                    score = 0;
-                }
-                break;
-                
-            case "stock":
-                // Priorizar stock disponible
-                double stock = product.getStockAvailable() != null ? 
-                    product.getStockAvailable() : product.getStock();
-                score = Math.min(stock * 10, 100);
-                break;
-                
-            case "optimal":
-            default:
-                // Algoritmo óptimo que considera múltiples factores
-                score = calculateOptimalScore(product);
-                break;
-        }
-        
-        return score;
-    }
-
-    private double calculateOptimalScore(Product product) {
-        double score = 0.0;
-        
-        // 1. Puntuación por precio (50% peso)
-        double priceScore = Math.max(0, 100 - (product.getPrice() * 10));
-        score += 0.5 * priceScore;
-        
-        // 2. Puntuación por distancia (30% peso)
-        if (product.getDistance_km() != null) {
-            double distanceScore = Math.max(0, 100 - (product.getDistance_km() * 2));
-            score += 0.3 * distanceScore;
-        } else {
-            score += 0.3 * 50; // Score neutral si no hay distancia
-        }
-        
-        // 3. Puntuación por sostenibilidad/huella de carbono (20% peso)
-        double sustainabilityScore = calculateSustainabilityScore(product);
-        score += 0.2 * sustainabilityScore;
-        
-        return score;
-    }
-    
-    private double calculateSustainabilityScore(Product product) {
-        // Score base del producto
-        double baseScore = product.getScore() != null ? product.getScore() : 0;
-        
-        // Factores de huella de carbono por categoría (kg CO2 por kg)
-        double co2Factor = getCo2FactorByCategory(product.getCategory());
-        
-        // Penalización por distancia de transporte (0.1 kg CO2 por km)
-        double transportPenalty = 0;
-        if (product.getDistance_km() != null) {
-            double transportCo2 = product.getDistance_km() * 0.1;
-            // Penalizar productos que vienen de lejos (máximo 10 kg CO2 de transporte = -20 puntos)
-            transportPenalty = Math.min(20, transportCo2 * 2);
-        }
-        
-        // Calcular puntuación final de sostenibilidad
-        double sustainabilityScore = baseScore - transportPenalty;
-        
-        // Asegurar que esté en el rango 0-100
-        return Math.max(0, Math.min(100, sustainabilityScore));
-    }
-    
-    private double getCo2FactorByCategory(String category) {
-        if (category == null) return 0.8; // Factor por defecto
-        
-        switch (category.toLowerCase()) {
-            case "frutas": return 0.5;
-            case "verduras": return 0.4;
-            case "carnes": return 2.5;
-            case "pescados": return 1.8;
-            case "lacteos": return 1.2;
-            case "cereales": return 0.3;
-            case "legumbres": return 0.2;
-            default: return 0.8; // "otros"
-        }
-    }
-
-
     private void showSortDialog() {
         String[] sortOptions = {
             "Precio (menor a mayor)",
@@ -391,14 +318,33 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
                 break;
         }
         
-        // Aplicar ordenación según el criterio seleccionado
-        Collections.sort(filteredProducts, (p1, p2) -> {
-            double score1 = calculateProductScore(p1, sortCriteria);
-            double score2 = calculateProductScore(p2, sortCriteria);
-            return Double.compare(score2, score1); // Orden descendente (mejor primero)
-        });
-        
-        productAdapter.updateProducts(filteredProducts);
+        // Solo se ordena ya la primera página (top-K); el resto, la primera vez que se pide
+        ProductRankingEngine engine = new ProductRankingEngine(ProductRankingEngine.Criterion.fromKey(sortCriteria));
+        engine.sortFirst(filteredProducts, SEARCH_PAGE_SIZE);
+        pendingRanking = engine;
+        productLoader.reset();
+    }
+
+    /**
+     * Páginas de filteredProducts. Tras {@link #sortProducts} solo la primera está
+     * ordenada: la lista completa se ordena cuando se pide una página posterior.
+     */
+    private PagedLoader.PageSource<Product> rankedSource() {
+        PagedLoader.PageSource<Product> list = PagedLoader.fromList(() -> filteredProducts);
+        return (offset, limit, callback) -> {
+            if (pendingRanking != null && offset + limit > SEARCH_PAGE_SIZE) {
+                pendingRanking.sort(filteredProducts);
+                pendingRanking = null;
+            }
+            list.loadPage(offset, limit, callback);
+        };
+    }
+
+    private void showProducts(List<Product> products) {
+        pendingRanking = null;
+        filteredProducts.clear();
+        filteredProducts.addAll(products);
+        productLoader.reset();
     }
 
     // Implementación de OnProductActionListener
@@ -473,6 +419,9 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
     }
 
     private void processCheckout() {
+        if (checkoutEngine != null && checkoutEngine.isRunning()) {
+            return; // pedidos en curso
+        }
         if (cartItems.isEmpty()) {
             Toast.makeText(getContext(), "El carrito está vacío", Toast.LENGTH_SHORT).show();
             return;
@@ -521,7 +470,12 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
             return;
         }
 
-        // Crear pedidos para cada agricultor
+        if (checkoutEngine == null) {
+            checkoutEngine = new CheckoutEngine(supermarketId, "supermarket");
+        }
+
+        // Un pedido por vendedor; el motor los envía en paralelo con clave de idempotencia
+        List<CheckoutEngine.SellerOrder> sellerOrders = new ArrayList<>();
         for (Map.Entry<Integer, List<CartItem>> entry : ordersByFarmer.entrySet()) {
             Integer farmerId = entry.getKey();
             List<CartItem> farmerItems = entry.getValue();
@@ -544,33 +498,47 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
             // Crear OrderRequest con seller_type
             OrderRequest orderRequest = new OrderRequest(farmerId, "farmer", orderItems, totalPrice);
 
-            // Enviar pedido al backend
-            ApiService api = ApiClient.getClient().create(ApiService.class);
-            Call<Transaction> call = api.createOrderFromCart(supermarketId, "supermarket", orderRequest);
-            
-            call.enqueue(new Callback<Transaction>() {
-                @Override
-                public void onResponse(Call<Transaction> call, Response<Transaction> response) {
-                    if (response.isSuccessful()) {
-                        Log.d(TAG, "Pedido creado exitosamente para agricultor " + farmerId);
-                    } else {
-                        Log.e(TAG, "Error al crear pedido: " + response.code());
-                        Toast.makeText(getContext(), "Error al crear pedido para agricultor " + farmerId, Toast.LENGTH_SHORT).show();
-                    }
-                }
+            sellerOrders.add(new CheckoutEngine.SellerOrder(farmerId, "farmer", orderRequest, farmerItems));
+        }
 
-                @Override
-                public void onFailure(Call<Transaction> call, Throwable t) {
-                    Log.e(TAG, "Error de conexión al crear pedido: " + t.getMessage());
-                    Toast.makeText(getContext(), "Error de conexión al crear pedido", Toast.LENGTH_SHORT).show();
-                }
-            });
+        if (checkoutEngine.submit(sellerOrders, this::onCheckoutComplete)) {
+            btnCheckout.setEnabled(false);
         }
+    }
 
-        // Limpiar carrito y mostrar mensaje de éxito
-        cartItems.clear();
+    /** Resultado conjunto del checkout: el carrito conserva solo lo que no se pudo pedir. */
+    private void onCheckoutComplete(CheckoutEngine.Result result) {
+        if (!isAdded()) return;
+        btnCheckout.setEnabled(true);
+        for (CheckoutEngine.SellerOrder order : result.getSucceeded()) {
+            Log.d(TAG, "Pedido creado exitosamente para " + order.getSellerType() + " " + order.getSellerId());
+            cartItems.removeAll(order.getItems());
+        }
         updateCartUI();
-        Toast.makeText(getContext(), "Pedidos realizados correctamente", Toast.LENGTH_SHORT).show();
+
+        if (result.getOutcome() == CheckoutEngine.Outcome.ALL) {
+            Toast.makeText(getContext(), "Pedidos realizados correctamente", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        int total = result.getSucceeded().size() + result.getFailed().size();
+        StringBuilder message = new StringBuilder();
+        message.append(result.getSucceeded().size()).append(" de ").append(total).append(" pedido(s) realizados.\n\nNo se pudo pedir a:\n");
+        for (CheckoutEngine.SellerOrder order : result.getFailed()) {
+            message.append("• ").append("Agricultor").append(" ").append(order.getSellerId())
+                    .append(" (").append(order.getError()).append(")\n");
+        }
+        new androidx.appcompat.app.AlertDialog.Builder(requireContext())
+                .setTitle(result.getOutcome() == CheckoutEngine.Outcome.NONE ? "Error al crear pedidos" : "Pedidos incompletos")
+                .setMessage(message.toString())
+                .setPositiveButton("Reintentar", (dialog, which) -> {
+                    // Mismas claves: un pedido que sí llegó a crearse no se duplica
+                    if (checkoutEngine.retryFailed(this::onCheckoutComplete)) {
+                        btnCheckout.setEnabled(false);
+                    }
+                })
+                .setNegativeButton("Cancelar", null)
+                .show();
     }
 
     // Implementación de OnCartItemActionListener
@@ -663,9 +631,7 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
             public void onResponse(retrofit2.Call<java.util.List<Product>> call, retrofit2.Response<java.util.List<Product>> response) {
                 if (response.isSuccessful() && response.body() != null) {
                     Log.d("Curr LocationService", "Respuesta OK (sustainability). Productos recibidos=" + response.body().size());
-                    filteredProducts.clear();
-                    filteredProducts.addAll(response.body());
-                    productAdapter.updateProducts(filteredProducts);
+                    showProducts(response.body());
                 } else {
                     Log.w("Curr LocationService", "Respuesta no exitosa al ordenar por sustainability. code=" + response.code());
                 }
@@ -689,9 +655,7 @@ public class SupermarketSearchProductsFragment extends Fragment implements Super
             public void onResponse(retrofit2.Call<java.util.List<Product>> call, retrofit2.Response<java.util.List<Product>> response) {
                 if (response.isSuccessful() && response.body() != null) {
                     Log.d("Curr LocationService", "Respuesta OK (stock). Productos recibidos=" + response.body().size());
-                    filteredProducts.clear();
-                    filteredProducts.addAll(response.body());
-                    productAdapter.updateProducts(filteredProducts);
+                    showProducts(response.body());
                 } else {
                     Log.w("Curr LocationService", "Respuesta no exitosa al ordenar por stock. code=" + response.code());
                 }
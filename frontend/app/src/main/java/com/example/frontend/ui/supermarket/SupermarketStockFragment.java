@@ -26,26 +26,27 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.frontend.R;
+import com.example.frontend.data.MutationQueue;
 import com.example.frontend.model.InventoryItem;
 import com.example.frontend.model.Product;
 import com.example.frontend.ui.adapters.FarmerStockAdapter;
 import com.example.frontend.api.ApiService;
 import com.example.frontend.api.ApiClient;
+import com.example.frontend.utils.ImageUploadPipeline;
+import com.example.frontend.utils.ProductImages;
 import com.example.frontend.utils.SessionManager;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.text.SimpleDateFormat;
 
 import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
 
-import okhttp3.MediaType;
-import okhttp3.MultipartBody;
-import okhttp3.RequestBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -67,6 +68,24 @@ public class SupermarketStockFragment extends Fragment implements FarmerStockAda
     private ActivityResultLauncher<Intent> imagePickerLauncher;
     private ImageView currentImagePreview = null;
     private com.google.android.material.button.MaterialButton currentBtnRemoveImage = null;
+    private List<Product> ownProducts = new ArrayList<>();
+    private MutationQueue mutationQueue;
+
+    // Al confirmarse o rechazarse un cambio encolado se recarga con los datos del servidor
+    private final MutationQueue.Listener mutationListener = new MutationQueue.Listener() {
+        @Override
+        public void onOperationDone(MutationQueue.Operation operation) {
+            if (!isAdded()) return;
+            loadProducts();
+        }
+
+        @Override
+        public void onOperationFailed(MutationQueue.Operation operation, String message) {
+            if (!isAdded()) return;
+            Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+            loadProducts();
+        }
+    };
 
     @Nullable
     @Override
@@ -79,11 +98,19 @@ public class SupermarketStockFragment extends Fragment implements FarmerStockAda
         setupRecyclerView();
         setupAddProductButton(view);
         setupImagePicker();
+        mutationQueue = MutationQueue.getInstance(requireContext());
+        mutationQueue.addListener(mutationListener);
         loadProducts();
 
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        mutationQueue.removeListener(mutationListener);
+    }
+
     private void initializeViews(View view) {
         recyclerView = view.findViewById(R.id.recycler_stock);
         sessionManager = new SessionManager(requireContext());
@@ -102,6 +129,10 @@ public class SupermarketStockFragment extends Fragment implements FarmerStockAda
         adapter.setOnProductActionListener(this);
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerView.setAdapter(adapter);
+        // Precarga las miniaturas de las filas siguientes al hacer scroll
+        recyclerView.addOnScrollListener(ProductImages.preloader(Glide.with(this),
+                position -> position < adapter.getItemCount() ? adapter.getItem(position) : null,
+                ProductImages.px(requireContext(), ProductImages.LIST_THUMBNAIL_DP)));
     }
 
     private void setupAddProductButton(View view) {
@@ -142,19 +173,16 @@ public class SupermarketStockFragment extends Fragment implements FarmerStockAda
     }
 
     private void loadSupermarketOwnProducts(Integer supermarketId) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
+        ApiService api = ApiClient.getApiService();
         Call<List<Product>> call = api.getFarmerProducts(supermarketId);
         
         call.enqueue(new Callback<List<Product>>() {
             @Override
             public void onResponse(Call<List<Product>> call, Response<List<Product>> response) {
                 if (response.isSuccessful() && response.body() != null) {
-                    productList.clear();
-                    productList.addAll(response.body());
-                    if (adapter != null) {
-                        adapter.notifyDataSetChanged();
-                    }
-                    Log.d(TAG, "Productos propios del supermercado cargados: " + productList.size() + " productos");
+                    ownProducts = response.body();
+                    showOwnProducts();
+                    Log.d(TAG, "Productos propios del supermercado cargados: " + ownProducts.size() + " productos");
                 } else {
                     Log.e(TAG, "Error al cargar productos propios: " + response.code());
                 }
@@ -167,8 +195,18 @@ public class SupermarketStockFragment extends Fragment implements FarmerStockAda
         });
     }
 
+    /** Últimos productos del servidor con los cambios aún sin enviar aplicados. */
+    private void showOwnProducts() {
+        if (!isAdded()) return;
+        productList.clear();
+        productList.addAll(mutationQueue.applyPending(ownProducts, sessionManager.getUserId()));
+        if (adapter != null) {
+            adapter.updateProducts(productList);
+        }
+    }
+
     private void loadInventoryFromSuppliers(Integer supermarketId) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
+        ApiService api = ApiClient.getApiService();
         Call<List<InventoryItem>> call = api.getInventory(String.valueOf(supermarketId));
         
         call.enqueue(new Callback<List<InventoryItem>>() {
@@ -335,67 +373,41 @@ public class SupermarketStockFragment extends Fragment implements FarmerStockAda
             validatedExpiration = expirationDate.trim();
         }
 
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-
-        // Preparar RequestBody para cada campo
-        RequestBody rbName = RequestBody.create(MediaType.parse("text/plain"), name.trim());
-        RequestBody rbProvider = RequestBody.create(MediaType.parse("text/plain"), String.valueOf(supermarketId));
-        RequestBody rbDesc = RequestBody.create(MediaType.parse("text/plain"), desc == null ? "" : desc.trim());
-        RequestBody rbPrice = RequestBody.create(MediaType.parse("text/plain"), priceStr == null ? "" : priceStr.trim());
-        RequestBody rbCurrency = RequestBody.create(MediaType.parse("text/plain"), "EUR");
-        RequestBody rbUnit = RequestBody.create(MediaType.parse("text/plain"), unit == null ? "" : unit.trim());
-        RequestBody rbCategory = RequestBody.create(MediaType.parse("text/plain"), category == null ? "" : category.trim());
-        RequestBody rbStock = RequestBody.create(MediaType.parse("text/plain"), stockStr == null ? "" : stockStr.trim());
-        RequestBody rbExp = RequestBody.create(MediaType.parse("text/plain"), validatedExpiration != null ? validatedExpiration : "");
-        RequestBody rbEco = RequestBody.create(MediaType.parse("text/plain"), String.valueOf(isEco));
-
-        MultipartBody.Part imagePart = null;
-        if (selectedImageUri != null) {
-            try {
-                String fileName = "product_" + System.currentTimeMillis() + ".jpg";
-                java.io.InputStream is = requireContext().getContentResolver().openInputStream(selectedImageUri);
-                java.io.ByteArrayOutputStream buffer = new java.io.ByteArrayOutputStream();
-                byte[] data = new byte[4096];
-                int nRead;
-                while ((nRead = is.read(data, 0, data.length)) != -1) {
-                    buffer.write(data, 0, nRead);
-                }
-                buffer.flush();
-                byte[] bytes = buffer.toByteArray();
-                RequestBody req = RequestBody.create(MediaType.parse("image/*"), bytes);
-                imagePart = MultipartBody.Part.createFormData("image", fileName, req);
-            } catch (Exception e) {
-                imagePart = null;
-            }
-        }
-
-        Call<Product> call = api.createProductWithImage(
-                rbName, rbProvider, rbDesc, rbPrice, rbCurrency, rbUnit, rbCategory, rbStock, rbExp, rbEco, imagePart
-        );
-        
-        call.enqueue(new Callback<Product>() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("name", name.trim());
+        fields.put("provider_id", String.valueOf(supermarketId));
+        fields.put("description", desc == null ? "" : desc.trim());
+        fields.put("price", priceStr == null ? "" : priceStr.trim());
+        fields.put("currency", "EUR");
+        fields.put("unit", unit == null ? "" : unit.trim());
+        fields.put("category", category == null ? "" : category.trim());
+        fields.put("stock_available", stockStr == null ? "" : stockStr.trim());
+        fields.put("expiration_date", validatedExpiration != null ? validatedExpiration : "");
+        fields.put("is_eco", String.valueOf(isEco));
+
+        // La imagen se redimensiona en segundo plano; la cola envía el producto aunque se
+        // cierre la pantalla o no haya conexión
+        ImageUploadPipeline.Callback submit = new ImageUploadPipeline.Callback() {
             @Override
-            public void onResponse(Call<Product> call, Response<Product> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    Product newProduct = response.body();
-                    productList.add(newProduct);
-                    if (adapter != null) {
-                        adapter.notifyItemInserted(productList.size() - 1);
-                    }
-                    Toast.makeText(getContext(), "Producto añadido correctamente", Toast.LENGTH_SHORT).show();
-                    Log.d(TAG, "Producto creado: " + newProduct.getName());
-                } else {
-                    Log.e(TAG, "Error al crear producto: " + response.code());
-                    Toast.makeText(getContext(), "Error al crear producto", Toast.LENGTH_SHORT).show();
-                }
+            public void onReady(File image) {
+                mutationQueue.enqueueCreate(fields, image, false);
+                if (!isAdded()) return;
+                Toast.makeText(getContext(), "Producto añadido correctamente", Toast.LENGTH_SHORT).show();
+                showOwnProducts();
             }
 
             @Override
-            public void onFailure(Call<Product> call, Throwable t) {
-                Log.e(TAG, "Error de conexión: " + t.getMessage());
-                Toast.makeText(getContext(), "Error de conexión: " + t.getMessage(), Toast.LENGTH_SHORT).show();
+            public void onError(String message) {
+                // Como antes, si la imagen no se puede procesar el producto se crea sin ella
+                if (isAdded()) Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+                onReady(null);
             }
-        });
+        };
+        if (selectedImageUri != null) {
+            ImageUploadPipeline.prepare(requireContext(), selectedImageUri, submit);
+        } else {
+            submit.onReady(null);
+        }
     }
 
     @Override
@@ -483,28 +495,8 @@ public class SupermarketStockFragment extends Fragment implements FarmerStockAda
         checkEco.setChecked(ecoValue);
 
         // Mostrar imagen actual del producto si existe
-        if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-            // Construir URL completa si es relativa
-            String imageUrl = product.getImageUrl();
-            if (imageUrl.startsWith("/")) {
-                // Si es una ruta relativa, construir URL completa usando la URL base del servidor
-                String baseUrl = ApiClient.getBaseUrl();
-                // Remover la barra final de la URL base si existe
-                if (baseUrl.endsWith("/")) {
-                    baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
-                }
-                imageUrl = baseUrl + imageUrl;
-            }
-            
-            // Cargar imagen actual del producto usando Glide
-            Glide.with(getContext())
-                .load(imageUrl)
-                .diskCacheStrategy(DiskCacheStrategy.NONE)
-                .skipMemoryCache(true)
-                .placeholder(R.drawable.ic_product_placeholder)
-                .error(R.drawable.ic_product_placeholder)
-                .into(imagePreview);
-            
+        if (ProductImages.url(product) != null) {
+            ProductImages.load(Glide.with(this), product).into(imagePreview);
             imagePreview.setVisibility(View.VISIBLE);
             btnRemoveImage.setVisibility(View.VISIBLE);
         } else {
@@ -543,8 +535,6 @@ public class SupermarketStockFragment extends Fragment implements FarmerStockAda
     
     private void updateProduct(Product originalProduct, String name, String desc, String priceStr, String stockStr,
                               String category, String unit, String expiration, boolean isEco) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-
         // Validar que el nombre no esté vacío
         if (name.trim().isEmpty()) {
             Toast.makeText(getContext(), "El nombre del producto es obligatorio", Toast.LENGTH_SHORT).show();
@@ -593,69 +583,33 @@ public class SupermarketStockFragment extends Fragment implements FarmerStockAda
         }
         
 
-        // Actualizar producto usando el endpoint normal
-        Call<Product> call = api.updateProduct(Integer.parseInt(originalProduct.getId()), productUpdate);
-        call.enqueue(new Callback<Product>() {
-            @Override
-            public void onResponse(Call<Product> call, Response<Product> response) {
-                if (response.isSuccessful()) {
-                    // Si se seleccionó una nueva imagen, actualizarla también
-                    if (selectedImageUri != null) {
-                        updateProductImage(Integer.parseInt(originalProduct.getId()));
-                    } else {
-                        Toast.makeText(getContext(), "Producto actualizado exitosamente", Toast.LENGTH_SHORT).show();
-                        loadProducts(); // Recargar lista para actualizar la UI
-                    }
-                } else {
-                    Toast.makeText(getContext(), "Error al actualizar producto", Toast.LENGTH_SHORT).show();
-                }
-            }
-
-            @Override
-            public void onFailure(Call<Product> call, Throwable t) {
-                Toast.makeText(getContext(), "Error de red: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-            }
-        });
+        // Se encola: las ediciones seguidas del mismo producto se envían como una sola
+        mutationQueue.enqueueUpdate(originalProduct.getId(), productUpdate);
+        // Si se seleccionó una nueva imagen, actualizarla también
+        if (selectedImageUri != null) {
+            updateProductImage(originalProduct.getId());
+        } else {
+            Toast.makeText(getContext(), "Producto actualizado exitosamente", Toast.LENGTH_SHORT).show();
+            showOwnProducts();
+        }
     }
     
-    private void updateProductImage(int productId) {
-        ApiService api = ApiClient.getClient().create(ApiService.class);
-        
+    private void updateProductImage(String productId) {
         if (selectedImageUri != null) {
-            try {
-                String fileName = "product_" + System.currentTimeMillis() + ".jpg";
-                java.io.InputStream is = requireContext().getContentResolver().openInputStream(selectedImageUri);
-                java.io.ByteArrayOutputStream buffer = new java.io.ByteArrayOutputStream();
-                byte[] data = new byte[4096];
-                int nRead;
-                while ((nRead = is.read(data, 0, data.length)) != -1) {
-                    buffer.write(data, 0, nRead);
+            ImageUploadPipeline.prepare(requireContext(), selectedImageUri, new ImageUploadPipeline.Callback() {
+                @Override
+                public void onReady(File image) {
+                    mutationQueue.enqueueImage(productId, image);
+                    if (!isAdded()) return;
+                    Toast.makeText(getContext(), "Producto e imagen actualizados exitosamente", Toast.LENGTH_SHORT).show();
+                    showOwnProducts();
                 }
-                buffer.flush();
-                byte[] bytes = buffer.toByteArray();
-                RequestBody req = RequestBody.create(MediaType.parse("image/*"), bytes);
-                MultipartBody.Part imagePart = MultipartBody.Part.createFormData("image", fileName, req);
-
-                Call<Product> call = api.updateProductImage(productId, imagePart);
-                call.enqueue(new Callback<Product>() {
-                    @Override
-                    public void onResponse(Call<Product> call, Response<Product> response) {
-                        if (response.isSuccessful()) {
-                            Toast.makeText(getContext(), "Producto e imagen actualizados exitosamente", Toast.LENGTH_SHORT).show();
-                            loadProducts(); // Recargar lista para actualizar la UI
-                        } else {
-                            Toast.makeText(getContext(), "Error al actualizar imagen del producto", Toast.LENGTH_SHORT).show();
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<Product> call, Throwable t) {
-                        Toast.makeText(getContext(), "Error de red al actualizar imagen: " + t.getMessage(), Toast.LENGTH_SHORT).show();
-                    }
-                });
-            } catch (Exception e) {
-                Toast.makeText(getContext(), "Error al procesar imagen: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            }
+
+                @Override
+                public void onError(String message) {
+                    Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+                }
+            });
         }
     }
     
@@ -722,27 +676,12 @@ public class SupermarketStockFragment extends Fragment implements FarmerStockAda
                         action, currentStatus, newStatus, 
                         product.isHidden() ? "SÍ" : "NO"))
                 .setPositiveButton("Sí, " + action, (dialog, which) -> {
-                    ApiService api = ApiClient.getClient().create(ApiService.class);
-                    Call<Map<String, Object>> call = api.toggleProductHidden(Integer.parseInt(product.getId()));
-                    call.enqueue(new Callback<Map<String, Object>>() {
-                        @Override
-                        public void onResponse(Call<Map<String, Object>> call, Response<Map<String, Object>> response) {
-                            if (response.isSuccessful()) {
-                                String message = product.isHidden() ? 
-                                    "Producto VISIBLE para usuarios" :
-                                    "Producto OCULTO para usuarios";
-                                Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
-                                loadProducts(); // Recargar lista
-                            } else {
-                                Toast.makeText(getContext(), "Error al cambiar visibilidad", Toast.LENGTH_SHORT).show();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Call<Map<String, Object>> call, Throwable t) {
-                            Toast.makeText(getContext(), "Error de conexión al cambiar visibilidad", Toast.LENGTH_SHORT).show();
-                        }
-                    });
+                    mutationQueue.enqueueSetHidden(product.getId(), !product.isHidden());
+                    String message = product.isHidden() ?
+                        "Producto VISIBLE para usuarios" :
+                        "Producto OCULTO para usuarios";
+                    Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
+                    showOwnProducts();
                 })
                 .setNegativeButton("Cancelar", null)
                 .show();
@@ -754,42 +693,10 @@ public class SupermarketStockFragment extends Fragment implements FarmerStockAda
                 .setTitle("Confirmar eliminación")
                 .setMessage("¿Estás seguro de que quieres eliminar este producto?\n\nEsta acción no se puede deshacer.")
                 .setPositiveButton("Sí, eliminar", (dialog, which) -> {
-                    ApiService api = ApiClient.getClient().create(ApiService.class);
-                    Call<Void> call = api.deleteProduct(Integer.parseInt(product.getId()));
-                    call.enqueue(new Callback<Void>() {
-                        @Override
-                        public void onResponse(Call<Void> call, Response<Void> response) {
-                            if (response.isSuccessful()) {
-                                Toast.makeText(getContext(), "Producto eliminado correctamente", Toast.LENGTH_SHORT).show();
-                                loadProducts(); // Recargar lista
-                            } else if (response.code() == 409) {
-                                // Si no se puede eliminar por referencias, ocultarlo automáticamente
-                                ApiService api2 = ApiClient.getClient().create(ApiService.class);
-                                api2.toggleProductHidden(Integer.parseInt(product.getId())).enqueue(new Callback<java.util.Map<String, Object>>() {
-                                    @Override
-                                    public void onResponse(Call<java.util.Map<String, Object>> call2, Response<java.util.Map<String, Object>> resp2) {
-                                        if (resp2.isSuccessful()) {
-                                            Toast.makeText(getContext(), "Producto ocultado (no se podía eliminar)", Toast.LENGTH_LONG).show();
-                                            loadProducts();
-                                        } else {
-                                            Toast.makeText(getContext(), "No se pudo ocultar el producto", Toast.LENGTH_SHORT).show();
-                                        }
-                                    }
-                                    @Override
-                                    public void onFailure(Call<java.util.Map<String, Object>> call2, Throwable t2) {
-                                        Toast.makeText(getContext(), "Error de conexión al ocultar producto", Toast.LENGTH_SHORT).show();
-                                    }
-                                });
-                            } else {
-                                Toast.makeText(getContext(), "Error al eliminar producto (" + response.code() + ")", Toast.LENGTH_SHORT).show();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Call<Void> call, Throwable t) {
-                            Toast.makeText(getContext(), "Error de conexión al eliminar producto", Toast.LENGTH_SHORT).show();
-                        }
-                    });
+                    // Si el backend no permite borrarlo (409) la cola lo oculta y avisa
+                    mutationQueue.enqueueDelete(product.getId());
+                    Toast.makeText(getContext(), "Producto eliminado correctamente", Toast.LENGTH_SHORT).show();
+                    showOwnProducts();
                 })
                 .setNegativeButton("Cancelar", null)
                 .show();
@@ -0,0 +1,233 @@
+package com.example.frontend.utils;
+
+import android.content.ComponentCallbacks2;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Registro de las cachés en memoria de la app, para liberarlas cuando el sistema
+ * avisa de que falta memoria (Application.onTrimMemory / onLowMemory).
+ *
+ * Cada caché informa de lo que ocupa (estimado, en bytes) y tiene una prioridad de
+ * desalojo. El nivel de aviso se traduce en una presión de 0 a 1 y cada caché libera
+ * la fracción que le corresponde según su prioridad: con la app en segundo plano
+ * (TRIM_MEMORY_BACKGROUND) las de prioridad HIGH se vacían enteras, las NORMAL a
+ * medias y las LOW apenas se tocan; con TRIM_MEMORY_COMPLETE se vacía casi todo.
+ * En dispositivos de poca RAM la presión es mayor. Un proceso que ocupa menos en
+ * segundo plano tiene menos papeletas para que el sistema lo mate, y volver a la app
+ * no es un arranque en frío.
+ *
+ * Las cachés de un objeto singleton se registran al crearlo; las de una pantalla, en
+ * onCreateView, y se quitan con {@link #unregister} en onDestroyView. Los avisos llegan
+ * en el hilo principal.
+ */
+public final class CacheRegistry {
+    private static final String TAG = "CacheRegistry";
+
+    /** Tamaños aproximados para estimar lo que ocupa cada caché. */
+    public static final long PRODUCT_BYTES = 1536;
+    public static final long ORDER_BYTES = 1024;
+    /** Elemento que también está en otra lista: solo cuenta la referencia. */
+    public static final long REFERENCE_BYTES = 16;
+
+    private static final float LOW_RAM_PRESSURE_FACTOR = 1.5f;
+
+    /** Orden en que se liberan: HIGH primero (lo más barato de reconstruir). */
+    public enum EvictionPriority {
+        HIGH(2f),
+        NORMAL(1f),
+        LOW(0.5f);
+
+        private final float weight;
+
+        EvictionPriority(float weight) {
+            this.weight = weight;
+        }
+
+        /** Fracción de la caché que se libera con una presión dada. */
+        float fractionFor(float pressure) {
+            return Math.min(1f, pressure * weight);
+        }
+    }
+
+    public interface TrimmableCache {
+        /** Memoria que ocupa ahora, aproximada. */
+        long estimatedBytes();
+
+        /**
+         * Libera aproximadamente esa fracción (0-1] de lo que ocupa; 1 es vaciarla.
+         * Las cachés que no se pueden recortar por partes deciden a partir de qué
+         * fracción se vacían.
+         */
+        void trim(float fraction);
+    }
+
+    private static final CacheRegistry INSTANCE = new CacheRegistry();
+
+    private final List<Entry> entries = new ArrayList<>();
+    private volatile boolean lowRamDevice;
+
+    private CacheRegistry() {
+    }
+
+    public static CacheRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public void setLowRamDevice(boolean lowRamDevice) {
+        this.lowRamDevice = lowRamDevice;
+    }
+
+    /**
+     * @param owner objeto dueño de la caché, para quitar todas las suyas con {@link #unregister}
+     * @param name  nombre en las estadísticas
+     */
+    public synchronized void register(Object owner, String name, EvictionPriority priority, TrimmableCache cache) {
+        entries.add(new Entry(owner, name, priority, cache));
+    }
+
+    /** Quita todas las cachés registradas por owner. */
+    public synchronized void unregister(Object owner) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.get(i).owner == owner) {
+                entries.remove(i);
+            }
+        }
+    }
+
+    public void onTrimMemory(int level) {
+        float pressure = pressure(level);
+        if (lowRamDevice) {
+            pressure = Math.min(1f, pressure * LOW_RAM_PRESSURE_FACTOR);
+        }
+        trim(pressure, "nivel " + level);
+    }
+
+    public void onLowMemory() {
+        trim(1f, "onLowMemory");
+    }
+
+    /** Presión de memoria para un nivel de onTrimMemory, de 0 (nada) a 1 (vaciar). */
+    static float pressure(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+            return 1f;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            return 0.75f;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            return 0.5f;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            // Es probable que el usuario vuelva enseguida: se conserva algo más
+            return 0.4f;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return 0.75f;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return 0.5f;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            return 0.25f;
+        }
+        return 0f;
+    }
+
+    private void trim(float pressure, String reason) {
+        if (pressure <= 0f) {
+            return;
+        }
+        List<Entry> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(entries);
+        }
+        long before = 0;
+        long after = 0;
+        for (Entry entry : snapshot) {
+            long bytes = entry.cache.estimatedBytes();
+            before += bytes;
+            float fraction = entry.priority.fractionFor(pressure);
+            if (bytes > 0 && fraction > 0f) {
+                try {
+                    entry.cache.trim(fraction);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Error al liberar " + entry.name, e);
+                }
+                bytes = entry.cache.estimatedBytes();
+            }
+            after += bytes;
+        }
+        Log.i(TAG, String.format(Locale.US, "Liberación (%s, presión %.2f): %s -> %s",
+                reason, pressure, formatBytes(before), formatBytes(after)));
+    }
+
+    /** Lo que ocupa ahora cada caché registrada. Llamar desde el hilo principal. */
+    public Stats getStats() {
+        List<Entry> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(entries);
+        }
+        List<Stats.Item> items = new ArrayList<>(snapshot.size());
+        long total = 0;
+        for (Entry entry : snapshot) {
+            long bytes = entry.cache.estimatedBytes();
+            total += bytes;
+            items.add(new Stats.Item(entry.name, entry.priority, bytes));
+        }
+        return new Stats(Collections.unmodifiableList(items), total);
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.US, "%.1f KB", bytes / 1024.0);
+        }
+        return String.format(Locale.US, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    public static class Stats {
+        public final List<Item> items;
+        public final long totalBytes;
+
+        Stats(List<Item> items, long totalBytes) {
+            this.items = items;
+            this.totalBytes = totalBytes;
+        }
+
+        public static class Item {
+            public final String name;
+            public final EvictionPriority priority;
+            public final long bytes;
+
+            Item(String name, EvictionPriority priority, long bytes) {
+                this.name = name;
+                this.priority = priority;
+                this.bytes = bytes;
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("Caches{total=").append(formatBytes(totalBytes));
+            for (Item item : items) {
+                builder.append(", ").append(item.name).append('=').append(formatBytes(item.bytes));
+            }
+            return builder.append('}').toString();
+        }
+    }
+
+    private static final class Entry {
+        final Object owner;
+        final String name;
+        final EvictionPriority priority;
+        final TrimmableCache cache;
+
+        Entry(Object owner, String name, EvictionPriority priority, TrimmableCache cache) {
+            this.owner = owner;
+            this.name = name;
+            this.priority = priority;
+            this.cache = cache;
+        }
+    }
+}
@@ -96,4 +96,35 @@ public class Constants {
             return 60;
         }
     }
+    
+    // Caché HTTP en disco (MB)
+    public static int getHttpCacheSizeMb() {
+        try {
+            return Integer.parseInt(getEnvVar("HTTP_CACHE_SIZE_MB", "20"));
+        } catch (NumberFormatException e) {
+            return 20;
+        }
+    }
+    
+    // Registro de red: OFF, HEADERS o BODY (cuerpos muestreados y truncados)
+    public static String getNetworkLogLevel() {
+        return getEnvVar("NETWORK_LOG_LEVEL", "OFF");
+    }
+    
+    // En nivel BODY se captura el cuerpo de 1 de cada N peticiones
+    public static int getNetworkLogSampleRate() {
+        try {
+            return Math.max(1, Integer.parseInt(getEnvVar("NETWORK_LOG_SAMPLE_RATE", "10")));
+        } catch (NumberFormatException e) {
+            return 10;
+        }
+    }
+    
+    public static int getNetworkLogMaxBodyBytes() {
+        try {
+            return Integer.parseInt(getEnvVar("NETWORK_LOG_MAX_BODY_BYTES", "4096"));
+        } catch (NumberFormatException e) {
+            return 4096;
+        }
+    }
 }
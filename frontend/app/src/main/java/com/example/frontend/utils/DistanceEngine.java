@@ -0,0 +1,181 @@
+package com.example.frontend.utils;
+
+import com.example.frontend.model.Product;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distancias del usuario a cada producto, calculadas en bloque y cacheadas.
+ *
+ * Las coordenadas de los productos se guardan en arrays paralelos de double con el
+ * coseno de la latitud ya calculado. Cuando cambia la ubicación del usuario se
+ * recalculan todas las distancias en un único bucle; consultar la distancia de un
+ * producto al enlazar una fila es una búsqueda en el array, sin trigonometría.
+ *
+ * La caché se mantiene mientras el usuario no se mueva más de un umbral configurable;
+ * si cambian las coordenadas de un producto solo se recalcula ese producto. No es
+ * seguro entre hilos: pensado para usarse desde el hilo principal.
+ */
+public class DistanceEngine {
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    /** Movimiento del usuario (50 m) por debajo del cual no se recalcula nada. */
+    public static final double DEFAULT_MOVE_THRESHOLD_KM = 0.05;
+
+    private final double moveThresholdKm;
+    private final Map<String, Integer> indexById = new HashMap<>();
+
+    private double[] lats = new double[0];
+    private double[] lons = new double[0];
+    private double[] latRads = new double[0];
+    private double[] lonRads = new double[0];
+    private double[] cosLats = new double[0];
+    private double[] distances = new double[0];
+
+    private boolean hasOrigin;
+    private double originLat;
+    private double originLon;
+    private double originLatRad;
+    private double originLonRad;
+    private double originCosLat;
+
+    public DistanceEngine() {
+        this(DEFAULT_MOVE_THRESHOLD_KM);
+    }
+
+    public DistanceEngine(double moveThresholdKm) {
+        this.moveThresholdKm = moveThresholdKm;
+    }
+
+    /**
+     * Sustituye los productos. Los que conservan id y coordenadas reutilizan su
+     * distancia cacheada; el resto se calcula ahora si ya hay ubicación del usuario.
+     */
+    public void setProducts(List<Product> products) {
+        int n = products.size();
+        double[] newLats = new double[n];
+        double[] newLons = new double[n];
+        double[] newLatRads = new double[n];
+        double[] newLonRads = new double[n];
+        double[] newCosLats = new double[n];
+        double[] newDistances = new double[n];
+        Map<String, Integer> oldIndex = new HashMap<>(indexById);
+        indexById.clear();
+
+        for (int i = 0; i < n; i++) {
+            Product product = products.get(i);
+            Double lat = product.getProviderLat();
+            Double lon = product.getProviderLon();
+            if (product.getId() != null) {
+                indexById.put(product.getId(), i);
+            }
+            if (lat == null || lon == null) {
+                newLats[i] = Double.NaN;
+                newLons[i] = Double.NaN;
+                newDistances[i] = Double.NaN;
+                continue;
+            }
+            Integer old = product.getId() != null ? oldIndex.get(product.getId()) : null;
+            if (old != null && lats[old] == lat && lons[old] == lon) {
+                newLats[i] = lats[old];
+                newLons[i] = lons[old];
+                newLatRads[i] = latRads[old];
+                newLonRads[i] = lonRads[old];
+                newCosLats[i] = cosLats[old];
+                newDistances[i] = distances[old];
+                continue;
+            }
+            newLats[i] = lat;
+            newLons[i] = lon;
+            newLatRads[i] = Math.toRadians(lat);
+            newLonRads[i] = Math.toRadians(lon);
+            newCosLats[i] = Math.cos(newLatRads[i]);
+            newDistances[i] = hasOrigin
+                    ? haversineKm(originLatRad, originLonRad, originCosLat, newLatRads[i], newLonRads[i], newCosLats[i])
+                    : Double.NaN;
+        }
+        lats = newLats;
+        lons = newLons;
+        latRads = newLatRads;
+        lonRads = newLonRads;
+        cosLats = newCosLats;
+        distances = newDistances;
+    }
+
+    /**
+     * Fija la ubicación del usuario. Devuelve false si se ha movido menos del umbral
+     * y las distancias cacheadas siguen valiendo.
+     */
+    public boolean setOrigin(double lat, double lon) {
+        double latRad = Math.toRadians(lat);
+        double lonRad = Math.toRadians(lon);
+        double cosLat = Math.cos(latRad);
+        if (hasOrigin && haversineKm(originLatRad, originLonRad, originCosLat, latRad, lonRad, cosLat) < moveThresholdKm) {
+            return false;
+        }
+        hasOrigin = true;
+        originLat = lat;
+        originLon = lon;
+        originLatRad = latRad;
+        originLonRad = lonRad;
+        originCosLat = cosLat;
+        computeAll();
+        return true;
+    }
+
+    /** Olvida la ubicación del usuario; todas las distancias pasan a ser desconocidas. */
+    public void clearOrigin() {
+        hasOrigin = false;
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = Double.NaN;
+        }
+    }
+
+    public boolean hasOrigin() {
+        return hasOrigin;
+    }
+
+    public double getOriginLat() {
+        return originLat;
+    }
+
+    public double getOriginLon() {
+        return originLon;
+    }
+
+    /**
+     * Distancia en km al producto, o NaN si no hay ubicación del usuario, el producto
+     * no tiene coordenadas o no se ha pasado en {@link #setProducts}.
+     */
+    public double distanceKm(String productId) {
+        Integer index = productId != null ? indexById.get(productId) : null;
+        return index != null ? distances[index] : Double.NaN;
+    }
+
+    private void computeAll() {
+        // Bucle plano sobre arrays primitivos: el coseno del origen se calcula una vez
+        double lat0 = originLatRad;
+        double lon0 = originLonRad;
+        double cos0 = originCosLat;
+        for (int i = 0; i < distances.length; i++) {
+            if (Double.isNaN(lats[i])) {
+                distances[i] = Double.NaN;
+            } else {
+                distances[i] = haversineKm(lat0, lon0, cos0, latRads[i], lonRads[i], cosLats[i]);
+            }
+        }
+    }
+
+    /**
+     * Haversine con las latitudes en radianes y sus cosenos ya calculados; usa asin en
+     * lugar de atan2. Da el mismo resultado que {@link LocationUtils#calculateDistance}.
+     */
+    public static double haversineKm(double lat1Rad, double lon1Rad, double cosLat1,
+                                     double lat2Rad, double lon2Rad, double cosLat2) {
+        double sinLat = Math.sin((lat2Rad - lat1Rad) / 2);
+        double sinLon = Math.sin((lon2Rad - lon1Rad) / 2);
+        double a = sinLat * sinLat + cosLat1 * cosLat2 * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
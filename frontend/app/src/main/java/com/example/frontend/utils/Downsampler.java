@@ -0,0 +1,131 @@
+package com.example.frontend.utils;
+
+/**
+ * Reducción de series temporales para dibujarlas en un gráfico de pocos cientos de
+ * píxeles.
+ *
+ * Trabaja sobre arrays primitivos (instantes en ms y valores) ordenados por tiempo y
+ * devuelve los índices de los puntos elegidos, en orden, sin crear objetos por punto:
+ * - {@link #lttb}: Largest-Triangle-Three-Buckets, conserva la forma visual de la
+ *   curva con exactamente targetPoints puntos.
+ * - {@link #minMax}: mínimo y máximo de cada columna de píxeles, para no perder picos
+ *   (alertas) al reducir.
+ */
+public final class Downsampler {
+
+    public enum Mode {
+        LTTB,
+        MIN_MAX
+    }
+
+    private Downsampler() {
+    }
+
+    /**
+     * Índices elegidos por LTTB. El primero y el último se conservan siempre; si la
+     * serie ya tiene targetPoints puntos o menos se devuelven todos.
+     */
+    public static int[] lttb(long[] times, float[] values, int count, int targetPoints) {
+        if (targetPoints >= count || targetPoints < 3) {
+            return all(count);
+        }
+        int[] selected = new int[targetPoints];
+        long origin = times[0];
+        // Tamaño de cada cubo, sin contar el primer y el último punto
+        double every = (double) (count - 2) / (targetPoints - 2);
+
+        int a = 0;
+        selected[0] = 0;
+        for (int bucket = 0; bucket < targetPoints - 2; bucket++) {
+            // Punto medio del cubo siguiente
+            int avgStart = (int) ((bucket + 1) * every) + 1;
+            int avgEnd = Math.min((int) ((bucket + 2) * every) + 1, count);
+            // Suma de tiempos en long: exacta y sin la latencia de la suma en coma flotante
+            long sumX = 0;
+            double sumY = 0;
+            for (int i = avgStart; i < avgEnd; i++) {
+                sumX += times[i] - origin;
+                sumY += values[i];
+            }
+            int avgLength = avgEnd - avgStart;
+            double avgX = (double) sumX / avgLength;
+            double avgY = sumY / avgLength;
+
+            // Punto del cubo actual que forma el triángulo de mayor área con a y la media
+            int rangeStart = (int) (bucket * every) + 1;
+            int rangeEnd = (int) ((bucket + 1) * every) + 1;
+            double ax = times[a] - origin;
+            double ay = values[a];
+            // Doble del área = |kv * v + kx * x + k0|; los coeficientes no dependen del punto
+            double kv = ax - avgX;
+            double kx = avgY - ay;
+            double k0 = -kv * ay - ax * kx;
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int i = rangeStart; i < rangeEnd; i++) {
+                double area = Math.abs(kv * values[i] + kx * (times[i] - origin) + k0);
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = i;
+                }
+            }
+            selected[bucket + 1] = next;
+            a = next;
+        }
+        selected[targetPoints - 1] = count - 1;
+        return selected;
+    }
+
+    /**
+     * Índices del mínimo y el máximo de cada una de las width columnas de tiempo (como
+     * mucho 2 * width puntos), en orden temporal. Las columnas vacías no aportan nada.
+     */
+    public static int[] minMax(long[] times, float[] values, int count, int width) {
+        if (count <= 2 * width || width < 1) {
+            return all(count);
+        }
+        int[] selected = new int[2 * width];
+        int size = 0;
+        long origin = times[0];
+        double span = times[count - 1] - origin + 1;
+
+        int i = 0;
+        while (i < count) {
+            int column = (int) ((times[i] - origin) * width / span);
+            // Primer instante de la columna siguiente: dentro del bucle solo se comparan longs
+            long columnEnd = origin + (long) Math.ceil((column + 1) * span / width);
+            int min = i;
+            int max = i;
+            int j = i + 1;
+            while (j < count && times[j] < columnEnd) {
+                if (values[j] < values[min]) {
+                    min = j;
+                } else if (values[j] > values[max]) {
+                    max = j;
+                }
+                j++;
+            }
+            if (min == max) {
+                selected[size++] = min;
+            } else {
+                selected[size++] = Math.min(min, max);
+                selected[size++] = Math.max(min, max);
+            }
+            i = j;
+        }
+        if (size == selected.length) {
+            return selected;
+        }
+        int[] trimmed = new int[size];
+        System.arraycopy(selected, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    private static int[] all(int count) {
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.frontend.utils;
+
+import com.example.frontend.model.Product;
+import com.example.frontend.model.SensorZone;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice espacial en rejilla para consultas de cercanía sin llamar al backend.
+ *
+ * Los puntos se reparten en celdas de {@link #DEFAULT_CELL_DEGREES} grados. Una consulta
+ * por radio solo recorre las celdas que cubren el círculo; cada candidato pasa primero
+ * un filtro equirrectangular (sin trigonometría) y solo los que lo superan se miden con
+ * haversine exacto. Las longitudes dan la vuelta en el antimeridiano.
+ *
+ * Es seguro usarlo desde varios hilos: el repositorio lo actualiza en segundo plano y
+ * la interfaz lo consulta en el hilo principal.
+ */
+public class GeoGridIndex<T> {
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180.0;
+    /** ~5,5 km de lado en latitud: un radio típico (0-50 km) cubre pocas decenas de celdas. */
+    public static final double DEFAULT_CELL_DEGREES = 0.05;
+    // Holgura del filtro equirrectangular frente a haversine
+    private static final double PREFILTER_MARGIN = 1.01;
+    // Anillos de celdas que recorre nearest() antes de pasar a recorrer todos los puntos
+    private static final int MAX_RING = 64;
+
+    /** Cómo obtener id y coordenadas de un elemento; lat o lon null = sin ubicación. */
+    public interface Locator<T> {
+        String id(T item);
+        Double lat(T item);
+        Double lon(T item);
+    }
+
+    public static final Locator<Product> PRODUCTS = new Locator<Product>() {
+        @Override public String id(Product item) { return item.getId(); }
+        @Override public Double lat(Product item) { return item.getProviderLat(); }
+        @Override public Double lon(Product item) { return item.getProviderLon(); }
+    };
+
+    public static final Locator<SensorZone> ZONES = new Locator<SensorZone>() {
+        @Override public String id(SensorZone item) { return String.valueOf(item.getId()); }
+        @Override public Double lat(SensorZone item) { return item.getLocationLat(); }
+        @Override public Double lon(SensorZone item) { return item.getLocationLon(); }
+    };
+
+    public static class Hit<T> {
+        public final T item;
+        public final double distanceKm;
+
+        Hit(T item, double distanceKm) {
+            this.item = item;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    private static final class Entry<T> {
+        final String id;
+        T item;
+        double lat;
+        double lon;
+        double latRad;
+        double lonRad;
+        double cosLat;
+        long cell;
+
+        Entry(String id) {
+            this.id = id;
+        }
+    }
+
+    private final Locator<T> locator;
+    private final double cellDegrees;
+    private final int latCells;
+    private final int lonCells;
+    private final Map<String, Entry<T>> byId = new HashMap<>();
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+
+    public GeoGridIndex(Locator<T> locator) {
+        this(locator, DEFAULT_CELL_DEGREES);
+    }
+
+    public GeoGridIndex(Locator<T> locator, double cellDegrees) {
+        this.locator = locator;
+        this.cellDegrees = cellDegrees;
+        this.latCells = (int) Math.ceil(180.0 / cellDegrees);
+        this.lonCells = (int) Math.ceil(360.0 / cellDegrees);
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    public synchronized void clear() {
+        byId.clear();
+        cells.clear();
+    }
+
+    /**
+     * Inserta o actualiza un elemento. Si no tiene coordenadas se quita del índice.
+     */
+    public synchronized void put(T item) {
+        String id = locator.id(item);
+        if (id == null) {
+            return;
+        }
+        Double lat = locator.lat(item);
+        Double lon = locator.lon(item);
+        if (lat == null || lon == null || !LocationUtils.isValidCoordinate(lat, lon)) {
+            remove(id);
+            return;
+        }
+        Entry<T> entry = byId.get(id);
+        if (entry != null && entry.lat == lat && entry.lon == lon) {
+            // Misma posición: basta con sustituir el objeto
+            entry.item = item;
+            return;
+        }
+        if (entry != null) {
+            removeFromCell(entry);
+        } else {
+            entry = new Entry<>(id);
+            byId.put(id, entry);
+        }
+        entry.item = item;
+        entry.lat = lat;
+        entry.lon = lon;
+        entry.latRad = Math.toRadians(lat);
+        entry.lonRad = Math.toRadians(lon);
+        entry.cosLat = Math.cos(entry.latRad);
+        entry.cell = cellKey(latCell(lat), lonCell(lon));
+        List<Entry<T>> cell = cells.get(entry.cell);
+        if (cell == null) {
+            cell = new ArrayList<>();
+            cells.put(entry.cell, cell);
+        }
+        cell.add(entry);
+    }
+
+    public synchronized void remove(String id) {
+        Entry<T> entry = byId.remove(id);
+        if (entry != null) {
+            removeFromCell(entry);
+        }
+    }
+
+    /**
+     * Deja el índice con exactamente estos elementos. Solo se recolocan los que han
+     * cambiado de posición, así que es barato llamarlo tras cada sincronización.
+     */
+    public synchronized void update(List<T> items) {
+        Set<String> keep = new HashSet<>();
+        for (T item : items) {
+            String id = locator.id(item);
+            if (id != null) {
+                keep.add(id);
+            }
+        }
+        if (keep.size() < byId.size() / 2) {
+            // Se va más de la mitad: reconstruir sale más barato que borrar uno a uno
+            clear();
+        } else {
+            List<String> stale = new ArrayList<>();
+            for (String id : byId.keySet()) {
+                if (!keep.contains(id)) {
+                    stale.add(id);
+                }
+            }
+            for (String id : stale) {
+                remove(id);
+            }
+        }
+        for (T item : items) {
+            put(item);
+        }
+    }
+
+    /**
+     * Elementos a menos de radiusKm del punto, ordenados de más cerca a más lejos.
+     */
+    public synchronized List<Hit<T>> within(double lat, double lon, double radiusKm) {
+        List<Hit<T>> hits = new ArrayList<>();
+        scan(lat, lon, radiusKm, hits);
+        sortByDistance(hits);
+        return hits;
+    }
+
+    /**
+     * Número de elementos a menos de radiusKm, sin crear ni ordenar la lista de resultados.
+     */
+    public synchronized int countWithin(double lat, double lon, double radiusKm) {
+        return scan(lat, lon, radiusKm, null);
+    }
+
+    /**
+     * Los k elementos más cercanos, ordenados. Recorre anillos de celdas alrededor del
+     * punto y se detiene cuando ninguna celda sin visitar puede mejorar el resultado.
+     */
+    public synchronized List<Hit<T>> nearest(double lat, double lon, int k) {
+        List<Hit<T>> best = new ArrayList<>();
+        if (k <= 0 || byId.isEmpty()) {
+            return best;
+        }
+        Query query = new Query(lat, lon);
+        int centerLat = latCell(lat);
+        int centerLon = lonCell(lon);
+        double cellKm = cellDegrees * KM_PER_DEGREE;
+        int visited = 0;
+
+        for (int ring = 0; ring <= MAX_RING && visited < byId.size(); ring++) {
+            for (int la = centerLat - ring; la <= centerLat + ring; la++) {
+                if (la < 0 || la >= latCells) {
+                    continue;
+                }
+                // En las filas intermedias del anillo solo quedan las dos celdas de los extremos
+                boolean edgeRow = la == centerLat - ring || la == centerLat + ring;
+                int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+                for (int lo = centerLon - ring; lo <= centerLon + ring; lo += step) {
+                    List<Entry<T>> cell = cells.get(cellKey(la, wrapLonCell(lo)));
+                    if (cell == null) {
+                        continue;
+                    }
+                    visited += cell.size();
+                    for (Entry<T> entry : cell) {
+                        offer(best, k, new Hit<>(entry.item, query.haversine(entry)));
+                    }
+                }
+            }
+            if (best.size() == k) {
+                // Todo lo que queda fuera del anillo está al menos a ring celdas de distancia
+                double maxAbsLat = Math.min(89.9, Math.abs(lat) + (ring + 1) * cellDegrees);
+                double minOutsideKm = ring * cellKm * Math.cos(Math.toRadians(maxAbsLat));
+                if (best.get(k - 1).distanceKm <= minOutsideKm) {
+                    return best;
+                }
+            }
+        }
+        if (visited < byId.size()) {
+            // Puntos muy dispersos: más barato recorrerlos todos que seguir ampliando anillos
+            best.clear();
+            for (Entry<T> entry : byId.values()) {
+                offer(best, k, new Hit<>(entry.item, query.haversine(entry)));
+            }
+        }
+        return best;
+    }
+
+    private int scan(double lat, double lon, double radiusKm, List<Hit<T>> hits) {
+        if (radiusKm < 0 || byId.isEmpty()) {
+            return 0;
+        }
+        Query query = new Query(lat, lon);
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        int fromLat = latCell(Math.max(-90, lat - latSpan));
+        int toLat = latCell(Math.min(90, lat + latSpan));
+        // El ancho de una celda en km mengua hacia los polos: usar la latitud más extrema
+        double maxAbsLat = Math.min(89.9, Math.max(Math.abs(lat - latSpan), Math.abs(lat + latSpan)));
+        double lonSpan = radiusKm / (KM_PER_DEGREE * Math.cos(Math.toRadians(maxAbsLat)));
+
+        int found = 0;
+        if (lonSpan >= 180 || (long) (toLat - fromLat + 1) * (long) (2 * lonSpan / cellDegrees + 2) > cells.size()) {
+            // El círculo cubre más celdas de las que hay ocupadas: recorrerlas todas
+            for (List<Entry<T>> cell : cells.values()) {
+                found += collect(cell, query, radiusKm, hits);
+            }
+            return found;
+        }
+        int fromLon = lonCell(lon - lonSpan);
+        int count = Math.min(lonCells, (int) Math.ceil(2 * lonSpan / cellDegrees) + 2);
+        for (int la = fromLat; la <= toLat; la++) {
+            for (int i = 0; i < count; i++) {
+                List<Entry<T>> cell = cells.get(cellKey(la, wrapLonCell(fromLon + i)));
+                if (cell != null) {
+                    found += collect(cell, query, radiusKm, hits);
+                }
+            }
+        }
+        return found;
+    }
+
+    private int collect(List<Entry<T>> cell, Query query, double radiusKm, List<Hit<T>> hits) {
+        double limit = radiusKm * PREFILTER_MARGIN;
+        int found = 0;
+        for (Entry<T> entry : cell) {
+            if (query.equirectangular(entry) > limit) {
+                continue;
+            }
+            double distance = query.haversine(entry);
+            if (distance <= radiusKm) {
+                found++;
+                if (hits != null) {
+                    hits.add(new Hit<>(entry.item, distance));
+                }
+            }
+        }
+        return found;
+    }
+    /** Inserta en la lista ordenada de como mucho k resultados. */
+    private static <T> void offer(List<Hit<T>> best, int k, Hit<T> hit) {
+        if (best.size() == k && hit.distanceKm >= best.get(k - 1).distanceKm) {
+            return;
+        }
+        int pos = best.size();
+        while (pos > 0 && best.get(pos - 1).distanceKm > hit.distanceKm) {
+            pos--;
+        }
+        best.add(pos, hit);
+        if (best.size() > k) {
+            best.remove(k);
+        }
+    }
+
+    private static <T> void sortByDistance(List<Hit<T>> hits) {
+        Collections.sort(hits, (a, b) -> Double.compare(a.distanceKm, b.distanceKm));
+    }
+
+    private void removeFromCell(Entry<T> entry) {
+        List<Entry<T>> cell = cells.get(entry.cell);
+        if (cell == null) {
+            return;
+        }
+        // El orden dentro de la celda no importa: cambiar por el último y recortar
+        int index = cell.indexOf(entry);
+        if (index >= 0) {
+            int last = cell.size() - 1;
+            cell.set(index, cell.get(last));
+            cell.remove(last);
+        }
+        if (cell.isEmpty()) {
+            cells.remove(entry.cell);
+        }
+    }
+
+    private int latCell(double lat) {
+        return Math.min(latCells - 1, (int) ((lat + 90.0) / cellDegrees));
+    }
+
+    private int lonCell(double lon) {
+        double shifted = lon + 180.0;
+        shifted -= 360.0 * Math.floor(shifted / 360.0);
+        return Math.min(lonCells - 1, (int) (shifted / cellDegrees));
+    }
+
+    private int wrapLonCell(int lonCell) {
+        int wrapped = lonCell % lonCells;
+        return wrapped < 0 ? wrapped + lonCells : wrapped;
+    }
+
+    private static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+
+    /** Punto de consulta con sus valores trigonométricos precalculados. */
+    private static final class Query {
+        final double latRad;
+        final double lonRad;
+        final double cosLat;
+
+        Query(double lat, double lon) {
+            latRad = Math.toRadians(lat);
+            lonRad = Math.toRadians(lon);
+            cosLat = Math.cos(latRad);
+        }
+
+        /** Aproximación plana: suficiente para descartar candidatos lejanos. */
+        double equirectangular(Entry<?> entry) {
+            double x = wrap(entry.lonRad - lonRad) * 0.5 * (cosLat + entry.cosLat);
+            double y = entry.latRad - latRad;
+            return EARTH_RADIUS_KM * Math.sqrt(x * x + y * y);
+        }
+
+        double haversine(Entry<?> entry) {
+            return DistanceEngine.haversineKm(latRad, lonRad, cosLat, entry.latRad, entry.lonRad, entry.cosLat);
+        }
+
+        private static double wrap(double deltaRad) {
+            if (deltaRad > Math.PI) {
+                return deltaRad - 2 * Math.PI;
+            }
+            if (deltaRad < -Math.PI) {
+                return deltaRad + 2 * Math.PI;
+            }
+            return deltaRad;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.frontend.utils;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+
+/**
+ * Prepara la imagen elegida por el usuario para subirla.
+ *
+ * En lugar de leer el fichero original (5-12 MB de una cámara) entero en memoria:
+ * 1. lee solo las dimensiones (inJustDecodeBounds);
+ * 2. decodifica submuestreado a la potencia de 2 más cercana al tamaño final;
+ * 3. ajusta al lado máximo y aplica la orientación EXIF a los píxeles;
+ * 4. recodifica a JPEG en un fichero de la caché (sin EXIF: ni GPS ni datos de cámara);
+ * 5. devuelve ese fichero; {@link #toPart} crea la parte multipart, que OkHttp envía
+ *    leyéndolo por bloques.
+ *
+ * El trabajo se hace en un hilo propio y el resultado llega al hilo principal.
+ */
+public final class ImageUploadPipeline {
+    private static final String TAG = "ImageUploadPipeline";
+
+    public static final int DEFAULT_MAX_DIMENSION = 1600;
+    public static final int DEFAULT_QUALITY = 85;
+
+    private static final String UPLOAD_DIR = "uploads";
+    /** Los ficheros preparados hace más de esto ya se han subido o abandonado (la cola los mueve). */
+    private static final long STALE_FILE_MS = 60 * 60 * 1000L;
+    private static final MediaType JPEG = MediaType.parse("image/jpeg");
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    public interface Callback {
+        void onReady(File image);
+
+        void onError(String message);
+    }
+
+    private ImageUploadPipeline() {
+    }
+
+    /** Prepara la imagen con el tamaño y la calidad por defecto. */
+    public static void prepare(Context context, Uri uri, Callback callback) {
+        prepare(context, uri, DEFAULT_MAX_DIMENSION, DEFAULT_QUALITY, callback);
+    }
+
+    public static void prepare(Context context, Uri uri, int maxDimension, int quality, Callback callback) {
+        Context appContext = context.getApplicationContext();
+        EXECUTOR.execute(() -> {
+            try {
+                File file = compress(appContext, uri, maxDimension, quality);
+                MAIN.post(() -> callback.onReady(file));
+            } catch (IOException | RuntimeException | OutOfMemoryError e) {
+                Log.e(TAG, "No se pudo preparar la imagen", e);
+                MAIN.post(() -> callback.onError("Error al procesar imagen: " + e.getMessage()));
+            }
+        });
+    }
+
+    /** Parte multipart que lee el fichero del disco al escribir la petición. */
+    public static MultipartBody.Part toPart(String partName, File image) {
+        String fileName = "product_" + System.currentTimeMillis() + ".jpg";
+        return MultipartBody.Part.createFormData(partName, fileName, RequestBody.create(JPEG, image));
+    }
+
+    /** Redimensiona y recodifica la imagen; devuelve el fichero JPEG resultante. */
+    static File compress(Context context, Uri uri, int maxDimension, int quality) throws IOException {
+        ContentResolver resolver = context.getContentResolver();
+
+        // 1. Solo dimensiones
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("El fichero no es una imagen");
+        }
+
+        // 2. Submuestreo: nunca por debajo del tamaño final
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, maxDimension);
+        Bitmap bitmap;
+        try (InputStream in = open(resolver, uri)) {
+            bitmap = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (bitmap == null) {
+            throw new IOException("No se pudo decodificar la imagen");
+        }
+
+        // 3. Tamaño exacto y orientación
+        int orientation;
+        try (InputStream in = open(resolver, uri)) {
+            orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        }
+        Bitmap transformed = transform(bitmap, orientation, maxDimension);
+        if (transformed != bitmap) {
+            bitmap.recycle();
+        }
+
+        // 4. JPEG nuevo en la caché
+        File dir = new File(context.getCacheDir(), UPLOAD_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            transformed.recycle();
+            throw new IOException("No se pudo crear " + dir);
+        }
+        deleteStale(dir);
+        File file = File.createTempFile("upload_", ".jpg", dir);
+        try (OutputStream out = new FileOutputStream(file)) {
+            if (!transformed.compress(Bitmap.CompressFormat.JPEG, quality, out)) {
+                throw new IOException("No se pudo codificar la imagen");
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        } finally {
+            transformed.recycle();
+        }
+        Log.d(TAG, "Imagen " + bounds.outWidth + "x" + bounds.outHeight + " -> " + file.length() + " bytes");
+        return file;
+    }
+
+    /** Mayor potencia de 2 que deja el lado mayor en maxDimension o más. */
+    static int sampleSize(int width, int height, int maxDimension) {
+        int largest = Math.max(width, height);
+        int sample = 1;
+        while (largest / (sample * 2) >= maxDimension) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    private static Bitmap transform(Bitmap bitmap, int orientation, int maxDimension) {
+        Matrix matrix = new Matrix();
+        int largest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (largest > maxDimension) {
+            float scale = (float) maxDimension / largest;
+            matrix.postScale(scale, scale);
+        }
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(-90);
+                break;
+            default:
+                break;
+        }
+        if (matrix.isIdentity()) {
+            return bitmap;
+        }
+        return Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new IOException("No se pudo abrir " + uri);
+        }
+        return in;
+    }
+
+    private static void deleteStale(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - STALE_FILE_MS;
+        for (File file : files) {
+            if (file.lastModified() < cutoff) {
+                file.delete();
+            }
+        }
+    }
+}
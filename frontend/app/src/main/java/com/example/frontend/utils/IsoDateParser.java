@@ -0,0 +1,207 @@
+package com.example.frontend.utils;
+
+import java.util.Date;
+
+/**
+ * Parser ISO-8601 de una sola pasada para las fechas que envía el backend.
+ *
+ * Reconoce la forma por longitud y separadores, sin probar formatos uno tras otro
+ * ni usar excepciones para el control de flujo:
+ * - 2025-09-06
+ * - 2025-09-06T21:35:55 / 2025-09-06 21:35:55 (segundos opcionales)
+ * - fracción de 1 a 9 dígitos (2025-09-06T21:35:55.818556), truncada a milisegundos
+ * - zona opcional: Z, +02:00, +0200 o +02. Sin zona se asume UTC.
+ *
+ * No tiene estado, así que se puede compartir entre hilos de Gson.
+ * {@link #format(Date)} produce el formato inverso (UTC, con milisegundos).
+ */
+public final class IsoDateParser {
+
+    /** Valor devuelto por {@link #parseMillis(CharSequence)} cuando la fecha no es válida. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private IsoDateParser() {
+    }
+
+    /**
+     * Parsea la fecha o devuelve null si no tiene un formato reconocido.
+     */
+    public static Date parse(CharSequence text) {
+        long millis = parseMillis(text);
+        return millis == INVALID ? null : new Date(millis);
+    }
+
+    /**
+     * Parsea la fecha a milisegundos desde epoch o devuelve {@link #INVALID}.
+     */
+    public static long parseMillis(CharSequence s) {
+        if (s == null) {
+            return INVALID;
+        }
+        int len = s.length();
+        if (len < 10 || s.charAt(4) != '-' || s.charAt(7) != '-') {
+            return INVALID;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return INVALID;
+        }
+        long millis = daysFromCivil(year, month, day) * MILLIS_PER_DAY;
+        if (len == 10) {
+            return millis;
+        }
+
+        char separator = s.charAt(10);
+        if ((separator != 'T' && separator != 't' && separator != ' ') || len < 16 || s.charAt(13) != ':') {
+            return INVALID;
+        }
+        int hour = digits(s, 11, 2);
+        int minute = digits(s, 14, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return INVALID;
+        }
+        millis += hour * MILLIS_PER_HOUR + minute * MILLIS_PER_MINUTE;
+
+        int pos = 16;
+        if (pos < len && s.charAt(pos) == ':') {
+            int second = pos + 3 <= len ? digits(s, pos + 1, 2) : -1;
+            if (second < 0 || second > 60) {
+                return INVALID;
+            }
+            millis += second * 1000L;
+            pos += 3;
+
+            if (pos < len && (s.charAt(pos) == '.' || s.charAt(pos) == ',')) {
+                pos++;
+                int start = pos;
+                int fraction = 0;
+                while (pos < len && isDigit(s.charAt(pos))) {
+                    if (pos - start < 3) {
+                        fraction = fraction * 10 + (s.charAt(pos) - '0');
+                    }
+                    pos++;
+                }
+                int count = pos - start;
+                if (count == 0 || count > 9) {
+                    return INVALID;
+                }
+                // Ajustar a milisegundos cuando hay menos de tres dígitos
+                for (int i = count; i < 3; i++) {
+                    fraction *= 10;
+                }
+                millis += fraction;
+            }
+        }
+
+        if (pos == len) {
+            return millis;
+        }
+        char zone = s.charAt(pos);
+        if ((zone == 'Z' || zone == 'z') && pos + 1 == len) {
+            return millis;
+        }
+        if (zone != '+' && zone != '-') {
+            return INVALID;
+        }
+        long offset = parseOffset(s, pos + 1, len);
+        if (offset == INVALID) {
+            return INVALID;
+        }
+        return zone == '+' ? millis - offset : millis + offset;
+    }
+
+    private static long parseOffset(CharSequence s, int pos, int len) {
+        int remaining = len - pos;
+        int hours;
+        int minutes = 0;
+        if (remaining == 2) {
+            hours = digits(s, pos, 2);
+        } else if (remaining == 4) {
+            hours = digits(s, pos, 2);
+            minutes = digits(s, pos + 2, 2);
+        } else if (remaining == 5 && s.charAt(pos + 2) == ':') {
+            hours = digits(s, pos, 2);
+            minutes = digits(s, pos + 3, 2);
+        } else {
+            return INVALID;
+        }
+        if (hours < 0 || hours > 18 || minutes < 0 || minutes > 59) {
+            return INVALID;
+        }
+        return hours * MILLIS_PER_HOUR + minutes * MILLIS_PER_MINUTE;
+    }
+
+    /**
+     * Formatea una fecha en UTC como yyyy-MM-dd'T'HH:mm:ss.SSS (sin zona, como el backend).
+     */
+    public static String format(Date date) {
+        long millis = date.getTime();
+        long days = millis / MILLIS_PER_DAY;
+        long millisOfDay = millis - days * MILLIS_PER_DAY;
+        if (millisOfDay < 0) {
+            days--;
+            millisOfDay += MILLIS_PER_DAY;
+        }
+
+        // Conversión inversa de días desde epoch a fecha civil
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        StringBuilder sb = new StringBuilder(23);
+        pad(sb, year, 4).append('-');
+        pad(sb, month, 2).append('-');
+        pad(sb, day, 2).append('T');
+        pad(sb, millisOfDay / MILLIS_PER_HOUR, 2).append(':');
+        pad(sb, millisOfDay / MILLIS_PER_MINUTE % 60, 2).append(':');
+        pad(sb, millisOfDay / 1000 % 60, 2).append('.');
+        pad(sb, millisOfDay % 1000, 3);
+        return sb.toString();
+    }
+
+    private static StringBuilder pad(StringBuilder sb, long value, int width) {
+        String digits = Long.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits);
+    }
+
+    private static int digits(CharSequence s, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /** Días desde 1970-01-01 para una fecha del calendario gregoriano proléptico. */
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.frontend.utils;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Lecturas tolerantes sobre {@link JsonReader} para los TypeAdapters de los modelos.
+ * Aceptan los mismos tipos que el adaptador reflexivo de Gson (números como texto,
+ * textos como número) y devuelven null cuando el valor es JSON null.
+ */
+final class JsonReaderUtils {
+
+    private JsonReaderUtils() {
+    }
+
+    static String nextString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+            in.skipValue();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    static String nextPooledString(JsonReader in, StringPool pool) throws IOException {
+        return pool.intern(nextString(in));
+    }
+
+    static Double nextDouble(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextDouble();
+    }
+
+    static Integer nextInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+
+    static Boolean nextBoolean(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    static Date nextDate(JsonReader in) throws IOException {
+        String value = nextString(in);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return DateDeserializer.parse(value);
+    }
+}
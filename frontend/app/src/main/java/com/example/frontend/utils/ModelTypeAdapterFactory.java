@@ -0,0 +1,44 @@
+package com.example.frontend.utils;
+
+import com.example.frontend.model.Product;
+import com.example.frontend.model.SensorReading;
+import com.example.frontend.model.Transaction;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Registra los TypeAdapters en streaming de los modelos más voluminosos
+ * (listas de productos, pedidos y lecturas de sensores) en el Gson compartido.
+ */
+public class ModelTypeAdapterFactory implements TypeAdapterFactory {
+    private final StringPool pool;
+
+    public ModelTypeAdapterFactory() {
+        this(StringPool.shared());
+    }
+
+    public ModelTypeAdapterFactory(StringPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == Product.class) {
+            TypeAdapter<Product> delegate = gson.getDelegateAdapter(this, TypeToken.get(Product.class));
+            return (TypeAdapter<T>) new ProductTypeAdapter(gson, delegate, pool);
+        }
+        if (rawType == Transaction.class) {
+            TypeAdapter<Transaction> delegate = gson.getDelegateAdapter(this, TypeToken.get(Transaction.class));
+            return (TypeAdapter<T>) new TransactionTypeAdapter(gson, delegate, pool);
+        }
+        if (rawType == SensorReading.class) {
+            TypeAdapter<SensorReading> delegate = gson.getDelegateAdapter(this, TypeToken.get(SensorReading.class));
+            return (TypeAdapter<T>) new SensorReadingTypeAdapter(gson, delegate, pool);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.frontend.utils;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+import com.example.frontend.R;
+import com.example.frontend.api.ApiClient;
+import com.example.frontend.model.Product;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Peticiones de Glide para las imágenes de productos.
+ *
+ * Las miniaturas se piden al tamaño exacto de la vista y en RGB_565 (la mitad de
+ * memoria que ARGB_8888; las fotos no tienen transparencia). La caché usa la URL como
+ * clave: el backend guarda cada subida con un nombre de fichero nuevo, así que solo se
+ * vuelve a descargar cuando cambia la imagen y no con cada cambio de stock o precio.
+ * {@link #preloader} pide por adelantado las de las filas siguientes con exactamente
+ * la misma petición, así que al hacer scroll ya están en memoria.
+ */
+public final class ProductImages {
+
+    /** Lado de la miniatura en las listas de productos y de stock. */
+    public static final int LIST_THUMBNAIL_DP = 80;
+    /** Lado de la miniatura en el carrito. */
+    public static final int CART_THUMBNAIL_DP = 60;
+    /** Filas que se cargan por delante del scroll. */
+    public static final int PRELOAD_ROWS = 8;
+
+    /** Producto de una posición de la lista, o null si no existe. */
+    public interface ItemSource {
+        @Nullable
+        Product get(int position);
+    }
+
+    private ProductImages() {
+    }
+
+    /** URL absoluta de la imagen, o null si el producto no tiene. */
+    @Nullable
+    public static String url(Product product) {
+        String imageUrl = product.getImageUrl();
+        if (imageUrl == null || imageUrl.isEmpty() || imageUrl.equals("null")) {
+            return null;
+        }
+        if (imageUrl.startsWith("/")) {
+            // Ruta relativa: se construye con la URL base del servidor
+            String baseUrl = ApiClient.getBaseUrl();
+            if (baseUrl.endsWith("/")) {
+                baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+            }
+            imageUrl = baseUrl + imageUrl;
+        }
+        return imageUrl;
+    }
+
+    /** Imagen a tamaño de la vista (detalle, vista previa al editar). */
+    public static RequestBuilder<Drawable> load(RequestManager glide, Product product) {
+        return glide.load(url(product))
+                .placeholder(R.drawable.ic_product_placeholder)
+                .error(R.drawable.ic_product_placeholder);
+    }
+
+    /** Miniatura cuadrada de sizePx píxeles, recortada al centro como en las filas. */
+    public static RequestBuilder<Drawable> thumbnail(RequestManager glide, Product product, int sizePx) {
+        return load(glide, product)
+                .override(sizePx)
+                .centerCrop()
+                .format(DecodeFormat.PREFER_RGB_565);
+    }
+
+    public static int px(Context context, int dp) {
+        return Math.round(dp * context.getResources().getDisplayMetrics().density);
+    }
+
+    /**
+     * Precarga para una lista de productos; se añade con
+     * recyclerView.addOnScrollListener(...).
+     */
+    public static RecyclerViewPreloader<Product> preloader(RequestManager glide, ItemSource items, int sizePx) {
+        ListPreloader.PreloadModelProvider<Product> models = new ListPreloader.PreloadModelProvider<Product>() {
+            @NonNull
+            @Override
+            public List<Product> getPreloadItems(int position) {
+                Product product = items.get(position);
+                return product != null && url(product) != null
+                        ? Collections.singletonList(product) : Collections.<Product>emptyList();
+            }
+
+            @Nullable
+            @Override
+            public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Product product) {
+                return thumbnail(glide, product, sizePx);
+            }
+        };
+        return new RecyclerViewPreloader<>(glide, models, new FixedPreloadSizeProvider<>(sizePx, sizePx), PRELOAD_ROWS);
+    }
+}
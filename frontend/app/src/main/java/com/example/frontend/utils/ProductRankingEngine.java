@@ -0,0 +1,323 @@
+package com.example.frontend.utils;
+
+import com.example.frontend.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ordenación de productos por puntuación para las pantallas de búsqueda.
+ *
+ * La puntuación de cada producto se calcula una sola vez en un double[] y después se
+ * ordenan índices primitivos (orden estable, de mayor a menor), en lugar de recalcularla
+ * dos veces por comparación. Para mostrar solo la primera pantalla, {@link #sortFirst}
+ * selecciona los K primeros con un montículo acotado, en O(n log K).
+ *
+ * Las fórmulas son las mismas que usaban los fragments; los pesos del criterio óptimo
+ * son configurables, con los mismos criterios que ProductFilterRequest.weights.
+ */
+public class ProductRankingEngine {
+
+    public enum Criterion {
+        OPTIMAL("optimal"),
+        PRICE("price"),
+        PRICE_DESC("price_desc"),
+        DISTANCE("distance"),
+        SUSTAINABILITY("sustainability"),
+        ECO("eco"),
+        STOCK("stock");
+
+        private final String key;
+
+        Criterion(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /** Criterio a partir de la clave de sort_criteria; OPTIMAL si no se reconoce. */
+        public static Criterion fromKey(String key) {
+            for (Criterion criterion : values()) {
+                if (criterion.key.equals(key)) {
+                    return criterion;
+                }
+            }
+            return OPTIMAL;
+        }
+    }
+
+    /**
+     * Pesos del criterio óptimo. Los criterios coinciden con las claves del backend
+     * ("price", "distance", "sustainability", "stock", "eco").
+     */
+    public static class Weights {
+        public static final Weights DEFAULT = new Weights(0.5, 0.3, 0.2, 0, 0);
+
+        public final double price;
+        public final double distance;
+        public final double sustainability;
+        public final double stock;
+        public final double eco;
+
+        public Weights(double price, double distance, double sustainability, double stock, double eco) {
+            this.price = price;
+            this.distance = distance;
+            this.sustainability = sustainability;
+            this.stock = stock;
+            this.eco = eco;
+        }
+    }
+
+    private final Criterion criterion;
+    private final Weights weights;
+
+    public ProductRankingEngine(Criterion criterion) {
+        this(criterion, Weights.DEFAULT);
+    }
+
+    public ProductRankingEngine(Criterion criterion, Weights weights) {
+        this.criterion = criterion;
+        this.weights = weights;
+    }
+
+    /**
+     * Puntuación de cada producto, en el mismo orden que la lista.
+     */
+    public double[] score(List<Product> products) {
+        double[] scores = new double[products.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = score(products.get(i));
+        }
+        return scores;
+    }
+
+    /**
+     * Ordena la lista de mayor a menor puntuación. Es estable: los empates conservan el orden.
+     */
+    public void sort(List<Product> products) {
+        int n = products.size();
+        if (n < 2) {
+            return;
+        }
+        double[] scores = score(products);
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[n], 0, n, scores);
+
+        List<Product> sorted = new ArrayList<>(n);
+        for (int index : order) {
+            sorted.add(products.get(index));
+        }
+        for (int i = 0; i < n; i++) {
+            products.set(i, sorted.get(i));
+        }
+    }
+
+    /**
+     * Ordena solo el principio de la lista: deja delante los k productos con mayor
+     * puntuación, en orden, y detrás el resto en su orden original. Basta para mostrar
+     * la primera página; si después hace falta el resto, {@link #sort} sobre la misma
+     * lista da el mismo resultado que ordenarla entera desde el principio.
+     */
+    public void sortFirst(List<Product> products, int k) {
+        int n = products.size();
+        int[] top = topIndices(products, k);
+        if (top.length == 0) {
+            return;
+        }
+        boolean[] taken = new boolean[n];
+        List<Product> reordered = new ArrayList<>(n);
+        for (int index : top) {
+            taken[index] = true;
+            reordered.add(products.get(index));
+        }
+        for (int i = 0; i < n; i++) {
+            if (!taken[i]) {
+                reordered.add(products.get(i));
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            products.set(i, reordered.get(i));
+        }
+    }
+
+    /**
+     * Posiciones de los k mejores, de mayor a menor puntuación (empates por posición):
+     * O(n log k) con un montículo de mínimos de tamaño k.
+     */
+    private int[] topIndices(List<Product> products, int k) {
+        int n = products.size();
+        k = Math.min(k, n);
+        if (k <= 0) {
+            return new int[0];
+        }
+        double[] scores = score(products);
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (size < k) {
+                heap[size] = i;
+                siftUp(heap, size++, scores);
+            } else if (better(i, heap[0], scores)) {
+                heap[0] = i;
+                siftDown(heap, 0, size, scores);
+            }
+        }
+        // Orden final: primero por posición para que el merge sort estable resuelva empates igual que sort()
+        Arrays.sort(heap, 0, size);
+        mergeSort(heap, new int[size], 0, size, scores);
+        return heap;
+    }
+
+    public double score(Product product) {
+        switch (criterion) {
+            case PRICE:
+                // Menor precio = mayor puntuación
+                return 100.0 - product.getPrice() * 20;
+            case PRICE_DESC:
+                return product.getPrice() * 20;
+            case DISTANCE:
+                return distanceScore(product);
+            case SUSTAINABILITY:
+                return sustainabilityScore(product);
+            case ECO:
+                return ecoScore(product);
+            case STOCK:
+                return stockScore(product);
+            case OPTIMAL:
+            default:
+                return optimalScore(product);
+        }
+    }
+
+    private double optimalScore(Product product) {
+        double score = 0.0;
+        if (weights.price != 0) {
+            score += weights.price * Math.max(0, 100 - product.getPrice() * 10);
+        }
+        if (weights.distance != 0) {
+            score += weights.distance * distanceScore(product);
+        }
+        if (weights.sustainability != 0) {
+            score += weights.sustainability * sustainabilityScore(product);
+        }
+        if (weights.stock != 0) {
+            score += weights.stock * stockScore(product);
+        }
+        if (weights.eco != 0) {
+            score += weights.eco * ecoScore(product);
+        }
+        return score;
+    }
+
+    private static double distanceScore(Product product) {
+        Double distance = product.getDistance_km();
+        // Puntuación neutra si no hay distancia
+        return distance != null ? Math.max(0, 100 - distance * 2) : 50;
+    }
+
+    /**
+     * Puntuación base del producto menos la penalización por transporte
+     * (0,1 kg de CO2 por km, como máximo 20 puntos), limitada a 0-100.
+     */
+    public static double sustainabilityScore(Product product) {
+        double baseScore = product.getScore() != null ? product.getScore() : 0;
+        double transportPenalty = 0;
+        Double distance = product.getDistance_km();
+        if (distance != null) {
+            transportPenalty = Math.min(20, distance * 0.1 * 2);
+        }
+        return Math.max(0, Math.min(100, baseScore - transportPenalty));
+    }
+
+    private static double ecoScore(Product product) {
+        return product.getIsEco() != null && product.getIsEco() ? 100 : 0;
+    }
+
+    private static double stockScore(Product product) {
+        double stock = product.getStockAvailable() != null ? product.getStockAvailable() : product.getStock();
+        return Math.min(stock * 10, 100);
+    }
+
+    /** Merge sort estable de índices por puntuación descendente. */
+    private static void mergeSort(int[] a, int[] tmp, int from, int to, double[] scores) {
+        if (to - from < 2) {
+            return;
+        }
+        if (to - from <= 16) {
+            // Inserción para tramos cortos (también estable)
+            for (int i = from + 1; i < to; i++) {
+                int value = a[i];
+                int j = i - 1;
+                while (j >= from && scores[a[j]] < scores[value]) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = value;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, scores);
+        mergeSort(a, tmp, mid, to, scores);
+        if (scores[a[mid - 1]] >= scores[a[mid]]) {
+            return;
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && scores[tmp[i]] >= scores[tmp[j]])) {
+                a[k] = tmp[i++];
+            } else {
+                a[k] = tmp[j++];
+            }
+        }
+    }
+
+    /** a va antes que b: mayor puntuación o, en empate, posición anterior. */
+    private static boolean better(int a, int b, double[] scores) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && a < b);
+    }
+
+    private static void siftUp(int[] heap, int index, double[] scores) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(heap[parent], heap[index], scores)) {
+                break;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int index, int size, double[] scores) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && better(heap[left], heap[right], scores)) {
+                worst = right;
+            }
+            if (!better(heap[index], heap[worst], scores)) {
+                return;
+            }
+            swap(heap, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
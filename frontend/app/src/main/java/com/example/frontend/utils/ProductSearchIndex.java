@@ -0,0 +1,557 @@
+package com.example.frontend.utils;
+
+import com.example.frontend.model.Product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Índice invertido en memoria para buscar productos por nombre, categoría,
+ * descripción y proveedor.
+ *
+ * - Los términos se normalizan sin tildes ni mayúsculas ("Limón" -> "limon").
+ * - El diccionario de términos está ordenado, así que el último término de la
+ *   consulta se busca por prefijo mientras el usuario escribe.
+ * - Un índice de trigramas permite encontrar términos con una o dos erratas.
+ * - Los resultados se ordenan por relevancia (campo y tipo de coincidencia).
+ *
+ * Añadir, editar u ocultar un producto solo reindexa ese producto.
+ */
+public class ProductSearchIndex {
+
+    private static final float WEIGHT_NAME = 3f;
+    private static final float WEIGHT_CATEGORY = 2f;
+    private static final float WEIGHT_PROVIDER = 1.5f;
+    private static final float WEIGHT_DESCRIPTION = 1f;
+
+    private static final float MATCH_EXACT = 1f;
+    private static final float MATCH_PREFIX = 0.7f;
+    private static final float MATCH_FUZZY = 0.4f;
+
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final float MIN_TRIGRAM_SIMILARITY = 0.3f;
+
+    // Estimación de memoria: entrada del mapa, cadena y objeto de la lista
+    private static final long TERM_BYTES = 120;
+    private static final long TRIGRAM_BYTES = 100;
+
+    // Diccionario ordenado de términos: permite recorrer todos los que empiezan por un prefijo
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final HashMap<String, List<String>> trigrams = new HashMap<>();
+    private final HashMap<String, Integer> docsById = new HashMap<>();
+
+    private Product[] docs = new Product[64];
+    private String[][] docTerms = new String[64][];
+    private long[] docOrder = new long[64];
+    private int docCount;
+    private int[] freeDocs = new int[16];
+    private int freeCount;
+    private long nextOrder;
+
+    // Acumuladores reutilizados entre búsquedas
+    private float[] scores = new float[64];
+    private float[] tokenScores = new float[64];
+    private int[] matchedTokens = new int[64];
+
+    /**
+     * Sincroniza el índice con la lista completa, respetando su orden para las búsquedas vacías.
+     * Solo se reindexan los productos nuevos o cuya fecha de modificación cambió; los que
+     * ya no están en la lista se eliminan.
+     */
+    public synchronized void setProducts(List<Product> products) {
+        int kept = 0;
+        for (Product product : products) {
+            String key = keyOf(product);
+            if (key != null && docsById.containsKey(key)) {
+                kept++;
+            }
+        }
+        if (kept < size() / 2) {
+            // Si cambia más de la mitad, reconstruir es más barato que borrar uno a uno
+            clear();
+        }
+
+        HashMap<String, Integer> stale = new HashMap<>(docsById);
+        for (int doc = 0; doc < docCount; doc++) {
+            // Los productos sin id no se pueden reconciliar: se descartan y se vuelven a añadir
+            if (docs[doc] != null && keyOf(docs[doc]) == null) {
+                release(doc);
+            }
+        }
+        for (Product product : products) {
+            String key = keyOf(product);
+            Integer doc = key != null ? docsById.get(key) : null;
+            if (doc != null && sameVersion(docs[doc], product)) {
+                docs[doc] = product;
+                docOrder[doc] = nextOrder++;
+            } else {
+                addOrUpdate(product);
+                doc = docsById.get(key);
+                if (doc != null) {
+                    docOrder[doc] = nextOrder++;
+                }
+            }
+            if (key != null) {
+                stale.remove(key);
+            }
+        }
+        for (String key : stale.keySet()) {
+            remove(key);
+        }
+    }
+
+    /** Vacía el índice; se vuelve a llenar con {@link #setProducts}. */
+    public synchronized void clear() {
+        terms.clear();
+        trigrams.clear();
+        docsById.clear();
+        Arrays.fill(docs, 0, docCount, null);
+        Arrays.fill(docTerms, 0, docCount, null);
+        docCount = 0;
+        freeCount = 0;
+    }
+
+    /**
+     * Mismo updated_at y mismos campos indexados. Una copia con cambios pendientes
+     * (MutationQueue.applyPending) conserva el updated_at del servidor, así que la fecha
+     * sola no basta para saltarse el reindexado.
+     */
+    private static boolean sameVersion(Product indexed, Product product) {
+        return indexed != null && indexed.getUpdatedAt() != null
+                && indexed.getUpdatedAt().equals(product.getUpdatedAt())
+                && equalText(indexed.getName(), product.getName())
+                && equalText(indexed.getCategory(), product.getCategory())
+                && equalText(indexed.getProviderName(), product.getProviderName())
+                && equalText(indexed.getDescription(), product.getDescription());
+    }
+
+    private static boolean equalText(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Indexa un producto nuevo o reindexa uno existente (edición, cambio de visibilidad).
+     * Un producto editado conserva su posición original.
+     */
+    public synchronized void addOrUpdate(Product product) {
+        String key = keyOf(product);
+        Integer existing = key != null ? docsById.get(key) : null;
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            unindex(doc);
+        } else {
+            doc = allocateDoc();
+            docOrder[doc] = nextOrder++;
+            if (key != null) {
+                docsById.put(key, doc);
+            }
+        }
+        docs[doc] = product;
+        index(doc, product);
+    }
+
+    public synchronized void remove(String productId) {
+        Integer doc = docsById.remove(productId);
+        if (doc != null) {
+            release(doc);
+        }
+    }
+
+    private void release(int doc) {
+        unindex(doc);
+        docs[doc] = null;
+        if (freeCount == freeDocs.length) {
+            freeDocs = Arrays.copyOf(freeDocs, freeCount * 2);
+        }
+        freeDocs[freeCount++] = doc;
+    }
+
+    public synchronized int size() {
+        return docCount - freeCount;
+    }
+
+    /** Memoria aproximada del índice, sin contar los productos (son los de la lista indexada). */
+    public synchronized long estimatedBytes() {
+        // Por documento: producto, términos y orden, más el array de sus términos
+        long bytes = docs.length * 32L;
+        for (Postings postings : terms.values()) {
+            bytes += TERM_BYTES + postings.docs.length * 8L;
+        }
+        for (List<String> list : trigrams.values()) {
+            bytes += TRIGRAM_BYTES + list.size() * 8L;
+        }
+        return bytes;
+    }
+
+    /**
+     * Productos que contienen todos los términos de la consulta, ordenados por relevancia.
+     * Con la consulta vacía devuelve todos en el orden de inserción.
+     */
+    public synchronized List<Product> search(String query) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return allInOrder();
+        }
+        ensureAccumulators();
+        Arrays.fill(scores, 0, docCount, 0f);
+        Arrays.fill(matchedTokens, 0, docCount, 0);
+
+        for (int t = 0; t < tokens.size(); t++) {
+            String token = tokens.get(t);
+            // Solo el último término puede estar a medio escribir
+            boolean allowPrefix = t == tokens.size() - 1;
+            Arrays.fill(tokenScores, 0, docCount, 0f);
+            boolean found = collectExactAndPrefix(token, allowPrefix);
+            if (!found && token.length() >= MIN_FUZZY_LENGTH) {
+                collectFuzzy(token);
+            }
+            for (int doc = 0; doc < docCount; doc++) {
+                if (tokenScores[doc] > 0f) {
+                    scores[doc] += tokenScores[doc];
+                    matchedTokens[doc]++;
+                }
+            }
+        }
+
+        int required = tokens.size();
+        List<Integer> hits = new ArrayList<>();
+        for (int doc = 0; doc < docCount; doc++) {
+            if (docs[doc] != null && matchedTokens[doc] == required) {
+                hits.add(doc);
+            }
+        }
+        final float[] finalScores = scores;
+        final long[] order = docOrder;
+        Collections.sort(hits, (a, b) -> {
+            int byScore = Float.compare(finalScores[b], finalScores[a]);
+            return byScore != 0 ? byScore : Long.compare(order[a], order[b]);
+        });
+        List<Product> result = new ArrayList<>(hits.size());
+        for (int doc : hits) {
+            result.add(docs[doc]);
+        }
+        return result;
+    }
+
+    private boolean collectExactAndPrefix(String token, boolean allowPrefix) {
+        boolean found = false;
+        if (allowPrefix) {
+            SortedMap<String, Postings> range = terms.subMap(token, token + Character.MAX_VALUE);
+            for (Map.Entry<String, Postings> entry : range.entrySet()) {
+                float match = entry.getKey().length() == token.length() ? MATCH_EXACT : MATCH_PREFIX;
+                accumulate(entry.getValue(), match);
+                found = true;
+            }
+        } else {
+            Postings postings = terms.get(token);
+            if (postings != null) {
+                accumulate(postings, MATCH_EXACT);
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Tolerancia a erratas: candidatos por trigramas compartidos, confirmados con
+     * distancia de edición (1 para términos cortos, 2 para largos).
+     */
+    private void collectFuzzy(String token) {
+        List<String> grams = trigramsOf(token);
+        HashMap<String, int[]> shared = new HashMap<>();
+        for (String gram : grams) {
+            List<String> candidates = trigrams.get(gram);
+            if (candidates == null) {
+                continue;
+            }
+            for (String candidate : candidates) {
+                int[] count = shared.get(candidate);
+                if (count == null) {
+                    shared.put(candidate, new int[]{1});
+                } else {
+                    count[0]++;
+                }
+            }
+        }
+        int maxDistance = token.length() <= 5 ? 1 : 2;
+        for (Map.Entry<String, int[]> entry : shared.entrySet()) {
+            String candidate = entry.getKey();
+            int candidateGrams = candidate.length();
+            float similarity = entry.getValue()[0] / (float) (grams.size() + candidateGrams - entry.getValue()[0]);
+            if (similarity < MIN_TRIGRAM_SIMILARITY) {
+                continue;
+            }
+            int distance = boundedEditDistance(token, candidate, maxDistance);
+            if (distance <= maxDistance) {
+                accumulate(terms.get(candidate), MATCH_FUZZY / (1 + distance));
+            }
+        }
+    }
+
+    private void accumulate(Postings postings, float match) {
+        for (int i = 0; i < postings.size; i++) {
+            int doc = postings.docs[i];
+            float score = postings.weights[i] * match;
+            if (score > tokenScores[doc]) {
+                tokenScores[doc] = score;
+            }
+        }
+    }
+
+    private List<Product> allInOrder() {
+        List<Integer> live = new ArrayList<>(size());
+        for (int doc = 0; doc < docCount; doc++) {
+            if (docs[doc] != null) {
+                live.add(doc);
+            }
+        }
+        final long[] order = docOrder;
+        Collections.sort(live, (a, b) -> Long.compare(order[a], order[b]));
+        List<Product> result = new ArrayList<>(live.size());
+        for (int doc : live) {
+            result.add(docs[doc]);
+        }
+        return result;
+    }
+
+    private void index(int doc, Product product) {
+        HashMap<String, Float> weights = new HashMap<>();
+        addField(weights, product.getName(), WEIGHT_NAME);
+        addField(weights, product.getCategory(), WEIGHT_CATEGORY);
+        addField(weights, product.getProviderName(), WEIGHT_PROVIDER);
+        addField(weights, product.getDescription(), WEIGHT_DESCRIPTION);
+
+        String[] indexed = new String[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            String term = entry.getKey();
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(term, postings);
+                for (String gram : trigramsOf(term)) {
+                    List<String> list = trigrams.get(gram);
+                    if (list == null) {
+                        list = new ArrayList<>(4);
+                        trigrams.put(gram, list);
+                    }
+                    list.add(term);
+                }
+            }
+            postings.add(doc, entry.getValue());
+            indexed[i++] = term;
+        }
+        docTerms[doc] = indexed;
+    }
+
+    private void unindex(int doc) {
+        String[] indexed = docTerms[doc];
+        if (indexed == null) {
+            return;
+        }
+        for (String term : indexed) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                continue;
+            }
+            postings.remove(doc);
+            if (postings.size == 0) {
+                terms.remove(term);
+                for (String gram : trigramsOf(term)) {
+                    List<String> list = trigrams.get(gram);
+                    if (list != null) {
+                        list.remove(term);
+                        if (list.isEmpty()) {
+                            trigrams.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+        docTerms[doc] = null;
+    }
+
+    private static void addField(HashMap<String, Float> weights, String text, float weight) {
+        for (String token : tokenize(text)) {
+            Float current = weights.get(token);
+            if (current == null || current < weight) {
+                weights.put(token, weight);
+            }
+        }
+    }
+
+    private int allocateDoc() {
+        if (freeCount > 0) {
+            return freeDocs[--freeCount];
+        }
+        if (docCount == docs.length) {
+            int capacity = docCount * 2;
+            docs = Arrays.copyOf(docs, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            docOrder = Arrays.copyOf(docOrder, capacity);
+        }
+        return docCount++;
+    }
+
+    private void ensureAccumulators() {
+        if (scores.length < docCount) {
+            scores = new float[docs.length];
+            tokenScores = new float[docs.length];
+            matchedTokens = new int[docs.length];
+        }
+    }
+
+    private static String keyOf(Product product) {
+        return product.getId();
+    }
+
+    /**
+     * Divide el texto en términos normalizados (minúsculas, sin tildes, solo letras y dígitos).
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean letter = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                tokens.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Minúsculas y sin diacríticos. Los caracteres del español se resuelven con una tabla;
+     * el resto, con la descomposición Unicode.
+     */
+    public static String fold(String text) {
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char folded = foldChar(c);
+            if (folded == 0) {
+                // Carácter fuera de la tabla: usar la normalización general
+                String lower = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+                return lower.replaceAll("\\p{M}+", "");
+            }
+            if (folded != c && sb == null) {
+                sb = new StringBuilder(text.length());
+                sb.append(text, 0, i);
+            }
+            if (sb != null) {
+                sb.append(folded);
+            }
+        }
+        return sb != null ? sb.toString() : text;
+    }
+
+    /** Devuelve el carácter plegado, o 0 si hace falta la normalización general. */
+    private static char foldChar(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+        }
+        switch (c) {
+            case 'á': case 'à': case 'ä': case 'â': case 'Á': case 'À': case 'Ä': case 'Â':
+                return 'a';
+            case 'é': case 'è': case 'ë': case 'ê': case 'É': case 'È': case 'Ë': case 'Ê':
+                return 'e';
+            case 'í': case 'ì': case 'ï': case 'î': case 'Í': case 'Ì': case 'Ï': case 'Î':
+                return 'i';
+            case 'ó': case 'ò': case 'ö': case 'ô': case 'Ó': case 'Ò': case 'Ö': case 'Ô':
+                return 'o';
+            case 'ú': case 'ù': case 'ü': case 'û': case 'Ú': case 'Ù': case 'Ü': case 'Û':
+                return 'u';
+            case 'ñ': case 'Ñ':
+                return 'n';
+            case 'ç': case 'Ç':
+                return 'c';
+            default:
+                return 0;
+        }
+    }
+
+    /** Trigramas con relleno, de modo que también cuentan el inicio y el final del término. */
+    private static List<String> trigramsOf(String term) {
+        String padded = "$" + term + "$";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Distancia de Levenshtein que abandona en cuanto supera el máximo (devuelve max + 1).
+     */
+    static int boundedEditDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /** Lista de documentos de un término con el peso del mejor campo en que aparece. */
+    private static class Postings {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int doc) {
+            for (int i = 0; i < size; i++) {
+                if (docs[i] == doc) {
+                    // El orden de la lista no importa: se mueve el último a este hueco
+                    size--;
+                    docs[i] = docs[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.frontend.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import com.example.frontend.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Búsqueda de productos fuera del hilo principal para las pantallas con buscador.
+ *
+ * Las pulsaciones se agrupan (debounce) y la actualización del índice, la búsqueda y
+ * la ordenación se ejecutan en un hilo de fondo. Cada consulta nueva invalida la
+ * anterior: un cálculo obsoleto se abandona en el siguiente punto de control y su
+ * resultado nunca llega al adapter. El listener se invoca en el hilo principal.
+ */
+public class ProductSearchPipeline {
+    private static final String TAG = "ProductSearchPipeline";
+    public static final long DEBOUNCE_MS = 250;
+
+    // Un único hilo compartido: solo hay una pantalla de búsqueda visible a la vez
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "product-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Ordena los resultados en el hilo de fondo; puede modificar la lista. */
+    public interface Ranker {
+        void rank(String query, List<Product> results);
+    }
+
+    public interface Listener {
+        void onResults(String query, List<Product> results);
+    }
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+    private final AtomicReference<List<Product>> pendingProducts = new AtomicReference<>();
+    // Última lista indexada (solo en el hilo de fondo), para reconstruir el índice si se vacía
+    private List<Product> indexedProducts;
+    private volatile long indexBytes;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Ranker ranker;
+    private final Listener listener;
+
+    private String pendingQuery = "";
+    private Future<?> inFlight;
+    private final Runnable debounced = () -> start(pendingQuery);
+
+    public ProductSearchPipeline(Ranker ranker, Listener listener) {
+        this.ranker = ranker;
+        this.listener = listener;
+    }
+
+    /**
+     * Sustituye la lista de productos y vuelve a buscar de inmediato. El índice se
+     * actualiza en el hilo de fondo, así que la lista se copia.
+     */
+    public void setProducts(List<Product> products, String query) {
+        pendingProducts.set(new ArrayList<>(products));
+        submitNow(query);
+    }
+
+    /**
+     * Programa una búsqueda tras {@link #DEBOUNCE_MS} sin nuevas pulsaciones.
+     */
+    public void submit(String query) {
+        pendingQuery = query != null ? query : "";
+        // Invalidar ya el cálculo en curso: su resultado quedaría obsoleto
+        generation.incrementAndGet();
+        mainHandler.removeCallbacks(debounced);
+        mainHandler.postDelayed(debounced, DEBOUNCE_MS);
+    }
+
+    /**
+     * Busca sin esperar (carga de datos, cambio de filtros).
+     */
+    public void submitNow(String query) {
+        pendingQuery = query != null ? query : "";
+        mainHandler.removeCallbacks(debounced);
+        start(pendingQuery);
+    }
+
+    /**
+     * Descarta la búsqueda pendiente y la que esté en curso (p. ej. en onDestroyView).
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+        mainHandler.removeCallbacks(debounced);
+        if (inFlight != null) {
+            inFlight.cancel(false);
+            inFlight = null;
+        }
+    }
+
+    /**
+     * El índice como caché de {@link CacheRegistry}: con la mitad de presión o más se
+     * vacía, y la siguiente búsqueda lo reconstruye con la última lista.
+     */
+    public CacheRegistry.TrimmableCache asCache() {
+        return new CacheRegistry.TrimmableCache() {
+            @Override
+            public long estimatedBytes() {
+                return indexBytes;
+            }
+
+            @Override
+            public void trim(float fraction) {
+                if (fraction >= 0.5f) {
+                    releaseIndex();
+                }
+            }
+        };
+    }
+
+    private void releaseIndex() {
+        EXECUTOR.execute(() -> {
+            if (indexedProducts == null) {
+                return;
+            }
+            // Si ya hay una lista nueva pendiente, esa es la que se indexará
+            pendingProducts.compareAndSet(null, indexedProducts);
+            indexedProducts = null;
+            index.clear();
+            indexBytes = 0;
+        });
+    }
+
+    private void start(String query) {
+        final int current = generation.incrementAndGet();
+        if (inFlight != null) {
+            inFlight.cancel(false);
+        }
+        inFlight = EXECUTOR.submit(() -> {
+            List<Product> results = compute(query, current);
+            if (results == null) {
+                return;
+            }
+            mainHandler.post(() -> {
+                // Publicar solo si nadie ha pedido otra búsqueda mientras tanto
+                if (generation.get() == current) {
+                    listener.onResults(query, results);
+                }
+            });
+        });
+    }
+
+    private List<Product> compute(String query, int current) {
+        try {
+            List<Product> products = pendingProducts.getAndSet(null);
+            if (products != null) {
+                index.setProducts(products);
+                indexedProducts = products;
+                indexBytes = index.estimatedBytes();
+            }
+            if (generation.get() != current) {
+                return null;
+            }
+            List<Product> results = index.search(query);
+            if (generation.get() != current) {
+                return null;
+            }
+            if (ranker != null) {
+                ranker.rank(query, results);
+            }
+            return generation.get() == current ? results : null;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error en la búsqueda de productos: " + e.getMessage(), e);
+            return null;
+        }
+    }
+}
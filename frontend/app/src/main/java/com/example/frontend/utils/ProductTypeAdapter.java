@@ -0,0 +1,136 @@
+package com.example.frontend.utils;
+
+import com.example.frontend.model.Product;
+import com.example.frontend.model.SustainabilityMetrics;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Deserializador en streaming de {@link Product}: lee directamente del JsonReader,
+ * sin reflexión ni árbol de JsonElement, e interna category, unit y sellerType.
+ * La serialización se delega en el adaptador reflexivo para no cambiar el JSON enviado.
+ */
+public class ProductTypeAdapter extends TypeAdapter<Product> {
+    private final TypeAdapter<Product> delegate;
+    private final TypeAdapter<SustainabilityMetrics> metricsAdapter;
+    private final StringPool pool;
+
+    public ProductTypeAdapter(Gson gson, TypeAdapter<Product> delegate, StringPool pool) {
+        this.delegate = delegate;
+        this.metricsAdapter = gson.getAdapter(SustainabilityMetrics.class);
+        this.pool = pool;
+    }
+
+    @Override
+    public void write(JsonWriter out, Product value) throws IOException {
+        delegate.write(out, value);
+    }
+
+    @Override
+    public Product read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Product product = new Product();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                // Igual que el adaptador reflexivo: los null no pisan los valores por defecto
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    product.setId(JsonReaderUtils.nextString(in));
+                    break;
+                case "name":
+                    product.setName(JsonReaderUtils.nextString(in));
+                    break;
+                case "category":
+                    product.setCategory(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "price":
+                    product.setPrice(in.nextDouble());
+                    break;
+                case "quantity":
+                    product.setQuantity(in.nextInt());
+                    break;
+                case "stock":
+                    product.setStock(in.nextInt());
+                    break;
+                case "sustainabilityMetrics":
+                    product.setSustainabilityMetrics(metricsAdapter.read(in));
+                    break;
+                case "blockchainId":
+                    product.setBlockchainId(JsonReaderUtils.nextString(in));
+                    break;
+                case "description":
+                    product.setDescription(JsonReaderUtils.nextString(in));
+                    break;
+                case "farmerId":
+                    product.setFarmerId(JsonReaderUtils.nextInteger(in));
+                    break;
+                case "harvestDate":
+                    product.setHarvestDate(JsonReaderUtils.nextDate(in));
+                    break;
+                case "sustainable":
+                    product.setSustainable(JsonReaderUtils.nextBoolean(in));
+                    break;
+                case "distance_km":
+                    product.setDistance_km(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "score":
+                    product.setScore(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "is_hidden":
+                    product.setHidden(JsonReaderUtils.nextBoolean(in));
+                    break;
+                case "stock_available":
+                    product.setStockAvailable(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "is_eco":
+                    product.setIsEco(JsonReaderUtils.nextBoolean(in));
+                    break;
+                case "expiration_date":
+                    product.setExpirationDate(JsonReaderUtils.nextDate(in));
+                    break;
+                case "provider_id":
+                    product.setProviderId(JsonReaderUtils.nextInteger(in));
+                    break;
+                case "image_url":
+                    product.setImageUrl(JsonReaderUtils.nextString(in));
+                    break;
+                case "unit":
+                    product.setUnit(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "sellerType":
+                    product.setSellerType(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "provider_name":
+                    product.setProviderName(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "provider_lat":
+                    product.setProviderLat(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "provider_lon":
+                    product.setProviderLon(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "updated_at":
+                    product.setUpdatedAt(JsonReaderUtils.nextDate(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return product;
+    }
+}
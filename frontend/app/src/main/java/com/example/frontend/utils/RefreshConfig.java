@@ -1,70 +1,104 @@
 package com.example.frontend.utils;
 
 /**
- * Configuración para la actualización automática de datos.
+ * Política de actualización automática de una suscripción a {@link RefreshScheduler}.
+ *
+ * Es inmutable: cada pantalla indica la suya al suscribirse y, si el usuario la cambia,
+ * crea otra con {@link #withEnabled} o {@link #withIntervalSeconds}. El intervalo real
+ * se adapta entre el mínimo y el máximo según cambien o no los datos, y tras un error
+ * se espera el doble cada vez hasta maxBackoff.
  */
 public class RefreshConfig {
-    
+
     // Intervalos de actualización disponibles (en milisegundos)
     public static final int INTERVAL_15_SECONDS = 15000;
     public static final int INTERVAL_30_SECONDS = 30000;
     public static final int INTERVAL_1_MINUTE = 60000;
     public static final int INTERVAL_2_MINUTES = 120000;
     public static final int INTERVAL_5_MINUTES = 300000;
-    
+
     // Intervalo por defecto
     public static final int DEFAULT_INTERVAL = INTERVAL_30_SECONDS;
-    
-    // Configuración de actualización automática
-    private static boolean autoRefreshEnabled = true;
-    private static int refreshInterval = DEFAULT_INTERVAL;
-    
+
+    public static final RefreshConfig DEFAULT = new RefreshConfig(true, DEFAULT_INTERVAL);
+
+    private final boolean autoRefreshEnabled;
+    private final int refreshInterval;
+    private final int minInterval;
+    private final int maxInterval;
+    private final int maxBackoff;
+
+    /**
+     * Intervalo base con adaptación entre la mitad y el cuádruple, y como mucho
+     * 5 minutos de espera tras errores.
+     */
+    public RefreshConfig(boolean enabled, int refreshInterval) {
+        this(enabled, refreshInterval, refreshInterval / 2, refreshInterval * 4,
+                Math.max(INTERVAL_5_MINUTES, refreshInterval));
+    }
+
+    public RefreshConfig(boolean enabled, int refreshInterval, int minInterval, int maxInterval, int maxBackoff) {
+        this.autoRefreshEnabled = enabled;
+        this.refreshInterval = refreshInterval;
+        this.minInterval = Math.min(minInterval, refreshInterval);
+        this.maxInterval = Math.max(maxInterval, refreshInterval);
+        this.maxBackoff = Math.max(maxBackoff, refreshInterval);
+    }
+
     /**
      * Obtiene si la actualización automática está habilitada.
      */
-    public static boolean isAutoRefreshEnabled() {
+    public boolean isAutoRefreshEnabled() {
         return autoRefreshEnabled;
     }
-    
+
     /**
-     * Establece si la actualización automática está habilitada.
+     * Misma política con la actualización automática habilitada o no.
      */
-    public static void setAutoRefreshEnabled(boolean enabled) {
-        autoRefreshEnabled = enabled;
+    public RefreshConfig withEnabled(boolean enabled) {
+        return new RefreshConfig(enabled, refreshInterval, minInterval, maxInterval, maxBackoff);
     }
-    
+
     /**
      * Obtiene el intervalo de actualización en milisegundos.
      */
-    public static int getRefreshInterval() {
+    public int getRefreshInterval() {
         return refreshInterval;
     }
-    
-    /**
-     * Establece el intervalo de actualización en milisegundos.
-     */
-    public static void setRefreshInterval(int interval) {
-        refreshInterval = interval;
+
+    /** Intervalo mínimo cuando los datos cambian en cada consulta. */
+    public int getMinInterval() {
+        return minInterval;
+    }
+
+    /** Intervalo máximo cuando los datos no cambian. */
+    public int getMaxInterval() {
+        return maxInterval;
     }
-    
+
+    /** Espera máxima entre reintentos tras errores consecutivos. */
+    public int getMaxBackoff() {
+        return maxBackoff;
+    }
+
     /**
      * Obtiene el intervalo de actualización en segundos.
      */
-    public static int getRefreshIntervalSeconds() {
+    public int getRefreshIntervalSeconds() {
         return refreshInterval / 1000;
     }
-    
+
     /**
-     * Establece el intervalo de actualización en segundos.
+     * Nueva política con otro intervalo base; el rango adaptativo se recalcula.
      */
-    public static void setRefreshIntervalSeconds(int seconds) {
-        refreshInterval = seconds * 1000;
+    public RefreshConfig withIntervalSeconds(int seconds) {
+        return new RefreshConfig(autoRefreshEnabled, seconds * 1000);
     }
-    
+
     /**
      * Obtiene una descripción legible del intervalo.
      */
-    public static String getIntervalDescription() {
+    public String getIntervalDescription() {
         int seconds = getRefreshIntervalSeconds();
         if (seconds < 60) {
             return seconds + " segundos";
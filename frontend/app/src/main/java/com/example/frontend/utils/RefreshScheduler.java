@@ -0,0 +1,486 @@
+package com.example.frontend.utils;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actualización automática compartida por todas las pantallas.
+ *
+ * Cada pantalla se suscribe con una clave ("dashboard:12", "alerts:12"...). Las
+ * suscripciones con la misma clave comparten una única consulta periódica y reciben
+ * el mismo resultado. Mientras una consulta sigue en curso no se lanza otra; tras un
+ * error se espera el doble cada vez (hasta maxBackoff) y, si los datos no cambian
+ * entre consultas, el intervalo se alarga hasta el máximo de la política (y se acorta
+ * hasta el mínimo si cambian en cada una).
+ *
+ * Las suscripciones siguen el ciclo de vida del LifecycleOwner (STARTED = activa).
+ * Con la aplicación en segundo plano o la pantalla apagada no se consulta nada; al
+ * volver se consulta de inmediato si los datos han caducado. Todo ocurre en el hilo
+ * principal.
+ */
+public final class RefreshScheduler {
+    private static final String TAG = "RefreshScheduler";
+
+    private static RefreshScheduler instance;
+
+    /** Lanza la consulta; el callback puede llamarse desde cualquier hilo. */
+    public interface Fetcher<T> {
+        void fetch(FetchCallback<T> callback);
+    }
+
+    public interface FetchCallback<T> {
+        void onSuccess(T data);
+        void onFailure(String message);
+    }
+
+    public interface Listener<T> {
+        void onData(T data);
+        void onError(String message);
+    }
+
+    /** Decide si un resultado nuevo supone un cambio respecto al anterior. */
+    public interface ChangeDetector<T> {
+        boolean hasChanged(T previous, T current);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, Entry<?>> entries = new HashMap<>();
+    private boolean appVisible = true;
+    private boolean screenOn = true;
+    private int startedActivities;
+
+    public static synchronized RefreshScheduler getInstance() {
+        if (instance == null) {
+            instance = new RefreshScheduler();
+        }
+        return instance;
+    }
+
+    private RefreshScheduler() {
+    }
+
+    /**
+     * Sigue si hay alguna actividad visible y si la pantalla está encendida. Se llama
+     * una vez desde Application.onCreate().
+     */
+    public static void init(Application application) {
+        RefreshScheduler scheduler = getInstance();
+        scheduler.appVisible = false;
+        PowerManager powerManager = (PowerManager) application.getSystemService(Context.POWER_SERVICE);
+        if (powerManager != null) {
+            scheduler.screenOn = powerManager.isInteractive();
+        }
+
+        application.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityStarted(Activity activity) {
+                if (scheduler.startedActivities++ == 0) {
+                    scheduler.setAppVisible(true);
+                }
+            }
+
+            @Override
+            public void onActivityStopped(Activity activity) {
+                if (scheduler.startedActivities > 0 && --scheduler.startedActivities == 0) {
+                    scheduler.setAppVisible(false);
+                }
+            }
+
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            }
+
+            @Override
+            public void onActivityResumed(Activity activity) {
+            }
+
+            @Override
+            public void onActivityPaused(Activity activity) {
+            }
+
+            @Override
+            public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+            }
+
+            @Override
+            public void onActivityDestroyed(Activity activity) {
+            }
+        });
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        application.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                scheduler.setScreenOn(Intent.ACTION_SCREEN_ON.equals(intent.getAction()));
+            }
+        }, filter);
+    }
+
+    /**
+     * Suscripción ligada al ciclo de vida de owner (en un fragment, getViewLifecycleOwner()).
+     * Un resultado se considera cambio si no es equals() al anterior.
+     */
+    public <T> Subscription<T> subscribe(LifecycleOwner owner, String key, RefreshConfig config,
+                                         Fetcher<T> fetcher, Listener<T> listener) {
+        return subscribe(owner, key, config, fetcher, listener, null);
+    }
+
+    public <T> Subscription<T> subscribe(LifecycleOwner owner, String key, RefreshConfig config,
+                                         Fetcher<T> fetcher, Listener<T> listener,
+                                         ChangeDetector<T> changeDetector) {
+        @SuppressWarnings("unchecked")
+        Entry<T> entry = (Entry<T>) entries.get(key);
+        if (entry == null) {
+            entry = new Entry<>(key, changeDetector);
+            entries.put(key, entry);
+        }
+        Subscription<T> subscription = new Subscription<>(this, entry, config, fetcher, listener);
+        entry.subscriptions.add(subscription);
+        entry.updatePolicy();
+
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(LifecycleOwner source, Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_START) {
+                    subscription.setActive(true);
+                } else if (event == Lifecycle.Event.ON_STOP) {
+                    subscription.setActive(false);
+                } else if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                    subscription.cancel();
+                }
+            }
+        });
+        return subscription;
+    }
+
+    void setAppVisible(boolean visible) {
+        if (appVisible != visible) {
+            appVisible = visible;
+            Log.d(TAG, "Aplicación " + (visible ? "visible" : "en segundo plano"));
+            onRunStateChanged();
+        }
+    }
+
+    void setScreenOn(boolean on) {
+        if (screenOn != on) {
+            screenOn = on;
+            Log.d(TAG, "Pantalla " + (on ? "encendida" : "apagada"));
+            onRunStateChanged();
+        }
+    }
+
+    private boolean canRun() {
+        return appVisible && screenOn;
+    }
+
+    private void onRunStateChanged() {
+        for (Entry<?> entry : new ArrayList<>(entries.values())) {
+            if (canRun()) {
+                entry.resume();
+            } else {
+                handler.removeCallbacks(entry.tick);
+            }
+        }
+    }
+
+    private void remove(Entry<?> entry) {
+        handler.removeCallbacks(entry.tick);
+        entry.removed = true;
+        entries.remove(entry.key);
+    }
+
+    /**
+     * Una pantalla suscrita. Se cancela sola al destruirse su LifecycleOwner.
+     */
+    public static final class Subscription<T> {
+        private final RefreshScheduler scheduler;
+        private final Entry<T> entry;
+        private final Fetcher<T> fetcher;
+        private final Listener<T> listener;
+        private RefreshConfig config;
+        private boolean active;
+        private boolean cancelled;
+        private int deliveredVersion = -1;
+
+        Subscription(RefreshScheduler scheduler, Entry<T> entry, RefreshConfig config,
+                     Fetcher<T> fetcher, Listener<T> listener) {
+            this.scheduler = scheduler;
+            this.entry = entry;
+            this.config = config;
+            this.fetcher = fetcher;
+            this.listener = listener;
+        }
+
+        /** Cambia la política (p. ej. el usuario desactiva la actualización automática). */
+        public void setConfig(RefreshConfig config) {
+            this.config = config;
+            if (!cancelled) {
+                entry.updatePolicy();
+                entry.schedule();
+            }
+        }
+
+        public RefreshConfig getConfig() {
+            return config;
+        }
+
+        /** Consulta ya, salvo que haya una consulta en curso cuyo resultado llegará igualmente. */
+        public void refreshNow() {
+            if (!cancelled) {
+                entry.fetchNow();
+            }
+        }
+
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            active = false;
+            entry.subscriptions.remove(this);
+            if (entry.subscriptions.isEmpty()) {
+                scheduler.remove(entry);
+            } else {
+                entry.updatePolicy();
+                entry.schedule();
+            }
+        }
+
+        void setActive(boolean active) {
+            if (cancelled || this.active == active) {
+                return;
+            }
+            this.active = active;
+            entry.updatePolicy();
+            if (active) {
+                // Al volver a la pantalla, mostrar lo último recibido mientras estaba parada
+                if (entry.hasData && deliveredVersion != entry.version) {
+                    deliver(entry.data);
+                }
+                entry.resume();
+            } else {
+                entry.schedule();
+            }
+        }
+
+        void deliver(T data) {
+            deliveredVersion = entry.version;
+            listener.onData(data);
+        }
+    }
+
+    private final class Entry<T> {
+        final String key;
+        final ChangeDetector<T> changeDetector;
+        final List<Subscription<T>> subscriptions = new ArrayList<>();
+        final Runnable tick = this::fetchNow;
+
+        // Política combinada de las suscripciones activas
+        boolean enabled;
+        long baseInterval;
+        long minInterval;
+        long maxInterval;
+        long maxBackoff;
+
+        long interval;
+        int failures;
+        boolean inFlight;
+        boolean removed;
+        long lastFetchAt = -1;
+        T data;
+        boolean hasData;
+        int version;
+
+        Entry(String key, ChangeDetector<T> changeDetector) {
+            this.key = key;
+            this.changeDetector = changeDetector;
+        }
+
+        /** La suscripción activa más exigente marca el ritmo; sin activas no se consulta. */
+        void updatePolicy() {
+            boolean anyEnabled = false;
+            long base = Long.MAX_VALUE;
+            long min = Long.MAX_VALUE;
+            long max = Long.MAX_VALUE;
+            long backoff = 0;
+            for (Subscription<T> subscription : subscriptions) {
+                RefreshConfig config = subscription.config;
+                if (!subscription.active || !config.isAutoRefreshEnabled()) {
+                    continue;
+                }
+                anyEnabled = true;
+                base = Math.min(base, config.getRefreshInterval());
+                min = Math.min(min, config.getMinInterval());
+                max = Math.min(max, config.getMaxInterval());
+                backoff = Math.max(backoff, config.getMaxBackoff());
+            }
+            enabled = anyEnabled;
+            if (!anyEnabled) {
+                return;
+            }
+            if (base != baseInterval) {
+                // Nuevo intervalo base: la adaptación empieza de cero
+                interval = base;
+            }
+            baseInterval = base;
+            minInterval = min;
+            maxInterval = Math.max(max, base);
+            maxBackoff = backoff;
+            interval = Math.max(minInterval, Math.min(maxInterval, interval));
+        }
+
+        boolean hasActiveSubscriptions() {
+            for (Subscription<T> subscription : subscriptions) {
+                if (subscription.active) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Consulta ya si no hay datos o han caducado; si no, programa la siguiente. */
+        void resume() {
+            if (!canRun() || !hasActiveSubscriptions()) {
+                return;
+            }
+            long staleAfter = enabled ? interval : RefreshConfig.DEFAULT_INTERVAL;
+            if (!hasData || SystemClock.elapsedRealtime() - lastFetchAt >= staleAfter) {
+                fetchNow();
+            } else {
+                schedule();
+            }
+        }
+
+        void schedule() {
+            handler.removeCallbacks(tick);
+            if (removed || inFlight || !enabled || !canRun()) {
+                return;
+            }
+            long delay = failures > 0 ? backoffDelay() : interval;
+            long due = lastFetchAt + delay;
+            handler.postDelayed(tick, Math.max(0, due - SystemClock.elapsedRealtime()));
+        }
+
+        private long backoffDelay() {
+            long delay = interval;
+            for (int i = 0; i < failures && delay < maxBackoff; i++) {
+                delay *= 2;
+            }
+            return Math.min(delay, maxBackoff);
+        }
+
+        void fetchNow() {
+            handler.removeCallbacks(tick);
+            if (removed || inFlight) {
+                // La respuesta pendiente llegará a todas las suscripciones
+                return;
+            }
+            Fetcher<T> fetcher = currentFetcher();
+            if (fetcher == null) {
+                return;
+            }
+            inFlight = true;
+            fetcher.fetch(new FetchCallback<T>() {
+                @Override
+                public void onSuccess(T result) {
+                    runOnMain(() -> onFetched(result));
+                }
+
+                @Override
+                public void onFailure(String message) {
+                    runOnMain(() -> onFetchFailed(message));
+                }
+            });
+        }
+
+        /** El de la suscripción activa más antigua: la pantalla que se suscribió primero. */
+        private Fetcher<T> currentFetcher() {
+            for (Subscription<T> subscription : subscriptions) {
+                if (subscription.active) {
+                    return subscription.fetcher;
+                }
+            }
+            return subscriptions.isEmpty() ? null : subscriptions.get(0).fetcher;
+        }
+
+        private void onFetched(T result) {
+            inFlight = false;
+            if (removed) {
+                return;
+            }
+            lastFetchAt = SystemClock.elapsedRealtime();
+            failures = 0;
+            boolean changed = !hasData || hasChanged(data, result);
+            if (hasData && enabled) {
+                // Acercar el intervalo al ritmo al que cambian los datos
+                interval = changed
+                        ? Math.max(minInterval, interval / 2)
+                        : Math.min(maxInterval, interval + interval / 2);
+            }
+            if (changed) {
+                data = result;
+                hasData = true;
+                version++;
+            }
+            for (Subscription<T> subscription : new ArrayList<>(subscriptions)) {
+                if (subscription.active && subscription.deliveredVersion != version) {
+                    subscription.deliver(data);
+                }
+            }
+            schedule();
+        }
+
+        private void onFetchFailed(String message) {
+            inFlight = false;
+            if (removed) {
+                return;
+            }
+            lastFetchAt = SystemClock.elapsedRealtime();
+            failures++;
+            Log.w(TAG, key + ": error " + failures + " seguido, próximo intento en " + backoffDelay() + " ms");
+            for (Subscription<T> subscription : new ArrayList<>(subscriptions)) {
+                if (subscription.active) {
+                    subscription.listener.onError(message);
+                }
+            }
+            schedule();
+        }
+
+        private boolean hasChanged(T previous, T current) {
+            if (changeDetector != null) {
+                return changeDetector.hasChanged(previous, current);
+            }
+            return previous == null ? current != null : !previous.equals(current);
+        }
+    }
+
+    private void runOnMain(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            handler.post(runnable);
+        }
+    }
+}
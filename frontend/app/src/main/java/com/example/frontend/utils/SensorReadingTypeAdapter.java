@@ -0,0 +1,103 @@
+package com.example.frontend.utils;
+
+import com.example.frontend.model.SensorReading;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Deserializador en streaming de {@link SensorReading}. Interna source_device,
+ * que es el mismo para todas las lecturas de un sensor.
+ * La serialización se delega en el adaptador reflexivo.
+ */
+public class SensorReadingTypeAdapter extends TypeAdapter<SensorReading> {
+    private final TypeAdapter<SensorReading> delegate;
+    private final TypeAdapter<Map<String, Object>> extraDataAdapter;
+    private final StringPool pool;
+
+    public SensorReadingTypeAdapter(Gson gson, TypeAdapter<SensorReading> delegate, StringPool pool) {
+        this.delegate = delegate;
+        this.extraDataAdapter = gson.getAdapter(new TypeToken<Map<String, Object>>() {});
+        this.pool = pool;
+    }
+
+    @Override
+    public void write(JsonWriter out, SensorReading value) throws IOException {
+        delegate.write(out, value);
+    }
+
+    @Override
+    public SensorReading read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        SensorReading reading = new SensorReading();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    reading.setId(in.nextInt());
+                    break;
+                case "sensor_id":
+                    reading.setSensorId(in.nextInt());
+                    break;
+                case "product_id":
+                    reading.setProductId(JsonReaderUtils.nextInteger(in));
+                    break;
+                case "temperature":
+                    reading.setTemperature(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "humidity":
+                    reading.setHumidity(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "gas_level":
+                    reading.setGasLevel(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "light_level":
+                    reading.setLightLevel(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "shock_detected":
+                    reading.setShockDetected(JsonReaderUtils.nextBoolean(in));
+                    break;
+                case "soil_moisture":
+                    reading.setSoilMoisture(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "ph_level":
+                    reading.setPhLevel(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "created_at":
+                    reading.setCreatedAt(JsonReaderUtils.nextString(in));
+                    break;
+                case "source_device":
+                    reading.setSourceDevice(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "reading_quality":
+                    reading.setReadingQuality(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "is_processed":
+                    reading.setIsProcessed(JsonReaderUtils.nextBoolean(in));
+                    break;
+                case "extra_data":
+                    reading.setExtraData(extraDataAdapter.read(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return reading;
+    }
+}
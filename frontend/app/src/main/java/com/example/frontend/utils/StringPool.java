@@ -0,0 +1,78 @@
+package com.example.frontend.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool acotado de cadenas para valores muy repetidos en las respuestas
+ * (categorías, unidades, estados, tipos de vendedor...).
+ *
+ * A diferencia de {@link String#intern()}, el tamaño está limitado: una vez lleno
+ * se devuelven las cadenas tal cual, sin crecer más.
+ */
+public class StringPool {
+    private static final int DEFAULT_MAX_SIZE = 2048;
+    // Entrada del mapa más una cadena corta
+    private static final long ENTRY_BYTES = 96;
+    private static final StringPool SHARED = new StringPool(DEFAULT_MAX_SIZE);
+
+    static {
+        // Solo ahorra memoria repetida: vaciarlo no pierde nada
+        CacheRegistry.getInstance().register(SHARED, "string_pool", CacheRegistry.EvictionPriority.HIGH,
+                new CacheRegistry.TrimmableCache() {
+                    @Override
+                    public long estimatedBytes() {
+                        return SHARED.size() * ENTRY_BYTES;
+                    }
+
+                    @Override
+                    public void trim(float fraction) {
+                        SHARED.trim(fraction);
+                    }
+                });
+    }
+
+    private final ConcurrentHashMap<String, String> pool = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    public StringPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public static StringPool shared() {
+        return SHARED;
+    }
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = pool.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (pool.size() >= maxSize) {
+            return value;
+        }
+        pooled = pool.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    public int size() {
+        return pool.size();
+    }
+
+    public void clear() {
+        pool.clear();
+    }
+
+    /** Quita esa fracción de las entradas; las cadenas ya compartidas siguen siéndolo. */
+    public void trim(float fraction) {
+        int remove = (int) Math.ceil(pool.size() * fraction);
+        Iterator<String> keys = pool.keySet().iterator();
+        while (remove-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.frontend.utils;
+
+import com.example.frontend.model.CartItem;
+import com.example.frontend.model.OrderItem;
+import com.example.frontend.model.Transaction;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Deserializador en streaming de {@link Transaction}. Interna status, currency,
+ * buyer_type, seller_type y payment_method, que se repiten en cada fila del historial.
+ * La serialización se delega en el adaptador reflexivo.
+ */
+public class TransactionTypeAdapter extends TypeAdapter<Transaction> {
+    private final TypeAdapter<Transaction> delegate;
+    private final TypeAdapter<List<OrderItem>> orderItemsAdapter;
+    private final TypeAdapter<List<CartItem>> cartItemsAdapter;
+    private final StringPool pool;
+
+    public TransactionTypeAdapter(Gson gson, TypeAdapter<Transaction> delegate, StringPool pool) {
+        this.delegate = delegate;
+        this.orderItemsAdapter = gson.getAdapter(new TypeToken<List<OrderItem>>() {});
+        this.cartItemsAdapter = gson.getAdapter(new TypeToken<List<CartItem>>() {});
+        this.pool = pool;
+    }
+
+    @Override
+    public void write(JsonWriter out, Transaction value) throws IOException {
+        delegate.write(out, value);
+    }
+
+    @Override
+    public Transaction read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        Transaction transaction = new Transaction();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    transaction.setId(JsonReaderUtils.nextInteger(in));
+                    break;
+                case "buyer_id":
+                    transaction.setBuyerId(JsonReaderUtils.nextInteger(in));
+                    break;
+                case "seller_id":
+                    transaction.setSellerId(JsonReaderUtils.nextInteger(in));
+                    break;
+                case "buyer_type":
+                    transaction.setBuyerType(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "seller_type":
+                    transaction.setSellerType(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "buyer_name":
+                    transaction.setBuyerName(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "seller_name":
+                    transaction.setSellerName(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "total_price":
+                    transaction.setTotalPrice(JsonReaderUtils.nextDouble(in));
+                    break;
+                case "currency":
+                    transaction.setCurrency(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "status":
+                    transaction.setStatus(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "payment_method":
+                    transaction.setPaymentMethod(JsonReaderUtils.nextPooledString(in, pool));
+                    break;
+                case "delivery_address":
+                    transaction.setDeliveryAddress(JsonReaderUtils.nextString(in));
+                    break;
+                case "phone":
+                    transaction.setPhone(JsonReaderUtils.nextString(in));
+                    break;
+                case "created_at":
+                    transaction.setCreatedAt(JsonReaderUtils.nextDate(in));
+                    break;
+                case "confirmed_at":
+                    transaction.setConfirmedAt(JsonReaderUtils.nextDate(in));
+                    break;
+                case "delivered_at":
+                    transaction.setDeliveredAt(JsonReaderUtils.nextDate(in));
+                    break;
+                case "order_details":
+                    transaction.setOrderDetails(orderItemsAdapter.read(in));
+                    break;
+                case "items":
+                    transaction.setItems(cartItemsAdapter.read(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+        return transaction;
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.frontend.data;
+
+import com.example.frontend.api.ApiService;
+import com.example.frontend.model.Product;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * PagedLoader sobre /products servido por MockWebServer, con la misma fuente que usan
+ * las pantallas ({@link PagedLoader#fromCalls} y Retrofit).
+ */
+public class PagedLoaderTest {
+
+    private static final int ROWS = 50_000;
+    private static final int PAGE_SIZE = PagedLoader.DEFAULT_PAGE_SIZE;
+    private static final int MAX_PAGES = PagedLoader.DEFAULT_MAX_PAGES;
+    private static final int VIEWPORT = 12;
+
+    private MockWebServer server;
+    private Catalog catalog;
+    // Hace de hilo principal: los callbacks de Retrofit se ejecutan al vaciarla
+    private final BlockingQueue<Runnable> mainThread = new LinkedBlockingQueue<>();
+    private Window window;
+    private PagedLoader<Integer> loader;
+
+    @Before
+    public void setUp() throws IOException {
+        catalog = new Catalog(ROWS);
+        server = new MockWebServer();
+        server.setDispatcher(catalog);
+        server.start();
+
+        ApiService api = new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .callbackExecutor(mainThread::add)
+                .build()
+                .create(ApiService.class);
+        window = new Window();
+        loader = new PagedLoader<>(PagedLoader.fromCalls(
+                (offset, limit) -> api.getProductsPage("farmer", true, offset, limit),
+                PagedLoaderTest::ids), window);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void resetLoadsOnlyTheFirstPage() throws Exception {
+        loader.reset();
+        runUntilIdle();
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("/products?provider_role=farmer&available_only=true&offset=0&limit=" + PAGE_SIZE,
+                request.getPath());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(PAGE_SIZE, window.items.size());
+        assertEquals(0, window.offset);
+        assertTrue(window.hasMore);
+        assertEquals(Integer.valueOf(0), window.items.get(0));
+    }
+
+    @Test
+    public void scrollingThroughFiftyThousandRowsKeepsTheWindowBounded() throws Exception {
+        loader.reset();
+        runUntilIdle();
+        int maxWindow = 0;
+        for (int position = 0; position < ROWS; position += VIEWPORT) {
+            scrollTo(position);
+            maxWindow = Math.max(maxWindow, window.items.size());
+        }
+
+        assertEquals(MAX_PAGES * PAGE_SIZE, maxWindow);
+        // Cada página se pide una sola vez y en orden; la última está llena, así que hace
+        // falta una petición más (vacía) para saber que no quedan filas
+        List<Integer> offsets = catalog.offsets();
+        assertEquals(ROWS / PAGE_SIZE + 1, offsets.size());
+        for (int i = 0; i < offsets.size(); i++) {
+            assertEquals(i * PAGE_SIZE, (int) offsets.get(i));
+        }
+        assertFalse(window.hasMore);
+        assertEquals(Integer.valueOf(ROWS - 1), window.items.get(window.items.size() - 1));
+    }
+
+    @Test
+    public void scrollingBackUpReloadsEarlierPages() throws Exception {
+        loader.reset();
+        runUntilIdle();
+        for (int position = 0; position < 20 * PAGE_SIZE; position += VIEWPORT) {
+            scrollTo(position);
+        }
+        int requestsDown = catalog.offsets().size();
+        assertTrue(window.offset > 0);
+
+        for (int position = 20 * PAGE_SIZE; position >= 0; position -= VIEWPORT) {
+            scrollTo(position);
+        }
+
+        assertEquals(0, window.offset);
+        assertTrue(window.items.size() <= MAX_PAGES * PAGE_SIZE);
+        assertTrue(window.hasMore);
+        // Hacia arriba solo se piden las páginas que se habían descartado
+        assertTrue(catalog.offsets().size() - requestsDown <= 20);
+    }
+
+    @Test
+    public void responseAfterResetIsIgnored() throws Exception {
+        // La primera respuesta trae otras filas para distinguirla
+        catalog.firstRow = 1_000_000;
+        loader.reset();
+        Runnable stale = nextCallback();
+        catalog.firstRow = 0;
+        loader.reset();
+        Runnable fresh = nextCallback();
+
+        stale.run();
+        assertNull(window.items);
+
+        fresh.run();
+        assertEquals(Integer.valueOf(0), window.items.get(0));
+    }
+
+    @Test
+    public void trimMemoryKeepsOnlyVisiblePages() throws Exception {
+        loader.reset();
+        runUntilIdle();
+        for (int position = 0; position < 8 * PAGE_SIZE; position += VIEWPORT) {
+            scrollTo(position);
+        }
+        int firstVisible = 8 * PAGE_SIZE - window.offset;
+        loader.onVisibleRange(firstVisible, firstVisible + VIEWPORT - 1);
+        runUntilIdle();
+        int before = catalog.offsets().size();
+
+        loader.trimMemory();
+
+        assertTrue(window.items.size() <= 2 * PAGE_SIZE);
+        assertEquals(before, catalog.offsets().size());
+        int visible = 8 * PAGE_SIZE - window.offset;
+        assertEquals(Integer.valueOf(8 * PAGE_SIZE), window.items.get(visible));
+    }
+
+    @Test
+    public void errorsReachTheListenerAndAllowRetry() throws Exception {
+        catalog.failNext = true;
+        loader.reset();
+        runUntilIdle();
+        assertEquals("HTTP 500", window.error);
+        assertFalse(loader.isLoading());
+
+        loader.reset();
+        runUntilIdle();
+        assertEquals(PAGE_SIZE, window.items.size());
+    }
+
+    /** Simula el RecyclerView: VIEWPORT filas visibles desde la posición global dada. */
+    private void scrollTo(int position) throws InterruptedException {
+        int first = position - window.offset;
+        assertTrue("la fila " + position + " no está en la ventana", first >= 0 && first < window.items.size());
+        assertEquals(Integer.valueOf(position), window.items.get(first));
+        loader.onVisibleRange(first, Math.min(first + VIEWPORT, window.items.size()) - 1);
+        runUntilIdle();
+    }
+
+    /** Ejecuta los callbacks de Retrofit hasta que no queda ninguna página pendiente. */
+    private void runUntilIdle() throws InterruptedException {
+        while (loader.isLoading()) {
+            nextCallback().run();
+        }
+    }
+
+    private Runnable nextCallback() throws InterruptedException {
+        Runnable callback = mainThread.poll(5, TimeUnit.SECONDS);
+        assertNotNull("el servidor no ha respondido", callback);
+        return callback;
+    }
+
+    private static List<Integer> ids(List<Product> page) {
+        List<Integer> ids = new ArrayList<>(page.size());
+        for (Product product : page) {
+            ids.add(Integer.valueOf(product.getId()));
+        }
+        return ids;
+    }
+
+    /** /products con ROWS filas y offset/limit; anota los offsets pedidos. */
+    private static final class Catalog extends Dispatcher {
+        final int rows;
+        private final List<Integer> offsets = Collections.synchronizedList(new ArrayList<>());
+        volatile int firstRow;
+        volatile boolean failNext;
+
+        Catalog(int rows) {
+            this.rows = rows;
+        }
+
+        List<Integer> offsets() {
+            synchronized (offsets) {
+                return new ArrayList<>(offsets);
+            }
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            int offset = Integer.parseInt(request.getRequestUrl().queryParameter("offset"));
+            int limit = Integer.parseInt(request.getRequestUrl().queryParameter("limit"));
+            offsets.add(offset);
+            if (failNext) {
+                failNext = false;
+                return new MockResponse().setResponseCode(500);
+            }
+            StringBuilder body = new StringBuilder("[");
+            for (int i = offset; i < Math.min(rows, offset + limit); i++) {
+                if (i > offset) {
+                    body.append(',');
+                }
+                body.append("{\"id\":").append(firstRow + i)
+                        .append(",\"name\":\"Producto ").append(i).append("\"}");
+            }
+            return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody(body.append(']').toString());
+        }
+    }
+
+    private static final class Window implements PagedLoader.Listener<Integer> {
+        List<Integer> items;
+        int offset;
+        boolean hasMore;
+        String error;
+
+        @Override
+        public void onWindowChanged(List<Integer> items, int windowOffset, boolean hasMore) {
+            this.items = items;
+            this.offset = windowOffset;
+            this.hasMore = hasMore;
+        }
+
+        @Override
+        public void onError(String message) {
+            error = message;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.frontend.data;
+
+import com.example.frontend.model.SensorHistory;
+import com.example.frontend.utils.Downsampler;
+import com.example.frontend.utils.IsoDateParser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class SensorSeriesStoreTest {
+
+    private static final int SENSOR = 7;
+    private static final long BASE = 1_757_000_000_000L;
+    private static final long STEP_MS = 60_000L;
+
+    private SensorSeriesStore store;
+
+    @Before
+    public void setUp() {
+        store = new SensorSeriesStore(100);
+    }
+
+    @Test
+    public void historyAfterALiveReadingIsBackfilled() {
+        // Llega primero una lectura del stream y después el historial de la hora anterior
+        assertTrue(store.append(SENSOR, SensorSeriesStore.Metric.TEMPERATURE, at(60), 25f));
+
+        assertEquals(60, store.append(history(0, 60, 20f)));
+
+        SensorSeriesStore.Series series = query();
+        assertEquals(61, series.size());
+        assertIncreasing(series);
+        assertEquals(at(0), series.timestamps[0]);
+        assertEquals(20f, series.values[0], 0f);
+        assertEquals(25f, store.latest(SENSOR, SensorSeriesStore.Metric.TEMPERATURE), 0f);
+    }
+
+    @Test
+    public void overlappingHistoryKeepsStoredValues() {
+        for (int minute = 10; minute < 20; minute++) {
+            store.append(SENSOR, SensorSeriesStore.Metric.TEMPERATURE, at(minute), 30f);
+        }
+
+        // Minutos 5..14: solo 5..9 son nuevos
+        assertEquals(5, store.append(history(5, 10, 20f)));
+        assertEquals(0, store.append(history(10, 10, 20f)));
+
+        SensorSeriesStore.Series series = query();
+        assertEquals(15, series.size());
+        assertIncreasing(series);
+        assertEquals(20f, series.values[4], 0f);
+        assertEquals(30f, series.values[5], 0f);
+    }
+
+    @Test
+    public void backfillBeyondCapacityDropsTheOldest() {
+        for (int minute = 50; minute < 130; minute++) {
+            store.append(SENSOR, SensorSeriesStore.Metric.TEMPERATURE, at(minute), 30f);
+        }
+
+        // Cabe solo el tramo 30..49 del historial; 0..29 serían los más antiguos
+        assertEquals(20, store.append(history(0, 50, 20f)));
+
+        SensorSeriesStore.Series series = query();
+        assertEquals(100, series.size());
+        assertIncreasing(series);
+        assertEquals(at(30), series.timestamps[0]);
+        assertEquals(at(129), series.timestamps[99]);
+
+        // El anillo sigue funcionando tras reescribirse
+        assertTrue(store.append(SENSOR, SensorSeriesStore.Metric.TEMPERATURE, at(130), 31f));
+        series = query();
+        assertEquals(100, series.size());
+        assertEquals(at(31), series.timestamps[0]);
+        assertEquals(31f, series.values[99], 0f);
+    }
+
+    @Test
+    public void backfillInvalidatesCachedCharts() {
+        store.append(SENSOR, SensorSeriesStore.Metric.TEMPERATURE, at(60), 25f);
+        SensorSeriesStore.Series before = store.downsample(SENSOR, SensorSeriesStore.Metric.TEMPERATURE,
+                120 * STEP_MS, 500, Downsampler.Mode.LTTB);
+        assertEquals(1, before.size());
+
+        store.append(history(0, 60, 20f));
+
+        SensorSeriesStore.Series after = store.downsample(SENSOR, SensorSeriesStore.Metric.TEMPERATURE,
+                120 * STEP_MS, 500, Downsampler.Mode.LTTB);
+        assertEquals(61, after.size());
+    }
+
+    private SensorSeriesStore.Series query() {
+        return store.query(SENSOR, SensorSeriesStore.Metric.TEMPERATURE, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private static long at(int minute) {
+        return BASE + minute * STEP_MS;
+    }
+
+    /** Historial de temperatura de count minutos desde first, de más reciente a más antiguo como el backend. */
+    private static SensorHistory history(int first, int count, float value) {
+        SensorHistory history = new SensorHistory();
+        history.sensor_id = SENSOR;
+        history.type = SensorSeriesStore.Metric.TEMPERATURE.getKey();
+        history.readings = new ArrayList<>();
+        for (int minute = first + count - 1; minute >= first; minute--) {
+            SensorHistory.SensorReading reading = new SensorHistory.SensorReading();
+            reading.created_at = IsoDateParser.format(new Date(at(minute)));
+            reading.value = (double) value;
+            history.readings.add(reading);
+        }
+        return history;
+    }
+
+    private static void assertIncreasing(SensorSeriesStore.Series series) {
+        for (int i = 1; i < series.size(); i++) {
+            assertTrue("desordenada en " + i, series.timestamps[i] > series.timestamps[i - 1]);
+        }
+    }
+}
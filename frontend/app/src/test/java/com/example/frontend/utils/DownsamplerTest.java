@@ -0,0 +1,135 @@
+package com.example.frontend.utils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DownsamplerTest {
+
+    private static final int POINTS = 100_000;
+    private static final int TARGET = 500;
+    private static final long STEP_MS = 30_000L;
+
+    @Test
+    public void lttbKeepsEndsAndReturnsSortedIndices() {
+        Series series = series(POINTS, 7);
+
+        int[] selected = Downsampler.lttb(series.times, series.values, POINTS, TARGET);
+
+        assertEquals(TARGET, selected.length);
+        assertEquals(0, selected[0]);
+        assertEquals(POINTS - 1, selected[TARGET - 1]);
+        assertStrictlyIncreasing(selected);
+    }
+
+    @Test
+    public void minMaxReturnsAtMostTwoPointsPerColumn() {
+        Series series = series(POINTS, 11);
+
+        int[] selected = Downsampler.minMax(series.times, series.values, POINTS, TARGET / 2);
+
+        assertTrue(selected.length <= TARGET);
+        assertStrictlyIncreasing(selected);
+        // El mínimo y el máximo globales caen en alguna columna
+        assertContains(selected, argMin(series.values));
+        assertContains(selected, argMax(series.values));
+    }
+
+    @Test
+    public void bothModesKeepASpike() {
+        Series series = series(POINTS, 13);
+        int spike = 61_234;
+        series.values[spike] = 80f;
+
+        assertContains(Downsampler.lttb(series.times, series.values, POINTS, TARGET), spike);
+        assertContains(Downsampler.minMax(series.times, series.values, POINTS, TARGET / 2), spike);
+    }
+
+    @Test
+    public void shortSeriesIsReturnedWhole() {
+        Series series = series(400, 3);
+
+        assertEquals(400, Downsampler.lttb(series.times, series.values, 400, TARGET).length);
+        assertEquals(400, Downsampler.minMax(series.times, series.values, 400, TARGET / 2).length);
+        assertEquals(2, Downsampler.lttb(series.times, series.values, 2, 2).length);
+    }
+
+    @Test
+    public void minMaxSkipsEmptyColumns() {
+        // Dos ráfagas separadas por un hueco de un día: las columnas intermedias no aportan puntos
+        int count = 2000;
+        long[] times = new long[count];
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = i * 1000L + (i >= count / 2 ? 86_400_000L : 0);
+            values[i] = i % 10;
+        }
+
+        int[] selected = Downsampler.minMax(times, values, count, 100);
+
+        assertTrue(selected.length < 200);
+        assertStrictlyIncreasing(selected);
+    }
+
+    private static Series series(int count, long seed) {
+        Random random = new Random(seed);
+        Series series = new Series(count);
+        long time = 1_757_000_000_000L;
+        float value = 20f;
+        for (int i = 0; i < count; i++) {
+            // Lecturas cada 30 s con algo de retraso aleatorio
+            time += STEP_MS + random.nextInt(2000);
+            value += (float) random.nextGaussian() * 0.1f;
+            series.times[i] = time;
+            series.values[i] = value;
+        }
+        return series;
+    }
+
+    private static int argMin(float[] values) {
+        int min = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] < values[min]) {
+                min = i;
+            }
+        }
+        return min;
+    }
+
+    private static int argMax(float[] values) {
+        int max = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[max]) {
+                max = i;
+            }
+        }
+        return max;
+    }
+
+    private static void assertStrictlyIncreasing(int[] indices) {
+        for (int i = 1; i < indices.length; i++) {
+            assertTrue("índices desordenados en " + i, indices[i] > indices[i - 1]);
+        }
+    }
+
+    private static void assertContains(int[] indices, int index) {
+        for (int i : indices) {
+            if (i == index) {
+                return;
+            }
+        }
+        fail("falta el índice " + index);
+    }
+
+    private static final class Series {
+        final long[] times;
+        final float[] values;
+
+        Series(int count) {
+            times = new long[count];
+            values = new float[count];
+        }
+    }
+}
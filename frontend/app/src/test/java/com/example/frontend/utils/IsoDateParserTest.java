@@ -0,0 +1,75 @@
+package com.example.frontend.utils;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class IsoDateParserTest {
+
+    @Test
+    public void parsesBackendFormats() throws ParseException {
+        long expected = utc("2025-09-06T21:35:55.818");
+
+        assertEquals(expected, IsoDateParser.parseMillis("2025-09-06T21:35:55.818556"));
+        assertEquals(expected, IsoDateParser.parseMillis("2025-09-06T21:35:55.818"));
+        assertEquals(expected - 818, IsoDateParser.parseMillis("2025-09-06T21:35:55"));
+        assertEquals(expected - 818, IsoDateParser.parseMillis("2025-09-06 21:35:55"));
+        assertEquals(expected - 55_818, IsoDateParser.parseMillis("2025-09-06T21:35"));
+        assertEquals(utc("2025-09-06T00:00:00.000"), IsoDateParser.parseMillis("2025-09-06"));
+    }
+
+    @Test
+    public void shortFractionIsScaledToMillis() throws ParseException {
+        long seconds = utc("2025-09-06T21:35:55.000");
+
+        assertEquals(seconds + 500, IsoDateParser.parseMillis("2025-09-06T21:35:55.5"));
+        assertEquals(seconds + 50, IsoDateParser.parseMillis("2025-09-06T21:35:55.05"));
+        assertEquals(seconds + 999, IsoDateParser.parseMillis("2025-09-06T21:35:55.999999999"));
+    }
+
+    @Test
+    public void appliesZoneOffsets() throws ParseException {
+        long expected = utc("2025-09-06T19:35:55.000");
+
+        assertEquals(expected, IsoDateParser.parseMillis("2025-09-06T19:35:55Z"));
+        assertEquals(expected, IsoDateParser.parseMillis("2025-09-06T21:35:55+02:00"));
+        assertEquals(expected, IsoDateParser.parseMillis("2025-09-06T21:35:55+0200"));
+        assertEquals(expected, IsoDateParser.parseMillis("2025-09-06T21:35:55+02"));
+        assertEquals(expected, IsoDateParser.parseMillis("2025-09-06T16:05:55-03:30"));
+    }
+
+    @Test
+    public void rejectsMalformedDates() {
+        String[] invalid = {
+                null, "", "2025-09", "2025/09/06", "2025-13-01", "2025-09-06X21:35",
+                "2025-09-06T25:00:00", "2025-09-06T21:35:55.", "2025-09-06T21:35:55.1234567890",
+                "2025-09-06T21:35:55+2", "2025-09-06T21:35:55 UTC", "abcd-ef-gh"
+        };
+        for (String text : invalid) {
+            assertEquals(text, IsoDateParser.INVALID, IsoDateParser.parseMillis(text));
+            assertNull(text, IsoDateParser.parse(text));
+        }
+    }
+
+    @Test
+    public void formatRoundTrips() {
+        long[] samples = {0L, 1_757_194_555_818L, -86_400_001L, 951_782_400_000L, 4_102_444_799_999L};
+        for (long millis : samples) {
+            String text = IsoDateParser.format(new Date(millis));
+            assertEquals(text, millis, IsoDateParser.parseMillis(text));
+        }
+        assertEquals("2025-09-06T21:35:55.818", IsoDateParser.format(new Date(1_757_194_555_818L)));
+    }
+
+    private static long utc(String text) throws ParseException {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS", Locale.ROOT);
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return sdf.parse(text).getTime();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.frontend.utils;
+
+import com.example.frontend.model.Product;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ProductRankingEngineTest {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int PAGE = 60;
+
+    @Test
+    public void sortMatchesOldComparatorForEveryCriterion() {
+        List<Product> products = products(PRODUCTS, 1);
+        for (ProductRankingEngine.Criterion criterion : ProductRankingEngine.Criterion.values()) {
+            ProductRankingEngine engine = new ProductRankingEngine(criterion);
+
+            List<Product> expected = new ArrayList<>(products);
+            oldSort(expected, engine);
+            List<Product> actual = new ArrayList<>(products);
+            engine.sort(actual);
+
+            assertEquals(criterion.getKey(), expected, actual);
+        }
+    }
+
+    @Test
+    public void sortFirstRanksThePageAndKeepsTheRestInOrder() {
+        List<Product> products = products(PRODUCTS, 2);
+        for (ProductRankingEngine.Criterion criterion : ProductRankingEngine.Criterion.values()) {
+            ProductRankingEngine engine = new ProductRankingEngine(criterion);
+            List<Product> full = new ArrayList<>(products);
+            engine.sort(full);
+
+            List<Product> partial = new ArrayList<>(products);
+            engine.sortFirst(partial, PAGE);
+            assertEquals(criterion.getKey(), full.subList(0, PAGE), partial.subList(0, PAGE));
+
+            List<Product> rest = new ArrayList<>(products);
+            rest.removeAll(partial.subList(0, PAGE));
+            assertEquals(criterion.getKey(), rest, partial.subList(PAGE, PRODUCTS));
+
+            // Ordenar después el resto da lo mismo que ordenar desde el principio
+            engine.sort(partial);
+            assertEquals(criterion.getKey(), full, partial);
+        }
+    }
+
+    @Test
+    public void sortFirstHandlesSmallLists() {
+        ProductRankingEngine engine = new ProductRankingEngine(ProductRankingEngine.Criterion.PRICE);
+        List<Product> products = products(5, 3);
+        List<Product> expected = new ArrayList<>(products);
+        engine.sort(expected);
+
+        List<Product> actual = new ArrayList<>(products);
+        engine.sortFirst(actual, PAGE);
+        assertEquals(expected, actual);
+
+        List<Product> untouched = new ArrayList<>(products);
+        engine.sortFirst(untouched, 0);
+        assertEquals(products, untouched);
+        engine.sortFirst(new ArrayList<>(), PAGE);
+    }
+
+    @Test
+    public void optimalWeightsChangeTheOrder() {
+        Product cheap = product("barato", 1, 90.0, false);
+        Product near = product("cercano", 9, 1.0, false);
+        List<Product> products = new ArrayList<>();
+        Collections.addAll(products, cheap, near);
+
+        new ProductRankingEngine(ProductRankingEngine.Criterion.OPTIMAL,
+                new ProductRankingEngine.Weights(1, 0, 0, 0, 0)).sort(products);
+        assertSame(cheap, products.get(0));
+
+        new ProductRankingEngine(ProductRankingEngine.Criterion.OPTIMAL,
+                new ProductRankingEngine.Weights(0, 1, 0, 0, 0)).sort(products);
+        assertSame(near, products.get(0));
+    }
+
+    @Test
+    public void criterionFromUnknownKeyIsOptimal() {
+        assertEquals(ProductRankingEngine.Criterion.PRICE_DESC, ProductRankingEngine.Criterion.fromKey("price_desc"));
+        assertEquals(ProductRankingEngine.Criterion.OPTIMAL, ProductRankingEngine.Criterion.fromKey("relevance"));
+        assertEquals(ProductRankingEngine.Criterion.OPTIMAL, ProductRankingEngine.Criterion.fromKey(null));
+    }
+
+    /** Orden anterior de los fragments: la puntuación se recalcula en cada comparación. */
+    private static void oldSort(List<Product> products, ProductRankingEngine engine) {
+        Collections.sort(products, (p1, p2) -> Double.compare(engine.score(p2), engine.score(p1)));
+    }
+
+    private static List<Product> products(int count, long seed) {
+        Random random = new Random(seed);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Precios y stock discretos para que haya muchos empates
+            Product product = product(String.valueOf(i), random.nextInt(20),
+                    random.nextInt(4) == 0 ? null : (double) random.nextInt(60), random.nextBoolean());
+            product.setStockAvailable(random.nextInt(3) == 0 ? null : (double) random.nextInt(12));
+            product.setStock(random.nextInt(12));
+            product.setScore(random.nextInt(5) == 0 ? null : (double) random.nextInt(100));
+            products.add(product);
+        }
+        return products;
+    }
+
+    private static Product product(String id, double price, Double distance, boolean eco) {
+        Product product = new Product(id, "Producto " + id, "verduras", price, 1, 10);
+        product.setDistance_km(distance);
+        product.setIsEco(eco);
+        return product;
+    }
+}
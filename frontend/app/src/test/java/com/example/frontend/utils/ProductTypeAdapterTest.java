@@ -0,0 +1,122 @@
+package com.example.frontend.utils;
+
+import com.example.frontend.model.Product;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ProductTypeAdapterTest {
+
+    private static final int PRODUCTS = 5_000;
+    private static final Type PRODUCT_LIST = new TypeToken<List<Product>>() {}.getType();
+    private static final String[] CATEGORIES = {"verduras", "frutas", "lacteos", "carnes", "panaderia"};
+    private static final String[] UNITS = {"kg", "unidad", "litro", "docena"};
+
+    private Gson streaming;
+    private Gson reflective;
+
+    @Before
+    public void setUp() {
+        // Misma configuración que ApiClient.getGson(), con y sin los adaptadores en streaming
+        streaming = new GsonBuilder()
+                .registerTypeAdapter(Date.class, new DateDeserializer())
+                .registerTypeAdapterFactory(new ModelTypeAdapterFactory(new StringPool(256)))
+                .create();
+        reflective = new GsonBuilder()
+                .registerTypeAdapter(Date.class, new DateDeserializer())
+                .create();
+    }
+
+    @Test
+    public void streamingMatchesReflectiveParse() {
+        String json = payload(PRODUCTS, 5);
+
+        List<Product> fast = streaming.fromJson(json, PRODUCT_LIST);
+        List<Product> slow = reflective.fromJson(json, PRODUCT_LIST);
+
+        assertEquals(PRODUCTS, fast.size());
+        // Se comparan serializando ambos resultados con el adaptador reflexivo
+        assertEquals(reflective.toJson(slow), reflective.toJson(fast));
+    }
+
+    @Test
+    public void nullsKeepDefaultsAndUnknownFieldsAreSkipped() {
+        String json = "{\"id\":\"7\",\"name\":null,\"price\":null,\"is_hidden\":null,"
+                + "\"extra\":{\"nested\":[1,2,{\"a\":null}]},\"stock\":\"4\",\"unit\":\"kg\"}";
+
+        Product fast = streaming.fromJson(json, Product.class);
+        Product slow = reflective.fromJson(json, Product.class);
+
+        assertEquals("7", fast.getId());
+        assertNull(fast.getName());
+        assertEquals(4, fast.getStock());
+        assertEquals(reflective.toJson(slow), reflective.toJson(fast));
+    }
+
+    @Test
+    public void repeatedValuesShareOneInstance() {
+        List<Product> products = streaming.fromJson(payload(100, 9), PRODUCT_LIST);
+        Map<String, String> first = new HashMap<>();
+
+        for (Product product : products) {
+            String category = product.getCategory();
+            first.putIfAbsent(category, category);
+            assertSame(first.get(category), category);
+        }
+        assertEquals(CATEGORIES.length, first.size());
+    }
+
+    @Test
+    public void writeUsesReflectiveFormat() {
+        Product product = new Product("3", "Tomate", "verduras", 2.5, 1, 10);
+        product.setUnit("kg");
+
+        assertEquals(reflective.toJson(product), streaming.toJson(product));
+    }
+
+    /** Respuesta de /products con la forma y los campos que envía el backend. */
+    private static String payload(int count, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(count * 420).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            int provider = 1 + random.nextInt(40);
+            String updated = IsoDateParser.format(new Date(1_757_000_000_000L + random.nextInt(1_000_000_000)));
+            sb.append("{\"id\":").append(i + 1)
+                    .append(",\"name\":\"Producto ").append(i).append('"')
+                    .append(",\"category\":\"").append(CATEGORIES[random.nextInt(CATEGORIES.length)]).append('"')
+                    .append(",\"price\":").append(1 + random.nextInt(2000) / 100.0)
+                    .append(",\"stock\":").append(random.nextInt(500))
+                    .append(",\"description\":\"Cosecha de temporada, lote ").append(random.nextInt(10_000)).append('"')
+                    .append(",\"is_hidden\":").append(random.nextInt(20) == 0)
+                    .append(",\"stock_available\":").append(random.nextInt(5000) / 10.0)
+                    .append(",\"is_eco\":").append(random.nextBoolean())
+                    .append(",\"expiration_date\":\"").append(updated.substring(0, 10)).append('"')
+                    .append(",\"provider_id\":").append(provider)
+                    .append(",\"image_url\":").append(random.nextBoolean()
+                            ? "\"/static/uploads/p" + i + ".jpg\"" : "null")
+                    .append(",\"unit\":\"").append(UNITS[random.nextInt(UNITS.length)]).append('"')
+                    .append(",\"sellerType\":\"").append(provider % 3 == 0 ? "supermarket" : "farmer").append('"')
+                    .append(",\"provider_name\":\"Proveedor ").append(provider).append('"')
+                    .append(",\"provider_lat\":").append(40 + random.nextDouble())
+                    .append(",\"provider_lon\":").append(-3 - random.nextDouble())
+                    .append(",\"updated_at\":\"").append(updated).append("123\"")
+                    .append('}');
+        }
+        return sb.append(']').toString();
+    }
+}